@@ -0,0 +1,172 @@
+package com.dropalltables.benchmarks;
+
+import java.io.IOException;
+import java.io.InputStream;
+import java.nio.charset.StandardCharsets;
+import java.sql.Connection;
+import java.sql.DriverManager;
+import java.sql.PreparedStatement;
+import java.sql.ResultSet;
+import java.sql.SQLException;
+import java.sql.Statement;
+import java.time.LocalDate;
+import java.util.Locale;
+import java.util.Properties;
+
+import com.dropalltables.data.DaoException;
+import com.dropalltables.data.DataContext;
+
+/**
+ * Creates and seeds the embedded H2 database the benchmarks run against, and
+ * opens a DataContext on it.
+ *
+ * H2 runs in MSSQLServer mode, so the DAO queries run unchanged. Startup
+ * migrations and statement preparation are switched off because they use T-SQL
+ * that H2 does not understand, and so are the indexed views; the DAOs then use
+ * the same aggregating queries as on a server without them.
+ *
+ * The seed is deterministic: the same size always gives the same rows, so
+ * runs on different branches are comparable.
+ */
+public final class BenchmarkDatabase {
+
+    private static final String[] TITLES = { "Developer", "Senior Developer", "Architect", "Project Manager",
+            "Tester", "Designer" };
+    private static final LocalDate FIRST_START = LocalDate.of(2022, 1, 3);
+    private static final int BATCH_SIZE = 1000;
+
+    private BenchmarkDatabase() {
+    }
+
+    /**
+     * Returns the JDBC URL of the in-memory database of a size. The database
+     * lives until the JVM exits.
+     */
+    public static String url(DataSize size) {
+        return "jdbc:h2:mem:arcticbyte-" + size.name().toLowerCase(Locale.ROOT)
+                + ";MODE=MSSQLServer;DB_CLOSE_DELAY=-1";
+    }
+
+    /**
+     * Seeds the database of a size, if not done yet in this JVM, and opens a
+     * DataContext on it. Close the context when done.
+     */
+    public static DataContext open(DataSize size) throws SQLException, IOException, DaoException {
+        try (Connection connection = DriverManager.getConnection(url(size))) {
+            if (!isSeeded(connection)) {
+                createSchema(connection);
+                seed(connection, size);
+            }
+        }
+
+        Properties configuration = new Properties();
+        configuration.setProperty("database.url", url(size));
+        configuration.setProperty("database.migrations.migrateOnStartup", "false");
+        configuration.setProperty("database.statements.prepareOnStartup", "false");
+        configuration.setProperty("database.indexedViews", "false");
+        configuration.setProperty("database.pool.minSize", "1");
+        configuration.setProperty("database.pool.maxSize", "4");
+        return new DataContext(configuration);
+    }
+
+    private static boolean isSeeded(Connection connection) throws SQLException {
+        try (Statement statement = connection.createStatement();
+                ResultSet rs = statement.executeQuery("""
+                        SELECT COUNT(*) FROM INFORMATION_SCHEMA.TABLES
+                        WHERE UPPER(TABLE_NAME) = 'PROJECT_ASSIGNMENT'
+                        """)) {
+            rs.next();
+            return rs.getInt(1) > 0;
+        }
+    }
+
+    private static void createSchema(Connection connection) throws SQLException, IOException {
+        String script;
+        try (InputStream in = BenchmarkDatabase.class.getResourceAsStream("/schema-h2.sql")) {
+            if (in == null) {
+                throw new IOException("schema-h2.sql not found");
+            }
+            script = new String(in.readAllBytes(), StandardCharsets.UTF_8);
+        }
+        try (Statement statement = connection.createStatement()) {
+            for (String sql : script.replaceAll("(?m)^--.*$", "").split(";")) {
+                if (!sql.isBlank()) {
+                    statement.execute(sql);
+                }
+            }
+        }
+    }
+
+    // IDs are assigned in insert order in the new database, so row i gets ID i
+    private static void seed(Connection connection, DataSize size) throws SQLException {
+        connection.setAutoCommit(false);
+
+        try (PreparedStatement ps = connection.prepareStatement(
+                "INSERT INTO Consultant (ConsultantNo, ConsultantName, Title) VALUES (?, ?, ?)")) {
+            for (int c = 1; c <= size.consultants; c++) {
+                ps.setInt(1, 1000 + c);
+                ps.setString(2, "Consultant " + c);
+                ps.setString(3, TITLES[c % TITLES.length]);
+                addBatch(ps, c);
+            }
+            ps.executeBatch();
+        }
+
+        try (PreparedStatement ps = connection.prepareStatement(
+                "INSERT INTO Project (ProjectNo, ProjectName, StartDate, EndDate) VALUES (?, ?, ?, ?)")) {
+            for (int p = 1; p <= size.projects; p++) {
+                LocalDate start = FIRST_START.plusDays(p % 700);
+                ps.setInt(1, 100 + p);
+                ps.setString(2, "Project " + p);
+                ps.setObject(3, start.atStartOfDay());
+                // every fourth project is closed
+                ps.setObject(4, p % 4 == 0 ? start.plusMonths(6).atStartOfDay() : null);
+                addBatch(ps, p);
+            }
+            ps.executeBatch();
+        }
+
+        try (PreparedStatement ps = connection.prepareStatement(
+                "INSERT INTO Milestone (MilestoneNo, MilestoneName, MilestoneDate, ProjectID) VALUES (?, ?, ?, ?)")) {
+            int milestoneNo = 0;
+            for (int p = 1; p <= size.projects; p++) {
+                for (int m = 0; m < size.milestonesPerProject; m++) {
+                    milestoneNo++;
+                    ps.setInt(1, milestoneNo);
+                    ps.setString(2, "Milestone " + (m + 1));
+                    ps.setObject(3, FIRST_START.plusDays(p % 700 + 14L * m).atStartOfDay());
+                    ps.setInt(4, p);
+                    addBatch(ps, milestoneNo);
+                }
+            }
+            ps.executeBatch();
+        }
+
+        try (PreparedStatement ps = connection.prepareStatement(
+                "INSERT INTO Project_Assignment (ProjectID, ConsultantID, HoursWorked) VALUES (?, ?, ?)")) {
+            int count = 0;
+            for (int p = 1; p <= size.projects; p++) {
+                for (int j = 0; j < size.consultantsPerProject; j++) {
+                    // 31 has no common factor with the consultant counts, so
+                    // the consultants of one project are distinct
+                    int consultantID = (p * 7 + j * 31) % size.consultants + 1;
+                    ps.setInt(1, p);
+                    ps.setInt(2, consultantID);
+                    ps.setInt(3, (p * 13 + j * 17) % 200);
+                    addBatch(ps, ++count);
+                }
+            }
+            ps.executeBatch();
+        }
+
+        connection.commit();
+        connection.setAutoCommit(true);
+    }
+
+    private static void addBatch(PreparedStatement ps, int row) throws SQLException {
+        ps.addBatch();
+        if (row % BATCH_SIZE == 0) {
+            ps.executeBatch();
+        }
+    }
+}
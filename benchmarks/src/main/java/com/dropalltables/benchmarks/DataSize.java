@@ -0,0 +1,31 @@
+package com.dropalltables.benchmarks;
+
+/**
+ * The sizes the benchmark database is seeded at. Every project has the same
+ * number of consultants and milestones; a quarter of the projects are closed.
+ */
+public enum DataSize {
+    SMALL(100, 20, 10, 5),
+    MEDIUM(1_000, 200, 25, 10),
+    LARGE(10_000, 2_000, 50, 20);
+
+    public final int consultants;
+    public final int projects;
+    public final int consultantsPerProject;
+    public final int milestonesPerProject;
+
+    DataSize(int consultants, int projects, int consultantsPerProject, int milestonesPerProject) {
+        this.consultants = consultants;
+        this.projects = projects;
+        this.consultantsPerProject = consultantsPerProject;
+        this.milestonesPerProject = milestonesPerProject;
+    }
+
+    public int assignments() {
+        return projects * consultantsPerProject;
+    }
+
+    public int milestones() {
+        return projects * milestonesPerProject;
+    }
+}
@@ -0,0 +1,82 @@
+package com.dropalltables.benchmarks;
+
+import java.util.List;
+import java.util.concurrent.TimeUnit;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Level;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.TearDown;
+import org.openjdk.jmh.annotations.Warmup;
+
+import com.dropalltables.data.DaoConsultant;
+import com.dropalltables.data.DaoException;
+import com.dropalltables.data.DaoProjectAssignment;
+import com.dropalltables.data.DataContext;
+import com.dropalltables.models.Consultant;
+import com.dropalltables.models.ProjectAssignment;
+
+/**
+ * The DAO queries behind the project and consultant views, end to end: SQL,
+ * JDBC and row mapping. Reported both as throughput and as sampled latency,
+ * which gives the percentiles.
+ *
+ * The per-project calls rotate through all projects, so a run does not keep
+ * hitting the same rows.
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode({ Mode.Throughput, Mode.SampleTime })
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 3, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+public class QueryPathBenchmark {
+
+    @Param
+    public DataSize dataSize;
+
+    private DataContext dataContext;
+    private DaoProjectAssignment daoProjectAssignment;
+    private DaoConsultant daoConsultant;
+    private int nextProject;
+
+    @Setup(Level.Trial)
+    public void open() throws Exception {
+        dataContext = BenchmarkDatabase.open(dataSize);
+        daoProjectAssignment = dataContext.getDaoProjectAssignment();
+        daoConsultant = dataContext.getDaoConsultant();
+    }
+
+    @TearDown(Level.Trial)
+    public void close() {
+        dataContext.close();
+    }
+
+    private int nextProjectID() {
+        nextProject = nextProject % dataSize.projects + 1;
+        return nextProject;
+    }
+
+    @Benchmark
+    public List<ProjectAssignment> getAssignmentsWithConsultants() throws DaoException {
+        return daoProjectAssignment.getAssignmentsWithConsultants(nextProjectID());
+    }
+
+    @Benchmark
+    public List<Consultant> getAllWithProjectCount() throws DaoException {
+        return daoConsultant.getAllWithProjectCount();
+    }
+
+    @Benchmark
+    public boolean tooManyResources() throws DaoException {
+        return daoProjectAssignment.tooManyResources(nextProjectID());
+    }
+}
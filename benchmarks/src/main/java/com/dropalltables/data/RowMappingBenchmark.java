@@ -0,0 +1,140 @@
+package com.dropalltables.data;
+
+import java.sql.Connection;
+import java.sql.PreparedStatement;
+import java.sql.ResultSet;
+import java.sql.SQLException;
+import java.util.HashMap;
+import java.util.Map;
+import java.util.concurrent.TimeUnit;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Level;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OperationsPerInvocation;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.TearDown;
+import org.openjdk.jmh.annotations.Warmup;
+import org.openjdk.jmh.infra.Blackhole;
+
+import com.dropalltables.benchmarks.BenchmarkDatabase;
+import com.dropalltables.benchmarks.DataSize;
+import com.dropalltables.models.Project;
+
+/**
+ * The row mappers of the DAOs on their own: each invocation maps
+ * ROWS_PER_INVOCATION rows of an open, scrollable ResultSet, starting over at
+ * the first row when it runs out, so the query itself is not measured.
+ * Results are per row.
+ *
+ * Lives in the data package because instantiateProject and
+ * instantiateMilestone are package-private.
+ */
+@State(Scope.Thread)
+@BenchmarkMode({ Mode.Throughput, Mode.SampleTime })
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 3, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+public class RowMappingBenchmark {
+
+    static final int ROWS_PER_INVOCATION = 1000;
+
+    private static final String SELECT_PROJECTS = """
+            SELECT ProjectID, ProjectNo, ProjectName, StartDate, EndDate
+            FROM Project
+            """;
+
+    private static final String SELECT_CONSULTANTS = """
+            SELECT ConsultantID, ConsultantNo, ConsultantName, Title
+            FROM Consultant
+            """;
+
+    private static final String SELECT_MILESTONES = """
+            SELECT m.MilestoneNo, m.MilestoneName, m.MilestoneDate, m.ProjectID,
+                   p.ProjectNo, p.ProjectName, p.StartDate, p.EndDate
+            FROM Milestone m
+            JOIN Project p ON p.ProjectID = m.ProjectID
+            ORDER BY m.ProjectID, m.MilestoneDate
+            """;
+
+    @Param
+    public DataSize dataSize;
+
+    private DataContext dataContext;
+    private Connection connection;
+    private ResultSet projects;
+    private ResultSet consultants;
+    private ResultSet milestones;
+
+    @Setup(Level.Trial)
+    public void open() throws Exception {
+        dataContext = BenchmarkDatabase.open(dataSize);
+        connection = dataContext.getConnectionHandler().getConnection();
+        projects = query(SELECT_PROJECTS);
+        consultants = query(SELECT_CONSULTANTS);
+        milestones = query(SELECT_MILESTONES);
+    }
+
+    private ResultSet query(String sql) throws SQLException {
+        PreparedStatement statement = connection.prepareStatement(sql, ResultSet.TYPE_SCROLL_INSENSITIVE,
+                ResultSet.CONCUR_READ_ONLY);
+        return statement.executeQuery();
+    }
+
+    @TearDown(Level.Trial)
+    public void close() throws SQLException {
+        for (ResultSet rs : new ResultSet[] { projects, consultants, milestones }) {
+            rs.getStatement().close();
+        }
+        connection.close();
+        dataContext.close();
+    }
+
+    private static void next(ResultSet rs) throws SQLException {
+        if (!rs.next()) {
+            rs.beforeFirst();
+            rs.next();
+        }
+    }
+
+    @Benchmark
+    @OperationsPerInvocation(ROWS_PER_INVOCATION)
+    public void instantiateProject(Blackhole blackhole) throws SQLException, DaoException {
+        DaoProject daoProject = dataContext.getDaoProject();
+        for (int i = 0; i < ROWS_PER_INVOCATION; i++) {
+            next(projects);
+            blackhole.consume(daoProject.instantiateProject(projects));
+        }
+    }
+
+    @Benchmark
+    @OperationsPerInvocation(ROWS_PER_INVOCATION)
+    public void instantiateConsultant(Blackhole blackhole) throws SQLException {
+        DaoConsultant daoConsultant = dataContext.getDaoConsultant();
+        for (int i = 0; i < ROWS_PER_INVOCATION; i++) {
+            next(consultants);
+            blackhole.consume(daoConsultant.instantiateConsultant(consultants));
+        }
+    }
+
+    // A fresh project map per invocation, as for one query: the first
+    // milestone of each project also resolves the project through the cache
+    @Benchmark
+    @OperationsPerInvocation(ROWS_PER_INVOCATION)
+    public void instantiateMilestone(Blackhole blackhole) throws SQLException, DaoException {
+        DaoMilestone daoMilestone = dataContext.getDaoMilestone();
+        Map<Integer, Project> resolved = new HashMap<>();
+        for (int i = 0; i < ROWS_PER_INVOCATION; i++) {
+            next(milestones);
+            blackhole.consume(daoMilestone.instantiateMilestone(milestones, resolved));
+        }
+    }
+}
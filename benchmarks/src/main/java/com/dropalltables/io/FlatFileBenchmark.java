@@ -0,0 +1,116 @@
+package com.dropalltables.io;
+
+import java.io.IOException;
+import java.nio.channels.FileChannel;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardOpenOption;
+import java.time.LocalDate;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.TimeUnit;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Level;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OperationsPerInvocation;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.TearDown;
+import org.openjdk.jmh.annotations.Warmup;
+import org.openjdk.jmh.infra.Blackhole;
+
+/**
+ * Writing and reading the flat files of FlatFileExport and FlatFileImport,
+ * without the database: ROWS project rows are written to a temporary file, or
+ * read back and mapped to Projects as the import does. Results are per row.
+ *
+ * Lives in the io package because the reader, writer and tables are
+ * package-private.
+ */
+@State(Scope.Thread)
+@BenchmarkMode({ Mode.Throughput, Mode.SampleTime })
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 3, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+public class FlatFileBenchmark {
+
+    static final int ROWS = 100_000;
+
+    @Param
+    public FlatFileFormat format;
+
+    private final List<Object[]> rows = new ArrayList<>(ROWS);
+    private Path written;
+    private Path read;
+
+    @Setup(Level.Trial)
+    public void setUp() throws IOException {
+        LocalDate start = LocalDate.of(2022, 1, 3);
+        for (int p = 1; p <= ROWS; p++) {
+            LocalDate startDate = start.plusDays(p % 700);
+            rows.add(new Object[] { 100 + p, "Project \"" + p + "\", phase " + (p % 3 + 1), startDate,
+                    p % 4 == 0 ? startDate.plusMonths(6) : null, p % 50, (long) p * 13 % 10_000 });
+        }
+        written = Files.createTempFile("projects", format.extension());
+        read = Files.createTempFile("projects", format.extension());
+        write(read);
+    }
+
+    @TearDown(Level.Trial)
+    public void tearDown() throws IOException {
+        Files.deleteIfExists(written);
+        Files.deleteIfExists(read);
+    }
+
+    private void write(Path path) throws IOException {
+        try (FlatFileWriter writer = new FlatFileWriter(FileChannel.open(path, StandardOpenOption.WRITE,
+                StandardOpenOption.TRUNCATE_EXISTING), format, ExportTable.PROJECTS.keys())) {
+            for (Object[] row : rows) {
+                writer.writeRow(row);
+            }
+        }
+    }
+
+    @Benchmark
+    @OperationsPerInvocation(ROWS)
+    public void write() throws IOException {
+        write(written);
+    }
+
+    @Benchmark
+    @OperationsPerInvocation(ROWS)
+    public void readAndMap(Blackhole blackhole) throws IOException {
+        try (FlatFileReader reader = new FlatFileReader(read, format)) {
+            reader.read(new FlatFileReader.RowHandler() {
+                private List<String> names;
+                private int[] columns;
+
+                @Override
+                public void row(long rowNumber, List<String> names, List<Object> values) throws IOException {
+                    if (!names.equals(this.names)) {
+                        this.names = List.copyOf(names);
+                        columns = ImportTable.PROJECTS.columns(names, new ArrayList<>());
+                    }
+                    try {
+                        blackhole.consume(ImportTable.PROJECTS.map(columns, values));
+                    } catch (ImportTable.InvalidRowException e) {
+                        throw new IOException("Row " + rowNumber + ": " + e.getMessage(), e);
+                    }
+                }
+
+                @Override
+                public void invalid(long rowNumber, String message) throws IOException {
+                    throw new IOException("Row " + rowNumber + ": " + message);
+                }
+            });
+        }
+    }
+}
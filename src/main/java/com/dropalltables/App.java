@@ -1,20 +1,84 @@
 package com.dropalltables;
 
 import com.dropalltables.controllers.AppController;
+import com.dropalltables.data.DaoException;
+import com.dropalltables.data.DataContext;
+import com.dropalltables.util.AlertUtil;
 
 import javafx.application.Application;
+import javafx.application.Platform;
+import javafx.geometry.Insets;
+import javafx.scene.Scene;
+import javafx.scene.control.Label;
+import javafx.scene.control.ProgressIndicator;
+import javafx.scene.layout.VBox;
 import javafx.stage.Stage;
+import javafx.stage.StageStyle;
 
 public class App extends Application {
+    private volatile DataContext dataContext;
+    private volatile boolean stopped;
+
     public static void main(String[] args) {
         launch(args);
     }
 
     @Override
     public void start(Stage primaryStage) {
+        Stage splash = showSplash();
+
+        // Migrating, preparing the statements and priming the totals take a
+        // few round trips, so the context is opened off the FX thread
+        Thread.ofVirtual().name("startup").start(() -> {
+            try {
+                DataContext opened = new DataContext();
+                // the tables show the cached instances, so only the FX thread changes them
+                opened.setEntityUpdateExecutor(Platform::runLater);
+                dataContext = opened;
+                if (stopped) {
+                    // the splash was closed while the context was opening
+                    opened.close();
+                    return;
+                }
+                Platform.runLater(() -> {
+                    showMainWindow(primaryStage, opened);
+                    splash.close();
+                });
+            } catch (DaoException e) {
+                Platform.runLater(() -> {
+                    AlertUtil.showError("Error", e.getMessage());
+                    Platform.exit();
+                });
+            }
+        });
+    }
+
+    private Stage showSplash() {
+        VBox box = new VBox(12, new ProgressIndicator(), new Label("Connecting to the database..."));
+        box.setPadding(new Insets(24));
+        box.setStyle("-fx-alignment: center;");
+
+        Stage splash = new Stage(StageStyle.UTILITY);
+        splash.setTitle("Arctic Byte");
+        splash.setScene(new Scene(box));
+        splash.setOnCloseRequest(event -> Platform.exit());
+        splash.show();
+        return splash;
+    }
+
+    private void showMainWindow(Stage primaryStage, DataContext dataContext) {
         primaryStage.setTitle("Arctic Byte");
-        AppController appController = new AppController(primaryStage);
+        AppController appController = new AppController(primaryStage, dataContext);
         appController.showPrimaryStage();
         appController.changeView("ProjectsView");
     }
-}
\ No newline at end of file
+
+    @Override
+    public void stop() {
+        // Called on Platform.exit() and when the last window closes
+        stopped = true;
+        if (dataContext != null) {
+            dataContext.close();
+        }
+    }
+}
@@ -2,6 +2,8 @@ package com.dropalltables.controllers;
 
 import java.io.IOException;
 
+import com.dropalltables.data.DataContext;
+
 import javafx.fxml.FXMLLoader;
 import javafx.scene.Parent;
 import javafx.scene.Scene;
@@ -9,15 +11,22 @@ import javafx.stage.Stage;
 
 public class AppController {
     private final Stage primaryStage;
+    private final DataContext dataContext;
     private MainViewController mainViewController;
 
-    public AppController(Stage primaryStage) {
+    public AppController(Stage primaryStage, DataContext dataContext) {
         this.primaryStage = primaryStage;
+        this.dataContext = dataContext;
+    }
+
+    public DataContext getDataContext() {
+        return dataContext;
     }
 
     public void showPrimaryStage() {
         try {
             FXMLLoader loader = new FXMLLoader(getClass().getResource("/fxml/MainView.fxml"));
+            loader.setControllerFactory(this::createController);
             Parent root = loader.load();
             Scene scene = new Scene(root);
             primaryStage.setScene(scene);
@@ -40,6 +49,7 @@ public class AppController {
         }
 
         FXMLLoader loader = new FXMLLoader(getClass().getResource("/fxml/" + viewName + ".fxml"));
+        loader.setControllerFactory(this::createController);
         try {
             Parent content = loader.load();
             mainViewController.getScrollPaneContent().setContent(content);
@@ -48,4 +58,21 @@ public class AppController {
             System.out.println("Could not load view: " + viewName);
         }
     }
+
+    /**
+     * Controller factory for FXMLLoader.
+     * Controllers that declare a constructor taking a DataContext receive the
+     * application's context; all others are created with their no-arg constructor.
+     */
+    private Object createController(Class<?> type) {
+        try {
+            try {
+                return type.getConstructor(DataContext.class).newInstance(dataContext);
+            } catch (NoSuchMethodException e) {
+                return type.getConstructor().newInstance();
+            }
+        } catch (ReflectiveOperationException e) {
+            throw new IllegalStateException("Could not create controller: " + type.getName(), e);
+        }
+    }
 }
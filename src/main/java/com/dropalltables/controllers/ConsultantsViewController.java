@@ -1,13 +1,23 @@
 package com.dropalltables.controllers;
 
 import java.io.IOException;
+import java.util.ArrayList;
 import java.util.List;
 
+import com.dropalltables.data.AggregateStore;
+import com.dropalltables.data.CancellationToken;
+import com.dropalltables.data.ConsultantFilter;
+import com.dropalltables.data.ConsultantSummary;
 import com.dropalltables.data.DaoConsultant;
-import com.dropalltables.data.DaoException;
+import com.dropalltables.data.DataContext;
+import com.dropalltables.data.Page;
 import com.dropalltables.models.Consultant;
 import com.dropalltables.util.AlertUtil;
+import com.dropalltables.util.FxAsync;
+import com.dropalltables.util.ScrollUtil;
+import com.dropalltables.util.SelectionLoadCoordinator;
 
+import javafx.animation.PauseTransition;
 import javafx.collections.FXCollections;
 import javafx.collections.ObservableList;
 import javafx.fxml.FXML;
@@ -17,12 +27,14 @@ import javafx.scene.Scene;
 import javafx.scene.control.Alert;
 import javafx.scene.control.ButtonType;
 import javafx.scene.control.Label;
+import javafx.scene.control.ProgressIndicator;
 import javafx.scene.control.TableColumn;
 import javafx.scene.control.TableView;
 import javafx.scene.control.TextField;
 import javafx.scene.control.cell.PropertyValueFactory;
 import javafx.stage.Modality;
 import javafx.stage.Stage;
+import javafx.util.Duration;
 
 public class ConsultantsViewController {
 
@@ -58,22 +70,41 @@ public class ConsultantsViewController {
     private TextField textFieldFilterTitle;
     @FXML
     private TextField textFieldFilterProjects;
+    @FXML
+    private ProgressIndicator progressBusy;
 
     private final ObservableList<Consultant> consultantData = FXCollections.observableArrayList();
-    private List<Consultant> allConsultantsCache;
+    // Filter of the listing currently shown and the token for its next page
+    private ConsultantFilter currentFilter = ConsultantFilter.NONE;
+    private String nextPageToken;
+    // The listing query in flight, if any; cancelled when a newer one starts
+    private CancellationToken consultantsQuery;
+    // Waits for a pause in typing before querying with the new filters
+    private final PauseTransition filterDebounce = new PauseTransition(Duration.millis(250));
+    // Loads the info box for the selected consultant, skipping rows passed over quickly
+    private final SelectionLoadCoordinator<Consultant> infoLoads = new SelectionLoadCoordinator<>(
+            Duration.millis(150), this::showConsultantInfo, this::clearConsultantInfo);
+
+    private final FxAsync async;
+
+    public ConsultantsViewController(DataContext dataContext) {
+        this.async = new FxAsync(dataContext.getAsyncDao());
+    }
 
     @FXML
     public void initialize() {
         setupTableColumns();
         loadConsultantsFromDatabase();
 
-        tableViewConsultants.getSelectionModel().selectedItemProperty()
-                .addListener((obs, o, n) -> showConsultantInfo(n));
+        infoLoads.attach(tableViewConsultants.getSelectionModel().selectedItemProperty());
+        ScrollUtil.onScrolledToEnd(tableViewConsultants, this::loadNextPage);
+        progressBusy.visibleProperty().bind(async.busyProperty());
 
-        textFieldFilterNo.textProperty().addListener((obs, o, n) -> refreshVisibleConsultants());
-        textFieldFilterName.textProperty().addListener((obs, o, n) -> refreshVisibleConsultants());
-        textFieldFilterTitle.textProperty().addListener((obs, o, n) -> refreshVisibleConsultants());
-        textFieldFilterProjects.textProperty().addListener((obs, o, n) -> refreshVisibleConsultants());
+        filterDebounce.setOnFinished(e -> refreshVisibleConsultants());
+        textFieldFilterNo.textProperty().addListener((obs, o, n) -> scheduleFilters());
+        textFieldFilterName.textProperty().addListener((obs, o, n) -> scheduleFilters());
+        textFieldFilterTitle.textProperty().addListener((obs, o, n) -> scheduleFilters());
+        textFieldFilterProjects.textProperty().addListener((obs, o, n) -> scheduleFilters());
     }
 
     private void setupTableColumns() {
@@ -84,25 +115,26 @@ public class ConsultantsViewController {
         tableViewConsultants.setItems(consultantData);
     }
 
-    /** Load all consultants with project counts and display them. */
+    /** Reloads the first page of consultants for the current filters. */
     private void loadConsultantsFromDatabase() {
-        try {
-            DaoConsultant daoCon = new DaoConsultant();
-            allConsultantsCache = daoCon.getAllWithProjectCount();
-            // initial table contents
-            consultantData.setAll(allConsultantsCache);
-            // initial label shows total consultants
-            labelConsultantCount.setText("Total consultants: " + allConsultantsCache.size());
-        } catch (DaoException e) {
-            AlertUtil.showError("Error", e.getMessage());
-        }
+        refreshVisibleConsultants();
+    }
+
+    /**
+     * Restarts the debounce timer after a keystroke. The query that is still
+     * running for the previous text is cancelled right away.
+     */
+    private void scheduleFilters() {
+        cancelConsultantsQuery();
+        filterDebounce.playFromStart();
     }
 
-    /** Applies all filters and updates the label text accordingly. */
+    /**
+     * Applies all filters in the database, shows the first page of matching
+     * consultants and updates the label text accordingly.
+     */
     private void refreshVisibleConsultants() {
-        String filterNo = textFieldFilterNo.getText().trim();
-        String filterName = textFieldFilterName.getText().toLowerCase().trim();
-        String filterTitle = textFieldFilterTitle.getText().toLowerCase().trim();
+        filterDebounce.stop();
         String filterProj = textFieldFilterProjects.getText().trim();
 
         Integer maxProjects = null;
@@ -114,24 +146,90 @@ public class ConsultantsViewController {
             } catch (NumberFormatException ignored) {
                 /* ignore bad input */ }
         }
-        final Integer limit = maxProjects;
-
-        consultantData.setAll(
-                allConsultantsCache.stream()
-                        .filter(c -> filterNo.isEmpty() || String.valueOf(c.getConsultantNo()).startsWith(filterNo))
-                        .filter(c -> filterName.isEmpty() || c.getName().toLowerCase().contains(filterName))
-                        .filter(c -> filterTitle.isEmpty() || c.getTitle().toLowerCase().contains(filterTitle))
-                        .filter(c -> limit == null || c.getProjectCount() <= limit)
-                        .toList());
-
-        // decide if any filter is active
-        boolean anyFilter = !filterNo.isEmpty() || !filterName.isEmpty() || !filterTitle.isEmpty() || limit != null;
-
-        if (anyFilter) {
-            labelConsultantCount.setText("Filtered consultants: " + consultantData.size());
-        } else {
-            labelConsultantCount.setText("Total consultants: " + allConsultantsCache.size());
+
+        currentFilter = new ConsultantFilter(
+                textFieldFilterNo.getText(),
+                textFieldFilterName.getText(),
+                textFieldFilterTitle.getText(),
+                maxProjects);
+
+        cancelConsultantsQuery();
+        CancellationToken query = new CancellationToken();
+        consultantsQuery = query;
+        ConsultantFilter filter = currentFilter;
+
+        async.supply(dc -> {
+            DaoConsultant daoCon = dc.getDaoConsultant();
+            return new Listing(daoCon.getConsultantsPage(filter, null, daoCon.getDefaultPageSize(), query),
+                    daoCon.countConsultants(filter, query));
+        }, listing -> {
+            if (consultantsQuery != query)
+                return;
+            consultantsQuery = null;
+            consultantData.setAll(withProjectCounts(listing.page()));
+            nextPageToken = listing.page().getNextPageToken();
+
+            if (filter.isEmpty()) {
+                labelConsultantCount.setText("Total consultants: " + listing.count());
+            } else {
+                labelConsultantCount.setText("Filtered consultants: " + listing.count());
+            }
+        }, error -> {
+            if (consultantsQuery != query)
+                return;
+            consultantsQuery = null;
+            nextPageToken = null;
+            FxAsync.showError(error);
+        });
+    }
+
+    private void cancelConsultantsQuery() {
+        if (consultantsQuery != null) {
+            consultantsQuery.cancel();
+            consultantsQuery = null;
+        }
+    }
+
+    /**
+     * Sets the project counts the page query filtered on. The consultants are
+     * the shared cached instances the table shows, so this runs on the FX
+     * thread.
+     */
+    private static List<Consultant> withProjectCounts(Page<ConsultantSummary> page) {
+        List<Consultant> consultants = new ArrayList<>(page.getItems().size());
+        for (ConsultantSummary summary : page.getItems()) {
+            summary.consultant().setProjectCount(summary.projectCount());
+            consultants.add(summary.consultant());
         }
+        return consultants;
+    }
+
+    /** First page of a listing together with the number of matching consultants. */
+    private record Listing(Page<ConsultantSummary> page, int count) {
+    }
+
+    /** Appends the next page of the current listing when scrolled to the end. */
+    private void loadNextPage() {
+        if (nextPageToken == null || consultantsQuery != null)
+            return;
+        CancellationToken query = new CancellationToken();
+        consultantsQuery = query;
+        ConsultantFilter filter = currentFilter;
+        String pageToken = nextPageToken;
+        async.supply(dc -> dc.getDaoConsultant().getConsultantsPage(filter, pageToken,
+                dc.getDaoConsultant().getDefaultPageSize(), query), page -> {
+                    if (consultantsQuery != query)
+                        return;
+                    consultantsQuery = null;
+                    nextPageToken = page.getNextPageToken();
+                    consultantData.addAll(withProjectCounts(page));
+                }, error -> {
+                    if (consultantsQuery != query)
+                        return;
+                    consultantsQuery = null;
+                    nextPageToken = null;
+                    FxAsync.showError(error);
+                });
     }
 
     // === CRUD Buttons ===
@@ -150,13 +248,11 @@ public class ConsultantsViewController {
 
             Consultant newConsultant = controller.getConsultant();
             if (newConsultant != null) {
-                new DaoConsultant().insertConsultant(newConsultant);
-                loadConsultantsFromDatabase();
+                async.run(dc -> dc.getDaoConsultant().insertConsultant(newConsultant),
+                        this::loadConsultantsFromDatabase);
             }
         } catch (IOException e) {
             AlertUtil.showError("Error", "Failed to load dialog");
-        } catch (DaoException e) {
-            AlertUtil.showError("Error", e.getMessage());
         }
     }
 
@@ -181,13 +277,11 @@ public class ConsultantsViewController {
 
             Consultant updated = controller.getConsultant();
             if (updated != null) {
-                new DaoConsultant().updateConsultant(selected.getConsultantNo(), updated);
-                loadConsultantsFromDatabase();
+                async.run(dc -> dc.getDaoConsultant().updateConsultant(selected.getConsultantNo(), updated),
+                        this::loadConsultantsFromDatabase);
             }
         } catch (IOException e) {
             AlertUtil.showError("Error", "Failed to load dialog");
-        } catch (DaoException e) {
-            AlertUtil.showError("Error", e.getMessage());
         }
     }
 
@@ -205,35 +299,39 @@ public class ConsultantsViewController {
         confirm.setHeaderText(null);
         confirm.showAndWait().ifPresent(r -> {
             if (r == ButtonType.YES) {
-                try {
-                    new DaoConsultant().deleteConsultant(selected.getConsultantNo());
-                    loadConsultantsFromDatabase();
-                } catch (DaoException e) {
-                    AlertUtil.showError("Error", e.getMessage());
-                }
+                async.run(dc -> dc.getDaoConsultant().deleteConsultant(selected.getConsultantNo()),
+                        this::loadConsultantsFromDatabase);
             }
         });
     }
 
-    private void showConsultantInfo(Consultant c) {
-        if (c == null) {
-            clearConsultantInfo();
-            return;
-        }
-        try {
-            int hours = new com.dropalltables.data.DaoProjectAssignment()
-                    .totalHoursForConsultant(
-                            new com.dropalltables.data.DaoConsultant()
-                                    .getConsultantID(c.getConsultantNo()));
+    private void showConsultantInfo(Consultant c, CancellationToken cancellation) {
+        // The totals come from the aggregate store; only a stale store reads the database
+        async.supply(dc -> {
+            AggregateStore aggregates = dc.getAggregateStore();
+            aggregates.refreshIfStale();
+            int consultantID = dc.getDaoConsultant().getConsultantID(c.getConsultantNo());
+            return new ConsultantTotals(aggregates.consultantProjectCount(consultantID),
+                    aggregates.consultantHours(consultantID));
+        }, totals -> {
+            // Another consultant may have been selected while the totals were loading
+            if (!infoLoads.isCurrent(cancellation))
+                return;
             labelConsultantNo.setText("No: " + c.getConsultantNo());
             labelConsultantName.setText("Name: " + c.getName());
             labelConsultantTitle.setText("Title: " + c.getTitle());
-            labelConsultantAssignments.setText("Projects: " + c.getProjectCount());
-            labelConsultantHours.setText("Total hours worked: " + hours);
-        } catch (DaoException e) {
-            AlertUtil.showError("Error", e.getMessage());
+            labelConsultantAssignments.setText("Projects: " + totals.projects());
+            labelConsultantHours.setText("Total hours worked: " + totals.hours());
+        }, error -> {
+            if (!infoLoads.isCurrent(cancellation))
+                return;
+            FxAsync.showError(error);
             clearConsultantInfo();
-        }
+        });
+    }
+
+    /** Project count and hours of the selected consultant. */
+    private record ConsultantTotals(int projects, int hours) {
     }
 
     private void clearConsultantInfo() {
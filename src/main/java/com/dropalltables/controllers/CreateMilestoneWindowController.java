@@ -2,11 +2,11 @@ package com.dropalltables.controllers;
 
 import java.time.LocalDate;
 
-import com.dropalltables.data.DaoException;
-import com.dropalltables.data.DaoMilestone;
+import com.dropalltables.data.DataContext;
 import com.dropalltables.models.Milestone;
 import com.dropalltables.models.Project;
 import com.dropalltables.util.AlertUtil;
+import com.dropalltables.util.FxAsync;
 
 import javafx.fxml.FXML;
 import javafx.scene.control.Button;
@@ -53,12 +53,20 @@ public class CreateMilestoneWindowController {
     private Project project; // project this milestone belongs to
     private boolean editing = false; // true when editing an existing milestone
 
+    private final FxAsync async;
+
+    public CreateMilestoneWindowController(DataContext dataContext) {
+        this.async = new FxAsync(dataContext.getAsyncDao());
+    }
+
     // ------------------------------------------------------------------------
     // --- Init
     // ------------------------------------------------------------------------
     public void initialize() {
         // Default the date to today when creating a brand-new milestone
         datePickerMilestoneDate.setValue(LocalDate.now());
+        // No second click while the milestone number is being checked
+        buttonOk.disableProperty().bind(async.busyProperty());
     }
 
     /**
@@ -168,20 +176,22 @@ public class CreateMilestoneWindowController {
 
         // --- Uniqueness check only when creating
         if (!editing) {
-            try {
-                DaoMilestone dao = new DaoMilestone();
-                if (dao.milestoneNoExists(milestoneNo)) {
+            async.supply(dc -> dc.getDaoMilestone().milestoneNoExists(milestoneNo), exists -> {
+                if (exists) {
                     AlertUtil.showError("Duplicate Milestone Number",
                             "Milestone number " + milestoneNo + " already exists. Please choose a different number.");
                     return;
                 }
-            } catch (DaoException e) {
-                AlertUtil.showError("Error", e.getMessage());
-                return;
-            }
+                completeMilestone(milestoneNo, name, date);
+            });
+            return;
         }
 
-        // --- Construct the result object
+        completeMilestone(milestoneNo, name, date);
+    }
+
+    /** Constructs the result object and closes the dialog. */
+    private void completeMilestone(int milestoneNo, String name, LocalDate date) {
         milestone = new Milestone(milestoneNo, name.trim(), date, project);
         closeWindow();
     }
@@ -2,10 +2,10 @@ package com.dropalltables.controllers;
 
 import java.time.LocalDate;
 
-import com.dropalltables.data.DaoException;
-import com.dropalltables.data.DaoProject;
+import com.dropalltables.data.DataContext;
 import com.dropalltables.models.Project;
 import com.dropalltables.util.AlertUtil;
+import com.dropalltables.util.FxAsync;
 
 import javafx.fxml.FXML;
 import javafx.scene.control.Button;
@@ -31,6 +31,18 @@ public class CreateProjectWindowController {
 
     private Project project; // holds either a new or existing project
 
+    private final FxAsync async;
+
+    public CreateProjectWindowController(DataContext dataContext) {
+        this.async = new FxAsync(dataContext.getAsyncDao());
+    }
+
+    @FXML
+    public void initialize() {
+        // No second click while the project number is being checked
+        buttonOk.disableProperty().bind(async.busyProperty());
+    }
+
     /** Pre-fills form when editing */
     public void setProjectForEdit(Project project) {
         if (project != null) {
@@ -84,19 +96,16 @@ public class CreateProjectWindowController {
 
         if (project == null) {
             // Creating new - check if project number already exists
-            try {
-                DaoProject dao = new DaoProject();
-                if (dao.getProjectByNo(projectNo) != null) {
+            async.supply(dc -> dc.getDaoProject().getProjectByNo(projectNo) != null, exists -> {
+                if (exists) {
                     AlertUtil.showError("Duplicate Project Number", 
                         "Project number " + projectNo + " already exists. Please choose a different number.");
                     return; // keep window open
                 }
-            } catch (DaoException e) {
-                AlertUtil.showError("Error", "Failed to check project number: " + e.getMessage());
-                return; // keep window open
-            }
-            
-            project = new Project(projectNo, name, startDate, endDate);
+                project = new Project(projectNo, name, startDate, endDate);
+                closeWindow();
+            }, error -> AlertUtil.showError("Error", "Failed to check project number: " + FxAsync.messageOf(error)));
+            return;
         } else {
             // Updating existing
             project.setProjectNo(projectNo);
@@ -3,15 +3,24 @@ package com.dropalltables.controllers;
 import java.awt.Desktop;
 import java.io.File;
 import java.io.IOException;
+import java.nio.file.Path;
+import java.time.LocalDate;
 import java.util.ArrayList;
 import java.util.List;
 
-import com.dropalltables.data.DaoConsultant;
-import com.dropalltables.data.DaoException;
-import com.dropalltables.data.DaoProject;
-import com.dropalltables.data.DaoProjectAssignment;
-import com.dropalltables.models.Consultant;
+import com.dropalltables.data.CancellationToken;
+import com.dropalltables.data.Report;
+import com.dropalltables.data.ReportEngine;
+import com.dropalltables.data.ReportSection;
+import com.dropalltables.io.ExcelImport;
+import com.dropalltables.io.FlatFileExport;
+import com.dropalltables.io.FlatFileFormat;
+import com.dropalltables.io.FlatFileImport;
+import com.dropalltables.io.ImportReport;
+import com.dropalltables.io.XlsxExport;
 import com.dropalltables.util.AlertUtil;
+import com.dropalltables.util.FxAsync;
+import com.dropalltables.util.ProgressDialog;
 
 import javafx.application.Platform;
 import javafx.event.ActionEvent;
@@ -19,6 +28,8 @@ import javafx.fxml.FXML;
 import javafx.scene.Node;
 import javafx.scene.control.Button;
 import javafx.scene.control.ScrollPane;
+import javafx.stage.DirectoryChooser;
+import javafx.stage.FileChooser;
 
 /**
  * Main application frame:
@@ -31,6 +42,7 @@ public class MainViewController {
     // UI references
     // --------------------------------------------------------------------
     private AppController appController;
+    private FxAsync async;
 
     @FXML
     private ScrollPane scrollPaneContent;
@@ -41,6 +53,8 @@ public class MainViewController {
     private Button buttonConsultants;
     @FXML
     private Button buttonMetadata;
+    @FXML
+    private Button buttonExcel;
 
     private List<Node> navigationItems;
 
@@ -60,6 +74,7 @@ public class MainViewController {
 
     public void setAppController(AppController appController) {
         this.appController = appController;
+        this.async = new FxAsync(appController.getDataContext().getAsyncDao());
     }
 
     public ScrollPane getScrollPaneContent() {
@@ -102,24 +117,51 @@ public class MainViewController {
 
     // --------------------------------------------------------------------
     // Excel export button
+    // Streams the live database into a workbook chosen by the user, showing
+    // progress; cancelling stops the running query and keeps any old file.
     // --------------------------------------------------------------------
     @FXML
     public void handleButtonExcelClickEvent() {
+        FileChooser chooser = new FileChooser();
+        chooser.setTitle("Excel Export");
+        chooser.getExtensionFilters().add(new FileChooser.ExtensionFilter("Excel workbook (*.xlsx)", "*.xlsx"));
+        chooser.setInitialFileName("db_export_" + LocalDate.now() + ".xlsx");
+        File file = chooser.showSaveDialog(scrollPaneContent.getScene().getWindow());
+        if (file == null) {
+            return;
+        }
+
+        CancellationToken cancellation = new CancellationToken();
+        ProgressDialog dialog = new ProgressDialog("Excel Export", "Exporting to " + file.getName(),
+                cancellation::cancel);
+        dialog.update(-1, "Preparing export...");
+        dialog.show();
+        buttonExcel.setDisable(true);
+
+        XlsxExport.ProgressListener listener = (rows, estimated) -> dialog.update(
+                estimated > 0 ? (double) rows / estimated : -1, String.format("%,d rows written", rows));
+
+        async.supply(dc -> new XlsxExport(dc, cancellation, listener).exportTo(file.toPath()), rows -> {
+            buttonExcel.setDisable(false);
+            dialog.close();
+            openExport(file, rows);
+        }, error -> {
+            buttonExcel.setDisable(false);
+            dialog.close();
+            FxAsync.showError(error);
+        });
+    }
+
+    private static void openExport(File file, long rows) {
+        String exported = String.format("Exported %,d rows to %s.", rows, file.getAbsolutePath());
         try {
-            File file = new File("data/db_export.xlsx");
-            if (!file.exists()) {
-                AlertUtil.showInfo("File not found",
-                        "The file 'db_export.xlsx' was not found in /data.");
-                return;
-            }
-            if (Desktop.isDesktopSupported()) {
+            if (Desktop.isDesktopSupported() && Desktop.getDesktop().isSupported(Desktop.Action.OPEN)) {
                 Desktop.getDesktop().open(file);
             } else {
-                AlertUtil.showError("Not supported",
-                        "Opening Excel files is not supported on this system.");
+                AlertUtil.showInfo("Excel Export", exported);
             }
         } catch (IOException e) {
-            AlertUtil.showError("Error", "Failed to open Excel file.");
+            AlertUtil.showInfo("Excel Export", exported + "\nThe file could not be opened on this system.");
         }
     }
 
@@ -132,52 +174,192 @@ public class MainViewController {
         Platform.exit();
     }
 
+    // --------------------------------------------------------------------
+    // Menu: File → Import Excel files
+    // Imports every workbook in a chosen folder (see ExcelImport) and shows
+    // a summary with the rows that could not be imported.
+    // --------------------------------------------------------------------
+    @FXML
+    public void handleMenuImportExcel() {
+        DirectoryChooser chooser = new DirectoryChooser();
+        chooser.setTitle("Import Excel files");
+        File directory = chooser.showDialog(scrollPaneContent.getScene().getWindow());
+        if (directory == null) {
+            return;
+        }
+
+        CancellationToken cancellation = new CancellationToken();
+        ProgressDialog dialog = new ProgressDialog("Excel Import", "Importing " + directory.getName(),
+                cancellation::cancel);
+        dialog.update(-1, "Looking for workbooks...");
+        dialog.show();
+
+        ExcelImport.ProgressListener listener = (fraction, rows) -> dialog.update(fraction,
+                String.format("%,d rows read", rows));
+
+        async.supply(dc -> new ExcelImport(dc, cancellation, listener).importDirectory(directory.toPath()),
+                report -> {
+                    dialog.close();
+                    if (report.errorCount() == 0) {
+                        AlertUtil.showInfo("Excel Import", formatImportReport(report));
+                    } else {
+                        AlertUtil.showWarning("Excel Import", formatImportReport(report));
+                    }
+                }, error -> {
+                    dialog.close();
+                    FxAsync.showError(error);
+                });
+    }
+
+    // --------------------------------------------------------------------
+    // Menu: File → Import CSV/NDJSON files
+    // Imports the chosen flat files, one table per file (see FlatFileImport).
+    // --------------------------------------------------------------------
+    @FXML
+    public void handleMenuImportFlatFiles() {
+        FileChooser chooser = new FileChooser();
+        chooser.setTitle("Import CSV/NDJSON files");
+        chooser.getExtensionFilters().add(new FileChooser.ExtensionFilter(
+                "CSV and NDJSON files (*.csv, *.ndjson, *.jsonl)", "*.csv", "*.ndjson", "*.jsonl"));
+        List<File> files = chooser.showOpenMultipleDialog(scrollPaneContent.getScene().getWindow());
+        if (files == null || files.isEmpty()) {
+            return;
+        }
+
+        CancellationToken cancellation = new CancellationToken();
+        ProgressDialog dialog = new ProgressDialog("File Import", "Importing " + files.size() + " file(s)",
+                cancellation::cancel);
+        dialog.update(-1, "Reading files...");
+        dialog.show();
+
+        FlatFileImport.ProgressListener listener = (fraction, rows) -> dialog.update(fraction,
+                String.format("%,d rows read", rows));
+        List<Path> paths = files.stream().map(File::toPath).toList();
+
+        async.supply(dc -> new FlatFileImport(dc, cancellation, listener).importFiles(paths),
+                report -> {
+                    dialog.close();
+                    if (report.errorCount() == 0) {
+                        AlertUtil.showInfo("File Import", formatImportReport(report));
+                    } else {
+                        AlertUtil.showWarning("File Import", formatImportReport(report));
+                    }
+                }, error -> {
+                    dialog.close();
+                    FxAsync.showError(error);
+                });
+    }
+
+    // --------------------------------------------------------------------
+    // Menu: File → Export CSV / NDJSON files
+    // Writes one file per table to a chosen folder (see FlatFileExport).
+    // --------------------------------------------------------------------
+    @FXML
+    public void handleMenuExportCsv() {
+        exportFlatFiles(FlatFileFormat.CSV);
+    }
+
+    @FXML
+    public void handleMenuExportNdjson() {
+        exportFlatFiles(FlatFileFormat.NDJSON);
+    }
+
+    private void exportFlatFiles(FlatFileFormat format) {
+        DirectoryChooser chooser = new DirectoryChooser();
+        chooser.setTitle("Export " + format + " files");
+        File directory = chooser.showDialog(scrollPaneContent.getScene().getWindow());
+        if (directory == null) {
+            return;
+        }
+
+        CancellationToken cancellation = new CancellationToken();
+        ProgressDialog dialog = new ProgressDialog(format + " Export", "Exporting to " + directory.getName(),
+                cancellation::cancel);
+        dialog.update(-1, "Preparing export...");
+        dialog.show();
+
+        FlatFileExport.ProgressListener listener = (rows, estimated) -> dialog.update(
+                estimated > 0 ? (double) rows / estimated : -1, String.format("%,d rows written", rows));
+
+        async.supply(dc -> new FlatFileExport(dc, cancellation, listener).exportTo(directory.toPath(), format),
+                written -> {
+                    dialog.close();
+                    StringBuilder sb = new StringBuilder("Exported to " + directory.getAbsolutePath() + ":\n");
+                    for (Path file : written) {
+                        sb.append("  ").append(file.getFileName()).append("\n");
+                    }
+                    AlertUtil.showInfo(format + " Export", sb.toString().stripTrailing());
+                }, error -> {
+                    dialog.close();
+                    FxAsync.showError(error);
+                });
+    }
+
+    private static String formatImportReport(ImportReport report) {
+        StringBuilder sb = new StringBuilder();
+        sb.append(String.format("%d file(s), %,d rows read in %.1f s (%,.0f rows/s).%n",
+                report.files().size(), report.rowsRead(), report.elapsed().toMillis() / 1000.0,
+                report.rowsPerSecond()));
+        sb.append(String.format("Inserted: %,d  Updated: %,d  Unchanged: %,d  Duplicates: %,d  Conflicts: %,d%n",
+                report.saved().inserted(), report.saved().updated(), report.saved().unchanged(),
+                report.duplicates(), report.conflicts()));
+
+        // --- Errors, a few per file ---------------------------------------
+        int shown = 0;
+        for (ImportReport.FileReport file : report.files()) {
+            if (file.errors().isEmpty()) {
+                continue;
+            }
+            sb.append("\n").append(file.file().getFileName()).append(":\n");
+            for (String error : file.errors().subList(0, Math.min(5, file.errors().size()))) {
+                sb.append("  ").append(error).append("\n");
+            }
+            if (file.errors().size() > 5) {
+                sb.append(String.format("  ... and %d more%n", file.errors().size() - 5));
+            }
+            if (++shown == 10) {
+                sb.append("\nMore files have errors.");
+                break;
+            }
+        }
+        return sb.toString().stripTrailing();
+    }
+
     // --------------------------------------------------------------------
     // NEW — Menu: View → Report
     // Shows the “Consultant Report” that used to live in ConsultantsView
     // --------------------------------------------------------------------
     @FXML
     public void handleMenuReport() {
-        try {
-            DaoProjectAssignment daoPA = new DaoProjectAssignment();
-            DaoConsultant daoCon = new DaoConsultant();
-            DaoProject daoPro = new DaoProject();
-
-            // --- Hardest-working consultants (ties included) -----------------
-            List<Integer> topIds = daoPA.hardestWorkingConsultants();
-            StringBuilder topSb = new StringBuilder();
-
-            for (int id : topIds) {
-                Consultant c = daoCon.getConsultantByID(id);
-                int hours = daoPA.totalHoursForConsultant(id);
-                topSb.append(String.format("%s (%s) %d hours%n",
-                        c.getName(), c.getTitle(), hours));
-            }
-
-            // --- Totals for the whole system ---------------------------------
-            int totalConsultants = daoCon.getAllConsultants().size();
-            int totalHoursWorked = daoPA.totalHoursForAllConsultants(); // implement: SUM(HoursWorked)
-            int totalProjects = daoPro.getAllProjects().size();
-            int completedProjects = daoPro.getCompletedProjects().size(); // EndDate IS NOT NULL
-
-            // --- Build and show the report -----------------------------------
-            StringBuilder report = new StringBuilder();
-            report.append("Hardest-working consultant(s):\n")
-                    .append(topSb).append("\n")
-                    .append("Total consultants: ").append(totalConsultants).append("\n")
-                    .append("Total hours worked: ").append(totalHoursWorked).append("\n")
-                    .append("Projects in total: ").append(totalProjects).append("\n")
-                    .append("Completed projects: ").append(completedProjects);
-
-            AlertUtil.showInfo("Consultant Report", report.toString());
-
-        } catch (DaoException e) {
-            if (e.getMessage().toLowerCase().contains("no project assignments")) {
+        async.supply(dc -> dc.getReportEngine().getReport(), report -> {
+            List<Report.TopConsultant> top = report.get(ReportEngine.HARDEST_WORKING);
+            if (top.isEmpty()) {
                 AlertUtil.showInfo("Consultant Report", "No consultant has logged any hours.");
-            } else {
-                AlertUtil.showError("Error", e.getMessage());
+                return;
             }
+            AlertUtil.showInfo("Consultant Report", formatReport(report));
+        });
+    }
+
+    private static String formatReport(Report report) {
+        // --- Hardest-working consultants (ties included) -----------------
+        StringBuilder topSb = new StringBuilder();
+        for (Report.TopConsultant c : report.get(ReportEngine.HARDEST_WORKING)) {
+            topSb.append(String.format("%s (%s) %d hours%n", c.name(), c.title(), c.hours()));
+        }
+
+        // --- Totals for the whole system ---------------------------------
+        StringBuilder sb = new StringBuilder();
+        sb.append(ReportEngine.HARDEST_WORKING.getTitle()).append(":\n")
+                .append(topSb).append("\n");
+        for (ReportSection<Long> total : List.of(
+                ReportEngine.TOTAL_CONSULTANTS,
+                ReportEngine.TOTAL_HOURS_WORKED,
+                ReportEngine.TOTAL_PROJECTS,
+                ReportEngine.COMPLETED_PROJECTS)) {
+            sb.append(total.getTitle()).append(": ").append(report.get(total)).append("\n");
         }
+        return sb.toString().stripTrailing();
     }
 
     // --------------------------------------------------------------------
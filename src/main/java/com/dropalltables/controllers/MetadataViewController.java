@@ -5,12 +5,15 @@ import java.util.List;
 
 import com.dropalltables.data.DaoException;
 import com.dropalltables.data.DaoMetadata;
-import com.dropalltables.util.AlertUtil;
+import com.dropalltables.data.DataContext;
+import com.dropalltables.util.FxAsync;
 
 import javafx.collections.FXCollections;
 import javafx.fxml.FXML;
+import javafx.scene.control.Button;
 import javafx.scene.control.ComboBox;
 import javafx.scene.control.Label;
+import javafx.scene.control.ProgressIndicator;
 import javafx.scene.control.TableColumn;
 import javafx.scene.control.TableView;
 import javafx.scene.control.cell.PropertyValueFactory;
@@ -23,18 +26,19 @@ public class MetadataViewController {
     private TableView<MetadataRow> tableResults;
     @FXML
     private Label labelStatus;
+    @FXML
+    private Button buttonRun;
+    @FXML
+    private ProgressIndicator progressBusy;
+
+    private final FxAsync async;
 
-    private DaoMetadata dao;
+    public MetadataViewController(DataContext dataContext) {
+        this.async = new FxAsync(dataContext.getAsyncDao());
+    }
 
     @FXML
     public void initialize() {
-        try {
-            dao = new DaoMetadata();
-        } catch (DaoException e) {
-            AlertUtil.showError("Error", e.getMessage());
-            return;
-        }
-
         // populate combo with the available metadata queries
         comboQueries.setItems(FXCollections.observableArrayList(
                 "All column names",
@@ -48,34 +52,35 @@ public class MetadataViewController {
         TableColumn<MetadataRow, String> col = new TableColumn<>("Result");
         col.setCellValueFactory(new PropertyValueFactory<>("value"));
         tableResults.getColumns().add(col);
+
+        progressBusy.visibleProperty().bind(async.busyProperty());
+        buttonRun.disableProperty().bind(async.busyProperty());
     }
 
     @FXML
     public void handleRunQuery() {
-        if (dao == null)
-            return;
-
         String choice = comboQueries.getValue();
-        List<String> data = new ArrayList<>();
+        async.supply(dc -> runQuery(dc.getDaoMetadata(), choice), this::showResults);
+    }
 
-        try {
-            if ("All column names".equals(choice)) {
-                data = dao.getAllDatabaseColumns();
-            } else if ("Primary key constraints".equals(choice)) {
-                data = dao.getAllPKConstraints();
-            } else if ("Check constraints".equals(choice)) {
-                data = dao.getAllCheckConstraints();
-            } else if ("Consultant columns not INTEGER".equals(choice)) {
-                data = dao.getNonIntConsultantColumns();
-            } else if ("Table with max rows".equals(choice)) {
-                // this one returns a single descriptive string
-                data.add(dao.getRowsFromMaxRowTable());
-            }
-        } catch (DaoException e) {
-            AlertUtil.showError("Error", e.getMessage());
-            return;
+    private static List<String> runQuery(DaoMetadata dao, String choice) throws DaoException {
+        List<String> data = new ArrayList<>();
+        if ("All column names".equals(choice)) {
+            data = dao.getAllDatabaseColumns();
+        } else if ("Primary key constraints".equals(choice)) {
+            data = dao.getAllPKConstraints();
+        } else if ("Check constraints".equals(choice)) {
+            data = dao.getAllCheckConstraints();
+        } else if ("Consultant columns not INTEGER".equals(choice)) {
+            data = dao.getNonIntConsultantColumns();
+        } else if ("Table with max rows".equals(choice)) {
+            // this one returns a single descriptive string
+            data.add(dao.getRowsFromMaxRowTable());
         }
+        return data;
+    }
 
+    private void showResults(List<String> data) {
         // wrap results for TableView
         List<MetadataRow> rows = new ArrayList<>();
         for (String s : data) {
@@ -1,13 +1,23 @@
 package com.dropalltables.controllers;
 
 import java.io.IOException;
+import java.time.LocalDate;
+import java.time.YearMonth;
 import java.util.ArrayList;
 import java.util.List;
+import java.util.Map;
+import java.util.concurrent.CompletableFuture;
+import java.util.regex.Matcher;
+import java.util.regex.Pattern;
 
 import com.dropalltables.data.*;
 import com.dropalltables.models.*;
 import com.dropalltables.util.AlertUtil;
+import com.dropalltables.util.FxAsync;
+import com.dropalltables.util.ScrollUtil;
+import com.dropalltables.util.SelectionLoadCoordinator;
 
+import javafx.animation.PauseTransition;
 import javafx.collections.FXCollections;
 import javafx.collections.ObservableList;
 import javafx.fxml.FXML;
@@ -18,6 +28,7 @@ import javafx.scene.control.*;
 import javafx.scene.control.cell.PropertyValueFactory;
 import javafx.stage.Modality;
 import javafx.stage.Stage;
+import javafx.util.Duration;
 
 /**
  * Controller for the Projects view.
@@ -80,6 +91,10 @@ public class ProjectsViewController {
     // Buttons
     @FXML
     private Button buttonSetHours;
+    @FXML
+    private Button buttonLogHours;
+    @FXML
+    private ProgressIndicator progressBusy;
 
     // ------------------------------------------------------------------------
     // --- Backing data
@@ -88,6 +103,30 @@ public class ProjectsViewController {
     private final ObservableList<ProjectAssignment> consultantData = FXCollections.observableArrayList();
     private final ObservableList<Milestone> milestoneData = FXCollections.observableArrayList();
 
+    // Filter of the project list currently shown and the token for its next page
+    private ProjectFilter currentFilter = ProjectFilter.NONE;
+    private String nextProjectsPageToken;
+    // The project query in flight, if any; cancelled when a newer one starts
+    private CancellationToken projectsQuery;
+    // The start of a YYYY-MM-DD date; a month only follows all four digits of the year
+    private static final Pattern DATE_PREFIX = Pattern.compile("(\\d{1,4})(?:-(\\d{0,2})(?:-(\\d{0,2}))?)?");
+    // The dates a DATETIME column holds; the filter's end date is exclusive
+    private static final LocalDate FIRST_DATE = LocalDate.of(1753, 1, 1);
+    private static final LocalDate LAST_DATE = LocalDate.of(9999, 12, 31);
+    // Waits for a pause in typing before querying with the new filters
+    private final PauseTransition filterDebounce = new PauseTransition(Duration.millis(250));
+    // Loads the details of the selected project, skipping rows passed over quickly
+    private final SelectionLoadCoordinator<Project> detailLoads = new SelectionLoadCoordinator<>(
+            Duration.millis(150), this::loadProjectDetails, this::clearProjectDetails);
+
+    private final DataContext dataContext;
+    private final FxAsync async;
+
+    public ProjectsViewController(DataContext dataContext) {
+        this.dataContext = dataContext;
+        this.async = new FxAsync(dataContext.getAsyncDao());
+    }
+
     // ------------------------------------------------------------------------
     // --- Initialization
     // ------------------------------------------------------------------------
@@ -98,45 +137,129 @@ public class ProjectsViewController {
         setupMilestoneColumns();
         loadProjectsFromDatabase();
         setupSelectionListener();
+        ScrollUtil.onScrolledToEnd(tableViewProjects, this::loadNextProjectsPage);
+        progressBusy.visibleProperty().bind(async.busyProperty());
 
-        // Disable “set hours” unless a consultant is selected
+        // Disable “set hours” and “log hours” unless a consultant is selected
         buttonSetHours.disableProperty()
                 .bind(tableViewConsultantsOnProject.getSelectionModel().selectedItemProperty().isNull());
+        buttonLogHours.disableProperty()
+                .bind(tableViewConsultantsOnProject.getSelectionModel().selectedItemProperty().isNull());
 
         // Live filters: text fields + active-only checkbox
-        textFieldFilterNo.textProperty().addListener((obs, o, n) -> applyFilters());
-        textFieldFilterName.textProperty().addListener((obs, o, n) -> applyFilters());
-        textFieldFilterDate.textProperty().addListener((obs, o, n) -> applyFilters());
+        filterDebounce.setOnFinished(e -> applyFilters());
+        textFieldFilterNo.textProperty().addListener((obs, o, n) -> scheduleFilters());
+        textFieldFilterName.textProperty().addListener((obs, o, n) -> scheduleFilters());
+        textFieldFilterDate.textProperty().addListener((obs, o, n) -> scheduleFilters());
         checkBoxActiveOnly.selectedProperty().addListener((obs, o, n) -> applyFilters());
     }
 
     // ------------------------------------------------------------------------
     // --- Filtering
     // ------------------------------------------------------------------------
-    /** Re-applies all project filters in memory (no extra DB calls). */
+    /**
+     * Restarts the debounce timer after a keystroke. The query that is still
+     * running for the previous text is cancelled right away.
+     */
+    private void scheduleFilters() {
+        cancelProjectsQuery();
+        filterDebounce.playFromStart();
+    }
+
+    /** Re-applies all project filters in the database and shows the first page. */
     private void applyFilters() {
-        String filterNo = textFieldFilterNo.getText().trim();
-        String filterName = textFieldFilterName.getText().toLowerCase().trim();
+        filterDebounce.stop();
+        currentFilter = readFilter();
+        loadProjectsPage(null);
+    }
+
+    /**
+     * Builds the filter from the filter fields. The date field matches
+     * projects starting or ending on a date that begins with the typed text,
+     * so "2024" is a year, "2024-0" January to September and "2024-03-1" the
+     * 10th to the 19th of March; text no date begins with matches nothing.
+     */
+    private ProjectFilter readFilter() {
         String filterDate = textFieldFilterDate.getText().trim();
-        boolean activeOnly = checkBoxActiveOnly.isSelected();
+        LocalDate from = null;
+        LocalDate until = null;
+        if (!filterDate.isEmpty()) {
+            LocalDate[] range = datesStartingWith(filterDate);
+            from = range[0];
+            until = range[1];
+        }
 
-        try {
-            List<Project> all = new DaoProject().getAllProjects();
-            projectData.setAll(all.stream()
-                    .filter(p -> filterNo.isEmpty() || String.valueOf(p.getProjectNo()).startsWith(filterNo))
-                    .filter(p -> filterName.isEmpty() || p.getName().toLowerCase().contains(filterName))
-                    .filter(p -> {
-                        if (filterDate.isEmpty())
-                            return true;
-                        boolean s = p.getStartDate() != null && p.getStartDate().toString().startsWith(filterDate);
-                        boolean e = p.getEndDate() != null && p.getEndDate().toString().startsWith(filterDate);
-                        return s || e;
-                    })
-                    .filter(p -> !activeOnly || p.getEndDate() == null) // NEW filter
-                    .toList());
-        } catch (DaoException e) {
-            AlertUtil.showError("Error", e.getMessage());
+        return new ProjectFilter(
+                textFieldFilterNo.getText(),
+                textFieldFilterName.getText(),
+                from,
+                until,
+                checkBoxActiveOnly.isSelected());
+    }
+
+    /**
+     * Returns the dates whose YYYY-MM-DD form starts with the text, as a start
+     * date and an exclusive end date, limited to the dates a DATETIME column
+     * holds. An empty range if there are none.
+     */
+    private static LocalDate[] datesStartingWith(String text) {
+        Matcher matcher = DATE_PREFIX.matcher(text);
+        LocalDate[] none = { FIRST_DATE, FIRST_DATE };
+        if (!matcher.matches()) {
+            return none;
+        }
+        String year = matcher.group(1);
+        String month = matcher.group(2);
+        String day = matcher.group(3);
+
+        int scale = (int) Math.pow(10, 4 - year.length());
+        int firstYear = Integer.parseInt(year) * scale;
+        if (month == null) {
+            return clamp(LocalDate.of(firstYear, 1, 1), LocalDate.of(firstYear + scale, 1, 1));
         }
+        if (year.length() < 4) {
+            return none;
+        }
+        int[] months = twoDigitRange(month, 1, 12);
+        if (months == null) {
+            return none;
+        }
+        if (day == null) {
+            return clamp(LocalDate.of(firstYear, months[0], 1),
+                    LocalDate.of(firstYear, months[1], 1).plusMonths(1));
+        }
+        if (month.length() < 2) {
+            return none;
+        }
+        int[] days = twoDigitRange(day, 1, YearMonth.of(firstYear, months[0]).lengthOfMonth());
+        if (days == null) {
+            return none;
+        }
+        return clamp(LocalDate.of(firstYear, months[0], days[0]),
+                LocalDate.of(firstYear, months[0], days[1]).plusDays(1));
+    }
+
+    /**
+     * The values from low to high whose two-digit form starts with the
+     * prefix, as the first and last of them, or null if there are none.
+     */
+    private static int[] twoDigitRange(String prefix, int low, int high) {
+        int first = low;
+        int last = high;
+        if (prefix.length() == 1) {
+            first = Math.max(low, (prefix.charAt(0) - '0') * 10);
+            last = Math.min(high, (prefix.charAt(0) - '0') * 10 + 9);
+        } else if (prefix.length() == 2) {
+            first = Math.max(low, Integer.parseInt(prefix));
+            last = Math.min(high, Integer.parseInt(prefix));
+        }
+        return first <= last ? new int[] { first, last } : null;
+    }
+
+    private static LocalDate[] clamp(LocalDate from, LocalDate until) {
+        LocalDate start = from.isBefore(FIRST_DATE) ? FIRST_DATE : from;
+        LocalDate end = until.isAfter(LAST_DATE) ? LAST_DATE : until;
+        return start.isBefore(end) ? new LocalDate[] { start, end } : new LocalDate[] { FIRST_DATE, FIRST_DATE };
     }
 
     // ------------------------------------------------------------------------
@@ -146,6 +269,7 @@ public class ProjectsViewController {
     public void buttonCreateProjectAction() {
         try {
             FXMLLoader loader = new FXMLLoader(getClass().getResource("/fxml/CreateProjectWindow.fxml"));
+            loader.setControllerFactory(type -> new CreateProjectWindowController(dataContext));
             Parent root = loader.load();
             CreateProjectWindowController c = loader.getController();
 
@@ -157,10 +281,9 @@ public class ProjectsViewController {
 
             Project p = c.getCreatedProject();
             if (p != null) {
-                new DaoProject().insertProject(p);
-                loadProjectsFromDatabase();
+                async.run(dc -> dc.getDaoProject().insertProject(p), this::loadProjectsFromDatabase);
             }
-        } catch (IOException | DaoException e) {
+        } catch (IOException e) {
             AlertUtil.showError("Error", e.getMessage());
         }
     }
@@ -174,6 +297,7 @@ public class ProjectsViewController {
         }
         try {
             FXMLLoader loader = new FXMLLoader(getClass().getResource("/fxml/CreateProjectWindow.fxml"));
+            loader.setControllerFactory(type -> new CreateProjectWindowController(dataContext));
             Parent root = loader.load();
             CreateProjectWindowController c = loader.getController();
             c.setProjectForEdit(sel);
@@ -186,10 +310,9 @@ public class ProjectsViewController {
 
             Project updated = c.getCreatedProject();
             if (updated != null) {
-                new DaoProject().updateProject(updated);
-                loadProjectsFromDatabase();
+                async.run(dc -> dc.getDaoProject().updateProject(updated), this::loadProjectsFromDatabase);
             }
-        } catch (IOException | DaoException e) {
+        } catch (IOException e) {
             AlertUtil.showError("Error", e.getMessage());
         }
     }
@@ -201,15 +324,12 @@ public class ProjectsViewController {
             AlertUtil.showInfo("No selection", "Please select a project to delete.");
             return;
         }
-        try {
-            new DaoProject().deleteProject(sel.getProjectNo());
+        async.run(dc -> dc.getDaoProject().deleteProject(sel.getProjectNo()), () -> {
             projectData.remove(sel);
             consultantData.clear();
             milestoneData.clear();
             tableViewProjects.getSelectionModel().clearSelection();
-        } catch (DaoException e) {
-            AlertUtil.showError("Error", e.getMessage());
-        }
+        });
     }
 
     // ------------------------------------------------------------------------
@@ -223,61 +343,84 @@ public class ProjectsViewController {
             return;
         }
 
-        try {
-            int projectID = new DaoProject().getProjectID(p.getProjectNo());
-            List<Consultant> available = new DaoConsultant().getConsultantsNotInProject(projectID);
+        async.supply(dc -> {
+            int projectID = requireProjectID(dc, p);
+            return dc.getDaoConsultant().getConsultantsNotInProject(projectID);
+        }, available -> {
             if (available.isEmpty()) {
                 AlertUtil.showInfo("No consultants available",
                         "All consultants are already assigned to this project.");
                 return;
             }
 
-            List<String> choices = new ArrayList<>();
-            for (Consultant c : available) {
-                choices.add(c.getName() + " (" + c.getTitle() + ")");
-            }
+            List<Consultant> selected = showAssignConsultantsDialog(p, available);
+            if (!selected.isEmpty())
+                prepareAssignments(p, selected);
+        });
+    }
 
-            ChoiceDialog<String> dialog = new ChoiceDialog<>(null, choices);
-            dialog.setTitle("Assign Consultant");
-            dialog.setHeaderText("Assign consultant to project: " + p.getName());
-            dialog.setContentText("Choose consultant:");
+    /** The assignments to insert and whether they push the project over the resource limit. */
+    private record AssignmentPlan(List<ProjectAssignment> assignments, boolean tooManyResources) {
+    }
 
-            dialog.showAndWait().ifPresent(choice -> {
-                Consultant selected = available.stream()
-                        .filter(c -> (c.getName() + " (" + c.getTitle() + ")").equals(choice))
-                        .findFirst().orElse(null);
-                if (selected == null)
+    private void prepareAssignments(Project p, List<Consultant> selected) {
+        async.supply(dc -> {
+            int projectID = requireProjectID(dc, p);
+            List<ProjectAssignment> assignments = new ArrayList<>();
+            for (Consultant c : selected) {
+                int consultantID = dc.getDaoConsultant().getConsultantID(c.getConsultantNo());
+                assignments.add(new ProjectAssignment(consultantID, projectID));
+            }
+            boolean tooMany = dc.getDaoProjectAssignment().tooManyResources(projectID, assignments.size());
+            return new AssignmentPlan(assignments, tooMany);
+        }, plan -> {
+            // Resource warning if this project would exceed 60 % of active consultants
+            if (plan.tooManyResources()) {
+                Alert confirm = new Alert(Alert.AlertType.CONFIRMATION);
+                confirm.setTitle("Resource Warning");
+                confirm.setHeaderText("High Resource Usage");
+                confirm.setContentText(
+                        (plan.assignments().size() == 1 ? "Adding this consultant" : "Adding these consultants")
+                                + " will make this project use more than 60 % "
+                                + "of the company's active consultant resources.\n\n"
+                                + "Do you want to continue?");
+                if (confirm.showAndWait().orElse(ButtonType.CANCEL) != ButtonType.OK)
                     return;
+            }
+            insertAssignments(plan.assignments(), p);
+        });
+    }
 
-                try {
-                    DaoProjectAssignment daoPA = new DaoProjectAssignment();
-                    int consultantID = new DaoConsultant()
-                            .getConsultantID(selected.getConsultantNo());
-
-                    // Resource warning if this project would exceed 60 % of active consultants
-                    if (daoPA.tooManyResources(projectID)) {
-                        Alert confirm = new Alert(Alert.AlertType.CONFIRMATION);
-                        confirm.setTitle("Resource Warning");
-                        confirm.setHeaderText("High Resource Usage");
-                        confirm.setContentText(
-                                "Adding this consultant will make this project use more than 60 % "
-                                        + "of the company's active consultant resources.\n\n"
-                                        + "Do you want to continue?");
-                        confirm.showAndWait().ifPresent(btn -> {
-                            if (btn == ButtonType.OK)
-                                insertAssignment(daoPA, consultantID, projectID, p);
-                        });
-                    } else {
-                        insertAssignment(daoPA, consultantID, projectID, p);
-                    }
-                } catch (DaoException e) {
-                    AlertUtil.showError("Error", e.getMessage());
-                }
-            });
+    /**
+     * Lets the user pick one or more consultants to assign to a project.
+     *
+     * @return The chosen consultants, empty if the dialog was cancelled.
+     */
+    private List<Consultant> showAssignConsultantsDialog(Project p, List<Consultant> available) {
+        ListView<Consultant> listView = new ListView<>(FXCollections.observableArrayList(available));
+        listView.getSelectionModel().setSelectionMode(SelectionMode.MULTIPLE);
+        listView.setPrefHeight(260);
+        listView.setCellFactory(lv -> new ListCell<>() {
+            @Override
+            protected void updateItem(Consultant c, boolean empty) {
+                super.updateItem(c, empty);
+                setText(empty || c == null ? null : c.getName() + " (" + c.getTitle() + ")");
+            }
+        });
 
-        } catch (DaoException e) {
-            AlertUtil.showError("Error", e.getMessage());
-        }
+        Dialog<List<Consultant>> dialog = new Dialog<>();
+        dialog.setTitle("Assign Consultants");
+        dialog.setHeaderText("Assign consultants to project: " + p.getName()
+                + "\nHold Ctrl or Shift to select several.");
+        dialog.getDialogPane().setContent(listView);
+        dialog.getDialogPane().getButtonTypes().addAll(ButtonType.OK, ButtonType.CANCEL);
+        dialog.getDialogPane().lookupButton(ButtonType.OK).disableProperty()
+                .bind(listView.getSelectionModel().selectedItemProperty().isNull());
+        dialog.setResultConverter(btn -> btn == ButtonType.OK
+                ? new ArrayList<>(listView.getSelectionModel().getSelectedItems())
+                : List.of());
+
+        return dialog.showAndWait().orElse(List.of());
     }
 
     @FXML
@@ -292,12 +435,8 @@ public class ProjectsViewController {
             AlertUtil.showInfo("No consultant selected", "Please select a consultant to remove.");
             return;
         }
-        try {
-            new DaoProjectAssignment().deleteProjectAssignment(a.getConsultantID(), a.getProjectID());
-            loadConsultantsForProject(p);
-        } catch (DaoException e) {
-            AlertUtil.showError("Error", e.getMessage());
-        }
+        async.run(dc -> dc.getDaoProjectAssignment().deleteProjectAssignment(a.getConsultantID(), a.getProjectID()),
+                () -> loadConsultantsForProject(p));
     }
 
     @FXML
@@ -312,28 +451,59 @@ public class ProjectsViewController {
         dialog.setContentText("Enter number of hours:");
 
         dialog.showAndWait().ifPresent(input -> {
+            int hours;
             try {
-                int hours = Integer.parseInt(input);
+                hours = Integer.parseInt(input);
                 if (hours < 0)
                     throw new NumberFormatException();
-                new DaoProjectAssignment().updateHours(sel.getConsultantID(), sel.getProjectID(), hours);
-                loadConsultantsForProject(findSelectedProject());
             } catch (NumberFormatException e) {
                 AlertUtil.showError("Invalid input", "Please enter a positive number.");
-            } catch (DaoException e) {
-                AlertUtil.showError("Error", e.getMessage());
+                return;
             }
+            async.run(dc -> dc.getDaoProjectAssignment().updateHours(sel.getConsultantID(), sel.getProjectID(), hours),
+                    () -> loadConsultantsForProject(findSelectedProject()));
         });
     }
 
-    private void insertAssignment(DaoProjectAssignment daoPA,
-            int consultantID, int projectID, Project project) {
-        try {
-            daoPA.insertProjectAssignment(consultantID, projectID);
+    @FXML
+    public void buttonLogHoursAction() {
+        ProjectAssignment sel = tableViewConsultantsOnProject.getSelectionModel().getSelectedItem();
+        if (sel == null)
+            return;
+
+        TextInputDialog dialog = new TextInputDialog();
+        dialog.setTitle("Log Hours");
+        dialog.setHeaderText("Consultant: " + sel.getConsultantName()
+                + "\nCurrent total: " + sel.getHoursWorked() + " hours");
+        dialog.setContentText("Hours to add (negative to correct):");
+
+        dialog.showAndWait().ifPresent(input -> {
+            int delta;
+            try {
+                delta = Integer.parseInt(input.trim());
+            } catch (NumberFormatException e) {
+                AlertUtil.showError("Invalid input", "Please enter a whole number.");
+                return;
+            }
+            async.supply(dc -> dc.getDaoProjectAssignment().addHours(sel.getConsultantID(), sel.getProjectID(), delta),
+                    total -> {
+                        sel.setHoursWorked(total);
+                        tableViewConsultantsOnProject.refresh();
+                    });
+        });
+    }
+
+    private void insertAssignments(List<ProjectAssignment> assignments, Project project) {
+        async.supply(dc -> dc.getDaoProjectAssignment().insertProjectAssignments(assignments), outcomes -> {
             loadConsultantsForProject(project);
-        } catch (DaoException e) {
-            AlertUtil.showError("Error", e.getMessage());
-        }
+
+            long skipped = outcomes.stream().filter(o -> o == AssignmentOutcome.SKIPPED).count();
+            if (skipped > 0) {
+                AlertUtil.showInfo("Some consultants were not assigned",
+                        skipped + " of " + outcomes.size() + " consultants were already on the project "
+                                + "or no longer exist.");
+            }
+        });
     }
 
     // ------------------------------------------------------------------------
@@ -348,6 +518,7 @@ public class ProjectsViewController {
         }
         try {
             FXMLLoader loader = new FXMLLoader(getClass().getResource("/fxml/CreateMilestoneWindow.fxml"));
+            loader.setControllerFactory(type -> new CreateMilestoneWindowController(dataContext));
             Parent root = loader.load();
             CreateMilestoneWindowController c = loader.getController();
             c.setProject(p);
@@ -360,10 +531,9 @@ public class ProjectsViewController {
 
             Milestone newM = c.getCreatedMilestone();
             if (newM != null) {
-                new DaoMilestone().insertMilestone(newM);
-                loadMilestonesForProject(p);
+                async.run(dc -> dc.getDaoMilestone().insertMilestone(newM), () -> loadMilestonesForProject(p));
             }
-        } catch (IOException | DaoException e) {
+        } catch (IOException e) {
             AlertUtil.showError("Error", e.getMessage());
         }
     }
@@ -377,6 +547,7 @@ public class ProjectsViewController {
         }
         try {
             FXMLLoader loader = new FXMLLoader(getClass().getResource("/fxml/CreateMilestoneWindow.fxml"));
+            loader.setControllerFactory(type -> new CreateMilestoneWindowController(dataContext));
             Parent root = loader.load();
             CreateMilestoneWindowController c = loader.getController();
             c.setMilestoneForEdit(m);
@@ -389,12 +560,13 @@ public class ProjectsViewController {
 
             Milestone updated = c.getCreatedMilestone();
             if (updated != null) {
-                new DaoMilestone().updateMilestone(updated);
-                Project p = tableViewProjects.getSelectionModel().getSelectedItem();
-                if (p != null)
-                    loadMilestonesForProject(p);
+                async.run(dc -> dc.getDaoMilestone().updateMilestone(updated), () -> {
+                    Project p = tableViewProjects.getSelectionModel().getSelectedItem();
+                    if (p != null)
+                        loadMilestonesForProject(p);
+                });
             }
-        } catch (IOException | DaoException e) {
+        } catch (IOException e) {
             AlertUtil.showError("Error", e.getMessage());
         }
     }
@@ -406,14 +578,11 @@ public class ProjectsViewController {
             AlertUtil.showInfo("No milestone selected", "Please select a milestone to delete.");
             return;
         }
-        try {
-            new DaoMilestone().deleteMilestone(m.getMilestoneNo());
+        async.run(dc -> dc.getDaoMilestone().deleteMilestone(m.getMilestoneNo()), () -> {
             Project p = tableViewProjects.getSelectionModel().getSelectedItem();
             if (p != null)
                 loadMilestonesForProject(p);
-        } catch (DaoException e) {
-            AlertUtil.showError("Error", e.getMessage());
-        }
+        });
     }
 
     // ------------------------------------------------------------------------
@@ -442,44 +611,145 @@ public class ProjectsViewController {
         tableViewMilestones.setItems(milestoneData);
     }
 
+    /** Loads the first page of projects; further pages load on scroll. */
     private void loadProjectsFromDatabase() {
-        try {
-            projectData.setAll(new DaoProject().getAllProjects());
-        } catch (DaoException e) {
-            AlertUtil.showError("Error", e.getMessage());
+        loadProjectsPage(null);
+    }
+
+    private void loadNextProjectsPage() {
+        if (nextProjectsPageToken == null || projectsQuery != null)
+            return;
+        loadProjectsPage(nextProjectsPageToken);
+    }
+
+    /**
+     * Loads a page of projects for the current filter off the FX thread.
+     * Without a page token the table is replaced, otherwise the page is appended.
+     * Only the most recently started query updates the table.
+     */
+    private void loadProjectsPage(String pageToken) {
+        cancelProjectsQuery();
+        CancellationToken query = new CancellationToken();
+        projectsQuery = query;
+        ProjectFilter filter = currentFilter;
+
+        async.supply(dc -> dc.getDaoProject().getProjectsPage(filter, pageToken,
+                dc.getDaoProject().getDefaultPageSize(), query), page -> {
+                    if (projectsQuery != query)
+                        return;
+                    projectsQuery = null;
+                    if (pageToken == null) {
+                        projectData.setAll(page.getItems());
+                    } else {
+                        projectData.addAll(page.getItems());
+                    }
+                    nextProjectsPageToken = page.getNextPageToken();
+                }, error -> {
+                    if (projectsQuery != query)
+                        return;
+                    projectsQuery = null;
+                    nextProjectsPageToken = null;
+                    FxAsync.showError(error);
+                });
+    }
+
+    private void cancelProjectsQuery() {
+        if (projectsQuery != null) {
+            projectsQuery.cancel();
+            projectsQuery = null;
         }
     }
 
     private void setupSelectionListener() {
-        tableViewProjects.getSelectionModel().selectedItemProperty().addListener((obs, oldP, newP) -> {
-            if (newP != null) {
-                loadConsultantsForProject(newP);
-                loadMilestonesForProject(newP);
-            } else {
-                consultantData.clear();
-                milestoneData.clear();
+        detailLoads.attach(tableViewProjects.getSelectionModel().selectedItemProperty());
+    }
+
+    private void clearProjectDetails() {
+        consultantData.clear();
+        milestoneData.clear();
+    }
+
+    /**
+     * Loads the detail tables of a newly selected project. The project ID is
+     * resolved once, then assignments and milestones are read in parallel and
+     * each table is filled as soon as its own query returns. Selecting another
+     * project cancels both queries. A failure to resolve the ID, e.g. because
+     * the project was deleted elsewhere, is reported once rather than per table.
+     */
+    private void loadProjectDetails(Project p, CancellationToken cancellation) {
+        AsyncDao asyncDao = dataContext.getAsyncDao();
+        CompletableFuture<Integer> projectID = asyncDao.supply(dc -> requireProjectID(dc, p));
+
+        async.handle(projectID, id -> {
+        }, error -> {
+            if (detailLoads.isCurrent(cancellation)) {
+                clearProjectDetails();
+                FxAsync.showError(error);
             }
         });
+        async.handle(projectID.thenCompose(id -> asyncDao
+                .supply(dc -> dc.getDaoProjectAssignment().getAssignmentsWithConsultants(id, cancellation))),
+                assignments -> {
+                    if (detailLoads.isCurrent(cancellation))
+                        showAssignments(p, assignments);
+                },
+                error -> {
+                    if (detailLoads.isCurrent(cancellation) && !projectID.isCompletedExceptionally())
+                        FxAsync.showError(error);
+                });
+        async.handle(projectID.thenCompose(id -> asyncDao
+                .supply(dc -> dc.getDaoMilestone().getMilestonesByProjectID(id, cancellation))),
+                milestones -> {
+                    if (detailLoads.isCurrent(cancellation))
+                        showMilestones(p, milestones);
+                },
+                error -> {
+                    if (detailLoads.isCurrent(cancellation) && !projectID.isCompletedExceptionally())
+                        FxAsync.showError(error);
+                });
     }
 
+    /**
+     * Resolves a project's database ID.
+     *
+     * @throws DaoException if the project no longer exists.
+     */
+    private static int requireProjectID(DataContext dc, Project p) throws DaoException {
+        Integer id = dc.getDaoProject().getProjectID(p.getProjectNo());
+        if (id == null)
+            throw new DaoException("Project " + p.getProjectNo()
+                    + " no longer exists. It may have been deleted by another user.");
+        return id;
+    }
+
+    /** Reloads the consultants on a project, e.g. after an assignment changed. */
     private void loadConsultantsForProject(Project p) {
-        try {
-            int id = new DaoProject().getProjectID(p.getProjectNo());
-            consultantData.setAll(new DaoProjectAssignment().getAssignmentsWithConsultants(id));
-        } catch (DaoException e) {
-            consultantData.clear();
-        }
+        if (p == null)
+            return;
+        async.supply(dc -> {
+            int id = requireProjectID(dc, p);
+            return dc.getDaoProjectAssignment().getAssignmentsWithConsultants(id);
+        }, assignments -> showAssignments(p, assignments), FxAsync::showError);
     }
 
+    /** Reloads the milestones of a project, e.g. after a milestone changed. */
     private void loadMilestonesForProject(Project p) {
-        try {
-            List<Milestone> ms = new DaoMilestone().getMilestonesByProjectNo(p.getProjectNo());
-            milestoneData.setAll(ms);
-            labelMilestonesHeader.setText("Milestones (" + ms.size() + ")");
-        } catch (DaoException e) {
-            milestoneData.clear();
-            labelMilestonesHeader.setText("Milestones (0)");
-        }
+        async.supply(dc -> dc.getDaoMilestone().getMilestonesByProjectNo(p.getProjectNo()),
+                milestones -> showMilestones(p, milestones), FxAsync::showError);
+    }
+
+    /** Shows a project's consultants, unless another project was selected meanwhile. */
+    private void showAssignments(Project p, List<ProjectAssignment> assignments) {
+        if (p == findSelectedProject())
+            consultantData.setAll(assignments);
+    }
+
+    /** Shows a project's milestones, unless another project was selected meanwhile. */
+    private void showMilestones(Project p, List<Milestone> milestones) {
+        if (p != findSelectedProject())
+            return;
+        milestoneData.setAll(milestones);
+        labelMilestonesHeader.setText("Milestones (" + milestones.size() + ")");
     }
 
     private Project findSelectedProject() {
@@ -488,23 +758,59 @@ public class ProjectsViewController {
 
     @FXML
     public void buttonShowAllConsultantsProjectsAction() {
-        try {
-            List<Integer> ids = new DaoProjectAssignment().projectsThatInvolveEveryConsultant();
-            if (ids.isEmpty()) {
-                AlertUtil.showInfo("Projects", "No project involves every consultant.");
-                return;
-            }
+        async.supply(dc -> {
+            List<Integer> ids = dc.getDaoProjectAssignment().projectsThatInvolveEveryConsultant();
             List<String> names = new ArrayList<>();
-            DaoProject dao = new DaoProject();
+            Map<Integer, Project> projects = dc.getDaoProject().getProjectsByIDs(ids);
             for (Integer id : ids) {
-                Project p = dao.getProjectByID(id);
+                Project p = projects.get(id);
                 if (p != null)
                     names.add(p.getProjectNo() + ", " + p.getName());
             }
+            return names;
+        }, names -> {
+            if (names.isEmpty()) {
+                AlertUtil.showInfo("Projects", "No project involves every consultant.");
+                return;
+            }
             AlertUtil.showInfo("Projects with Every Consultant",
                     "Projects that involve every consultant:\n" + String.join("\n", names));
-        } catch (DaoException e) {
-            AlertUtil.showError("Error", "Error retrieving data.");
-        }
+        }, error -> AlertUtil.showError("Error", "Error retrieving data."));
+    }
+
+    /**
+     * Lists the active projects holding more than 60 % of all active
+     * consultants. The scan runs over the aggregate store's counters.
+     */
+    @FXML
+    public void buttonShowOverStaffedProjectsAction() {
+        async.supply(dc -> {
+            AggregateStore aggregates = dc.getAggregateStore();
+            aggregates.refreshIfStale();
+            List<AggregateStore.ProjectStaffing> overStaffed = new ArrayList<>();
+            for (AggregateStore.ProjectStaffing staffing : aggregates.portfolioStaffing()) {
+                if (staffing.isOverStaffed())
+                    overStaffed.add(staffing);
+            }
+            List<Integer> ids = new ArrayList<>();
+            overStaffed.forEach(staffing -> ids.add(staffing.projectID()));
+            Map<Integer, Project> projects = dc.getDaoProject().getProjectsByIDs(ids);
+            List<String> lines = new ArrayList<>();
+            for (AggregateStore.ProjectStaffing staffing : overStaffed) {
+                Project p = projects.get(staffing.projectID());
+                if (p != null)
+                    lines.add(String.format("%d, %s: %d of %d active consultants (%.0f %%)",
+                            p.getProjectNo(), p.getName(), staffing.headcount(),
+                            staffing.activeConsultants(), staffing.share() * 100));
+            }
+            return lines;
+        }, lines -> {
+            if (lines.isEmpty()) {
+                AlertUtil.showInfo("Projects", "No active project is over-staffed.");
+                return;
+            }
+            AlertUtil.showInfo("Over-staffed Projects",
+                    "Active projects with more than 60 % of all active consultants:\n" + String.join("\n", lines));
+        }, error -> AlertUtil.showError("Error", "Error retrieving data."));
     }
 }
@@ -0,0 +1,777 @@
+package com.dropalltables.data;
+
+import java.sql.Connection;
+import java.sql.PreparedStatement;
+import java.sql.ResultSet;
+import java.sql.SQLException;
+import java.time.Duration;
+import java.time.Instant;
+import java.util.ArrayList;
+import java.util.Comparator;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.locks.ReentrantLock;
+import java.util.function.Consumer;
+import java.util.concurrent.locks.StampedLock;
+
+/**
+ * In-memory totals of Project_Assignment for the desktop session: hours and
+ * number of projects per consultant, hours and team size per project, the
+ * counters behind the capacity guard (see exceedsCapacity()) and the
+ * MembershipIndex of who is assigned to what.
+ *
+ * The store is primed with one scan of Project_Assignment and then kept up to
+ * date by DaoProjectAssignment, which hands it the old and new values of every
+ * row it inserts, updates or deletes. Reading a total is a hash lookup without
+ * a database round trip.
+ *
+ * A change is handed over when its statement runs and applied when the
+ * transaction commits, to the snapshot that was current when the statement
+ * ran. If the store was primed in between, the new scan may or may not have
+ * seen the change (it may have waited for the writer's lock), so the new
+ * snapshot is marked stale instead. A snapshot whose scan overlapped a
+ * committed change is marked stale the same way.
+ *
+ * Totals are kept in primitive int maps split into stripes, each guarded by its
+ * own StampedLock. Writers lock only the stripe of the key they change; readers
+ * use optimistic reads and never block behind a writer on another stripe. A
+ * consultant's and a project's totals are updated one after the other, so a
+ * reader may briefly see one side of a change without the other. The capacity
+ * counters share one lock of their own, since closing a project changes the
+ * counter of every consultant on it.
+ *
+ * Changes made by other clients, and deletes that cascade from Consultant or
+ * Project without going through DaoProjectAssignment first, are not seen
+ * incrementally: the store is primed again when it is read after invalidate()
+ * or after aggregates.maxAgeSeconds (default 300).
+ * Callers run refreshIfStale() on a background thread before reading.
+ */
+public class AggregateStore {
+
+    /** The share of all active consultants a single project may hold. */
+    public static final double MAX_SHARE_OF_ACTIVE_CONSULTANTS = 0.60;
+
+    /**
+     * The staffing of one active project.
+     *
+     * @param projectID         The ID of the project.
+     * @param headcount         The number of consultants on the project.
+     * @param activeConsultants The number of consultants on any active project.
+     */
+    public record ProjectStaffing(int projectID, int headcount, int activeConsultants) {
+
+        /** The project's share of all active consultants, 0 if there are none. */
+        public double share() {
+            return activeConsultants == 0 ? 0 : headcount / (double) activeConsultants;
+        }
+
+        public boolean isOverStaffed() {
+            return share() > MAX_SHARE_OF_ACTIVE_CONSULTANTS;
+        }
+    }
+
+    private static final String SELECT_CONSULTANT_IDS = """
+            SELECT ConsultantID
+            FROM Consultant
+            """;
+
+    private static final String SELECT_ACTIVE_PROJECTS = """
+            SELECT ProjectID
+            FROM Project
+            WHERE EndDate IS NULL
+            """;
+
+    private static final String SELECT_ASSIGNMENTS = """
+            SELECT ConsultantID, ProjectID, HoursWorked
+            FROM Project_Assignment
+            """;
+
+    private static final int STRIPE_BITS = 4;
+
+    private final ConnectionHandler connectionHandler;
+    private final DataVersion dataVersion;
+    private final Duration maxAge;
+    private final ReentrantLock primeLock = new ReentrantLock();
+
+    private volatile Snapshot snapshot;
+    // Counts committed changes and invalidations, to tell if any overlapped a scan
+    private final AtomicLong changes = new AtomicLong();
+
+    /**
+     * Constructor for AggregateStore.
+     * Registers the priming query with the data context's statement registry.
+     *
+     * @param dataContext The data context that owns this store.
+     */
+    AggregateStore(DataContext dataContext) {
+        this.connectionHandler = dataContext.getConnectionHandler();
+        this.dataVersion = dataContext.getDataVersion();
+        this.maxAge = Duration.ofSeconds(
+                ConnectionHandler.intProperty(dataContext.getConfiguration(), "aggregates.maxAgeSeconds", 300));
+        dataContext.getStatementRegistry().register(SELECT_CONSULTANT_IDS, SELECT_ACTIVE_PROJECTS, SELECT_ASSIGNMENTS);
+    }
+
+    /**
+     * Primes the store if it has not been primed yet, has been invalidated or
+     * is older than aggregates.maxAgeSeconds. Otherwise returns straight away.
+     *
+     * @throws DaoException if Project_Assignment cannot be read.
+     */
+    public void refreshIfStale() throws DaoException {
+        if (isFresh()) {
+            return;
+        }
+        primeLock.lock();
+        try {
+            // another thread may have primed the store while this one waited
+            if (!isFresh()) {
+                prime();
+            }
+        } finally {
+            primeLock.unlock();
+        }
+    }
+
+    /**
+     * True if the totals can be read without priming the store first.
+     */
+    public boolean isFresh() {
+        Snapshot current = snapshot;
+        return current != null && !current.stale && current.primedAt.plus(maxAge).isAfter(Instant.now());
+    }
+
+    /**
+     * Makes the next refreshIfStale() read Project_Assignment again.
+     */
+    public void invalidate() {
+        changes.incrementAndGet();
+        Snapshot current = snapshot;
+        if (current != null) {
+            current.stale = true;
+        }
+    }
+
+    /**
+     * Returns the hours a consultant has worked across all projects.
+     *
+     * @param consultantID The ID of the consultant.
+     * @return The total hours, 0 if the consultant has no assignments.
+     */
+    public int consultantHours(int consultantID) {
+        Snapshot current = snapshot;
+        return current != null ? current.consultants.first(consultantID) : 0;
+    }
+
+    /**
+     * Returns the number of projects a consultant is assigned to.
+     *
+     * @param consultantID The ID of the consultant.
+     * @return The number of projects.
+     */
+    public int consultantProjectCount(int consultantID) {
+        Snapshot current = snapshot;
+        return current != null ? current.consultants.second(consultantID) : 0;
+    }
+
+    /**
+     * Returns the hours worked on a project by all its consultants.
+     *
+     * @param projectID The ID of the project.
+     * @return The total hours, 0 if nobody is assigned to the project.
+     */
+    public int projectHours(int projectID) {
+        Snapshot current = snapshot;
+        return current != null ? current.projects.first(projectID) : 0;
+    }
+
+    /**
+     * Returns the number of consultants assigned to a project.
+     *
+     * @param projectID The ID of the project.
+     * @return The team size.
+     */
+    public int teamSize(int projectID) {
+        Snapshot current = snapshot;
+        return current != null ? current.projects.second(projectID) : 0;
+    }
+
+    /**
+     * Returns the hours worked by all consultants together.
+     *
+     * @return The sum of all hours worked.
+     */
+    public long totalHours() {
+        Snapshot current = snapshot;
+        return current != null ? current.consultants.sumOfFirst() : 0;
+    }
+
+    /**
+     * Returns the consultant(s) with the most hours worked, ties included.
+     * Only consultants with at least one assignment are considered.
+     *
+     * @return The IDs of the consultants, empty if there are no assignments.
+     */
+    public List<Integer> hardestWorkingConsultants() {
+        Snapshot current = snapshot;
+        return current != null ? current.consultants.keysWithMaxFirst() : List.of();
+    }
+
+    /**
+     * Checks whether adding consultants to a project would give it more than
+     * MAX_SHARE_OF_ACTIVE_CONSULTANTS of all active consultants. An active
+     * consultant is one assigned to at least one active project.
+     *
+     * @param projectID             The ID of the project.
+     * @param additionalConsultants The number of consultants about to be added.
+     * @return True if the project would be over-staffed; false for closed
+     *         projects and while no project has any consultants.
+     */
+    public boolean exceedsCapacity(int projectID, int additionalConsultants) {
+        Snapshot current = snapshot;
+        return current != null && current.capacity.exceeds(projectID, additionalConsultants);
+    }
+
+    /**
+     * True if exceedsCapacity() could give the other answer with one consultant
+     * more or less on the project or among the active consultants, i.e. if a
+     * single change by another client since the store was primed could tip it.
+     *
+     * @param projectID             The ID of the project.
+     * @param additionalConsultants The number of consultants about to be added.
+     * @return True if the answer of exceedsCapacity() is that close to the limit.
+     */
+    public boolean isNearCapacity(int projectID, int additionalConsultants) {
+        Snapshot current = snapshot;
+        return current != null && current.capacity.isNear(projectID, additionalConsultants);
+    }
+
+    /**
+     * Returns the staffing of every active project, computed in one pass over
+     * the counters, with the highest share of active consultants first.
+     *
+     * @return One entry per active project.
+     */
+    public List<ProjectStaffing> portfolioStaffing() {
+        Snapshot current = snapshot;
+        return current != null ? current.capacity.scan() : List.of();
+    }
+
+    /**
+     * Returns the index of which consultants are assigned to which projects.
+     * Fetch it again for every question: priming replaces the index.
+     *
+     * @return The current membership index, empty until the store is primed.
+     */
+    public MembershipIndex getMembershipIndex() {
+        Snapshot current = snapshot;
+        return current != null ? current.membership : new MembershipIndex();
+    }
+
+    /**
+     * Records a new consultant once the calling thread's transaction commits.
+     * Call it right after the statement that inserted the consultant.
+     */
+    void consultantAdded(int consultantID) {
+        afterCommit(current -> current.membership.consultantAdded(consultantID));
+    }
+
+    /**
+     * Records a deleted consultant once the calling thread's transaction
+     * commits. Delete their assignments with assignmentRemoved() first.
+     */
+    void consultantRemoved(int consultantID) {
+        afterCommit(current -> current.membership.consultantRemoved(consultantID));
+    }
+
+    /**
+     * Records a new project once the calling thread's transaction commits.
+     */
+    void projectAdded(int projectID, boolean active) {
+        projectStatusChanged(projectID, active);
+    }
+
+    /**
+     * Records a project being closed (given an end date) or reopened once the
+     * calling thread's transaction commits.
+     */
+    void projectStatusChanged(int projectID, boolean active) {
+        afterCommit(current -> current.capacity.setActive(projectID, active));
+    }
+
+    /**
+     * Records a new assignment once the calling thread's transaction commits.
+     */
+    void assignmentAdded(int consultantID, int projectID, int hours) {
+        apply(consultantID, projectID, hours, 1);
+    }
+
+    /**
+     * Records a change of an assignment's hours once the calling thread's
+     * transaction commits.
+     */
+    void hoursChanged(int consultantID, int projectID, int delta) {
+        apply(consultantID, projectID, delta, 0);
+    }
+
+    /**
+     * Records a deleted assignment together with the hours it held once the
+     * calling thread's transaction commits.
+     */
+    void assignmentRemoved(int consultantID, int projectID, int hours) {
+        apply(consultantID, projectID, -hours, -1);
+    }
+
+    private void apply(int consultantID, int projectID, int hoursDelta, int countDelta) {
+        afterCommit(current -> {
+            current.consultants.add(consultantID, hoursDelta, countDelta);
+            current.projects.add(projectID, hoursDelta, countDelta);
+            if (countDelta > 0) {
+                current.membership.assignmentAdded(consultantID, projectID);
+            } else if (countDelta < 0) {
+                current.membership.assignmentRemoved(consultantID, projectID);
+            }
+            if (countDelta != 0) {
+                current.capacity.assignmentChanged(consultantID, projectID, countDelta);
+            }
+        });
+    }
+
+    /**
+     * Applies a change to the snapshot that is current now, once the calling
+     * thread's transaction commits. A change rolled back is dropped.
+     */
+    private void afterCommit(Consumer<Snapshot> change) {
+        Snapshot captured = snapshot;
+        connectionHandler.afterCommit(() -> {
+            changes.incrementAndGet();
+            Snapshot current = snapshot;
+            if (current != captured) {
+                // primed since the statement ran; the scan may already hold the change
+                invalidate();
+            } else if (current != null) {
+                change.accept(current);
+            }
+        });
+    }
+
+    private void prime() throws DaoException {
+        // A change written or committed while the scan runs may or may not be
+        // part of it, so such a change makes the new snapshot stale straight away.
+        long version = dataVersion.current();
+        long changesBefore = changes.get();
+        Snapshot primed = new Snapshot(Instant.now());
+
+        try (Connection connection = connectionHandler.getConnection()) {
+            try (PreparedStatement statement = connection.prepareStatement(SELECT_CONSULTANT_IDS);
+                    ResultSet resultSet = statement.executeQuery()) {
+                while (resultSet.next()) {
+                    primed.membership.consultantAdded(resultSet.getInt("ConsultantID"));
+                }
+            }
+            try (PreparedStatement statement = connection.prepareStatement(SELECT_ACTIVE_PROJECTS);
+                    ResultSet resultSet = statement.executeQuery()) {
+                while (resultSet.next()) {
+                    primed.capacity.setActive(resultSet.getInt("ProjectID"), true);
+                }
+            }
+            try (PreparedStatement statement = connection.prepareStatement(SELECT_ASSIGNMENTS)) {
+                statement.setFetchSize(connectionHandler.getFetchSize());
+                try (ResultSet resultSet = statement.executeQuery()) {
+                    while (resultSet.next()) {
+                        int consultantID = resultSet.getInt("ConsultantID");
+                        int projectID = resultSet.getInt("ProjectID");
+                        int hours = resultSet.getInt("HoursWorked");
+                        primed.consultants.add(consultantID, hours, 1);
+                        primed.projects.add(projectID, hours, 1);
+                        primed.capacity.assignmentChanged(consultantID, projectID, 1);
+                        primed.membership.assignmentAdded(consultantID, projectID);
+                    }
+                }
+            }
+        } catch (SQLException e) {
+            throw new DaoException("Unable to load hours and assignment totals. Please try again.", e);
+        }
+
+        // Published first, so a change committed after the check below
+        // finds the new snapshot and marks it stale itself
+        snapshot = primed;
+        if (dataVersion.current() != version || changes.get() != changesBefore) {
+            primed.stale = true;
+        }
+    }
+
+    /** The totals read by one priming scan, updated incrementally afterwards. */
+    private static final class Snapshot {
+        final Instant primedAt;
+        // first = hours, second = number of projects
+        final StripedTotals consultants = new StripedTotals();
+        // first = hours, second = team size
+        final StripedTotals projects = new StripedTotals();
+        final Capacity capacity = new Capacity();
+        final MembershipIndex membership = new MembershipIndex();
+        volatile boolean stale;
+
+        Snapshot(Instant primedAt) {
+            this.primedAt = primedAt;
+        }
+    }
+
+    /**
+     * Two int totals per int key, spread over stripes that are locked
+     * independently.
+     */
+    private static final class StripedTotals {
+        private final Stripe[] stripes = new Stripe[1 << STRIPE_BITS];
+
+        StripedTotals() {
+            for (int i = 0; i < stripes.length; i++) {
+                stripes[i] = new Stripe();
+            }
+        }
+
+        void add(int key, int firstDelta, int secondDelta) {
+            Stripe stripe = stripeFor(key);
+            long stamp = stripe.lock.writeLock();
+            try {
+                stripe.first.add(key, firstDelta);
+                stripe.second.add(key, secondDelta);
+            } finally {
+                stripe.lock.unlockWrite(stamp);
+            }
+        }
+
+        int first(int key) {
+            Stripe stripe = stripeFor(key);
+            return read(stripe, stripe.first, key);
+        }
+
+        int second(int key) {
+            Stripe stripe = stripeFor(key);
+            return read(stripe, stripe.second, key);
+        }
+
+        long sumOfFirst() {
+            long sum = 0;
+            for (Stripe stripe : stripes) {
+                long stamp = stripe.lock.readLock();
+                try {
+                    sum += stripe.first.sum();
+                } finally {
+                    stripe.lock.unlockRead(stamp);
+                }
+            }
+            return sum;
+        }
+
+        /**
+         * Returns the keys with a non-zero second total whose first total is the
+         * highest, in ascending key order.
+         */
+        List<Integer> keysWithMaxFirst() {
+            List<Integer> keys = new ArrayList<>();
+            int max = Integer.MIN_VALUE;
+            for (Stripe stripe : stripes) {
+                long stamp = stripe.lock.readLock();
+                try {
+                    for (int key : stripe.second.keys()) {
+                        int value = stripe.first.get(key);
+                        if (value > max) {
+                            max = value;
+                            keys.clear();
+                        }
+                        if (value == max) {
+                            keys.add(key);
+                        }
+                    }
+                } finally {
+                    stripe.lock.unlockRead(stamp);
+                }
+            }
+            keys.sort(null);
+            return keys;
+        }
+
+        private Stripe stripeFor(int key) {
+            // the high bits pick the stripe, the low bits the slot inside it
+            return stripes[IntIntMap.mix(key) >>> (32 - STRIPE_BITS)];
+        }
+
+        private static int read(Stripe stripe, IntIntMap map, int key) {
+            long stamp = stripe.lock.tryOptimisticRead();
+            int value = map.get(key);
+            if (!stripe.lock.validate(stamp)) {
+                stamp = stripe.lock.readLock();
+                try {
+                    value = map.get(key);
+                } finally {
+                    stripe.lock.unlockRead(stamp);
+                }
+            }
+            return value;
+        }
+    }
+
+    /**
+     * The counters behind the capacity guard: which projects are active, who
+     * is on each project, how many active projects each consultant is on and
+     * how many consultants are on at least one.
+     */
+    private static final class Capacity {
+        private final StampedLock lock = new StampedLock();
+        // projectID -> 1 while the project is active
+        private final IntIntMap activeProjects = new IntIntMap();
+        private final IntIntMap headcount = new IntIntMap();
+        private final IntIntMap activeProjectsPerConsultant = new IntIntMap();
+        // projectID -> (consultantID -> 1), walked when a project closes or reopens
+        private final Map<Integer, IntIntMap> members = new HashMap<>();
+        private int activeConsultants;
+
+        void assignmentChanged(int consultantID, int projectID, int delta) {
+            long stamp = lock.writeLock();
+            try {
+                headcount.add(projectID, delta);
+                IntIntMap team = members.computeIfAbsent(projectID, id -> new IntIntMap());
+                team.add(consultantID, delta);
+                if (team.size() == 0) {
+                    members.remove(projectID);
+                }
+                if (activeProjects.get(projectID) != 0) {
+                    countActive(consultantID, delta);
+                }
+            } finally {
+                lock.unlockWrite(stamp);
+            }
+        }
+
+        void setActive(int projectID, boolean active) {
+            long stamp = lock.writeLock();
+            try {
+                if ((activeProjects.get(projectID) != 0) == active) {
+                    return;
+                }
+                int delta = active ? 1 : -1;
+                activeProjects.add(projectID, delta);
+                IntIntMap team = members.get(projectID);
+                if (team != null) {
+                    for (int consultantID : team.keys()) {
+                        countActive(consultantID, delta);
+                    }
+                }
+            } finally {
+                lock.unlockWrite(stamp);
+            }
+        }
+
+        boolean exceeds(int projectID, int additionalConsultants) {
+            int[] counts = read(projectID);
+            return counts != null && isOverStaffed(counts[0] + additionalConsultants, counts[1]);
+        }
+
+        boolean isNear(int projectID, int additionalConsultants) {
+            int[] counts = read(projectID);
+            if (counts == null) {
+                return false;
+            }
+            int onProject = counts[0] + additionalConsultants;
+            int consultants = counts[1];
+            // the share only grows with the headcount and shrinks with the active consultants
+            return isOverStaffed(onProject + 1, consultants - 1) != isOverStaffed(onProject - 1, consultants + 1);
+        }
+
+        /**
+         * Returns the headcount of an active project and the number of active
+         * consultants, or null if the project is not active.
+         */
+        private int[] read(int projectID) {
+            long stamp = lock.tryOptimisticRead();
+            boolean active = activeProjects.get(projectID) != 0;
+            int onProject = headcount.get(projectID);
+            int consultants = activeConsultants;
+            if (!lock.validate(stamp)) {
+                stamp = lock.readLock();
+                try {
+                    active = activeProjects.get(projectID) != 0;
+                    onProject = headcount.get(projectID);
+                    consultants = activeConsultants;
+                } finally {
+                    lock.unlockRead(stamp);
+                }
+            }
+            return active ? new int[] { onProject, consultants } : null;
+        }
+
+        private static boolean isOverStaffed(int onProject, int consultants) {
+            return consultants > 0 && onProject / (double) consultants > MAX_SHARE_OF_ACTIVE_CONSULTANTS;
+        }
+
+        List<ProjectStaffing> scan() {
+            List<ProjectStaffing> staffing = new ArrayList<>();
+            long stamp = lock.readLock();
+            try {
+                for (int projectID : activeProjects.keys()) {
+                    staffing.add(new ProjectStaffing(projectID, headcount.get(projectID), activeConsultants));
+                }
+            } finally {
+                lock.unlockRead(stamp);
+            }
+            staffing.sort(Comparator.comparingInt(ProjectStaffing::headcount).reversed()
+                    .thenComparingInt(ProjectStaffing::projectID));
+            return staffing;
+        }
+
+        private void countActive(int consultantID, int delta) {
+            int before = activeProjectsPerConsultant.get(consultantID);
+            activeProjectsPerConsultant.add(consultantID, delta);
+            int after = before + delta;
+            if (before == 0 && after > 0) {
+                activeConsultants++;
+            } else if (before > 0 && after == 0) {
+                activeConsultants--;
+            }
+        }
+    }
+
+    private static final class Stripe {
+        final StampedLock lock = new StampedLock();
+        final IntIntMap first = new IntIntMap();
+        final IntIntMap second = new IntIntMap();
+    }
+
+    /**
+     * Open-addressing map from int to int with linear probing. A missing key
+     * reads as 0 and a key whose value drops to 0 is removed. Keys and values
+     * share one array, so an optimistic reader racing a resize always indexes
+     * an array consistent with its own length; validating the stamp then
+     * discards whatever it read.
+     */
+    private static final class IntIntMap {
+        private static final int FREE = Integer.MIN_VALUE;
+
+        // key at 2 * slot, value at 2 * slot + 1
+        private int[] table = newTable(16);
+        private int size;
+
+        static int mix(int key) {
+            int h = key * 0x9E3779B9;
+            return h ^ (h >>> 16);
+        }
+
+        int get(int key) {
+            int[] t = table;
+            int mask = (t.length >> 1) - 1;
+            int slot = mix(key) & mask;
+            for (int probes = 0; probes <= mask; probes++) {
+                int k = t[slot << 1];
+                if (k == key) {
+                    return t[(slot << 1) + 1];
+                }
+                if (k == FREE) {
+                    return 0;
+                }
+                slot = (slot + 1) & mask;
+            }
+            return 0;
+        }
+
+        void add(int key, int delta) {
+            if (delta == 0) {
+                return;
+            }
+            int mask = (table.length >> 1) - 1;
+            int slot = mix(key) & mask;
+            while (true) {
+                int k = table[slot << 1];
+                if (k == key) {
+                    int value = table[(slot << 1) + 1] + delta;
+                    if (value == 0) {
+                        remove(slot);
+                    } else {
+                        table[(slot << 1) + 1] = value;
+                    }
+                    return;
+                }
+                if (k == FREE) {
+                    table[(slot << 1) + 1] = delta;
+                    table[slot << 1] = key;
+                    if (++size * 2 > mask + 1) {
+                        resize();
+                    }
+                    return;
+                }
+                slot = (slot + 1) & mask;
+            }
+        }
+
+        int size() {
+            return size;
+        }
+
+        long sum() {
+            long sum = 0;
+            for (int i = 0; i < table.length; i += 2) {
+                if (table[i] != FREE) {
+                    sum += table[i + 1];
+                }
+            }
+            return sum;
+        }
+
+        int[] keys() {
+            int[] keys = new int[size];
+            int n = 0;
+            for (int i = 0; i < table.length; i += 2) {
+                if (table[i] != FREE) {
+                    keys[n++] = table[i];
+                }
+            }
+            return keys;
+        }
+
+        /** Removes a slot and shifts later entries of its probe run back. */
+        private void remove(int slot) {
+            int mask = (table.length >> 1) - 1;
+            int hole = slot;
+            int next = (hole + 1) & mask;
+            while (table[next << 1] != FREE) {
+                int home = mix(table[next << 1]) & mask;
+                // move the entry unless its home lies cyclically in (hole, next]
+                if (((next - home) & mask) >= ((next - hole) & mask)) {
+                    table[(hole << 1) + 1] = table[(next << 1) + 1];
+                    table[hole << 1] = table[next << 1];
+                    hole = next;
+                }
+                next = (next + 1) & mask;
+            }
+            table[hole << 1] = FREE;
+            table[(hole << 1) + 1] = 0;
+            size--;
+        }
+
+        private void resize() {
+            int[] old = table;
+            int[] grown = newTable(old.length);
+            int mask = (grown.length >> 1) - 1;
+            for (int i = 0; i < old.length; i += 2) {
+                if (old[i] != FREE) {
+                    int slot = mix(old[i]) & mask;
+                    while (grown[slot << 1] != FREE) {
+                        slot = (slot + 1) & mask;
+                    }
+                    grown[slot << 1] = old[i];
+                    grown[(slot << 1) + 1] = old[i + 1];
+                }
+            }
+            table = grown;
+        }
+
+        private static int[] newTable(int slots) {
+            int[] t = new int[slots * 2];
+            for (int i = 0; i < t.length; i += 2) {
+                t[i] = FREE;
+            }
+            return t;
+        }
+    }
+}
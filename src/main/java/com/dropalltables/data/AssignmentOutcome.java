@@ -0,0 +1,15 @@
+package com.dropalltables.data;
+
+/**
+ * Result of one row in a bulk assignment insert
+ * (see DaoProjectAssignment.insertProjectAssignments).
+ */
+public enum AssignmentOutcome {
+    /** The consultant was assigned to the project. */
+    INSERTED,
+    /**
+     * Nothing was inserted because the consultant is already on the project, or
+     * the consultant or project no longer exists.
+     */
+    SKIPPED
+}
@@ -0,0 +1,74 @@
+package com.dropalltables.data;
+
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CompletionException;
+import java.util.concurrent.ExecutorService;
+
+/**
+ * Runs DAO calls off the calling thread.
+ *
+ * Each call gets its own virtual thread from the data context's executor, so a
+ * caller on the JavaFX Application Thread never waits for the database. The
+ * returned future completes with the DAO result, or exceptionally with a
+ * CompletionException whose cause is the DaoException the DAO threw.
+ *
+ * <pre>
+ * dataContext.getAsyncDao()
+ *         .supply(dc -> dc.getDaoProject().getAllProjects())
+ *         .thenAccept(projects -> ...);
+ * </pre>
+ *
+ * The futures complete on the virtual thread; UI code should hand results back
+ * to the FX thread (see com.dropalltables.util.FxAsync).
+ */
+public class AsyncDao {
+
+    /** A DAO call that returns a value. */
+    @FunctionalInterface
+    public interface DaoCall<T> {
+        T call(DataContext dataContext) throws DaoException;
+    }
+
+    /** A DAO call without a result. */
+    @FunctionalInterface
+    public interface DaoAction {
+        void run(DataContext dataContext) throws DaoException;
+    }
+
+    private final DataContext dataContext;
+    private final ExecutorService executor;
+
+    AsyncDao(DataContext dataContext, ExecutorService executor) {
+        this.dataContext = dataContext;
+        this.executor = executor;
+    }
+
+    /**
+     * Runs a DAO call on a virtual thread.
+     *
+     * @param call The DAO call; it receives the data context.
+     * @return A future completed with the call's result.
+     */
+    public <T> CompletableFuture<T> supply(DaoCall<T> call) {
+        return CompletableFuture.supplyAsync(() -> {
+            try {
+                return call.call(dataContext);
+            } catch (DaoException e) {
+                throw new CompletionException(e);
+            }
+        }, executor);
+    }
+
+    /**
+     * Runs a DAO call without a result on a virtual thread.
+     *
+     * @param action The DAO call; it receives the data context.
+     * @return A future completed when the call has finished.
+     */
+    public CompletableFuture<Void> run(DaoAction action) {
+        return supply(dc -> {
+            action.run(dc);
+            return null;
+        });
+    }
+}
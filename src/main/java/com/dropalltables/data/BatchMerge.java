@@ -0,0 +1,85 @@
+package com.dropalltables.data;
+
+import java.sql.Connection;
+import java.sql.PreparedStatement;
+import java.sql.ResultSet;
+import java.sql.SQLException;
+import java.util.Collections;
+import java.util.List;
+
+/**
+ * Runs a MERGE statement whose source is a multi-row VALUES list, so an upsert
+ * of many rows takes one round trip per chunk instead of one per row.
+ *
+ * The statement template has a %s where the VALUES rows go and must output
+ * $action AS MergeAction, so inserted and updated rows can be counted and
+ * handed to the caller. Rows the MERGE leaves alone produce no output and are
+ * counted as unchanged. Chunks hold ROWS_PER_STATEMENT rows; the rest is split
+ * into powers of two, so only a handful of distinct statements get prepared
+ * and cached. The rows must not repeat a key, which MERGE would reject.
+ */
+final class BatchMerge {
+    // 256 rows of up to 8 columns stay below SQL Server's 2100 parameters
+    static final int ROWS_PER_STATEMENT = 256;
+
+    /** Binds one row, starting at the given parameter index. */
+    @FunctionalInterface
+    interface RowBinder<T> {
+        void bind(PreparedStatement statement, int firstIndex, T row) throws SQLException;
+    }
+
+    /** Reads one output row of an inserted or updated row. */
+    @FunctionalInterface
+    interface OutputReader {
+        /** For statements whose output only serves to count the rows. */
+        OutputReader NONE = (inserted, resultSet) -> {
+        };
+
+        void read(boolean inserted, ResultSet resultSet) throws SQLException;
+    }
+
+    private BatchMerge() {
+    }
+
+    /**
+     * Merges the rows in chunks on the given connection.
+     *
+     * @param template The MERGE statement with %s in place of the VALUES rows.
+     * @param columns  The number of parameters per row.
+     * @return The counts of inserted, updated and unchanged rows.
+     */
+    static <T> UpsertResult merge(Connection connection, String template, int columns, List<T> rows,
+            RowBinder<T> binder, OutputReader reader) throws SQLException {
+        int inserted = 0;
+        int updated = 0;
+        int from = 0;
+        while (from < rows.size()) {
+            int remaining = rows.size() - from;
+            int size = remaining >= ROWS_PER_STATEMENT ? ROWS_PER_STATEMENT : Integer.highestOneBit(remaining);
+            List<T> chunk = rows.subList(from, from + size);
+            from += size;
+
+            String row = "(" + String.join(", ", Collections.nCopies(columns, "?")) + ")";
+            String sql = template.formatted(String.join(", ", Collections.nCopies(size, row)));
+            try (PreparedStatement statement = connection.prepareStatement(sql)) {
+                int index = 1;
+                for (T value : chunk) {
+                    binder.bind(statement, index, value);
+                    index += columns;
+                }
+                try (ResultSet resultSet = statement.executeQuery()) {
+                    while (resultSet.next()) {
+                        boolean isInsert = "INSERT".equals(resultSet.getString("MergeAction"));
+                        if (isInsert) {
+                            inserted++;
+                        } else {
+                            updated++;
+                        }
+                        reader.read(isInsert, resultSet);
+                    }
+                }
+            }
+        }
+        return new UpsertResult(inserted, updated, rows.size() - inserted - updated);
+    }
+}
@@ -0,0 +1,104 @@
+package com.dropalltables.data;
+
+import java.sql.SQLException;
+import java.sql.Statement;
+import java.util.ArrayList;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Set;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+
+/**
+ * Lets a caller abandon a query that is still running, e.g. when the user
+ * has typed another character into a filter box before the previous search
+ * returned. Cancelling asks the server to stop the statement (Statement.cancel)
+ * and makes the DAO method throw QueryCancelledException.
+ *
+ * A token is used for one operation; create a new one for the next. The
+ * operation may run several statements at once (for example the detail
+ * queries of a selected row), and cancelling stops all of them.
+ */
+public class CancellationToken {
+    // Statement.cancel is a network round trip, kept off the calling thread
+    private static final ExecutorService CANCELLER = Executors.newVirtualThreadPerTaskExecutor();
+
+    private boolean cancelled = false;
+    private final Set<Statement> statements = new HashSet<>();
+    // Statements whose cancel request has not been sent yet
+    private final Set<Statement> cancelling = new HashSet<>();
+
+    /**
+     * Cancels the operation. Safe to call from any thread and more than once.
+     * Returns at once; the cancel requests are sent to the server in the
+     * background, so this can be called on the FX thread.
+     */
+    public void cancel() {
+        List<Statement> running;
+        synchronized (this) {
+            if (cancelled) {
+                return;
+            }
+            cancelled = true;
+            running = new ArrayList<>(statements);
+            cancelling.addAll(running);
+            statements.clear();
+        }
+        if (!running.isEmpty()) {
+            CANCELLER.execute(() -> {
+                for (Statement statement : running) {
+                    try {
+                        statement.cancel();
+                    } catch (SQLException ignored) {
+                        // the statement may have finished in the meantime
+                    } finally {
+                        cancelled(statement);
+                    }
+                }
+            });
+        }
+    }
+
+    private synchronized void cancelled(Statement statement) {
+        cancelling.remove(statement);
+        notifyAll();
+    }
+
+    public synchronized boolean isCancelled() {
+        return cancelled;
+    }
+
+    /**
+     * Registers a statement that is about to run for this operation.
+     *
+     * @throws QueryCancelledException if the token was cancelled before the
+     *                                 statement could start.
+     */
+    synchronized void register(Statement statement) throws QueryCancelledException {
+        if (cancelled) {
+            throw new QueryCancelledException();
+        }
+        statements.add(statement);
+    }
+
+    /**
+     * Removes a statement once it has finished, before it is closed. Waits
+     * while a cancel request for the statement is still being sent: until
+     * then it must not go back to the connection's statement cache, where the
+     * late cancel could stop another query.
+     */
+    synchronized void unregister(Statement statement) {
+        statements.remove(statement);
+        boolean interrupted = false;
+        while (cancelling.contains(statement)) {
+            try {
+                wait();
+            } catch (InterruptedException e) {
+                interrupted = true;
+            }
+        }
+        if (interrupted) {
+            Thread.currentThread().interrupt();
+        }
+    }
+}
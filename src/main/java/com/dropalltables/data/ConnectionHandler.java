@@ -1,41 +1,46 @@
 package com.dropalltables.data;
 
-import java.io.IOException;
-import java.io.InputStream;
 import java.sql.Connection;
-import java.sql.DriverManager;
 import java.sql.SQLException;
 import java.util.Properties;
 
 public class ConnectionHandler {
     private final String connectionURL;
-    private final String propertiesFilePath = "/config.properties";
+    private final ConnectionPool connectionPool;
+    private final int fetchSize;
+    private final ThreadLocal<UnitOfWork> currentUnitOfWork = new ThreadLocal<>();
 
     /**
      * Constructor for ConnectionHandler.
-     * Reads database connection details from a properties file, builds the connection URL.
-     * @throws IOException if the properties file cannot be found or read.
+     * Builds the connection URL from the database settings and opens the connection pool.
+     * A complete JDBC URL in database.url is used as is instead, e.g. by the
+     * benchmarks to run the DAOs against an embedded database.
+     * @param connectionProperties The database settings, usually read from config.properties.
      */
-    public ConnectionHandler() throws IOException {
+    ConnectionHandler(Properties connectionProperties) {
+        String url = connectionProperties.getProperty("database.url");
+        connectionURL = url != null && !url.isBlank() ? url.trim() : sqlServerURL(connectionProperties);
 
-        Properties connectionProperties = new Properties();
-
-        try (InputStream inputStream = getClass().getResourceAsStream(propertiesFilePath)) {
-
-            if (inputStream != null) {
-                connectionProperties.load(inputStream);
-            } else {
-                throw new IOException("Properties file not found: " + propertiesFilePath);
-            }
-        }
+        connectionPool = new ConnectionPool(
+                connectionURL,
+                intProperty(connectionProperties, "database.pool.minSize", 1),
+                intProperty(connectionProperties, "database.pool.maxSize", 10),
+                intProperty(connectionProperties, "database.pool.idleTimeoutSeconds", 300) * 1000L,
+                intProperty(connectionProperties, "database.pool.connectionTimeoutSeconds", 30) * 1000L,
+                intProperty(connectionProperties, "database.pool.validationTimeoutSeconds", 5),
+                intProperty(connectionProperties, "database.pool.leakDetectionThresholdSeconds", 60) * 1000L,
+                intProperty(connectionProperties, "database.pool.statementCacheSize", 64));
+        fetchSize = intProperty(connectionProperties, "database.fetchSize", 1000);
+    }
 
+    private static String sqlServerURL(Properties connectionProperties) {
         String databaseServerName = connectionProperties.getProperty("database.server.name");
         String databaseServerPort = connectionProperties.getProperty("database.server.port");
         String databaseName = connectionProperties.getProperty("database.name");
         String databaseUsername = connectionProperties.getProperty("database.user.name");
         String databasePassword = connectionProperties.getProperty("database.user.password");
 
-        connectionURL = "jdbc:sqlserver://"
+        return "jdbc:sqlserver://"
                 + databaseServerName + ":" + databaseServerPort + ";"
                 + "database=" + databaseName + ";"
                 + "user=" + databaseUsername + ";"
@@ -45,12 +50,99 @@ public class ConnectionHandler {
     }
 
     /**
-     * Establishes and returns a new connection to the database.
-     * @return A new Connection object.
-     * @throws SQLException if a database access error occurs.
+     * Borrows a connection from the connection pool.
+     * Closing the returned connection hands it back to the pool. While a unit of
+     * work is open on the calling thread, its shared connection is returned instead.
+     * @return A pooled Connection object.
+     * @throws SQLException if a database access error occurs or no connection becomes available in time.
      */
     public Connection getConnection() throws SQLException {
-        return DriverManager.getConnection(connectionURL);
+        UnitOfWork unitOfWork = currentUnitOfWork.get();
+        if (unitOfWork != null) {
+            return unitOfWork.getConnection();
+        }
+        return connectionPool.borrow();
+    }
+
+    /**
+     * Opens a unit of work on the calling thread. DAO calls made on this thread
+     * until the unit is closed share one connection and one transaction.
+     * If a unit is already open, the new unit joins its transaction.
+     * @return The unit of work; close it with try-with-resources.
+     * @throws DaoException if no connection can be borrowed.
+     */
+    public UnitOfWork beginUnitOfWork() throws DaoException {
+        UnitOfWork current = currentUnitOfWork.get();
+        if (current != null) {
+            return current.join();
+        }
+        try {
+            UnitOfWork unitOfWork = new UnitOfWork(this, connectionPool.borrow());
+            currentUnitOfWork.set(unitOfWork);
+            return unitOfWork;
+        } catch (SQLException e) {
+            throw new DaoException("Unable to connect to the database. Please check your connection and try again.", e);
+        }
+    }
+
+    /**
+     * Runs an action once the changes made on the calling thread are committed:
+     * straight away outside a unit of work, otherwise when the unit commits.
+     * @param action The action to run; it is dropped if the unit rolls back.
+     */
+    void afterCommit(Runnable action) {
+        UnitOfWork unitOfWork = currentUnitOfWork.get();
+        if (unitOfWork != null) {
+            unitOfWork.afterCommit(action);
+        } else {
+            action.run();
+        }
+    }
+
+    void endUnitOfWork(UnitOfWork unitOfWork) {
+        if (currentUnitOfWork.get() == unitOfWork) {
+            currentUnitOfWork.remove();
+        }
+    }
+
+    /**
+     * Returns the number of rows streaming queries ask the driver to fetch per
+     * round trip (database.fetchSize, default 1000).
+     * @return The fetch size hint.
+     */
+    public int getFetchSize() {
+        return fetchSize;
+    }
+
+    /**
+     * Returns current statistics for the connection pool behind this handler.
+     * @return A snapshot of active/idle connections, wait times and other counters.
+     */
+    public PoolStatistics getPoolStatistics() {
+        return connectionPool.getStatistics();
+    }
+
+    /**
+     * Shuts down the connection pool and closes its idle connections.
+     */
+    void close() {
+        connectionPool.close();
+    }
+
+    /**
+     * Reads an optional integer setting, falling back to a default if it is missing.
+     * @throws IllegalArgumentException if the setting is present but not a number.
+     */
+    static int intProperty(Properties properties, String key, int defaultValue) {
+        String value = properties.getProperty(key);
+        if (value == null || value.isBlank()) {
+            return defaultValue;
+        }
+        try {
+            return Integer.parseInt(value.trim());
+        } catch (NumberFormatException e) {
+            throw new IllegalArgumentException("Invalid value for " + key + ": " + value, e);
+        }
     }
 
 }
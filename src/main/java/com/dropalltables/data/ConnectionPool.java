@@ -0,0 +1,641 @@
+package com.dropalltables.data;
+
+import java.lang.reflect.InvocationHandler;
+import java.lang.reflect.InvocationTargetException;
+import java.lang.reflect.Method;
+import java.lang.reflect.Proxy;
+import java.sql.Connection;
+import java.sql.DriverManager;
+import java.sql.PreparedStatement;
+import java.sql.SQLException;
+import java.sql.SQLTimeoutException;
+import java.sql.Statement;
+import java.util.Iterator;
+import java.util.LinkedHashMap;
+import java.util.Map;
+import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.Executors;
+import java.util.concurrent.LinkedBlockingDeque;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.Semaphore;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.AtomicLong;
+
+/**
+ * A bounded pool of physical database connections.
+ * Connections handed out by {@link #borrow()} are proxies; calling close() on
+ * them returns the physical connection to the pool instead of closing it.
+ * Each physical connection also keeps an LRU cache of prepared statements, so
+ * prepareStatement(sql) and prepareStatement(sql, autoGeneratedKeys) on a
+ * pooled connection reuse the statement prepared for the same SQL by an
+ * earlier borrower.
+ */
+class ConnectionPool {
+    private static final System.Logger LOGGER = System.getLogger(ConnectionPool.class.getName());
+
+    // Connections used this recently are trusted without a validation round trip
+    private static final long VALIDATION_BYPASS_MILLIS = 500;
+    // How long a borrower at the size limit waits for an idle connection at a time
+    private static final long IDLE_POLL_MILLIS = 50;
+
+    private final String connectionURL;
+    private final int minSize;
+    private final int maxSize;
+    private final long idleTimeoutMillis;
+    private final long connectionTimeoutMillis;
+    private final int validationTimeoutSeconds;
+    private final long leakDetectionThresholdMillis;
+    private final int statementCacheSize;
+
+    private final Semaphore permits;
+    private final LinkedBlockingDeque<PooledConnection> idle = new LinkedBlockingDeque<>();
+    private final Set<PooledConnection> active = ConcurrentHashMap.newKeySet();
+    // Physical connections open or being opened, whether idle, borrowed or in between
+    private final AtomicInteger total = new AtomicInteger();
+    private final ScheduledExecutorService housekeeper;
+    private volatile boolean closed = false;
+
+    private final AtomicLong borrowCount = new AtomicLong();
+    private final AtomicLong totalWaitNanos = new AtomicLong();
+    private final AtomicLong maxWaitNanos = new AtomicLong();
+    private final AtomicLong connectionsCreated = new AtomicLong();
+    private final AtomicLong connectionsEvicted = new AtomicLong();
+    private final AtomicLong leaksDetected = new AtomicLong();
+    private final AtomicLong statementCacheHits = new AtomicLong();
+    private final AtomicLong statementCacheMisses = new AtomicLong();
+
+    /**
+     * Constructor for ConnectionPool.
+     * Starts a background housekeeping thread that evicts idle connections,
+     * keeps the pool at its minimum size and reports leaked connections.
+     *
+     * @param connectionURL                The JDBC URL used for new connections.
+     * @param minSize                      Connections kept open while idle.
+     * @param maxSize                      Upper bound on open connections.
+     * @param idleTimeoutMillis            Idle time after which surplus connections are closed.
+     * @param connectionTimeoutMillis      Maximum time to wait for a free connection.
+     * @param validationTimeoutSeconds     Timeout passed to Connection.isValid on borrow.
+     * @param leakDetectionThresholdMillis Borrow time after which a leak is reported, 0 to disable.
+     * @param statementCacheSize           Prepared statements cached per connection, 0 to disable.
+     */
+    ConnectionPool(String connectionURL, int minSize, int maxSize, long idleTimeoutMillis,
+            long connectionTimeoutMillis, int validationTimeoutSeconds, long leakDetectionThresholdMillis,
+            int statementCacheSize) {
+        if (maxSize < 1 || minSize < 0 || minSize > maxSize) {
+            throw new IllegalArgumentException("Invalid pool size: min=" + minSize + ", max=" + maxSize);
+        }
+        this.connectionURL = connectionURL;
+        this.minSize = minSize;
+        this.maxSize = maxSize;
+        this.idleTimeoutMillis = idleTimeoutMillis;
+        this.connectionTimeoutMillis = connectionTimeoutMillis;
+        this.validationTimeoutSeconds = validationTimeoutSeconds;
+        this.leakDetectionThresholdMillis = leakDetectionThresholdMillis;
+        this.statementCacheSize = statementCacheSize;
+        this.permits = new Semaphore(maxSize, true);
+
+        this.housekeeper = Executors.newSingleThreadScheduledExecutor(runnable -> {
+            Thread thread = new Thread(runnable, "connection-pool-housekeeper");
+            thread.setDaemon(true);
+            return thread;
+        });
+        long period = Math.max(1000, Math.min(idleTimeoutMillis, 30_000));
+        housekeeper.scheduleWithFixedDelay(this::houseKeep, 0, period, TimeUnit.MILLISECONDS);
+    }
+
+    /**
+     * Borrows a connection from the pool, opening a new one if no idle
+     * connection is available and the pool is below its maximum size.
+     *
+     * @return A pooled connection that must be closed by the caller.
+     * @throws SQLException if no connection becomes available in time or a new
+     *                      connection cannot be opened.
+     */
+    Connection borrow() throws SQLException {
+        if (closed) {
+            throw new SQLException("Connection pool has been shut down.");
+        }
+
+        long waitStart = System.nanoTime();
+        long deadline = waitStart + TimeUnit.MILLISECONDS.toNanos(connectionTimeoutMillis);
+        try {
+            if (!permits.tryAcquire(connectionTimeoutMillis, TimeUnit.MILLISECONDS)) {
+                throw timeout();
+            }
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            throw new SQLException("Interrupted while waiting for a database connection.", e);
+        }
+        recordWait(System.nanoTime() - waitStart);
+
+        try {
+            PooledConnection pooled = takeIdleOrOpen(deadline);
+
+            pooled.borrowedAt = System.currentTimeMillis();
+            pooled.borrowTrace = leakDetectionThresholdMillis > 0
+                    ? new Exception("Connection borrowed by thread " + Thread.currentThread().getName())
+                    : null;
+            pooled.leakReported = false;
+            active.add(pooled);
+            return pooled.newHandle();
+        } catch (SQLException | RuntimeException e) {
+            permits.release();
+            throw e;
+        }
+    }
+
+    /**
+     * Takes a usable idle connection or opens a new one. Holding a permit, the
+     * caller finds an idle connection or room below the maximum size, except
+     * while the housekeeper is opening one to reach the minimum size; it then
+     * waits for that connection to become idle.
+     */
+    private PooledConnection takeIdleOrOpen(long deadline) throws SQLException {
+        while (true) {
+            PooledConnection pooled;
+            while ((pooled = idle.pollFirst()) != null) {
+                if (isUsable(pooled)) {
+                    return pooled;
+                }
+                discard(pooled);
+            }
+            if (reserve(maxSize)) {
+                return open();
+            }
+            long remaining = deadline - System.nanoTime();
+            if (remaining <= 0) {
+                throw timeout();
+            }
+            try {
+                pooled = idle.pollFirst(Math.min(remaining, TimeUnit.MILLISECONDS.toNanos(IDLE_POLL_MILLIS)),
+                        TimeUnit.NANOSECONDS);
+            } catch (InterruptedException e) {
+                Thread.currentThread().interrupt();
+                throw new SQLException("Interrupted while waiting for a database connection.", e);
+            }
+            if (pooled != null) {
+                if (isUsable(pooled)) {
+                    return pooled;
+                }
+                discard(pooled);
+            }
+        }
+    }
+
+    /** Counts one more physical connection if that keeps the total below the limit. */
+    private boolean reserve(int limit) {
+        int current;
+        do {
+            current = total.get();
+            if (current >= limit) {
+                return false;
+            }
+        } while (!total.compareAndSet(current, current + 1));
+        return true;
+    }
+
+    private SQLTimeoutException timeout() {
+        return new SQLTimeoutException("Timed out after " + connectionTimeoutMillis
+                + " ms waiting for a database connection (" + getStatistics() + ").");
+    }
+
+    /**
+     * Returns a snapshot of the pool's current state and counters.
+     *
+     * @return The pool statistics.
+     */
+    PoolStatistics getStatistics() {
+        long borrows = borrowCount.get();
+        return new PoolStatistics(
+                active.size(),
+                idle.size(),
+                maxSize,
+                permits.getQueueLength(),
+                borrows,
+                borrows == 0 ? 0 : totalWaitNanos.get() / borrows / 1_000_000.0,
+                maxWaitNanos.get() / 1_000_000.0,
+                connectionsCreated.get(),
+                connectionsEvicted.get(),
+                leaksDetected.get(),
+                statementCacheHits.get(),
+                statementCacheMisses.get());
+    }
+
+    /**
+     * Shuts the pool down. Idle connections are closed immediately, borrowed
+     * connections are closed when they are returned.
+     */
+    void close() {
+        closed = true;
+        housekeeper.shutdownNow();
+        PooledConnection pooled;
+        while ((pooled = idle.pollFirst()) != null) {
+            destroy(pooled);
+        }
+    }
+
+    private void release(PooledConnection pooled) {
+        active.remove(pooled);
+        try {
+            if (closed || pooled.raw.isClosed()) {
+                discard(pooled);
+                return;
+            }
+            // Leave the connection the way the next borrower expects it
+            if (!pooled.raw.getAutoCommit()) {
+                pooled.raw.rollback();
+                pooled.raw.setAutoCommit(true);
+            }
+            if (pooled.settingsChanged) {
+                pooled.restoreSettings();
+            }
+            pooled.raw.clearWarnings();
+            pooled.lastUsed = System.currentTimeMillis();
+            idle.offerFirst(pooled);
+        } catch (SQLException e) {
+            discard(pooled);
+        } finally {
+            permits.release();
+        }
+    }
+
+    private boolean isUsable(PooledConnection pooled) {
+        if (System.currentTimeMillis() - pooled.lastUsed < VALIDATION_BYPASS_MILLIS) {
+            return true;
+        }
+        try {
+            return pooled.raw.isValid(validationTimeoutSeconds);
+        } catch (SQLException e) {
+            return false;
+        }
+    }
+
+    /** Opens a physical connection already counted in total by reserve(). */
+    private PooledConnection open() throws SQLException {
+        Connection raw = null;
+        try {
+            raw = DriverManager.getConnection(connectionURL);
+            PooledConnection pooled = new PooledConnection(raw);
+            connectionsCreated.incrementAndGet();
+            return pooled;
+        } catch (SQLException | RuntimeException e) {
+            total.decrementAndGet();
+            if (raw != null) {
+                try {
+                    raw.close();
+                } catch (SQLException ignored) {
+                    // the connection is being thrown away anyway
+                }
+            }
+            throw e;
+        }
+    }
+
+    private void discard(PooledConnection pooled) {
+        connectionsEvicted.incrementAndGet();
+        destroy(pooled);
+    }
+
+    private void destroy(PooledConnection pooled) {
+        total.decrementAndGet();
+        try {
+            pooled.raw.close();
+        } catch (SQLException ignored) {
+            // the connection is being thrown away anyway
+        }
+    }
+
+    private void recordWait(long nanos) {
+        borrowCount.incrementAndGet();
+        totalWaitNanos.addAndGet(nanos);
+        maxWaitNanos.accumulateAndGet(nanos, Math::max);
+    }
+
+    /**
+     * Periodic maintenance: evicts connections idle for longer than the idle
+     * timeout (down to the minimum size), tops the pool up to its minimum size
+     * and reports connections that have been borrowed for too long.
+     */
+    private void houseKeep() {
+        long now = System.currentTimeMillis();
+
+        for (PooledConnection pooled : idle) {
+            if (total.get() <= minSize) {
+                break;
+            }
+            if (now - pooled.lastUsed > idleTimeoutMillis && idle.remove(pooled)) {
+                discard(pooled);
+            }
+        }
+
+        try {
+            while (!closed && reserve(minSize)) {
+                PooledConnection pooled = open();
+                pooled.lastUsed = System.currentTimeMillis();
+                idle.offerLast(pooled);
+            }
+        } catch (SQLException e) {
+            LOGGER.log(System.Logger.Level.WARNING,
+                    "Connection pool could not reach its minimum size: " + e.getMessage());
+        }
+
+        if (leakDetectionThresholdMillis > 0) {
+            for (PooledConnection pooled : active) {
+                if (!pooled.leakReported && now - pooled.borrowedAt > leakDetectionThresholdMillis) {
+                    pooled.leakReported = true;
+                    leaksDetected.incrementAndGet();
+                    LOGGER.log(System.Logger.Level.WARNING, "Possible connection leak: connection borrowed "
+                            + (now - pooled.borrowedAt) + " ms ago has not been returned.",
+                            pooled.borrowTrace);
+                }
+            }
+        }
+    }
+
+    /** A physical connection together with its pool bookkeeping. */
+    private class PooledConnection {
+        private final Connection raw;
+        private final Map<StatementKey, CachedStatement> statementCache;
+        private volatile long lastUsed = System.currentTimeMillis();
+        private volatile long borrowedAt;
+        private volatile Exception borrowTrace;
+        private volatile boolean leakReported;
+
+        // the session settings a borrower may change, as the connection was opened
+        private final boolean readOnly;
+        private final int transactionIsolation;
+        private final int holdability;
+        private final String catalog;
+        private final String schema;
+        private volatile boolean settingsChanged = false;
+
+        PooledConnection(Connection raw) throws SQLException {
+            this.raw = raw;
+            this.statementCache = new LinkedHashMap<>(16, 0.75f, true);
+            this.readOnly = raw.isReadOnly();
+            this.transactionIsolation = raw.getTransactionIsolation();
+            this.holdability = raw.getHoldability();
+            this.catalog = raw.getCatalog();
+            this.schema = raw.getSchema();
+        }
+
+        /** Undoes the session settings of the last borrower, so they do not carry over to the next. */
+        void restoreSettings() throws SQLException {
+            raw.setReadOnly(readOnly);
+            raw.setTransactionIsolation(transactionIsolation);
+            raw.setHoldability(holdability);
+            if (catalog != null) {
+                raw.setCatalog(catalog);
+            }
+            if (schema != null) {
+                raw.setSchema(schema);
+            }
+            settingsChanged = false;
+        }
+
+        /**
+         * Returns the cached statement for the SQL, preparing and caching it on a
+         * miss. A statement that is still open elsewhere on this connection is
+         * not shared; the caller then gets an uncached statement instead.
+         */
+        synchronized PreparedStatement prepareCached(String sql, int autoGeneratedKeys) throws SQLException {
+            if (statementCacheSize <= 0) {
+                return raw.prepareStatement(sql, autoGeneratedKeys);
+            }
+
+            StatementKey key = new StatementKey(sql, autoGeneratedKeys);
+            CachedStatement cached = statementCache.get(key);
+            if (cached != null) {
+                if (cached.inUse) {
+                    statementCacheMisses.incrementAndGet();
+                    return raw.prepareStatement(sql, autoGeneratedKeys);
+                }
+                statementCacheHits.incrementAndGet();
+            } else {
+                statementCacheMisses.incrementAndGet();
+                cached = new CachedStatement(this, raw.prepareStatement(sql, autoGeneratedKeys));
+                try {
+                    cached.captureDefaults();
+                } catch (SQLException e) {
+                    cached.closeQuietly();
+                    throw e;
+                }
+                statementCache.put(key, cached);
+                evictEldestStatements();
+            }
+            cached.inUse = true;
+            return cached.newHandle();
+        }
+
+        private void evictEldestStatements() {
+            Iterator<CachedStatement> iterator = statementCache.values().iterator();
+            while (statementCache.size() > statementCacheSize && iterator.hasNext()) {
+                CachedStatement eldest = iterator.next();
+                iterator.remove();
+                eldest.evicted = true;
+                if (!eldest.inUse) {
+                    eldest.closeQuietly();
+                }
+            }
+        }
+
+        synchronized void returnStatement(CachedStatement cached) {
+            cached.inUse = false;
+            if (cached.evicted) {
+                cached.closeQuietly();
+                return;
+            }
+            try {
+                cached.raw.clearParameters();
+                cached.raw.clearBatch();
+                cached.restoreDefaults();
+            } catch (SQLException e) {
+                statementCache.values().remove(cached);
+                cached.closeQuietly();
+            }
+        }
+
+        /**
+         * Creates the handle given to a borrower. Each borrow gets its own handle
+         * so a handle that has been closed cannot touch the connection after it
+         * has been lent out again.
+         */
+        Connection newHandle() {
+            return (Connection) Proxy.newProxyInstance(
+                    Connection.class.getClassLoader(),
+                    new Class<?>[] { Connection.class },
+                    new Handle(this));
+        }
+    }
+
+    /** Forwards calls to the physical connection until the handle is closed. */
+    private class Handle implements InvocationHandler {
+        private final PooledConnection pooled;
+        private boolean handleClosed = false;
+
+        Handle(PooledConnection pooled) {
+            this.pooled = pooled;
+        }
+
+        @Override
+        public Object invoke(Object proxy, Method method, Object[] args) throws Throwable {
+            switch (method.getName()) {
+                case "close" -> {
+                    if (!handleClosed) {
+                        handleClosed = true;
+                        release(pooled);
+                    }
+                    return null;
+                }
+                case "isClosed" -> {
+                    return handleClosed || pooled.raw.isClosed();
+                }
+                case "equals" -> {
+                    return proxy == args[0];
+                }
+                case "hashCode" -> {
+                    return System.identityHashCode(proxy);
+                }
+                case "toString" -> {
+                    return "PooledConnection[" + pooled.raw + (handleClosed ? ", closed]" : "]");
+                }
+                case "prepareStatement" -> {
+                    if (!handleClosed && args.length == 1) {
+                        return pooled.prepareCached((String) args[0], Statement.NO_GENERATED_KEYS);
+                    }
+                    if (!handleClosed && args.length == 2 && args[1] instanceof Integer autoGeneratedKeys) {
+                        return pooled.prepareCached((String) args[0], autoGeneratedKeys);
+                    }
+                    // other overloads are not cached
+                    return forward(method, args);
+                }
+                case "setReadOnly", "setTransactionIsolation", "setHoldability", "setCatalog", "setSchema" -> {
+                    // restored when the connection is returned
+                    if (!handleClosed) {
+                        pooled.settingsChanged = true;
+                    }
+                    return forward(method, args);
+                }
+                default -> {
+                    return forward(method, args);
+                }
+            }
+        }
+
+        private Object forward(Method method, Object[] args) throws Throwable {
+            if (handleClosed) {
+                throw new SQLException("Connection has already been returned to the pool.");
+            }
+            try {
+                return method.invoke(pooled.raw, args);
+            } catch (InvocationTargetException e) {
+                throw e.getCause();
+            }
+        }
+    }
+
+    /** Statements prepared with and without generated keys are cached separately. */
+    private record StatementKey(String sql, int autoGeneratedKeys) {
+    }
+
+    /** A prepared statement kept open in a connection's statement cache. */
+    private static class CachedStatement {
+        private final PooledConnection owner;
+        private final PreparedStatement raw;
+        private boolean inUse = false;
+        private boolean evicted = false;
+
+        // the settings a borrower may change, as the driver prepared the statement
+        private int fetchSize;
+        private int fetchDirection;
+        private int maxRows;
+        private int maxFieldSize;
+        private int queryTimeout;
+
+        CachedStatement(PooledConnection owner, PreparedStatement raw) {
+            this.owner = owner;
+            this.raw = raw;
+        }
+
+        void captureDefaults() throws SQLException {
+            fetchSize = raw.getFetchSize();
+            fetchDirection = raw.getFetchDirection();
+            maxRows = raw.getMaxRows();
+            maxFieldSize = raw.getMaxFieldSize();
+            queryTimeout = raw.getQueryTimeout();
+        }
+
+        /** Undoes the settings of the last borrower, so they do not carry over to the next. */
+        void restoreDefaults() throws SQLException {
+            raw.setFetchSize(fetchSize);
+            raw.setFetchDirection(fetchDirection);
+            raw.setMaxRows(maxRows);
+            raw.setMaxFieldSize(maxFieldSize);
+            raw.setQueryTimeout(queryTimeout);
+            raw.setEscapeProcessing(true);
+            raw.setPoolable(true);
+        }
+
+        PreparedStatement newHandle() {
+            return (PreparedStatement) Proxy.newProxyInstance(
+                    PreparedStatement.class.getClassLoader(),
+                    new Class<?>[] { PreparedStatement.class },
+                    new StatementHandle(this));
+        }
+
+        void closeQuietly() {
+            try {
+                raw.close();
+            } catch (SQLException ignored) {
+                // the statement is being thrown away anyway
+            }
+        }
+    }
+
+    /** Forwards calls to a cached statement; close() puts it back in the cache. */
+    private static class StatementHandle implements InvocationHandler {
+        private final CachedStatement cached;
+        private boolean handleClosed = false;
+
+        StatementHandle(CachedStatement cached) {
+            this.cached = cached;
+        }
+
+        @Override
+        public Object invoke(Object proxy, Method method, Object[] args) throws Throwable {
+            switch (method.getName()) {
+                case "close" -> {
+                    if (!handleClosed) {
+                        handleClosed = true;
+                        cached.owner.returnStatement(cached);
+                    }
+                    return null;
+                }
+                case "isClosed" -> {
+                    return handleClosed || cached.raw.isClosed();
+                }
+                case "equals" -> {
+                    return proxy == args[0];
+                }
+                case "hashCode" -> {
+                    return System.identityHashCode(proxy);
+                }
+                case "toString" -> {
+                    return "CachedStatement[" + cached.raw + (handleClosed ? ", closed]" : "]");
+                }
+                default -> {
+                    if (handleClosed) {
+                        throw new SQLException("Statement has already been closed.");
+                    }
+                    try {
+                        return method.invoke(cached.raw, args);
+                    } catch (InvocationTargetException e) {
+                        throw e.getCause();
+                    }
+                }
+            }
+        }
+    }
+}
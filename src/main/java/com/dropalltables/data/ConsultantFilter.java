@@ -0,0 +1,50 @@
+package com.dropalltables.data;
+
+/**
+ * Criteria for listing consultants, evaluated by the database
+ * (see DaoConsultant.getConsultantsPage). Empty criteria match everything.
+ */
+public class ConsultantFilter {
+    public static final ConsultantFilter NONE = new ConsultantFilter("", "", "", null);
+
+    private final String numberPrefix;
+    private final String nameContains;
+    private final String titleContains;
+    private final Integer maxProjects;
+
+    /**
+     * Constructor for ConsultantFilter.
+     *
+     * @param numberPrefix  The consultant number must start with this text.
+     * @param nameContains  The name must contain this text (case-insensitive).
+     * @param titleContains The title must contain this text (case-insensitive).
+     * @param maxProjects   The consultant may be on at most this many projects,
+     *                      or null for no limit.
+     */
+    public ConsultantFilter(String numberPrefix, String nameContains, String titleContains, Integer maxProjects) {
+        this.numberPrefix = numberPrefix == null ? "" : numberPrefix.trim();
+        this.nameContains = nameContains == null ? "" : nameContains.trim();
+        this.titleContains = titleContains == null ? "" : titleContains.trim();
+        this.maxProjects = maxProjects;
+    }
+
+    public String getNumberPrefix() {
+        return numberPrefix;
+    }
+
+    public String getNameContains() {
+        return nameContains;
+    }
+
+    public String getTitleContains() {
+        return titleContains;
+    }
+
+    public Integer getMaxProjects() {
+        return maxProjects;
+    }
+
+    public boolean isEmpty() {
+        return numberPrefix.isEmpty() && nameContains.isEmpty() && titleContains.isEmpty() && maxProjects == null;
+    }
+}
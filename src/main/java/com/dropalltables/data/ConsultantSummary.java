@@ -0,0 +1,15 @@
+package com.dropalltables.data;
+
+import com.dropalltables.models.Consultant;
+
+/**
+ * A consultant on a listing page together with the project count the page
+ * query read for it. The count is kept beside the consultant rather than set
+ * on it, because the consultant is the shared cached instance and the count is
+ * the one the page was filtered on.
+ *
+ * @param consultant   The consultant.
+ * @param projectCount The number of projects the consultant is assigned to.
+ */
+public record ConsultantSummary(Consultant consultant, int projectCount) {
+}
@@ -0,0 +1,15 @@
+package com.dropalltables.data;
+
+import com.dropalltables.models.Consultant;
+
+/**
+ * A consultant together with their project count and hours, read by the
+ * same query as the consultant itself, so bulk reads such as exports agree
+ * with the assignments in the database rather than with the aggregate store.
+ *
+ * @param consultant   The consultant, a plain copy outside the consultant cache.
+ * @param projectCount The number of projects the consultant is assigned to.
+ * @param hoursWorked  The hours the consultant has worked across all projects.
+ */
+public record ConsultantTotals(Consultant consultant, int projectCount, int hoursWorked) {
+}
@@ -1,31 +1,248 @@
 package com.dropalltables.data;
 
-import java.io.IOException;
 import java.sql.Connection;
 import java.sql.PreparedStatement;
 import java.sql.ResultSet;
 import java.sql.SQLException;
+import java.sql.Statement;
 import java.util.ArrayList;
+import java.util.Collection;
+import java.util.Collections;
+import java.util.HashMap;
+import java.util.LinkedHashMap;
+import java.util.LinkedHashSet;
 import java.util.List;
+import java.util.Map;
+import java.util.stream.Stream;
 
 import com.dropalltables.models.Consultant;
 
 public class DaoConsultant {
 
+    private static final String SELECT_ALL_CONSULTANTS = """
+            SELECT *
+            FROM Consultant
+            """;
+
+    private static final String SELECT_CONSULTANT_BY_NO = """
+            SELECT *
+            FROM Consultant
+            WHERE consultantNo = ?
+            """;
+
+    private static final String SELECT_CONSULTANT_BY_ID = """
+            SELECT *
+            FROM Consultant
+            WHERE consultantID = ?
+            """;
+
+    private static final String INSERT_CONSULTANT = """
+            INSERT INTO Consultant (ConsultantNo, ConsultantName, Title)
+            VALUES (?, ?, ?)
+            """;
+
+    private static final String UPDATE_CONSULTANT = """
+            UPDATE Consultant
+            SET ConsultantNo = ?, ConsultantName = ?, Title = ?
+            WHERE ConsultantNo = ?
+            """;
+
+    private static final String SELECT_CONSULTANT_KEYS = """
+            SELECT ConsultantNo, ConsultantID
+            FROM Consultant
+            """;
+
+    private static final String SELECT_CONSULTANT_ID = """
+            SELECT ConsultantID
+            FROM Consultant
+            WHERE ConsultantNo = ?
+            """;
+
+    private static final String SELECT_CONSULTANTS_NOT_IN_PROJECT = """
+            SELECT c.*
+            FROM Consultant c
+            WHERE c.ConsultantID NOT IN (
+                SELECT pa.ConsultantID
+                FROM Project_Assignment pa
+                WHERE pa.ProjectID = ?
+            )
+            ORDER BY c.ConsultantName
+            """;
+
+    private static final String DELETE_CONSULTANT = """
+            DELETE FROM Consultant
+            WHERE ConsultantNo = ?
+            """;
+
+    private static final String SELECT_ALL_WITH_TOTALS = """
+            SELECT
+                c.*,
+                COALESCE(t.ProjectCount, 0) AS ProjectCount,
+                COALESCE(t.TotalHours, 0) AS TotalHours
+            FROM Consultant c
+            LEFT JOIN (
+                SELECT ConsultantID, COUNT(*) AS ProjectCount, SUM(HoursWorked) AS TotalHours
+                FROM Project_Assignment
+                GROUP BY ConsultantID
+            ) t ON t.ConsultantID = c.ConsultantID
+            """;
+
+    private static final String SELECT_ALL_WITH_PROJECT_COUNT = """
+            SELECT
+                c.ConsultantID,
+                c.ConsultantNo,
+                c.ConsultantName,
+                c.Title,
+                COUNT(DISTINCT pa.ProjectID) AS ProjectCount
+            FROM Consultant c
+            LEFT JOIN Project_Assignment pa
+                   ON pa.ConsultantID = c.ConsultantID
+            GROUP BY c.ConsultantID, c.ConsultantNo, c.ConsultantName, c.Title
+            ORDER BY c.ConsultantNo
+            """;
+
+    // The criteria of a consultant listing, as bits of its shape
+    private static final int LISTING_NUMBER = 1;
+    private static final int LISTING_NAME = 2;
+    private static final int LISTING_TITLE = 4;
+    private static final int LISTING_MAX_PROJECTS = 8;
+    private static final int LISTING_SHAPES = 16;
+
+    // One statement per combination of criteria, so each gets a plan of its
+    // own that can seek on ConsultantNo; the page and count queries of a
+    // shape share their filter, so both see the same rows
+    private static final String[] SELECT_CONSULTANTS_PAGE = new String[LISTING_SHAPES];
+    private static final String[] COUNT_CONSULTANTS = new String[LISTING_SHAPES];
+    private static final String[] SELECT_CONSULTANTS_PAGE_VIEW = new String[LISTING_SHAPES];
+    private static final String[] COUNT_CONSULTANTS_VIEW = new String[LISTING_SHAPES];
+
+    static {
+        for (int shape = 0; shape < LISTING_SHAPES; shape++) {
+            String filtered = filteredConsultantsSql(shape, false);
+            SELECT_CONSULTANTS_PAGE[shape] = """
+                    SELECT TOP (?)
+                        c.ConsultantID,
+                        c.ConsultantNo,
+                        c.ConsultantName,
+                        c.Title,
+                        COUNT(DISTINCT pa.ProjectID) AS ProjectCount
+                    """ + filtered + """
+                    ORDER BY c.ConsultantNo
+                    """;
+            COUNT_CONSULTANTS[shape] = """
+                    SELECT COUNT(*) AS ConsultantCount
+                    FROM (
+                        SELECT c.ConsultantID
+                    """ + filtered + """
+                    ) AS filtered
+                    """;
+
+            String filteredView = filteredConsultantsSql(shape, true);
+            SELECT_CONSULTANTS_PAGE_VIEW[shape] = """
+                    SELECT TOP (?)
+                        c.ConsultantID,
+                        c.ConsultantNo,
+                        c.ConsultantName,
+                        c.Title,
+                        COALESCE(ct.ProjectCount, 0) AS ProjectCount
+                    """ + filteredView + """
+                    ORDER BY c.ConsultantNo
+                    """;
+            COUNT_CONSULTANTS_VIEW[shape] = """
+                    SELECT COUNT(*) AS ConsultantCount
+                    """ + filteredView;
+        }
+    }
+
+    // Same listings with the project count read from the indexed view (see IndexedViews)
+    private static final String SELECT_ALL_WITH_PROJECT_COUNT_VIEW = """
+            SELECT
+                c.ConsultantID,
+                c.ConsultantNo,
+                c.ConsultantName,
+                c.Title,
+                COALESCE(ct.ProjectCount, 0) AS ProjectCount
+            FROM Consultant c
+            LEFT JOIN dbo.ConsultantTotals ct WITH (NOEXPAND)
+                   ON ct.ConsultantID = c.ConsultantID
+            ORDER BY c.ConsultantNo
+            """;
+
+    private static final String SELECT_ALL_WITH_TOTALS_VIEW = """
+            SELECT
+                c.*,
+                COALESCE(ct.ProjectCount, 0) AS ProjectCount,
+                COALESCE(ct.TotalHours, 0) AS TotalHours
+            FROM Consultant c
+            LEFT JOIN dbo.ConsultantTotals ct WITH (NOEXPAND)
+                   ON ct.ConsultantID = c.ConsultantID
+            """;
+
+    // Rows unchanged by the import are left alone, so a repeated import writes nothing
+    private static final String UPSERT_CONSULTANTS = """
+            MERGE Consultant WITH (HOLDLOCK) AS t
+            USING (VALUES %s) AS s (ConsultantNo, ConsultantName, Title)
+            ON t.ConsultantNo = s.ConsultantNo
+            WHEN MATCHED AND EXISTS (SELECT s.ConsultantName, s.Title
+                                     EXCEPT SELECT t.ConsultantName, t.Title) THEN
+                UPDATE SET ConsultantName = s.ConsultantName, Title = s.Title
+            WHEN NOT MATCHED THEN
+                INSERT (ConsultantNo, ConsultantName, Title)
+                VALUES (s.ConsultantNo, s.ConsultantName, s.Title)
+            OUTPUT $action AS MergeAction, inserted.ConsultantID, inserted.ConsultantNo;
+            """;
+
+    // SQL Server accepts at most 2100 parameters per statement
+    private static final int MAX_IDS_PER_QUERY = 512;
+
+    private static final String PAGE_LISTING = "consultants";
+
+    private final DataContext dataContext;
     private final ConnectionHandler connectionHandler;
+    private final DataVersion dataVersion;
+    private final AggregateStore aggregates;
+    private final IndexedViews indexedViews;
+    private final int defaultPageSize;
+    private final EntityCache<Integer, Consultant> consultantCache;
+    private final KeyMap consultantKeys = new KeyMap();
 
     /**
      * Constructor for DaoConsultant.
-     * Initializes the ConnectionHandler.
+     * Uses the connection handler owned by the application's data context and
+     * registers the DAO's statements with its statement registry.
      * 
-     * @throws DaoException if unable to connect to the database.
+     * @param dataContext The data context that owns this DAO.
      */
-    public DaoConsultant() throws DaoException {
-        try {
-            this.connectionHandler = new ConnectionHandler();
-        } catch (IOException e) {
-            throw new DaoException("Unable to connect to the database. Please check your connection and try again.");
-        }
+    DaoConsultant(DataContext dataContext) {
+        this.dataContext = dataContext;
+        this.connectionHandler = dataContext.getConnectionHandler();
+        this.dataVersion = dataContext.getDataVersion();
+        this.aggregates = dataContext.getAggregateStore();
+        this.indexedViews = dataContext.getIndexedViews();
+        this.defaultPageSize = ConnectionHandler.intProperty(dataContext.getConfiguration(), "listing.pageSize", 200);
+        this.consultantCache = new EntityCache<>(
+                ConnectionHandler.intProperty(dataContext.getConfiguration(), "cache.consultants.maxWeight", 1 << 20),
+                DaoConsultant::estimateWeight,
+                DaoConsultant::copyConsultant,
+                dataContext.getEntityUpdates());
+        dataContext.getStatementRegistry().registerOptional(SELECT_ALL_WITH_PROJECT_COUNT_VIEW);
+        dataContext.getStatementRegistry().registerOptional(SELECT_ALL_WITH_TOTALS_VIEW);
+        dataContext.getStatementRegistry().registerOptional(SELECT_CONSULTANTS_PAGE_VIEW);
+        dataContext.getStatementRegistry().registerOptional(COUNT_CONSULTANTS_VIEW);
+        dataContext.getStatementRegistry().register(
+                SELECT_ALL_CONSULTANTS,
+                SELECT_CONSULTANT_BY_NO,
+                SELECT_CONSULTANT_BY_ID,
+                UPDATE_CONSULTANT,
+                SELECT_CONSULTANT_KEYS,
+                SELECT_CONSULTANT_ID,
+                SELECT_CONSULTANTS_NOT_IN_PROJECT,
+                DELETE_CONSULTANT,
+                SELECT_ALL_WITH_PROJECT_COUNT,
+                SELECT_ALL_WITH_TOTALS);
+        dataContext.getStatementRegistry().register(SELECT_CONSULTANTS_PAGE);
+        dataContext.getStatementRegistry().register(COUNT_CONSULTANTS);
+        dataContext.getStatementRegistry().registerReturningKeys(INSERT_CONSULTANT);
     }
 
     /**
@@ -35,24 +252,61 @@ public class DaoConsultant {
      * @throws DaoException if there is an error loading the consultants.
      */
     public List<Consultant> getAllConsultants() throws DaoException {
-        List<Consultant> consultants = new ArrayList<>();
-        String query = """
-                SELECT *
-                FROM Consultant
-                """;
+        return QueryStreams.toList(streamAllConsultants());
+    }
 
-        try (Connection connection = connectionHandler.getConnection();
-                PreparedStatement statement = connection.prepareStatement(query);
-                ResultSet resultSet = statement.executeQuery()) {
+    /**
+     * Streams all consultants from the database without collecting them first.
+     * The stream holds a database connection until it is closed.
+     * 
+     * @return A stream of all consultants; close it with try-with-resources.
+     * @throws DaoException if there is an error loading the consultants.
+     */
+    public Stream<Consultant> streamAllConsultants() throws DaoException {
+        return streamAllConsultants(new CancellationToken());
+    }
 
-            while (resultSet.next()) { // while eftersom flera rader kan returneras
-                Consultant consultant = instantiateConsultant(resultSet);
-                consultants.add(consultant);
+    /**
+     * Streams all consultants from the database without collecting them first.
+     * The stream holds a database connection until it is closed.
+     * 
+     * @param cancellation Stops the query while the stream is being read.
+     * @return A stream of all consultants; close it with try-with-resources.
+     * @throws QueryCancelledException if the query was cancelled.
+     * @throws DaoException            if there is an error loading the consultants.
+     */
+    public Stream<Consultant> streamAllConsultants(CancellationToken cancellation) throws DaoException {
+        return QueryStreams.stream(connectionHandler, SELECT_ALL_CONSULTANTS, StatementBinder.NONE,
+                this::cacheConsultant, "Unable to load consultants. Please try again.", cancellation);
+    }
+
+    /**
+     * Streams all consultants with their project count and hours worked, for
+     * bulk reads such as exports. The totals are aggregated by the same query,
+     * so they match the assignments at the time of reading. The consultants
+     * are plain copies that bypass the consultant cache; their keys still go
+     * into the key map. The stream holds a database connection until it is
+     * closed.
+     * 
+     * @param cancellation Stops the query while the stream is being read.
+     * @return A stream of all consultants; close it with try-with-resources.
+     * @throws QueryCancelledException if the query was cancelled.
+     * @throws DaoException            if there is an error loading the consultants.
+     */
+    public Stream<ConsultantTotals> streamAllConsultantsWithTotals(CancellationToken cancellation)
+            throws DaoException {
+        try {
+            return QueryStreams.stream(connectionHandler,
+                    indexedViews.choose(SELECT_ALL_WITH_TOTALS_VIEW, SELECT_ALL_WITH_TOTALS),
+                    StatementBinder.NONE,
+                    rs -> new ConsultantTotals(keyConsultant(rs), rs.getInt("ProjectCount"), rs.getInt("TotalHours")),
+                    "Unable to load consultants. Please try again.", cancellation);
+        } catch (DaoException e) {
+            if (e.getCause() instanceof SQLException sqlException) {
+                indexedViews.checkFailure(sqlException);
             }
-        } catch (SQLException e) {
-            throw new DaoException("Unable to load consultants. Please try again.");
+            throw e;
         }
-        return consultants;
     }
 
     /**
@@ -63,19 +317,21 @@ public class DaoConsultant {
      * @throws DaoException if there is an error finding the consultant.
      */
     public Consultant getConsultantByNo(int consultantNo) throws DaoException {
-        String query = """
-                SELECT *
-                FROM Consultant
-                WHERE consultantNo = ?
-                """;
+        Integer consultantID = consultantKeys.getID(consultantNo);
+        if (consultantID != null) {
+            Consultant cached = consultantCache.getIfPresent(consultantID);
+            if (cached != null) {
+                return cached;
+            }
+        }
 
         try (Connection connection = connectionHandler.getConnection();
-                PreparedStatement statement = connection.prepareStatement(query)) {
+                PreparedStatement statement = connection.prepareStatement(SELECT_CONSULTANT_BY_NO)) {
             statement.setInt(1, consultantNo);
-            ResultSet resultSet = statement.executeQuery();
-
-            if (resultSet.next()) { // if eftersom max en rad kan returneras
-                return instantiateConsultant(resultSet);
+            try (ResultSet resultSet = statement.executeQuery()) {
+                if (resultSet.next()) { // if eftersom max en rad kan returneras
+                    return cacheConsultant(resultSet);
+                }
             }
         } catch (SQLException e) {
             throw new DaoException("Unable to find consultant with number: " + consultantNo);
@@ -91,19 +347,19 @@ public class DaoConsultant {
      * @throws DaoException if there is an error finding the consultant.
      */
     public Consultant getConsultantByID(int consultantID) throws DaoException {
-        String query = """
-                SELECT *
-                FROM Consultant
-                WHERE consultantID = ?
-                """;
+        return consultantCache.get(consultantID, this::loadConsultantByID);
+    }
 
+    private Consultant loadConsultantByID(int consultantID) throws DaoException {
         try (Connection connection = connectionHandler.getConnection();
-                PreparedStatement statement = connection.prepareStatement(query)) {
+                PreparedStatement statement = connection.prepareStatement(SELECT_CONSULTANT_BY_ID)) {
             statement.setInt(1, consultantID);
-            ResultSet resultSet = statement.executeQuery();
-
-            if (resultSet.next()) { // if eftersom max en rad kan returneras
-                return instantiateConsultant(resultSet);
+            try (ResultSet resultSet = statement.executeQuery()) {
+                if (resultSet.next()) { // if eftersom max en rad kan returneras
+                    Consultant consultant = instantiateConsultant(resultSet);
+                    consultantKeys.put(consultant.getConsultantNo(), consultantID);
+                    return consultant;
+                }
             }
         } catch (SQLException e) {
             throw new DaoException("Unable to find the requested consultant. Please try again.");
@@ -111,6 +367,77 @@ public class DaoConsultant {
         return null;
     }
 
+    /**
+     * Returns the consultant cache, mainly for its hit/miss/eviction counters.
+     * 
+     * @return The identity-map cache for consultants, keyed by ConsultantID.
+     */
+    public EntityCache<Integer, Consultant> getConsultantCache() {
+        return consultantCache;
+    }
+
+    /**
+     * Reads the consultant in the current row of a ResultSet and returns the
+     * canonical instance for it. The ResultSet must include the ConsultantID
+     * column.
+     * 
+     * @param resultSet The ResultSet containing consultant data.
+     * @return The cached Consultant object, updated with the row's values.
+     * @throws SQLException if there is an error reading the ResultSet.
+     */
+    Consultant cacheConsultant(ResultSet resultSet) throws SQLException {
+        Consultant consultant = instantiateConsultant(resultSet);
+        int consultantID = resultSet.getInt("ConsultantID");
+        consultantKeys.put(consultant.getConsultantNo(), consultantID);
+        return consultantCache.canonicalize(consultantID, consultant);
+    }
+
+    /**
+     * Reads the consultant in the current row of a ResultSet into a new
+     * Consultant and records its key, without going through the consultant
+     * cache. The ResultSet must include the ConsultantID column.
+     * 
+     * @param resultSet The ResultSet containing consultant data.
+     * @return A new Consultant object.
+     * @throws SQLException if there is an error reading the ResultSet.
+     */
+    private Consultant keyConsultant(ResultSet resultSet) throws SQLException {
+        Consultant consultant = instantiateConsultant(resultSet);
+        consultantKeys.put(consultant.getConsultantNo(), resultSet.getInt("ConsultantID"));
+        return consultant;
+    }
+
+    /**
+     * Drops a consultant number from the key map and the consultant from the
+     * cache after a write that changes or removes the consultant.
+     * 
+     * @param consultantNo The number of the consultant.
+     */
+    private void forgetConsultant(int consultantNo) {
+        Integer consultantID = consultantKeys.removeNo(consultantNo);
+        if (consultantID != null) {
+            consultantCache.invalidate(consultantID);
+        }
+    }
+
+    // The project count is only known to getAllWithProjectCount and is kept as is
+    private static void copyConsultant(Consultant target, Consultant source) {
+        target.setConsultantNo(source.getConsultantNo());
+        target.setName(source.getName());
+        target.setTitle(source.getTitle());
+    }
+
+    private static int estimateWeight(Consultant consultant) {
+        int length = 0;
+        if (consultant.getName() != null) {
+            length += consultant.getName().length();
+        }
+        if (consultant.getTitle() != null) {
+            length += consultant.getTitle().length();
+        }
+        return 112 + 2 * length;
+    }
+
     /**
      * Helper method to create a Consultant object from a ResultSet.
      * 
@@ -129,20 +456,31 @@ public class DaoConsultant {
      * Inserts a new consultant into the database.
      * 
      * @param consultant The consultant object to insert.
+     * @return The internal database ID generated for the consultant.
      * @throws DaoException if a consultant with the same number already exists or
      *                      if there is an error during insertion.
      */
-    public void insertConsultant(Consultant consultant) throws DaoException {
-        String sql = """
-                INSERT INTO Consultant (ConsultantNo, ConsultantName, Title)
-                VALUES (?, ?, ?)
-                """;
+    public int insertConsultant(Consultant consultant) throws DaoException {
+        // A consultant deleted elsewhere may have left its number behind
+        forgetConsultant(consultant.getConsultantNo());
         try (Connection connection = connectionHandler.getConnection();
-                PreparedStatement statement = connection.prepareStatement(sql)) {
+                PreparedStatement statement = connection.prepareStatement(INSERT_CONSULTANT,
+                        Statement.RETURN_GENERATED_KEYS)) {
             statement.setInt(1, consultant.getConsultantNo());
             statement.setString(2, consultant.getName());
             statement.setString(3, consultant.getTitle());
             statement.executeUpdate();
+            dataVersion.increment();
+
+            try (ResultSet keys = statement.getGeneratedKeys()) {
+                if (!keys.next()) {
+                    throw new DaoException("Unable to insert consultant. Please try again.");
+                }
+                int consultantID = keys.getInt(1);
+                consultantKeys.put(consultant.getConsultantNo(), consultantID);
+                aggregates.consultantAdded(consultantID);
+                return consultantID;
+            }
         } catch (SQLException e) {
             if (e.getMessage().contains("duplicate")) {
                 throw new DaoException("A consultant with that number already exists.");
@@ -160,47 +498,104 @@ public class DaoConsultant {
      *                      during the update.
      */
     public void updateConsultant(int oldConsultantNo, Consultant newConsultant) throws DaoException {
-        String sql = """
-                UPDATE Consultant
-                SET ConsultantNo = ?, ConsultantName = ?, Title = ?
-                WHERE ConsultantNo = ?
-                """;
+        Integer consultantID = consultantKeys.getID(oldConsultantNo);
+        forgetConsultant(oldConsultantNo);
+        forgetConsultant(newConsultant.getConsultantNo());
         try (Connection connection = connectionHandler.getConnection();
-                PreparedStatement statement = connection.prepareStatement(sql)) {
+                PreparedStatement statement = connection.prepareStatement(UPDATE_CONSULTANT)) {
             statement.setInt(1, newConsultant.getConsultantNo());
             statement.setString(2, newConsultant.getName());
             statement.setString(3, newConsultant.getTitle());
             statement.setInt(4, oldConsultantNo);
             int rows = statement.executeUpdate();
+            dataVersion.increment();
             // om raden med oldConsultantNo inte existerar
             if (rows == 0) {
                 throw new DaoException("Consultant not found. It may have been deleted by another user.");
             }
+            if (consultantID != null) {
+                consultantKeys.put(newConsultant.getConsultantNo(), consultantID);
+            }
         } catch (SQLException e) {
             throw new DaoException("Unable to update consultant. Please check your input and try again.");
         }
     }
 
+    /**
+     * Inserts the consultants whose numbers do not exist yet and updates those
+     * whose name or title differ, in one transaction (joining an open unit of
+     * work). The rows are sent in batched MERGE statements; consultants that
+     * are already up to date are not written. If a number appears twice, the
+     * last consultant wins.
+     * 
+     * @param consultants The consultants to save, identified by consultant number.
+     * @return The counts of inserted, updated and unchanged consultants.
+     * @throws DaoException if the consultants cannot be saved; none are saved then.
+     */
+    public UpsertResult upsertConsultants(Collection<Consultant> consultants) throws DaoException {
+        Map<Integer, Consultant> byNo = new LinkedHashMap<>();
+        for (Consultant consultant : consultants) {
+            byNo.put(consultant.getConsultantNo(), consultant);
+        }
+        if (byNo.isEmpty()) {
+            return UpsertResult.NONE;
+        }
+
+        try (UnitOfWork work = connectionHandler.beginUnitOfWork();
+                Connection connection = connectionHandler.getConnection()) {
+            UpsertResult result = BatchMerge.merge(connection, UPSERT_CONSULTANTS, 3,
+                    new ArrayList<>(byNo.values()),
+                    (statement, i, consultant) -> {
+                        statement.setInt(i, consultant.getConsultantNo());
+                        statement.setString(i + 1, consultant.getName());
+                        statement.setString(i + 2, consultant.getTitle());
+                    },
+                    (inserted, resultSet) -> {
+                        int consultantID = resultSet.getInt("ConsultantID");
+                        int consultantNo = resultSet.getInt("ConsultantNo");
+                        connectionHandler.afterCommit(() -> {
+                            consultantKeys.put(consultantNo, consultantID);
+                            if (!inserted) {
+                                consultantCache.invalidate(consultantID);
+                            }
+                        });
+                        if (inserted) {
+                            aggregates.consultantAdded(consultantID);
+                        }
+                    });
+            work.commit();
+            if (result.changed() > 0) {
+                dataVersion.increment();
+            }
+            return result;
+        } catch (SQLException e) {
+            throw new DaoException("Unable to save the consultants. Please check the data and try again.", e);
+        }
+    }
+
     /**
      * Retrieves the internal database ID of a consultant by their consultant
-     * number.
+     * number. Known numbers are translated from the in-memory key map; unknown
+     * numbers are looked up in the database and added to it.
      * 
      * @param consultantNo The number of the consultant.
      * @return The internal database ID of the consultant.
      * @throws DaoException if the consultant is not found or if there is an error.
      */
     public Integer getConsultantID(int consultantNo) throws DaoException {
-        String sql = """
-                SELECT ConsultantID
-                FROM Consultant
-                WHERE ConsultantNo = ?
-                """;
+        Integer consultantID = consultantKeys.getID(consultantNo);
+        if (consultantID != null) {
+            return consultantID;
+        }
+
         try (Connection connection = connectionHandler.getConnection();
-                PreparedStatement statement = connection.prepareStatement(sql)) {
+                PreparedStatement statement = connection.prepareStatement(SELECT_CONSULTANT_ID)) {
             statement.setInt(1, consultantNo);
             try (ResultSet resultSet = statement.executeQuery()) {
                 if (resultSet.next()) {
-                    return resultSet.getInt("ConsultantID");
+                    consultantID = resultSet.getInt("ConsultantID");
+                    consultantKeys.put(consultantNo, consultantID);
+                    return consultantID;
                 } else {
                     throw new DaoException("Consultant not found with number: " + consultantNo);
                 }
@@ -211,31 +606,64 @@ public class DaoConsultant {
     }
 
     /**
-     * Deletes a consultant from the database, including all their project
-     * assignments.
+     * Retrieves the consultant number for an internal database ID from the key
+     * map.
+     * 
+     * @param consultantID The internal database ID of the consultant.
+     * @return The consultant number, or null if the ID has not been seen.
+     */
+    public Integer getConsultantNo(int consultantID) {
+        return consultantKeys.getNo(consultantID);
+    }
+
+    /**
+     * Loads the number and ID of every consultant into the key map.
+     * Called once by the data context at startup.
+     * 
+     * @throws DaoException if there is an error loading the keys.
+     */
+    void loadKeys() throws DaoException {
+        Map<Integer, Integer> keys = new HashMap<>();
+        try (Connection connection = connectionHandler.getConnection();
+                PreparedStatement statement = connection.prepareStatement(SELECT_CONSULTANT_KEYS);
+                ResultSet resultSet = statement.executeQuery()) {
+            while (resultSet.next()) {
+                keys.put(resultSet.getInt("ConsultantNo"), resultSet.getInt("ConsultantID"));
+            }
+        } catch (SQLException e) {
+            throw new DaoException("Unable to load consultants. Please try again.", e);
+        }
+        consultantKeys.putAll(keys);
+    }
+
+    /**
+     * Deletes a consultant from the database. Their project assignments are
+     * deleted first in the same transaction, so the aggregate store can take
+     * off their hours and memberships instead of being primed again.
      * 
      * @param consultantNo The number of the consultant to delete.
      * @throws DaoException if the consultant is not found or if there is an error
      *                      during deletion.
      */
     public void deleteConsultant(int consultantNo) throws DaoException {
-        try {
-            int foundConsultantID = getConsultantID(consultantNo);
-            DaoProjectAssignment daoPA = new DaoProjectAssignment();
-            daoPA.deleteProjectAssignmentByConsultantID(foundConsultantID);
-
-            String sql = """
-                    DELETE FROM Consultant
-                    WHERE ConsultantNo = ?
-                    """;
-            try (Connection connection = connectionHandler.getConnection();
-                    PreparedStatement statement = connection.prepareStatement(sql)) {
+        Integer consultantID = getConsultantID(consultantNo);
+        forgetConsultant(consultantNo);
+        if (consultantID == null) {
+            throw new DaoException("Consultant not found. It may have already been deleted.");
+        }
+        try (UnitOfWork work = connectionHandler.beginUnitOfWork();
+                Connection connection = connectionHandler.getConnection()) {
+            dataContext.getDaoProjectAssignment().deleteProjectAssignmentByConsultantID(consultantID);
+            try (PreparedStatement statement = connection.prepareStatement(DELETE_CONSULTANT)) {
                 statement.setInt(1, consultantNo);
                 int rowsAffected = statement.executeUpdate();
+                dataVersion.increment();
                 if (rowsAffected == 0) {
                     throw new DaoException("Consultant not found. It may have already been deleted.");
                 }
             }
+            aggregates.consultantRemoved(consultantID);
+            work.commit();
         } catch (SQLException e) {
             throw new DaoException("Unable to delete consultant. Please try again.");
         }
@@ -243,66 +671,297 @@ public class DaoConsultant {
 
     /**
      * Retrieves a list of all consultants who are not assigned to a specific
-     * project.
+     * project, ordered by name. Read from the database rather than the
+     * membership index, since the list is offered for new assignments and must
+     * not include consultants another client assigned meanwhile.
      * 
      * @param projectID The ID of the project to check against.
      * @return A list of consultants not in the specified project.
      * @throws DaoException if there is an error loading the consultants.
      */
     public List<Consultant> getConsultantsNotInProject(int projectID) throws DaoException {
-        String sql = """
-                SELECT c.*
-                FROM Consultant c
-                WHERE c.ConsultantID NOT IN (
-                    SELECT pa.ConsultantID
-                    FROM Project_Assignment pa
-                    WHERE pa.ProjectID = ?
+        List<Consultant> consultants = new ArrayList<>();
+        try (Connection connection = connectionHandler.getConnection();
+                PreparedStatement statement = connection.prepareStatement(SELECT_CONSULTANTS_NOT_IN_PROJECT)) {
+            statement.setInt(1, projectID);
+            try (ResultSet resultSet = statement.executeQuery()) {
+                while (resultSet.next()) {
+                    consultants.add(cacheConsultant(resultSet));
+                }
+            }
+        } catch (SQLException e) {
+            throw new DaoException("Unable to load consultants. Please try again.", e);
+        }
+        return consultants;
+    }
+
+    /**
+     * Retrieves several consultants by their internal database IDs.
+     * Cached consultants are returned directly; the remaining IDs are looked up
+     * with batched IN queries instead of one query per ID.
+     * 
+     * @param consultantIDs The IDs of the consultants to retrieve. Duplicates are ignored.
+     * @return The found consultants keyed by ID. IDs with no consultant are left out.
+     * @throws DaoException if there is an error loading the consultants.
+     */
+    public Map<Integer, Consultant> getConsultantsByIDs(Collection<Integer> consultantIDs) throws DaoException {
+        Map<Integer, Consultant> consultants = new HashMap<>();
+        List<Integer> ids = new ArrayList<>();
+        for (Integer consultantID : new LinkedHashSet<>(consultantIDs)) {
+            Consultant cached = consultantCache.getIfPresent(consultantID);
+            if (cached != null) {
+                consultants.put(consultantID, cached);
+            } else {
+                ids.add(consultantID);
+            }
+        }
+        if (ids.isEmpty()) {
+            return consultants;
+        }
 
-                )
-                ORDER BY ConsultantName
-                """;
+        try (Connection connection = connectionHandler.getConnection()) {
+            for (int from = 0; from < ids.size(); from += MAX_IDS_PER_QUERY) {
+                List<Integer> batch = ids.subList(from, Math.min(from + MAX_IDS_PER_QUERY, ids.size()));
+                // Pad to a power of two so only a handful of distinct statements get prepared
+                int slots = Integer.highestOneBit(batch.size() - 1) << 1;
+                slots = Math.max(1, Math.min(slots, MAX_IDS_PER_QUERY));
 
-        List<Consultant> consultants = new ArrayList<>();
-        try (Connection conn = connectionHandler.getConnection();
-                PreparedStatement ps = conn.prepareStatement(sql)) {
-            ps.setInt(1, projectID);
+                String query = "SELECT * FROM Consultant WHERE ConsultantID IN ("
+                        + String.join(", ", Collections.nCopies(slots, "?")) + ")";
+                try (PreparedStatement statement = connection.prepareStatement(query)) {
+                    for (int i = 0; i < slots; i++) {
+                        statement.setInt(i + 1, batch.get(Math.min(i, batch.size() - 1)));
+                    }
+                    try (ResultSet resultSet = statement.executeQuery()) {
+                        while (resultSet.next()) {
+                            consultants.put(resultSet.getInt("ConsultantID"), cacheConsultant(resultSet));
+                        }
+                    }
+                }
+            }
+        } catch (SQLException e) {
+            throw new DaoException("Unable to load consultants. Please try again.");
+        }
+        return consultants;
+    }
+
+    /**
+     * Returns the page size used when none is given (listing.pageSize).
+     * 
+     * @return The default number of consultants per page.
+     */
+    public int getDefaultPageSize() {
+        return defaultPageSize;
+    }
+
+    /**
+     * Retrieves one page of consultants with their project counts, ordered by
+     * consultant number. Filtering is done by the database.
+     * 
+     * @param filter    The criteria the consultants must match.
+     * @param pageToken The token from the previous page, or null for the first page.
+     * @return The page, using the configured page size (listing.pageSize).
+     * @throws DaoException if there is an error loading the consultants.
+     */
+    public Page<ConsultantSummary> getConsultantsPage(ConsultantFilter filter, String pageToken)
+            throws DaoException {
+        return getConsultantsPage(filter, pageToken, defaultPageSize, new CancellationToken());
+    }
+
+    /**
+     * Retrieves one page of consultants with their project counts, ordered by
+     * consultant number. Filtering is done by the database.
+     * 
+     * @param filter       The criteria the consultants must match.
+     * @param pageToken    The token from the previous page, or null for the first page.
+     * @param pageSize     The maximum number of consultants on the page.
+     * @param cancellation Cancels the query if the result is no longer wanted.
+     * @return The page of consultants.
+     * @throws QueryCancelledException if the query was cancelled.
+     * @throws DaoException            if there is an error loading the consultants.
+     */
+    public Page<ConsultantSummary> getConsultantsPage(ConsultantFilter filter, String pageToken, int pageSize,
+            CancellationToken cancellation) throws DaoException {
+        int afterConsultantNo = Page.decodeToken(PAGE_LISTING, pageToken);
+        List<ConsultantSummary> consultants = new ArrayList<>();
+
+        int shape = listingShape(filter);
+        if (shape < 0) {
+            return new Page<>(consultants, null);
+        }
+
+        try (Connection con = connectionHandler.getConnection();
+                PreparedStatement ps = con.prepareStatement(indexedViews.choose(
+                        SELECT_CONSULTANTS_PAGE_VIEW[shape], SELECT_CONSULTANTS_PAGE[shape]))) {
+            // one extra row tells whether another page follows
+            ps.setInt(1, pageSize + 1);
+            bindFilter(ps, 2, shape, filter, afterConsultantNo);
+
+            cancellation.register(ps);
             try (ResultSet rs = ps.executeQuery()) {
+                // the count stays beside the shared consultant, which the UI may be showing
                 while (rs.next()) {
-                    consultants.add(instantiateConsultant(rs));
+                    consultants.add(new ConsultantSummary(cacheConsultant(rs), rs.getInt("ProjectCount")));
                 }
+            } finally {
+                cancellation.unregister(ps);
             }
         } catch (SQLException e) {
-            throw new DaoException("Unable to load available consultants. Please try again.");
+            if (cancellation.isCancelled()) {
+                throw new QueryCancelledException();
+            }
+            indexedViews.checkFailure(e);
+            throw new DaoException("Unable to load consultants. Please try again.", e);
         }
-        return consultants;
+
+        if (consultants.size() <= pageSize) {
+            return new Page<>(consultants, null);
+        }
+        consultants = consultants.subList(0, pageSize);
+        int lastNo = consultants.get(pageSize - 1).consultant().getConsultantNo();
+        return new Page<>(consultants, Page.encodeToken(PAGE_LISTING, lastNo));
     }
 
-    public List<Consultant> getAllWithProjectCount() throws DaoException {
-        String sql = """
-                SELECT
-                    c.ConsultantNo,
-                    c.ConsultantName,
-                    c.Title,
-                    COUNT(DISTINCT pa.ProjectID) AS ProjectCount
+    /**
+     * Counts the consultants matching a filter.
+     * 
+     * @param filter The criteria the consultants must match.
+     * @return The number of matching consultants.
+     * @throws DaoException if there is an error counting the consultants.
+     */
+    public int countConsultants(ConsultantFilter filter) throws DaoException {
+        return countConsultants(filter, new CancellationToken());
+    }
+
+    /**
+     * Counts the consultants matching a filter.
+     * 
+     * @param filter       The criteria the consultants must match.
+     * @param cancellation Cancels the query if the result is no longer wanted.
+     * @return The number of matching consultants.
+     * @throws QueryCancelledException if the query was cancelled.
+     * @throws DaoException            if there is an error counting the consultants.
+     */
+    public int countConsultants(ConsultantFilter filter, CancellationToken cancellation) throws DaoException {
+        int shape = listingShape(filter);
+        if (shape < 0) {
+            return 0;
+        }
+        try (Connection con = connectionHandler.getConnection();
+                PreparedStatement ps = con.prepareStatement(indexedViews.choose(
+                        COUNT_CONSULTANTS_VIEW[shape], COUNT_CONSULTANTS[shape]))) {
+            bindFilter(ps, 1, shape, filter, Integer.MIN_VALUE);
+
+            cancellation.register(ps);
+            try (ResultSet rs = ps.executeQuery()) {
+                return rs.next() ? rs.getInt("ConsultantCount") : 0;
+            } finally {
+                cancellation.unregister(ps);
+            }
+        } catch (SQLException e) {
+            if (cancellation.isCancelled()) {
+                throw new QueryCancelledException();
+            }
+            indexedViews.checkFailure(e);
+            throw new DaoException("Unable to count consultants. Please try again.", e);
+        }
+    }
+
+    /**
+     * Returns the shape of the statements for a filter, or -1 if no
+     * consultant number can start with its number prefix.
+     */
+    private static int listingShape(ConsultantFilter filter) {
+        int shape = 0;
+        if (!filter.getNumberPrefix().isEmpty()) {
+            if (NumberRanges.of(filter.getNumberPrefix()) == null) {
+                return -1;
+            }
+            shape |= LISTING_NUMBER;
+        }
+        if (!filter.getNameContains().isEmpty()) {
+            shape |= LISTING_NAME;
+        }
+        if (!filter.getTitleContains().isEmpty()) {
+            shape |= LISTING_TITLE;
+        }
+        if (filter.getMaxProjects() != null) {
+            shape |= LISTING_MAX_PROJECTS;
+        }
+        return shape;
+    }
+
+    /**
+     * The FROM, WHERE and, without the indexed view, GROUP BY clauses of the
+     * listing statements of a shape.
+     */
+    private static String filteredConsultantsSql(int shape, boolean view) {
+        StringBuilder sql = new StringBuilder(view ? """
+                FROM Consultant c
+                LEFT JOIN dbo.ConsultantTotals ct WITH (NOEXPAND)
+                       ON ct.ConsultantID = c.ConsultantID
+                WHERE c.ConsultantNo > ?
+                """ : """
                 FROM Consultant c
                 LEFT JOIN Project_Assignment pa
                        ON pa.ConsultantID = c.ConsultantID
-                GROUP BY c.ConsultantNo, c.ConsultantName, c.Title
-                ORDER BY c.ConsultantNo
-                """;
+                WHERE c.ConsultantNo > ?
+                """);
+        if ((shape & LISTING_NUMBER) != 0) {
+            sql.append("  AND ").append(NumberRanges.predicate("c.ConsultantNo")).append('\n');
+        }
+        if ((shape & LISTING_NAME) != 0) {
+            sql.append("  AND c.ConsultantName LIKE ? ESCAPE '\\'\n");
+        }
+        if ((shape & LISTING_TITLE) != 0) {
+            sql.append("  AND c.Title LIKE ? ESCAPE '\\'\n");
+        }
+        if (view) {
+            if ((shape & LISTING_MAX_PROJECTS) != 0) {
+                sql.append("  AND COALESCE(ct.ProjectCount, 0) <= ?\n");
+            }
+        } else {
+            sql.append("GROUP BY c.ConsultantID, c.ConsultantNo, c.ConsultantName, c.Title\n");
+            if ((shape & LISTING_MAX_PROJECTS) != 0) {
+                sql.append("HAVING COUNT(DISTINCT pa.ProjectID) <= ?\n");
+            }
+        }
+        return sql.toString();
+    }
+
+    /**
+     * Binds the parameters of the listing statements of a shape, starting at
+     * the given index.
+     */
+    private static void bindFilter(PreparedStatement ps, int index, int shape, ConsultantFilter filter,
+            int afterConsultantNo) throws SQLException {
+        ps.setInt(index++, afterConsultantNo);
+        if ((shape & LISTING_NUMBER) != 0) {
+            for (int bound : NumberRanges.of(filter.getNumberPrefix())) {
+                ps.setInt(index++, bound);
+            }
+        }
+        if ((shape & LISTING_NAME) != 0) {
+            ps.setString(index++, LikePatterns.contains(filter.getNameContains()));
+        }
+        if ((shape & LISTING_TITLE) != 0) {
+            ps.setString(index++, LikePatterns.contains(filter.getTitleContains()));
+        }
+        if ((shape & LISTING_MAX_PROJECTS) != 0) {
+            ps.setInt(index, filter.getMaxProjects());
+        }
+    }
 
+    public List<Consultant> getAllWithProjectCount() throws DaoException {
         List<Consultant> list = new ArrayList<>();
 
         try (Connection con = connectionHandler.getConnection();
-                PreparedStatement ps = con.prepareStatement(sql);
+                PreparedStatement ps = con.prepareStatement(indexedViews.choose(
+                        SELECT_ALL_WITH_PROJECT_COUNT_VIEW, SELECT_ALL_WITH_PROJECT_COUNT));
                 ResultSet rs = ps.executeQuery()) {
-
             while (rs.next()) {
-                // build the Consultant with the three constructor fields
-                Consultant c = new Consultant(
-                        rs.getInt("ConsultantNo"),
-                        rs.getString("ConsultantName"),
-                        rs.getString("Title"));
+                // build (or reuse) the Consultant with the three constructor fields
+                Consultant c = cacheConsultant(rs);
                 // set the projectCount from the query
                 c.setProjectCount(rs.getInt("ProjectCount"));
 
@@ -310,6 +969,7 @@ public class DaoConsultant {
             }
 
         } catch (SQLException e) {
+            indexedViews.checkFailure(e);
             throw new DaoException("Failed to load consultants with project count", e);
         }
 
@@ -1,6 +1,5 @@
 package com.dropalltables.data;
 
-import java.io.IOException;
 import java.sql.Connection;
 import java.sql.PreparedStatement;
 import java.sql.ResultSet;
@@ -9,19 +8,66 @@ import java.util.ArrayList;
 import java.util.List;
 
 public class DaoMetadata {
-    private ConnectionHandler connectionHandler;
+    private static final String SELECT_ALL_COLUMNS = """
+            SELECT COLUMN_NAME
+            FROM INFORMATION_SCHEMA.COLUMNS
+            ORDER BY COLUMN_NAME
+            """;
+
+    private static final String SELECT_PK_CONSTRAINTS = """
+            SELECT CONSTRAINT_NAME
+            FROM INFORMATION_SCHEMA.TABLE_CONSTRAINTS
+            WHERE CONSTRAINT_TYPE = 'PRIMARY KEY'
+            """;
+
+    private static final String SELECT_CHECK_CONSTRAINTS = """
+            SELECT CONSTRAINT_NAME
+            FROM INFORMATION_SCHEMA.CHECK_CONSTRAINTS
+            """;
+
+    private static final String SELECT_NON_INT_CONSULTANT_COLUMNS = """
+            SELECT COLUMN_NAME
+            FROM INFORMATION_SCHEMA.COLUMNS
+            WHERE DATA_TYPE <> 'int'
+              AND TABLE_NAME = 'Consultant'
+            """;
+
+    private static final String SELECT_MAX_ROW_TABLE = """
+            SELECT TOP 1
+            t.name AS 'TableName',
+            SUM(p.rows) AS 'RowCount'
+            FROM sys.tables t
+            JOIN sys.partitions p ON t.object_id = p.object_id
+            WHERE p.index_id IN (0, 1)
+            GROUP BY t.name
+            ORDER BY SUM(p.rows) DESC
+            """;
+
+    private static final String SELECT_APPLICATION_ROW_ESTIMATE = """
+            SELECT COALESCE(SUM(p.rows), 0) AS 'RowCount'
+            FROM sys.partitions p
+            WHERE p.index_id IN (0, 1)
+              AND p.object_id IN (OBJECT_ID('dbo.Project'), OBJECT_ID('dbo.Consultant'),
+                                  OBJECT_ID('dbo.Milestone'), OBJECT_ID('dbo.Project_Assignment'))
+            """;
+
+    private final ConnectionHandler connectionHandler;
 
     /**
      * Constructor for DaoMetadata.
-     * Initializes the ConnectionHandler.
-     * @throws DaoException if unable to connect to the database.
+     * Uses the connection handler owned by the application's data context and
+     * registers the DAO's statements with its statement registry.
+     * @param dataContext The data context that owns this DAO.
      */
-    public DaoMetadata() throws DaoException {
-        try {
-            this.connectionHandler = new ConnectionHandler();
-        } catch (IOException e) {
-            throw new DaoException("Unable to connect to the database. Please check your connection and try again.");
-        }
+    DaoMetadata(DataContext dataContext) {
+        this.connectionHandler = dataContext.getConnectionHandler();
+        dataContext.getStatementRegistry().register(
+                SELECT_ALL_COLUMNS,
+                SELECT_PK_CONSTRAINTS,
+                SELECT_CHECK_CONSTRAINTS,
+                SELECT_NON_INT_CONSULTANT_COLUMNS,
+                SELECT_MAX_ROW_TABLE,
+                SELECT_APPLICATION_ROW_ESTIMATE);
     }
 
     /**
@@ -51,41 +97,25 @@ public class DaoMetadata {
      * @throws DaoException if a database access error occurs.
      */
     public List<String> getAllDatabaseColumns() throws DaoException {
-        String sql = """
-                SELECT COLUMN_NAME
-                FROM INFORMATION_SCHEMA.COLUMNS
-                ORDER BY COLUMN_NAME
-                """;
-        return fetchSingleColumn(sql, "COLUMN_NAME");
+        return fetchSingleColumn(SELECT_ALL_COLUMNS, "COLUMN_NAME");
     }
 
-
     /**
      * Retrieves a list of all primary key constraint names in the database.
      * @return A list of primary key constraint names.
      * @throws DaoException if a database access error occurs.
      */
     public List<String> getAllPKConstraints() throws DaoException {
-        String sql = """
-                SELECT CONSTRAINT_NAME
-                FROM INFORMATION_SCHEMA.TABLE_CONSTRAINTS
-                WHERE CONSTRAINT_TYPE = 'PRIMARY KEY'
-                """;
-        return fetchSingleColumn(sql, "CONSTRAINT_NAME");
+        return fetchSingleColumn(SELECT_PK_CONSTRAINTS, "CONSTRAINT_NAME");
     }
 
-
     /**
      * Retrieves a list of all check constraint names in the database.
      * @return A list of check constraint names.
      * @throws DaoException if a database access error occurs.
      */
     public List<String> getAllCheckConstraints() throws DaoException {
-        String sql = """
-                SELECT CONSTRAINT_NAME
-                FROM INFORMATION_SCHEMA.CHECK_CONSTRAINTS
-                """;
-        return fetchSingleColumn(sql, "CONSTRAINT_NAME");
+        return fetchSingleColumn(SELECT_CHECK_CONSTRAINTS, "CONSTRAINT_NAME");
     }
 
     /**
@@ -94,13 +124,7 @@ public class DaoMetadata {
      * @throws DaoException if a database access error occurs.
      */
     public List<String> getNonIntConsultantColumns() throws DaoException {
-        String sql = """
-                SELECT COLUMN_NAME
-                FROM INFORMATION_SCHEMA.COLUMNS
-                WHERE DATA_TYPE <> 'int'
-                  AND TABLE_NAME = 'Consultant'
-                """;
-        return fetchSingleColumn(sql, "COLUMN_NAME");
+        return fetchSingleColumn(SELECT_NON_INT_CONSULTANT_COLUMNS, "COLUMN_NAME");
     }
 
     /**
@@ -110,21 +134,10 @@ public class DaoMetadata {
      */
     public String getRowsFromMaxRowTable() throws DaoException {
         String result = null;
-        String sql = """
-                SELECT TOP 1
-                t.name AS 'TableName',
-                SUM(p.rows) AS 'RowCount'
-                FROM sys.tables t
-                JOIN sys.partitions p ON t.object_id = p.object_id
-                WHERE p.index_id IN (0, 1)
-                GROUP BY t.name
-                ORDER BY SUM(p.rows) DESC
-                """;
 
         try (Connection c = connectionHandler.getConnection();
-                PreparedStatement ps = c.prepareStatement(sql);
+                PreparedStatement ps = c.prepareStatement(SELECT_MAX_ROW_TABLE);
                 ResultSet rs = ps.executeQuery()) {
-
             if (rs.next()) {
                 result = rs.getString("TableName") + " (" + rs.getInt("RowCount") + " rows)";
             }
@@ -134,4 +147,20 @@ public class DaoMetadata {
         return result;
     }
 
+    /**
+     * Estimates the number of rows in the Project, Consultant, Milestone and
+     * Project_Assignment tables from the partition statistics, without counting
+     * them. Good enough for progress bars, but not exact while others write.
+     * @return The estimated total row count of the four tables.
+     * @throws DaoException if a database access error occurs.
+     */
+    public long estimateApplicationRows() throws DaoException {
+        try (Connection c = connectionHandler.getConnection();
+                PreparedStatement ps = c.prepareStatement(SELECT_APPLICATION_ROW_ESTIMATE);
+                ResultSet rs = ps.executeQuery()) {
+            return rs.next() ? rs.getLong("RowCount") : 0;
+        } catch (SQLException e) {
+            throw new DaoException("Unable to load table information. Please try again.");
+        }
+    }
 }
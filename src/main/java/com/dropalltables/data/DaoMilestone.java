@@ -1,6 +1,5 @@
 package com.dropalltables.data;
 
-import java.io.IOException;
 import java.sql.Connection;
 import java.sql.PreparedStatement;
 import java.sql.ResultSet;
@@ -8,26 +7,108 @@ import java.sql.SQLException;
 import java.sql.Timestamp;
 import java.time.LocalDate;
 import java.util.ArrayList;
+import java.util.Collection;
+import java.util.HashMap;
+import java.util.LinkedHashMap;
 import java.util.List;
+import java.util.Map;
+import java.util.stream.Stream;
 
 import com.dropalltables.models.Milestone;
 import com.dropalltables.models.Project;
 
 public class DaoMilestone {
+    private static final String INSERT_MILESTONE = """
+            INSERT INTO Milestone (MilestoneNo, MilestoneName, MilestoneDate, ProjectID)
+            VALUES (?, ?, ?, ?)
+            """;
+
+    private static final String SELECT_MILESTONES_BY_PROJECT_NO = """
+            SELECT m.MilestoneNo, m.MilestoneName, m.MilestoneDate, m.ProjectID,
+                   p.ProjectNo, p.ProjectName, p.StartDate, p.EndDate
+            FROM Milestone m
+            JOIN Project p ON p.ProjectID = m.ProjectID
+            WHERE p.ProjectNo = ?
+            ORDER BY m.MilestoneDate
+            """;
+
+    private static final String SELECT_MILESTONES_BY_PROJECT_ID = """
+            SELECT m.MilestoneNo, m.MilestoneName, m.MilestoneDate, m.ProjectID,
+                   p.ProjectNo, p.ProjectName, p.StartDate, p.EndDate
+            FROM Milestone m
+            JOIN Project p ON p.ProjectID = m.ProjectID
+            WHERE m.ProjectID = ?
+            ORDER BY m.MilestoneDate
+            """;
+
+    private static final String SELECT_ALL_MILESTONES = """
+            SELECT m.MilestoneNo, m.MilestoneName, m.MilestoneDate, m.ProjectID,
+                   p.ProjectNo, p.ProjectName, p.StartDate, p.EndDate
+            FROM Milestone m
+            JOIN Project p ON p.ProjectID = m.ProjectID
+            ORDER BY m.ProjectID, m.MilestoneDate
+            """;
+
+    private static final String DELETE_MILESTONE = """
+            DELETE FROM Milestone
+            WHERE MilestoneNo = ?
+            """;
+
+    private static final String DELETE_MILESTONES_BY_PROJECT_NO = """
+            DELETE FROM Milestone
+            WHERE ProjectID = (SELECT ProjectID FROM Project WHERE ProjectNo = ?)
+            """;
+
+    private static final String COUNT_MILESTONE_NO = """
+            SELECT COUNT(*)
+            FROM Milestone
+            WHERE MilestoneNo = ?
+            """;
+
+    private static final String UPDATE_MILESTONE = """
+            UPDATE Milestone
+            SET MilestoneName = ?, MilestoneDate = ?
+            WHERE MilestoneID = ?
+            """;
+
+    // Rows unchanged by the import are left alone, so a repeated import writes nothing
+    private static final String UPSERT_MILESTONES = """
+            MERGE Milestone WITH (HOLDLOCK) AS t
+            USING (VALUES %s) AS s (MilestoneNo, MilestoneName, MilestoneDate, ProjectID)
+            ON t.MilestoneNo = s.MilestoneNo
+            WHEN MATCHED AND EXISTS (SELECT s.MilestoneName, s.MilestoneDate, s.ProjectID
+                                     EXCEPT SELECT t.MilestoneName, t.MilestoneDate, t.ProjectID) THEN
+                UPDATE SET MilestoneName = s.MilestoneName, MilestoneDate = s.MilestoneDate, ProjectID = s.ProjectID
+            WHEN NOT MATCHED THEN
+                INSERT (MilestoneNo, MilestoneName, MilestoneDate, ProjectID)
+                VALUES (s.MilestoneNo, s.MilestoneName, s.MilestoneDate, s.ProjectID)
+            OUTPUT $action AS MergeAction;
+            """;
+
+    private final DataContext dataContext;
     private final ConnectionHandler connectionHandler;
+    private final DataVersion dataVersion;
 
     /**
      * Constructor for DaoMilestone.
-     * Initializes the ConnectionHandler.
+     * Uses the connection handler owned by the application's data context and
+     * registers the DAO's statements with its statement registry.
      * 
-     * @throws DaoException if unable to connect to the database.
+     * @param dataContext The data context that owns this DAO.
      */
-    public DaoMilestone() throws DaoException {
-        try {
-            this.connectionHandler = new ConnectionHandler();
-        } catch (IOException e) {
-            throw new DaoException("Unable to connect to the database. Please check your connection and try again.");
-        }
+    DaoMilestone(DataContext dataContext) {
+        this.dataContext = dataContext;
+        this.connectionHandler = dataContext.getConnectionHandler();
+        this.dataVersion = dataContext.getDataVersion();
+        dataContext.getStatementRegistry().register(
+                INSERT_MILESTONE,
+                SELECT_MILESTONES_BY_PROJECT_NO,
+                SELECT_MILESTONES_BY_PROJECT_ID,
+                SELECT_ALL_MILESTONES,
+                DELETE_MILESTONE,
+                DELETE_MILESTONES_BY_PROJECT_NO,
+                COUNT_MILESTONE_NO,
+                UPDATE_MILESTONE);
     }
 
     /**
@@ -40,19 +121,14 @@ public class DaoMilestone {
      *                      during insertion.
      */
     public void insertMilestone(Milestone milestone) throws DaoException {
-        String sql = """
-                INSERT INTO Milestone (MilestoneNo, MilestoneName, MilestoneDate, ProjectID)
-                VALUES (?, ?, ?, ?)
-                """;
         try (Connection conn = connectionHandler.getConnection();
-                PreparedStatement stmt = conn.prepareStatement(sql)) {
-
+                PreparedStatement stmt = conn.prepareStatement(INSERT_MILESTONE)) {
             stmt.setInt(1, milestone.getMilestoneNo());
             stmt.setString(2, milestone.getName());
             stmt.setTimestamp(3, Timestamp.valueOf(milestone.getDate().atStartOfDay()));
 
             // Use DaoProject.getProjectID() to convert ProjectNo to ProjectID
-            DaoProject daoProject = new DaoProject();
+            DaoProject daoProject = dataContext.getDaoProject();
             try {
                 Integer projectID = daoProject.getProjectID(milestone.getProjectNo());
                 if (projectID == null) {
@@ -64,13 +140,64 @@ public class DaoMilestone {
             }
 
             stmt.executeUpdate();
+            dataVersion.increment();
         } catch (SQLException e) {
             throw new DaoException("Unable to save milestone. Please check your input and try again.");
         }
     }
 
+    /**
+     * Inserts the milestones whose numbers do not exist yet and updates those
+     * whose name, date or project differ, in one transaction (joining an open
+     * unit of work). The rows are sent in batched MERGE statements; milestones
+     * that are already up to date are not written. If a number appears twice,
+     * the last milestone wins.
+     * 
+     * @param milestones The milestones to save, identified by milestone number.
+     * @return The counts of inserted, updated and unchanged milestones.
+     * @throws DaoException if a milestone's project does not exist or the
+     *                      milestones cannot be saved; none are saved then.
+     */
+    public UpsertResult upsertMilestones(Collection<Milestone> milestones) throws DaoException {
+        Map<Integer, Milestone> byNo = new LinkedHashMap<>();
+        Map<Integer, Integer> projectIDs = new HashMap<>();
+        DaoProject daoProject = dataContext.getDaoProject();
+        for (Milestone milestone : milestones) {
+            Integer projectID = daoProject.getProjectID(milestone.getProjectNo());
+            if (projectID == null) {
+                throw new DaoException("Project " + milestone.getProjectNo() + " of milestone "
+                        + milestone.getMilestoneNo() + " not found. Please select a valid project.");
+            }
+            projectIDs.put(milestone.getMilestoneNo(), projectID);
+            byNo.put(milestone.getMilestoneNo(), milestone);
+        }
+        if (byNo.isEmpty()) {
+            return UpsertResult.NONE;
+        }
+
+        try (UnitOfWork work = connectionHandler.beginUnitOfWork();
+                Connection conn = connectionHandler.getConnection()) {
+            UpsertResult result = BatchMerge.merge(conn, UPSERT_MILESTONES, 4, new ArrayList<>(byNo.values()),
+                    (stmt, i, milestone) -> {
+                        stmt.setInt(i, milestone.getMilestoneNo());
+                        stmt.setString(i + 1, milestone.getName());
+                        stmt.setTimestamp(i + 2, Timestamp.valueOf(milestone.getDate().atStartOfDay()));
+                        stmt.setInt(i + 3, projectIDs.get(milestone.getMilestoneNo()));
+                    },
+                    BatchMerge.OutputReader.NONE);
+            work.commit();
+            if (result.changed() > 0) {
+                dataVersion.increment();
+            }
+            return result;
+        } catch (SQLException e) {
+            throw new DaoException("Unable to save the milestones. Please check the data and try again.", e);
+        }
+    }
+
     /**
      * Retrieves a list of all milestones for a specific project, ordered by date.
+     * The owning project is read in the same query and shared by all milestones.
      * 
      * @param projectNo The number of the project whose milestones are to be
      *                  retrieved.
@@ -78,23 +205,71 @@ public class DaoMilestone {
      * @throws DaoException if there is an error loading the milestones.
      */
     public List<Milestone> getMilestonesByProjectNo(int projectNo) throws DaoException {
+        return selectMilestones(SELECT_MILESTONES_BY_PROJECT_NO, projectNo, new CancellationToken());
+    }
+
+    /**
+     * Retrieves a list of all milestones for a specific project, ordered by date,
+     * for callers that already resolved the project's ID. Filters on the
+     * Milestone table's own ProjectID column.
+     * 
+     * @param projectID    The ID of the project whose milestones are to be
+     *                     retrieved.
+     * @param cancellation Cancels the query if the result is no longer wanted.
+     * @return A list of milestones for the specified project.
+     * @throws QueryCancelledException if the query was cancelled.
+     * @throws DaoException            if there is an error loading the milestones.
+     */
+    public List<Milestone> getMilestonesByProjectID(int projectID, CancellationToken cancellation)
+            throws DaoException {
+        return selectMilestones(SELECT_MILESTONES_BY_PROJECT_ID, projectID, cancellation);
+    }
+
+    /**
+     * Streams every milestone in the database, ordered by project and date.
+     * Milestones of the same project share one Project object; only the
+     * current project is kept, so memory use does not grow with the result.
+     * The projects are plain copies that bypass the project cache, as this is
+     * a bulk read for exports.
+     * The stream holds a database connection until it is closed.
+     * 
+     * @param cancellation Stops the query while the stream is being read.
+     * @return A stream of all milestones; close it with try-with-resources.
+     * @throws QueryCancelledException if the query was cancelled.
+     * @throws DaoException            if there is an error loading the milestones.
+     */
+    public Stream<Milestone> streamAllMilestones(CancellationToken cancellation) throws DaoException {
+        Map<Integer, Project> currentProject = new HashMap<>();
+        DaoProject daoProject = dataContext.getDaoProject();
+        return QueryStreams.stream(connectionHandler, SELECT_ALL_MILESTONES, StatementBinder.NONE, rs -> {
+            int projectID = rs.getInt("ProjectID");
+            if (!currentProject.containsKey(projectID)) {
+                currentProject.clear();
+                currentProject.put(projectID, daoProject.keyProject(rs));
+            }
+            return instantiateMilestone(rs, currentProject);
+        }, "Unable to load milestones. Please try again.", cancellation);
+    }
+
+    private List<Milestone> selectMilestones(String sql, int key, CancellationToken cancellation)
+            throws DaoException {
         List<Milestone> milestones = new ArrayList<>();
-        String sql = """
-                SELECT *
-                FROM Milestone
-                WHERE ProjectID = (SELECT ProjectID FROM Project WHERE ProjectNo = ?)
-                ORDER BY MilestoneDate
-                """;
+        Map<Integer, Project> projects = new HashMap<>();
         try (Connection conn = connectionHandler.getConnection();
                 PreparedStatement stmt = conn.prepareStatement(sql)) {
-
-            stmt.setInt(1, projectNo);
+            stmt.setInt(1, key);
+            cancellation.register(stmt);
             try (ResultSet rs = stmt.executeQuery()) {
                 while (rs.next()) {
-                    milestones.add(instantiateMilestone(rs));
+                    milestones.add(instantiateMilestone(rs, projects));
                 }
+            } finally {
+                cancellation.unregister(stmt);
             }
         } catch (SQLException e) {
+            if (cancellation.isCancelled()) {
+                throw new QueryCancelledException();
+            }
             throw new DaoException("Unable to load milestones for the selected project. Please try again.");
         }
         return milestones;
@@ -107,15 +282,11 @@ public class DaoMilestone {
      * @throws DaoException if there is an error during deletion.
      */
     public void deleteMilestone(int milestoneNo) throws DaoException {
-        String sql = """
-                DELETE FROM Milestone
-                WHERE MilestoneNo = ?
-                """;
         try (Connection conn = connectionHandler.getConnection();
-                PreparedStatement stmt = conn.prepareStatement(sql)) {
-
+                PreparedStatement stmt = conn.prepareStatement(DELETE_MILESTONE)) {
             stmt.setInt(1, milestoneNo);
             stmt.executeUpdate();
+            dataVersion.increment();
         } catch (SQLException e) {
             throw new DaoException("Unable to delete milestone. Please try again.");
         }
@@ -129,15 +300,11 @@ public class DaoMilestone {
      * @throws DaoException if there is an error during deletion.
      */
     public void deleteMilestonesByProjectNo(int projectNo) throws DaoException {
-        String sql = """
-                DELETE FROM Milestone
-                WHERE ProjectID = (SELECT ProjectID FROM Project WHERE ProjectNo = ?)
-                """;
         try (Connection conn = connectionHandler.getConnection();
-                PreparedStatement stmt = conn.prepareStatement(sql)) {
-
+                PreparedStatement stmt = conn.prepareStatement(DELETE_MILESTONES_BY_PROJECT_NO)) {
             stmt.setInt(1, projectNo);
             stmt.executeUpdate();
+            dataVersion.increment();
         } catch (SQLException e) {
             throw new DaoException("Unable to delete milestones for the selected project. Please try again.");
         }
@@ -151,14 +318,8 @@ public class DaoMilestone {
      * @throws DaoException if there is an error during the check.
      */
     public boolean milestoneNoExists(int milestoneNo) throws DaoException {
-        String sql = """
-                SELECT COUNT(*)
-                FROM Milestone
-                WHERE MilestoneNo = ?
-                """;
         try (Connection conn = connectionHandler.getConnection();
-                PreparedStatement stmt = conn.prepareStatement(sql)) {
-
+                PreparedStatement stmt = conn.prepareStatement(COUNT_MILESTONE_NO)) {
             stmt.setInt(1, milestoneNo);
             try (ResultSet rs = stmt.executeQuery()) {
                 if (rs.next()) {
@@ -172,23 +333,28 @@ public class DaoMilestone {
     }
 
     /**
-     * Helper method to create a Milestone object from a ResultSet.
-     * This involves fetching the associated Project object.
+     * Helper method to create a Milestone object from a ResultSet that also
+     * contains the owning project's columns (see SELECT_MILESTONES_BY_PROJECT_NO).
+     * The project is taken from the project cache once per ProjectID and reused
+     * for later rows, so milestones share the canonical project instance.
      * 
-     * @param rs The ResultSet containing milestone data.
+     * @param rs       The ResultSet containing milestone and project data.
+     * @param projects Projects already resolved for this result, by ProjectID.
      * @return A new Milestone object.
-     * @throws DaoException if there is an error reading the ResultSet or fetching
-     *                      the associated project.
+     * @throws DaoException if there is an error reading the ResultSet.
      */
-    private Milestone instantiateMilestone(ResultSet rs) throws DaoException {
+    Milestone instantiateMilestone(ResultSet rs, Map<Integer, Project> projects) throws DaoException {
         try {
             int milestoneNo = rs.getInt("MilestoneNo");
             String name = rs.getString("MilestoneName");
             LocalDate date = rs.getTimestamp("MilestoneDate").toLocalDateTime().toLocalDate();
             int projectID = rs.getInt("ProjectID");
 
-            DaoProject daoProject = new DaoProject();
-            Project project = daoProject.getProjectByID(projectID);
+            Project project = projects.get(projectID);
+            if (project == null) {
+                project = dataContext.getDaoProject().cacheProject(rs);
+                projects.put(projectID, project);
+            }
 
             return new Milestone(milestoneNo, name, date, project);
 
@@ -200,17 +366,14 @@ public class DaoMilestone {
     public int updateMilestone(Milestone m) throws DaoException {
         if (m == null || m.getMilestoneNo() <= 0)
             throw new IllegalArgumentException("Invalid milestone");
-        String sql = """
-                UPDATE Milestone
-                SET MilestoneName = ?, MilestoneDate = ?
-                WHERE MilestoneID = ?
-                """;
         try (Connection c = connectionHandler.getConnection();
-                PreparedStatement ps = c.prepareStatement(sql)) {
+                PreparedStatement ps = c.prepareStatement(UPDATE_MILESTONE)) {
             ps.setString(1, m.getName());
             ps.setDate(2, java.sql.Date.valueOf(m.getDate()));
             ps.setInt(3, m.getMilestoneNo());
-            return ps.executeUpdate();
+            int rows = ps.executeUpdate();
+            dataVersion.increment();
+            return rows;
         } catch (SQLException e) {
             throw new DaoException("Failed to update milestone: " + e.getMessage(), e);
         }
@@ -1,32 +1,177 @@
 package com.dropalltables.data;
 
-import java.io.IOException;
 import java.sql.Connection;
 import java.sql.Date;
 import java.sql.PreparedStatement;
 import java.sql.ResultSet;
 import java.sql.SQLException;
+import java.sql.Statement;
 import java.time.LocalDate;
 import java.util.ArrayList;
+import java.util.Collection;
+import java.util.Collections;
+import java.util.HashMap;
+import java.util.LinkedHashMap;
+import java.util.LinkedHashSet;
 import java.util.List;
+import java.util.Map;
+import java.util.stream.Stream;
 
 import com.dropalltables.models.Project;
 
 public class DaoProject {
+    private static final String SELECT_ALL_PROJECTS = """
+            SELECT *
+            FROM Project
+            """;
+
+    private static final String SELECT_ALL_PROJECTS_WITH_TOTALS = """
+            SELECT
+                p.*,
+                COALESCE(t.TeamSize, 0) AS TeamSize,
+                COALESCE(t.TotalHours, 0) AS TotalHours
+            FROM Project p
+            LEFT JOIN (
+                SELECT ProjectID, COUNT(*) AS TeamSize, SUM(HoursWorked) AS TotalHours
+                FROM Project_Assignment
+                GROUP BY ProjectID
+            ) t ON t.ProjectID = p.ProjectID
+            """;
+
+    // Same with the totals read from the indexed view (see IndexedViews)
+    private static final String SELECT_ALL_PROJECTS_WITH_TOTALS_VIEW = """
+            SELECT
+                p.*,
+                COALESCE(pt.TeamSize, 0) AS TeamSize,
+                COALESCE(pt.TotalHours, 0) AS TotalHours
+            FROM Project p
+            LEFT JOIN dbo.ProjectTotals pt WITH (NOEXPAND)
+                   ON pt.ProjectID = p.ProjectID
+            """;
+
+    private static final String SELECT_COMPLETED_PROJECTS = """
+            SELECT *
+            FROM Project
+            WHERE EndDate IS NOT NULL
+            """;
+
+    // The criteria of a project page, as bits of its shape
+    private static final int PAGE_NUMBER = 1;
+    private static final int PAGE_NAME = 2;
+    private static final int PAGE_DATES = 4;
+    private static final int PAGE_ACTIVE = 8;
+
+    // One statement per combination of criteria, so each gets a plan of its
+    // own that can seek on ProjectNo and use the filtered IX_Project_Active
+    private static final String[] SELECT_PROJECTS_PAGE = new String[16];
+
+    static {
+        for (int shape = 0; shape < SELECT_PROJECTS_PAGE.length; shape++) {
+            SELECT_PROJECTS_PAGE[shape] = projectsPageSql(shape);
+        }
+    }
+
+    private static final String SELECT_PROJECT_BY_NO = """
+            SELECT *
+            FROM Project
+            WHERE ProjectNo = ?
+            """;
+
+    private static final String SELECT_PROJECT_BY_ID = """
+            SELECT *
+            FROM Project
+            WHERE ProjectID = ?
+            """;
+
+    private static final String INSERT_PROJECT = """
+            INSERT INTO Project (ProjectNo, ProjectName, StartDate, EndDate)
+            VALUES (?, ?, ?, ?);
+            """;
+
+    private static final String SELECT_PROJECT_KEYS = """
+            SELECT ProjectNo, ProjectID
+            FROM Project
+            """;
+
+    private static final String SELECT_PROJECT_ID = """
+            SELECT ProjectID
+            FROM Project
+            WHERE ProjectNo = ?
+            """;
+
+    private static final String DELETE_PROJECT = """
+            DELETE FROM Project
+            WHERE ProjectNo = ?
+            """;
+
+    // Returns the ID, so the aggregate store can follow the project's status
+    private static final String UPDATE_PROJECT = """
+            UPDATE Project
+            SET ProjectName = ?, StartDate = ?, EndDate = ?
+            OUTPUT inserted.ProjectID
+            WHERE ProjectNo = ?
+            """;
+
+    // Rows unchanged by the import are left alone, so a repeated import writes nothing
+    private static final String UPSERT_PROJECTS = """
+            MERGE Project WITH (HOLDLOCK) AS t
+            USING (VALUES %s) AS s (ProjectNo, ProjectName, StartDate, EndDate)
+            ON t.ProjectNo = s.ProjectNo
+            WHEN MATCHED AND EXISTS (SELECT s.ProjectName, s.StartDate, s.EndDate
+                                     EXCEPT SELECT t.ProjectName, t.StartDate, t.EndDate) THEN
+                UPDATE SET ProjectName = s.ProjectName, StartDate = s.StartDate, EndDate = s.EndDate
+            WHEN NOT MATCHED THEN
+                INSERT (ProjectNo, ProjectName, StartDate, EndDate)
+                VALUES (s.ProjectNo, s.ProjectName, s.StartDate, s.EndDate)
+            OUTPUT $action AS MergeAction, inserted.ProjectID, inserted.ProjectNo, inserted.EndDate;
+            """;
+
+    // SQL Server accepts at most 2100 parameters per statement
+    private static final int MAX_IDS_PER_QUERY = 512;
+
+    private static final String PAGE_LISTING = "projects";
+
+    private final DataContext dataContext;
     private final ConnectionHandler connectionHandler;
+    private final DataVersion dataVersion;
+    private final AggregateStore aggregates;
+    private final IndexedViews indexedViews;
+    private final int defaultPageSize;
+    private final EntityCache<Integer, Project> projectCache;
+    private final KeyMap projectKeys = new KeyMap();
 
     /**
      * Constructor for DaoProject.
-     * Initializes the ConnectionHandler.
+     * Uses the connection handler owned by the application's data context and
+     * registers the DAO's statements with its statement registry.
      * 
-     * @throws DaoException if unable to connect to the database.
+     * @param dataContext The data context that owns this DAO.
      */
-    public DaoProject() throws DaoException {
-        try {
-            this.connectionHandler = new ConnectionHandler();
-        } catch (IOException e) {
-            throw new DaoException("Unable to connect to the database. Please check your connection and try again.");
-        }
+    DaoProject(DataContext dataContext) {
+        this.dataContext = dataContext;
+        this.connectionHandler = dataContext.getConnectionHandler();
+        this.dataVersion = dataContext.getDataVersion();
+        this.aggregates = dataContext.getAggregateStore();
+        this.indexedViews = dataContext.getIndexedViews();
+        this.defaultPageSize = ConnectionHandler.intProperty(dataContext.getConfiguration(), "listing.pageSize", 200);
+        this.projectCache = new EntityCache<>(
+                ConnectionHandler.intProperty(dataContext.getConfiguration(), "cache.projects.maxWeight", 1 << 20),
+                DaoProject::estimateWeight,
+                DaoProject::copyProject,
+                dataContext.getEntityUpdates());
+        dataContext.getStatementRegistry().registerOptional(SELECT_ALL_PROJECTS_WITH_TOTALS_VIEW);
+        dataContext.getStatementRegistry().register(
+                SELECT_ALL_PROJECTS,
+                SELECT_ALL_PROJECTS_WITH_TOTALS,
+                SELECT_COMPLETED_PROJECTS,
+                SELECT_PROJECT_BY_NO,
+                SELECT_PROJECT_BY_ID,
+                SELECT_PROJECT_KEYS,
+                SELECT_PROJECT_ID,
+                DELETE_PROJECT,
+                UPDATE_PROJECT);
+        dataContext.getStatementRegistry().register(SELECT_PROJECTS_PAGE);
+        dataContext.getStatementRegistry().registerReturningKeys(INSERT_PROJECT);
     }
 
     /**
@@ -36,43 +181,202 @@ public class DaoProject {
      * @throws DaoException if there is an error loading the projects.
      */
     public List<Project> getAllProjects() throws DaoException {
-        List<Project> projects = new ArrayList<>();
+        return QueryStreams.toList(streamAllProjects());
+    }
 
-        String query = """
-                SELECT *
-                FROM Project
-                """;
+    /**
+     * Streams all projects from the database without collecting them first.
+     * The stream holds a database connection until it is closed.
+     * 
+     * @return A stream of all projects; close it with try-with-resources.
+     * @throws DaoException if there is an error loading the projects.
+     */
+    public Stream<Project> streamAllProjects() throws DaoException {
+        return streamAllProjects(new CancellationToken());
+    }
 
-        try (Connection connection = connectionHandler.getConnection();
-                PreparedStatement statement = connection.prepareStatement(query);
-                ResultSet resultSet = statement.executeQuery()) {
+    /**
+     * Streams all projects from the database without collecting them first.
+     * The stream holds a database connection until it is closed.
+     * 
+     * @param cancellation Stops the query while the stream is being read.
+     * @return A stream of all projects; close it with try-with-resources.
+     * @throws QueryCancelledException if the query was cancelled.
+     * @throws DaoException            if there is an error loading the projects.
+     */
+    public Stream<Project> streamAllProjects(CancellationToken cancellation) throws DaoException {
+        return QueryStreams.stream(connectionHandler, SELECT_ALL_PROJECTS, StatementBinder.NONE,
+                this::cacheProject, "Unable to load projects. Please try again.", cancellation);
+    }
 
-            while (resultSet.next()) {
-                Project project = instantiateProject(resultSet);
-                projects.add(project);
+    /**
+     * Streams all projects with their team size and hours worked, for bulk
+     * reads such as exports. The totals are aggregated by the same query, so
+     * they match the assignments at the time of reading. The projects are
+     * plain copies that bypass the project cache, which the export would
+     * otherwise push every cached project out of; their keys still go into
+     * the key map. The stream holds a database connection until it is closed.
+     * 
+     * @param cancellation Stops the query while the stream is being read.
+     * @return A stream of all projects; close it with try-with-resources.
+     * @throws QueryCancelledException if the query was cancelled.
+     * @throws DaoException            if there is an error loading the projects.
+     */
+    public Stream<ProjectTotals> streamAllProjectsWithTotals(CancellationToken cancellation)
+            throws DaoException {
+        try {
+            return QueryStreams.stream(connectionHandler,
+                    indexedViews.choose(SELECT_ALL_PROJECTS_WITH_TOTALS_VIEW, SELECT_ALL_PROJECTS_WITH_TOTALS),
+                    StatementBinder.NONE,
+                    rs -> new ProjectTotals(keyProject(rs), rs.getInt("TeamSize"), rs.getInt("TotalHours")),
+                    "Unable to load projects. Please try again.", cancellation);
+        } catch (DaoException e) {
+            if (e.getCause() instanceof SQLException sqlException) {
+                indexedViews.checkFailure(sqlException);
             }
-        } catch (SQLException e) {
-            throw new DaoException("Unable to load projects. Please try again.");
+            throw e;
         }
-        return projects;
     }
 
     public List<Project> getCompletedProjects() throws DaoException {
-        List<Project> completedProjects = new ArrayList<>();
-        String sql = "SELECT * FROM Project WHERE EndDate IS NOT NULL";
-        // fetch rows into Project objects (similar to getAllProjects)
+        return QueryStreams.toList(streamCompletedProjects());
+    }
+
+    /**
+     * Streams all projects that have an end date.
+     * The stream holds a database connection until it is closed.
+     * 
+     * @return A stream of completed projects; close it with try-with-resources.
+     * @throws DaoException if there is an error loading the projects.
+     */
+    public Stream<Project> streamCompletedProjects() throws DaoException {
+        return QueryStreams.stream(connectionHandler, SELECT_COMPLETED_PROJECTS, StatementBinder.NONE,
+                this::cacheProject, "Unable to load projects. Please try again.");
+    }
+
+    /**
+     * Returns the page size used when none is given (listing.pageSize).
+     * 
+     * @return The default number of projects per page.
+     */
+    public int getDefaultPageSize() {
+        return defaultPageSize;
+    }
+
+    /**
+     * Retrieves one page of projects matching a filter, ordered by project
+     * number. Filtering is done by the database.
+     * 
+     * @param filter    The criteria the projects must match.
+     * @param pageToken The token from the previous page, or null for the first page.
+     * @return The page, using the configured page size (listing.pageSize).
+     * @throws DaoException if there is an error loading the projects.
+     */
+    public Page<Project> getProjectsPage(ProjectFilter filter, String pageToken) throws DaoException {
+        return getProjectsPage(filter, pageToken, defaultPageSize, new CancellationToken());
+    }
+
+    /**
+     * Retrieves one page of projects matching a filter, ordered by project
+     * number. Filtering is done by the database.
+     * 
+     * @param filter       The criteria the projects must match.
+     * @param pageToken    The token from the previous page, or null for the first page.
+     * @param pageSize     The maximum number of projects on the page.
+     * @param cancellation Cancels the query if the result is no longer wanted.
+     * @return The page of projects.
+     * @throws QueryCancelledException if the query was cancelled.
+     * @throws DaoException            if there is an error loading the projects.
+     */
+    public Page<Project> getProjectsPage(ProjectFilter filter, String pageToken, int pageSize,
+            CancellationToken cancellation) throws DaoException {
+        int afterProjectNo = Page.decodeToken(PAGE_LISTING, pageToken);
+        List<Project> projects = new ArrayList<>();
+
+        int shape = 0;
+        int[] numberRanges = null;
+        if (!filter.getNumberPrefix().isEmpty()) {
+            numberRanges = NumberRanges.of(filter.getNumberPrefix());
+            if (numberRanges == null) {
+                return new Page<>(projects, null);
+            }
+            shape |= PAGE_NUMBER;
+        }
+        if (!filter.getNameContains().isEmpty()) {
+            shape |= PAGE_NAME;
+        }
+        if (filter.hasDateRange()) {
+            shape |= PAGE_DATES;
+        }
+        if (filter.isActiveOnly()) {
+            shape |= PAGE_ACTIVE;
+        }
+
         try (Connection connection = connectionHandler.getConnection();
-                PreparedStatement statement = connection.prepareStatement(sql);
-                ResultSet resultSet = statement.executeQuery()) {
+                PreparedStatement statement = connection.prepareStatement(SELECT_PROJECTS_PAGE[shape])) {
+            int index = 1;
+            // one extra row tells whether another page follows
+            statement.setInt(index++, pageSize + 1);
+            statement.setInt(index++, afterProjectNo);
+            if (numberRanges != null) {
+                for (int bound : numberRanges) {
+                    statement.setInt(index++, bound);
+                }
+            }
+            if ((shape & PAGE_NAME) != 0) {
+                statement.setString(index++, LikePatterns.contains(filter.getNameContains()));
+            }
+            if ((shape & PAGE_DATES) != 0) {
+                Date from = Date.valueOf(filter.getDateFrom());
+                Date until = Date.valueOf(filter.getDateUntil());
+                statement.setDate(index++, from);
+                statement.setDate(index++, until);
+                statement.setDate(index++, from);
+                statement.setDate(index++, until);
+            }
 
-            while (resultSet.next()) {
-                Project project = instantiateProject(resultSet);
-                completedProjects.add(project);
+            cancellation.register(statement);
+            try (ResultSet resultSet = statement.executeQuery()) {
+                while (resultSet.next()) {
+                    projects.add(cacheProject(resultSet));
+                }
+            } finally {
+                cancellation.unregister(statement);
             }
         } catch (SQLException e) {
-            throw new DaoException("Unable to load projects. Please try again.");
+            if (cancellation.isCancelled()) {
+                throw new QueryCancelledException();
+            }
+            throw new DaoException("Unable to load projects. Please try again.", e);
         }
-        return completedProjects;
+
+        if (projects.size() <= pageSize) {
+            return new Page<>(projects, null);
+        }
+        projects = projects.subList(0, pageSize);
+        int lastNo = projects.get(pageSize - 1).getProjectNo();
+        return new Page<>(projects, Page.encodeToken(PAGE_LISTING, lastNo));
+    }
+
+    private static String projectsPageSql(int shape) {
+        StringBuilder sql = new StringBuilder("""
+                SELECT TOP (?) *
+                FROM Project
+                WHERE ProjectNo > ?
+                """);
+        if ((shape & PAGE_NUMBER) != 0) {
+            sql.append("  AND ").append(NumberRanges.predicate("ProjectNo")).append('\n');
+        }
+        if ((shape & PAGE_NAME) != 0) {
+            sql.append("  AND ProjectName LIKE ? ESCAPE '\\'\n");
+        }
+        if ((shape & PAGE_DATES) != 0) {
+            sql.append("  AND ((StartDate >= ? AND StartDate < ?) OR (EndDate >= ? AND EndDate < ?))\n");
+        }
+        if ((shape & PAGE_ACTIVE) != 0) {
+            sql.append("  AND EndDate IS NULL\n");
+        }
+        return sql.append("ORDER BY ProjectNo\n").toString();
     }
 
     /**
@@ -83,18 +387,20 @@ public class DaoProject {
      * @throws DaoException if there is an error finding the project.
      */
     public Project getProjectByNo(int projectNo) throws DaoException {
-        String query = """
-                SELECT *
-                FROM Project
-                WHERE ProjectNo = ?
-                """;
+        Integer projectID = projectKeys.getID(projectNo);
+        if (projectID != null) {
+            Project cached = projectCache.getIfPresent(projectID);
+            if (cached != null) {
+                return cached;
+            }
+        }
 
         try (Connection connection = connectionHandler.getConnection();
-                PreparedStatement statement = connection.prepareStatement(query)) {
+                PreparedStatement statement = connection.prepareStatement(SELECT_PROJECT_BY_NO)) {
             statement.setInt(1, projectNo);
             try (ResultSet resultSet = statement.executeQuery()) {
                 if (resultSet.next()) {
-                    return instantiateProject(resultSet);
+                    return cacheProject(resultSet);
                 }
             }
         } catch (SQLException e) {
@@ -111,18 +417,18 @@ public class DaoProject {
      * @throws DaoException if there is an error finding the project.
      */
     public Project getProjectByID(int projectID) throws DaoException {
-        String query = """
-                SELECT *
-                FROM Project
-                WHERE ProjectID = ?
-                """;
+        return projectCache.get(projectID, this::loadProjectByID);
+    }
 
+    private Project loadProjectByID(int projectID) throws DaoException {
         try (Connection connection = connectionHandler.getConnection();
-                PreparedStatement statement = connection.prepareStatement(query)) {
+                PreparedStatement statement = connection.prepareStatement(SELECT_PROJECT_BY_ID)) {
             statement.setInt(1, projectID);
             try (ResultSet resultSet = statement.executeQuery()) {
                 if (resultSet.next()) {
-                    return instantiateProject(resultSet);
+                    Project project = instantiateProject(resultSet);
+                    projectKeys.put(project.getProjectNo(), projectID);
+                    return project;
                 }
             }
         } catch (SQLException e) {
@@ -131,28 +437,87 @@ public class DaoProject {
         return null;
     }
 
+    /**
+     * Retrieves several projects by their internal database IDs.
+     * Cached projects are returned directly; the remaining IDs are looked up
+     * with batched IN queries instead of one query per ID.
+     * 
+     * @param projectIDs The IDs of the projects to retrieve. Duplicates are ignored.
+     * @return The found projects keyed by ID. IDs with no project are left out.
+     * @throws DaoException if there is an error loading the projects.
+     */
+    public Map<Integer, Project> getProjectsByIDs(Collection<Integer> projectIDs) throws DaoException {
+        Map<Integer, Project> projects = new HashMap<>();
+        List<Integer> ids = new ArrayList<>();
+        for (Integer projectID : new LinkedHashSet<>(projectIDs)) {
+            Project cached = projectCache.getIfPresent(projectID);
+            if (cached != null) {
+                projects.put(projectID, cached);
+            } else {
+                ids.add(projectID);
+            }
+        }
+        if (ids.isEmpty()) {
+            return projects;
+        }
+
+        try (Connection connection = connectionHandler.getConnection()) {
+            for (int from = 0; from < ids.size(); from += MAX_IDS_PER_QUERY) {
+                List<Integer> batch = ids.subList(from, Math.min(from + MAX_IDS_PER_QUERY, ids.size()));
+                // Pad to a power of two so only a handful of distinct statements get prepared
+                int slots = Integer.highestOneBit(batch.size() - 1) << 1;
+                slots = Math.max(1, Math.min(slots, MAX_IDS_PER_QUERY));
+
+                String query = "SELECT * FROM Project WHERE ProjectID IN ("
+                        + String.join(", ", Collections.nCopies(slots, "?")) + ")";
+                try (PreparedStatement statement = connection.prepareStatement(query)) {
+                    for (int i = 0; i < slots; i++) {
+                        statement.setInt(i + 1, batch.get(Math.min(i, batch.size() - 1)));
+                    }
+                    try (ResultSet resultSet = statement.executeQuery()) {
+                        while (resultSet.next()) {
+                            projects.put(resultSet.getInt("ProjectID"), cacheProject(resultSet));
+                        }
+                    }
+                }
+            }
+        } catch (SQLException e) {
+            throw new DaoException("Unable to load projects. Please try again.");
+        }
+        return projects;
+    }
+
     /**
      * Inserts a new project into the database.
      * 
      * @param project The project object to insert.
+     * @return The internal database ID generated for the project.
      * @throws DaoException if a project with the same number already exists or if
      *                      there is an error during insertion.
      */
-    public void insertProject(Project project) throws DaoException {
-        String insert = """
-                INSERT INTO Project (ProjectNo, ProjectName, StartDate, EndDate)
-                VALUES (?, ?, ?, ?);
-                """;
-
+    public int insertProject(Project project) throws DaoException {
+        // A project deleted elsewhere may have left its number behind
+        forgetProject(project.getProjectNo());
         try (Connection connection = connectionHandler.getConnection();
-                PreparedStatement statement = connection.prepareStatement(insert)) {
-
+                PreparedStatement statement = connection.prepareStatement(INSERT_PROJECT,
+                        Statement.RETURN_GENERATED_KEYS)) {
             statement.setInt(1, project.getProjectNo());
             statement.setString(2, project.getName());
             statement.setDate(3, java.sql.Date.valueOf(project.getStartDate()));
             statement.setDate(4, project.getEndDate() != null ? java.sql.Date.valueOf(project.getEndDate()) : null);
             statement.executeUpdate();
+            dataVersion.increment();
 
+            try (ResultSet keys = statement.getGeneratedKeys()) {
+                if (!keys.next()) {
+                    throw new DaoException("Unable to save the project. Please check your input and try again.");
+                }
+                int projectID = keys.getInt(1);
+                projectKeys.put(project.getProjectNo(), projectID);
+                boolean active = project.getEndDate() == null;
+                aggregates.projectAdded(projectID, active);
+                return projectID;
+            }
         } catch (SQLException e) {
             if (e.getMessage().contains("duplicate")) {
                 throw new DaoException("A project with number " + project.getProjectNo() + " already exists.");
@@ -163,24 +528,27 @@ public class DaoProject {
 
     /**
      * Retrieves the internal database ID of a project by its project number.
+     * Known numbers are translated from the in-memory key map; unknown numbers
+     * are looked up in the database and added to it.
      * 
      * @param projectNo The number of the project.
      * @return The internal database ID of the project, or null if not found.
      * @throws DaoException if there is an error finding the project.
      */
     public Integer getProjectID(int projectNo) throws DaoException {
-        String query = """
-                SELECT ProjectID
-                FROM Project
-                WHERE ProjectNo = ?
-                """;
+        Integer projectID = projectKeys.getID(projectNo);
+        if (projectID != null) {
+            return projectID;
+        }
 
         try (Connection connection = connectionHandler.getConnection();
-                PreparedStatement statement = connection.prepareStatement(query)) {
+                PreparedStatement statement = connection.prepareStatement(SELECT_PROJECT_ID)) {
             statement.setInt(1, projectNo);
             try (ResultSet resultSet = statement.executeQuery()) {
                 if (resultSet.next()) {
-                    return resultSet.getInt("ProjectID");
+                    projectID = resultSet.getInt("ProjectID");
+                    projectKeys.put(projectNo, projectID);
+                    return projectID;
                 }
             }
         } catch (SQLException e) {
@@ -191,38 +559,64 @@ public class DaoProject {
     }
 
     /**
-     * Deletes a project from the database, including all its associated milestones
-     * and assignments.
+     * Retrieves the project number for an internal database ID from the key map.
+     * 
+     * @param projectID The internal database ID of the project.
+     * @return The project number, or null if the ID has not been seen.
+     */
+    public Integer getProjectNo(int projectID) {
+        return projectKeys.getNo(projectID);
+    }
+
+    /**
+     * Loads the number and ID of every project into the key map.
+     * Called once by the data context at startup.
+     * 
+     * @throws DaoException if there is an error loading the keys.
+     */
+    void loadKeys() throws DaoException {
+        Map<Integer, Integer> keys = new HashMap<>();
+        try (Connection connection = connectionHandler.getConnection();
+                PreparedStatement statement = connection.prepareStatement(SELECT_PROJECT_KEYS);
+                ResultSet resultSet = statement.executeQuery()) {
+            while (resultSet.next()) {
+                keys.put(resultSet.getInt("ProjectNo"), resultSet.getInt("ProjectID"));
+            }
+        } catch (SQLException e) {
+            throw new DaoException("Unable to load projects. Please try again.", e);
+        }
+        projectKeys.putAll(keys);
+    }
+
+    /**
+     * Deletes a project from the database. Its milestones are removed by the
+     * database in the same statement (ON DELETE CASCADE). Its assignments are
+     * deleted first in the same transaction, so the aggregate store can take
+     * off their hours and team members instead of being primed again.
      * 
      * @param projectNo The number of the project to delete.
      * @throws DaoException if the project is not found or if there is an error
      *                      during deletion.
      */
     public void deleteProject(int projectNo) throws DaoException {
-        try {
-            // Delete all milestones associated with this project
-            DaoMilestone daoMilestone = new DaoMilestone();
-            daoMilestone.deleteMilestonesByProjectNo(projectNo);
-
-            // Delete all assignments associated with this project
-            DaoProjectAssignment daoAssignment = new DaoProjectAssignment();
-            int projectID = getProjectID(projectNo);
-            daoAssignment.deleteProjectAssignmentByProjectID(projectID);
-
-            // Then delete the project
-            String query = """
-                    DELETE FROM Project
-                    WHERE ProjectNo = ?
-                    """;
-            try (Connection connection = connectionHandler.getConnection();
-                    PreparedStatement statement = connection.prepareStatement(query)) {
+        Integer projectID = getProjectID(projectNo);
+        forgetProject(projectNo);
+        if (projectID == null) {
+            throw new DaoException("Project not found. It may have already been deleted.");
+        }
+        try (UnitOfWork work = connectionHandler.beginUnitOfWork();
+                Connection connection = connectionHandler.getConnection()) {
+            dataContext.getDaoProjectAssignment().deleteProjectAssignmentByProjectID(projectID);
+            try (PreparedStatement statement = connection.prepareStatement(DELETE_PROJECT)) {
                 statement.setInt(1, projectNo);
                 int rowsAffected = statement.executeUpdate();
-
+                dataVersion.increment();
                 if (rowsAffected == 0) {
                     throw new DaoException("Project not found. It may have already been deleted.");
                 }
             }
+            aggregates.projectStatusChanged(projectID, false);
+            work.commit();
         } catch (SQLException e) {
             throw new DaoException("Unable to delete the project. Please try again.");
         }
@@ -236,31 +630,158 @@ public class DaoProject {
      *                      during the update.
      */
     public void updateProject(Project project) throws DaoException {
-
-        String query = """
-                UPDATE Project
-                SET ProjectName = ?, StartDate = ?, EndDate = ?
-                WHERE ProjectNo = ?
-                """;
-
+        Integer projectID = projectKeys.getID(project.getProjectNo());
+        if (projectID != null) {
+            projectCache.invalidate(projectID);
+        }
         try (Connection connection = connectionHandler.getConnection();
-                PreparedStatement statement = connection.prepareStatement(query)) {
-
+                PreparedStatement statement = connection.prepareStatement(UPDATE_PROJECT)) {
             statement.setString(1, project.getName());
             statement.setDate(2, java.sql.Date.valueOf(project.getStartDate()));
             statement.setDate(3, project.getEndDate() != null ? java.sql.Date.valueOf(project.getEndDate()) : null);
             statement.setInt(4, project.getProjectNo());
 
-            int rowsAffected = statement.executeUpdate();
-
-            if (rowsAffected == 0) {
-                throw new DaoException("Project not found. It may have been deleted by another user.");
+            try (ResultSet resultSet = statement.executeQuery()) {
+                dataVersion.increment();
+                if (!resultSet.next()) {
+                    throw new DaoException("Project not found. It may have been deleted by another user.");
+                }
+                int updatedID = resultSet.getInt("ProjectID");
+                boolean active = project.getEndDate() == null;
+                aggregates.projectStatusChanged(updatedID, active);
             }
         } catch (SQLException e) {
             throw new DaoException("Unable to update the project. Please check your input and try again.");
         }
     }
 
+    /**
+     * Inserts the projects whose numbers do not exist yet and updates those
+     * whose name or dates differ, in one transaction (joining an open unit of
+     * work). The rows are sent in batched MERGE statements; projects that are
+     * already up to date are not written. If a number appears twice, the last
+     * project wins.
+     * 
+     * @param projects The projects to save, identified by project number.
+     * @return The counts of inserted, updated and unchanged projects.
+     * @throws DaoException if the projects cannot be saved; none are saved then.
+     */
+    public UpsertResult upsertProjects(Collection<Project> projects) throws DaoException {
+        Map<Integer, Project> byNo = new LinkedHashMap<>();
+        for (Project project : projects) {
+            byNo.put(project.getProjectNo(), project);
+        }
+        if (byNo.isEmpty()) {
+            return UpsertResult.NONE;
+        }
+
+        try (UnitOfWork work = connectionHandler.beginUnitOfWork();
+                Connection connection = connectionHandler.getConnection()) {
+            UpsertResult result = BatchMerge.merge(connection, UPSERT_PROJECTS, 4, new ArrayList<>(byNo.values()),
+                    (statement, i, project) -> {
+                        statement.setInt(i, project.getProjectNo());
+                        statement.setString(i + 1, project.getName());
+                        statement.setDate(i + 2, Date.valueOf(project.getStartDate()));
+                        statement.setDate(i + 3, project.getEndDate() != null ? Date.valueOf(project.getEndDate()) : null);
+                    },
+                    (inserted, resultSet) -> {
+                        int projectID = resultSet.getInt("ProjectID");
+                        int projectNo = resultSet.getInt("ProjectNo");
+                        boolean active = resultSet.getTimestamp("EndDate") == null;
+                        connectionHandler.afterCommit(() -> {
+                            projectKeys.put(projectNo, projectID);
+                            if (!inserted) {
+                                projectCache.invalidate(projectID);
+                            }
+                        });
+                        if (inserted) {
+                            aggregates.projectAdded(projectID, active);
+                        } else {
+                            aggregates.projectStatusChanged(projectID, active);
+                        }
+                    });
+            work.commit();
+            if (result.changed() > 0) {
+                dataVersion.increment();
+            }
+            return result;
+        } catch (SQLException e) {
+            throw new DaoException("Unable to save the projects. Please check the data and try again.", e);
+        }
+    }
+
+    /**
+     * Returns the project cache, mainly for its hit/miss/eviction counters.
+     * 
+     * @return The identity-map cache for projects, keyed by ProjectID.
+     */
+    public EntityCache<Integer, Project> getProjectCache() {
+        return projectCache;
+    }
+
+    /**
+     * Reads the project in the current row of a ResultSet and returns the
+     * canonical instance for it. The ResultSet must include the ProjectID column.
+     * 
+     * @param resultSet The ResultSet containing project data.
+     * @return The cached Project object, updated with the row's values.
+     * @throws DaoException if there is an error reading the ResultSet.
+     */
+    Project cacheProject(ResultSet resultSet) throws DaoException {
+        Project project = instantiateProject(resultSet);
+        try {
+            int projectID = resultSet.getInt("ProjectID");
+            projectKeys.put(project.getProjectNo(), projectID);
+            return projectCache.canonicalize(projectID, project);
+        } catch (SQLException e) {
+            throw new DaoException("Error loading project data. Please try again.");
+        }
+    }
+
+    /**
+     * Reads the project in the current row of a ResultSet into a new Project
+     * and records its key, without going through the project cache. The
+     * ResultSet must include the ProjectID column.
+     * 
+     * @param resultSet The ResultSet containing project data.
+     * @return A new Project object.
+     * @throws DaoException if there is an error reading the ResultSet.
+     */
+    Project keyProject(ResultSet resultSet) throws DaoException {
+        Project project = instantiateProject(resultSet);
+        try {
+            projectKeys.put(project.getProjectNo(), resultSet.getInt("ProjectID"));
+            return project;
+        } catch (SQLException e) {
+            throw new DaoException("Error loading project data. Please try again.");
+        }
+    }
+
+    /**
+     * Drops a project number from the key map and the project from the cache
+     * after a write that changes or removes the project.
+     * 
+     * @param projectNo The number of the project.
+     */
+    private void forgetProject(int projectNo) {
+        Integer projectID = projectKeys.removeNo(projectNo);
+        if (projectID != null) {
+            projectCache.invalidate(projectID);
+        }
+    }
+
+    private static void copyProject(Project target, Project source) {
+        target.setProjectNo(source.getProjectNo());
+        target.setName(source.getName());
+        target.setStartDate(source.getStartDate());
+        target.setEndDate(source.getEndDate());
+    }
+
+    private static int estimateWeight(Project project) {
+        String name = project.getName();
+        return 96 + (name != null ? 2 * name.length() : 0);
+    }
+
     /**
      * Helper method to create a Project object from a ResultSet.
      * Handles both projects with and without an end date.
@@ -269,7 +790,7 @@ public class DaoProject {
      * @return A new Project object.
      * @throws DaoException if there is an error reading the ResultSet.
      */
-    private Project instantiateProject(ResultSet resultSet) throws DaoException {
+    Project instantiateProject(ResultSet resultSet) throws DaoException {
         try {
             int projectNo = resultSet.getInt("ProjectNo");
             String projectName = resultSet.getString("ProjectName");
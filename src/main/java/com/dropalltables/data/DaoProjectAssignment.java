@@ -1,22 +1,186 @@
 package com.dropalltables.data;
 
-import java.io.IOException;
 import java.sql.Connection;
 import java.sql.PreparedStatement;
 import java.sql.ResultSet;
 import java.sql.SQLException;
+import java.sql.Statement;
 import java.util.ArrayList;
+import java.util.Collection;
+import java.util.LinkedHashMap;
 import java.util.List;
+import java.util.Map;
+import java.util.stream.Stream;
 
 import com.dropalltables.models.ProjectAssignment;
 
 public class DaoProjectAssignment {
-    private ConnectionHandler connectionHandler;
-
-    @FunctionalInterface
-    private interface Binder {
-        void bind(PreparedStatement ps) throws SQLException;
-    }
+    private static final String INSERT_ASSIGNMENT = """
+            INSERT INTO Project_Assignment (ConsultantID, ProjectID, HoursWorked)
+            VALUES (?, ?, 0)
+            """;
+
+    // Inserts nothing (update count 0) if the pair already exists or either side is gone
+    private static final String INSERT_ASSIGNMENT_IF_ABSENT = """
+            INSERT INTO Project_Assignment (ConsultantID, ProjectID, HoursWorked)
+            SELECT c.ConsultantID, p.ProjectID, ?
+            FROM Consultant c
+            JOIN Project p ON p.ProjectID = ?
+            WHERE c.ConsultantID = ?
+              AND NOT EXISTS (
+                  SELECT 1
+                  FROM Project_Assignment pa
+                  WHERE pa.ConsultantID = c.ConsultantID
+                    AND pa.ProjectID = p.ProjectID
+              )
+            """;
+
+    // The write statements below return the old rows, so the aggregate store can
+    // subtract exactly what was there
+    private static final String UPDATE_HOURS = """
+            UPDATE Project_Assignment
+            SET HoursWorked = ?
+            OUTPUT deleted.ConsultantID, deleted.ProjectID, deleted.HoursWorked
+            WHERE ConsultantID = ?
+            AND ProjectID = ?
+            """;
+
+    // The increment happens on the server, so concurrent log entries never overwrite each other
+    private static final String ADD_HOURS = """
+            UPDATE Project_Assignment
+            SET HoursWorked = HoursWorked + ?
+            OUTPUT inserted.HoursWorked
+            WHERE ConsultantID = ?
+            AND ProjectID = ?
+            """;
+
+    private static final String DELETE_ASSIGNMENT = """
+            DELETE FROM Project_Assignment
+            OUTPUT deleted.ConsultantID, deleted.ProjectID, deleted.HoursWorked
+            WHERE ConsultantID = ?
+            AND ProjectID = ?
+            """;
+
+    private static final String DELETE_ASSIGNMENTS_BY_CONSULTANT_ID = """
+            DELETE FROM Project_Assignment
+            OUTPUT deleted.ConsultantID, deleted.ProjectID, deleted.HoursWorked
+            WHERE ConsultantID = ?
+            """;
+
+    private static final String DELETE_ASSIGNMENTS_BY_PROJECT_ID = """
+            DELETE FROM Project_Assignment
+            OUTPUT deleted.ConsultantID, deleted.ProjectID, deleted.HoursWorked
+            WHERE ProjectID = ?
+            """;
+
+    private static final String SELECT_ASSIGNMENTS_BY_PROJECT_ID = """
+            SELECT ConsultantID, ProjectID, HoursWorked
+            FROM Project_Assignment
+            WHERE ProjectID = ?
+            """;
+
+    private static final String SELECT_ASSIGNMENTS_BY_CONSULTANT_ID = """
+            SELECT ConsultantID, ProjectID, HoursWorked
+            FROM Project_Assignment
+            WHERE ConsultantID = ?
+            """;
+
+    private static final String SELECT_ALL_ASSIGNMENTS = """
+            SELECT ConsultantID, ProjectID, HoursWorked
+            FROM Project_Assignment
+            """;
+
+    private static final String SUM_HOURS_FOR_CONSULTANT = """
+            SELECT COALESCE(SUM(HoursWorked), 0) AS TotalHours
+            FROM Project_Assignment
+            WHERE ConsultantID = ?
+            """;
+
+    private static final String SUM_HOURS_FOR_ALL_CONSULTANTS = """
+            SELECT COALESCE(SUM(HoursWorked), 0) AS TotalHours
+            FROM Project_Assignment
+            """;
+
+    private static final String SELECT_HARDEST_WORKING_CONSULTANTS = """
+            SELECT ConsultantID
+            FROM Project_Assignment
+            GROUP BY ConsultantID
+            HAVING SUM(HoursWorked) = (
+                SELECT MAX(TotalHours)
+                FROM (
+                    SELECT SUM(HoursWorked) AS TotalHours
+                    FROM Project_Assignment
+                    GROUP BY ConsultantID
+                ) AS T
+            )
+            """;
+
+    // Same aggregates read from the indexed views (see IndexedViews)
+    private static final String SUM_HOURS_FOR_CONSULTANT_VIEW = """
+            SELECT TotalHours
+            FROM dbo.ConsultantTotals WITH (NOEXPAND)
+            WHERE ConsultantID = ?
+            """;
+
+    private static final String SUM_HOURS_FOR_ALL_CONSULTANTS_VIEW = """
+            SELECT COALESCE(SUM(TotalHours), 0) AS TotalHours
+            FROM dbo.ConsultantTotals WITH (NOEXPAND)
+            """;
+
+    private static final String SELECT_HARDEST_WORKING_CONSULTANTS_VIEW = """
+            SELECT ConsultantID
+            FROM dbo.ConsultantTotals WITH (NOEXPAND)
+            WHERE TotalHours = (
+                SELECT MAX(TotalHours)
+                FROM dbo.ConsultantTotals WITH (NOEXPAND)
+            )
+            """;
+
+    private static final String SELECT_ASSIGNMENTS_WITH_CONSULTANTS = """
+            SELECT pa.ConsultantID, pa.ProjectID, pa.HoursWorked,
+                   c.ConsultantNo, c.ConsultantName, c.Title
+            FROM Project_Assignment pa
+            JOIN Consultant c ON pa.ConsultantID = c.ConsultantID
+            WHERE pa.ProjectID = ?
+            """;
+
+    // Assignments whose hours are unchanged are left alone, so a repeated import writes nothing
+    private static final String UPSERT_ASSIGNMENTS = """
+            MERGE Project_Assignment WITH (HOLDLOCK) AS t
+            USING (VALUES %s) AS s (ConsultantID, ProjectID, HoursWorked)
+            ON t.ConsultantID = s.ConsultantID AND t.ProjectID = s.ProjectID
+            WHEN MATCHED AND t.HoursWorked <> s.HoursWorked THEN
+                UPDATE SET HoursWorked = s.HoursWorked
+            WHEN NOT MATCHED THEN
+                INSERT (ConsultantID, ProjectID, HoursWorked)
+                VALUES (s.ConsultantID, s.ProjectID, s.HoursWorked)
+            OUTPUT $action AS MergeAction, inserted.ConsultantID, inserted.ProjectID,
+                   inserted.HoursWorked, deleted.HoursWorked AS OldHoursWorked;
+            """;
+
+    private static final String SELECT_RESOURCE_USAGE = """
+            SELECT
+                /* Distinct consultants currently working on ANY active project */
+                (SELECT COUNT(DISTINCT pa2.ConsultantID)
+                 FROM Project_Assignment pa2
+                 JOIN Project p2 ON p2.ProjectID = pa2.ProjectID
+                 WHERE p2.EndDate IS NULL) AS ActiveConsultants,
+
+                /* Consultants already on THIS project */
+                (SELECT COUNT(*)
+                 FROM Project_Assignment pa3
+                 WHERE pa3.ProjectID = ?) AS ConsultantsOnProject,
+
+                /* Is THIS project active? */
+                (SELECT CASE WHEN p.EndDate IS NULL THEN 1 ELSE 0 END
+                 FROM Project p
+                 WHERE p.ProjectID = ?) AS IsProjectActive
+            """;
+
+    private final ConnectionHandler connectionHandler;
+    private final DataVersion dataVersion;
+    private final IndexedViews indexedViews;
+    private final AggregateStore aggregates;
 
     /**
      * A private helper method to execute update, insert, or delete SQL statements.
@@ -28,30 +192,90 @@ public class DaoProjectAssignment {
      * @return The number of rows affected by the operation.
      * @throws DaoException if a database access error occurs.
      */
-    private int execUpdate(String sql, Binder binder) throws DaoException {
+    private int execUpdate(String sql, StatementBinder binder) throws DaoException {
         try (Connection c = connectionHandler.getConnection();
                 PreparedStatement ps = c.prepareStatement(sql)) {
             binder.bind(ps);
-            return ps.executeUpdate();
+            int rows = ps.executeUpdate();
+            dataVersion.increment();
+            return rows;
         } catch (SQLException e) {
             throw new DaoException("Unable to save changes. Please try again.");
         }
     }
 
     /**
-     * Constructor for DaoProjectAssignment.
-     * Initializes the ConnectionHandler.
+     * Executes an UPDATE or DELETE whose OUTPUT clause returns the old
+     * ConsultantID, ProjectID and HoursWorked of every affected row.
      * 
-     * @throws DaoException if unable to connect to the database.
+     * @param sql    The SQL statement to execute.
+     * @param binder A lambda expression to bind parameters to the
+     *               PreparedStatement.
+     * @return The affected rows as they were before the statement ran.
+     * @throws DaoException if a database access error occurs.
      */
-    public DaoProjectAssignment() throws DaoException {
-        try {
-            this.connectionHandler = new ConnectionHandler();
-        } catch (IOException e) {
-            throw new DaoException("Unable to connect to the database. Please check your connection and try again.");
+    private List<ProjectAssignment> execReturningOld(String sql, StatementBinder binder) throws DaoException {
+        List<ProjectAssignment> old = new ArrayList<>();
+        try (Connection c = connectionHandler.getConnection();
+                PreparedStatement ps = c.prepareStatement(sql)) {
+            binder.bind(ps);
+            try (ResultSet rs = ps.executeQuery()) {
+                while (rs.next()) {
+                    old.add(instantiateProjectAssignment(rs));
+                }
+            }
+            dataVersion.increment();
+            return old;
+        } catch (SQLException e) {
+            throw new DaoException("Unable to save changes. Please try again.");
         }
     }
 
+    /**
+     * Removes deleted assignments from the aggregate store once they are
+     * committed.
+     */
+    private int removed(List<ProjectAssignment> deleted) {
+        for (ProjectAssignment pa : deleted) {
+            aggregates.assignmentRemoved(pa.getConsultantID(), pa.getProjectID(), pa.getHoursWorked());
+        }
+        return deleted.size();
+    }
+
+    /**
+     * Constructor for DaoProjectAssignment.
+     * Uses the connection handler owned by the application's data context and
+     * registers the DAO's statements with its statement registry.
+     * 
+     * @param dataContext The data context that owns this DAO.
+     */
+    DaoProjectAssignment(DataContext dataContext) {
+        this.connectionHandler = dataContext.getConnectionHandler();
+        this.dataVersion = dataContext.getDataVersion();
+        this.indexedViews = dataContext.getIndexedViews();
+        this.aggregates = dataContext.getAggregateStore();
+        dataContext.getStatementRegistry().registerOptional(
+                SUM_HOURS_FOR_CONSULTANT_VIEW,
+                SUM_HOURS_FOR_ALL_CONSULTANTS_VIEW,
+                SELECT_HARDEST_WORKING_CONSULTANTS_VIEW);
+        dataContext.getStatementRegistry().register(
+                INSERT_ASSIGNMENT,
+                INSERT_ASSIGNMENT_IF_ABSENT,
+                UPDATE_HOURS,
+                ADD_HOURS,
+                DELETE_ASSIGNMENT,
+                DELETE_ASSIGNMENTS_BY_CONSULTANT_ID,
+                DELETE_ASSIGNMENTS_BY_PROJECT_ID,
+                SELECT_ASSIGNMENTS_BY_PROJECT_ID,
+                SELECT_ASSIGNMENTS_BY_CONSULTANT_ID,
+                SELECT_ALL_ASSIGNMENTS,
+                SUM_HOURS_FOR_CONSULTANT,
+                SUM_HOURS_FOR_ALL_CONSULTANTS,
+                SELECT_HARDEST_WORKING_CONSULTANTS,
+                SELECT_ASSIGNMENTS_WITH_CONSULTANTS,
+                SELECT_RESOURCE_USAGE);
+    }
+
     /**
      * Helper method to create a ProjectAssignment object from a ResultSet.
      * 
@@ -66,38 +290,6 @@ public class DaoProjectAssignment {
                 rs.getInt("HoursWorked"));
     }
 
-    /**
-     * Finds and returns a specific project assignment based on consultant and
-     * project IDs.
-     * 
-     * @param consultantID The ID of the consultant.
-     * @param projectID    The ID of the project.
-     * @return The ProjectAssignment object if found, otherwise null.
-     * @throws DaoException if a database access error occurs.
-     */
-    private ProjectAssignment findProjectAssignment(int consultantID, int projectID) throws DaoException {
-        String sql = """
-                SELECT ConsultantID, ProjectID, HoursWorked
-                FROM Project_Assignment
-                WHERE ConsultantID = ?
-                  AND ProjectID = ?
-                """;
-
-        try (Connection c = connectionHandler.getConnection();
-                PreparedStatement ps = c.prepareStatement(sql)) {
-            ps.setInt(1, consultantID);
-            ps.setInt(2, projectID);
-            try (ResultSet rs = ps.executeQuery()) {
-                if (rs.next()) {
-                    return instantiateProjectAssignment(rs);
-                }
-            }
-        } catch (SQLException e) {
-            throw new DaoException("Unable to find the assignment. Please try again.");
-        }
-        return null;
-    }
-
     /**
      * Assigns a consultant to a project with an initial 0 hours worked.
      * 
@@ -107,14 +299,64 @@ public class DaoProjectAssignment {
      * @throws DaoException if a database access error occurs.
      */
     public int insertProjectAssignment(int consultantID, int projectID) throws DaoException {
-        String sql = """
-                INSERT INTO Project_Assignment (ConsultantID, ProjectID, HoursWorked)
-                VALUES (?, ?, 0)
-                """;
-        return execUpdate(sql, ps -> {
+        int rows = execUpdate(INSERT_ASSIGNMENT, ps -> {
             ps.setInt(1, consultantID);
             ps.setInt(2, projectID);
         });
+        if (rows > 0) {
+            aggregates.assignmentAdded(consultantID, projectID, 0);
+        }
+        return rows;
+    }
+
+    /**
+     * Assigns several consultants to projects in one batch and one transaction.
+     * Each assignment starts with its own hours worked (normally 0). Pairs that
+     * already exist are skipped instead of failing the batch.
+     * 
+     * @param assignments The consultant/project pairs to insert.
+     * @return One outcome per assignment, in the order of the collection.
+     * @throws DaoException if a database access error occurs; no assignment is
+     *                      inserted in that case.
+     */
+    public List<AssignmentOutcome> insertProjectAssignments(Collection<ProjectAssignment> assignments)
+            throws DaoException {
+        List<AssignmentOutcome> outcomes = new ArrayList<>();
+        if (assignments.isEmpty()) {
+            return outcomes;
+        }
+
+        List<ProjectAssignment> inserted = new ArrayList<>();
+        try (UnitOfWork work = connectionHandler.beginUnitOfWork();
+                Connection c = connectionHandler.getConnection();
+                PreparedStatement ps = c.prepareStatement(INSERT_ASSIGNMENT_IF_ABSENT)) {
+            for (ProjectAssignment pa : assignments) {
+                ps.setInt(1, pa.getHoursWorked());
+                ps.setInt(2, pa.getProjectID());
+                ps.setInt(3, pa.getConsultantID());
+                ps.addBatch();
+            }
+            int[] counts = ps.executeBatch();
+            dataVersion.increment();
+            int i = 0;
+            for (ProjectAssignment pa : assignments) {
+                int count = counts[i++];
+                // SUCCESS_NO_INFO means the row ran without error but the driver gave no count
+                if (count > 0 || count == Statement.SUCCESS_NO_INFO) {
+                    outcomes.add(AssignmentOutcome.INSERTED);
+                    inserted.add(pa);
+                } else {
+                    outcomes.add(AssignmentOutcome.SKIPPED);
+                }
+            }
+            for (ProjectAssignment pa : inserted) {
+                aggregates.assignmentAdded(pa.getConsultantID(), pa.getProjectID(), pa.getHoursWorked());
+            }
+            work.commit();
+        } catch (SQLException e) {
+            throw new DaoException("Unable to assign the consultants. No changes were saved.", e);
+        }
+        return outcomes;
     }
 
     /**
@@ -123,31 +365,108 @@ public class DaoProjectAssignment {
      * @param consultantID The ID of the consultant.
      * @param projectID    The ID of the project.
      * @param hours        The new total hours worked.
-     * @return The number of rows affected (should be 1 on success).
+     * @return The number of rows affected (1 on success).
      * @throws DaoException if the assignment is not found or if a database error
      *                      occurs.
      */
     public int updateHours(int consultantID, int projectID, int hours) throws DaoException {
-        ProjectAssignment pa = findProjectAssignment(consultantID, projectID);
+        List<ProjectAssignment> old = execReturningOld(UPDATE_HOURS, ps -> {
+            ps.setInt(1, hours);
+            ps.setInt(2, consultantID);
+            ps.setInt(3, projectID);
+        });
 
-        if (pa == null) {
+        if (old.isEmpty()) {
             throw new DaoException("Assignment not found. The consultant may not be assigned to this project.");
         }
+        aggregates.hoursChanged(consultantID, projectID, hours - old.get(0).getHoursWorked());
+        return old.size();
+    }
 
-        pa.setHoursWorked(hours);
+    /**
+     * Inserts the assignments that do not exist yet and sets the hours of
+     * those whose hours differ, in one transaction (joining an open unit of
+     * work). The rows are sent in batched MERGE statements; assignments that
+     * are already up to date are not written. Unlike insertProjectAssignments,
+     * this does not check the project's staffing limit, since it saves
+     * assignments that already exist elsewhere. If a consultant and project
+     * appear twice, the last assignment wins.
+     * 
+     * @param assignments The assignments to save, identified by consultant and
+     *                    project ID, with their hours worked.
+     * @return The counts of inserted, updated and unchanged assignments.
+     * @throws DaoException if the assignments cannot be saved; none are saved then.
+     */
+    public UpsertResult upsertAssignments(Collection<ProjectAssignment> assignments) throws DaoException {
+        Map<Long, ProjectAssignment> byKey = new LinkedHashMap<>();
+        for (ProjectAssignment assignment : assignments) {
+            byKey.put((long) assignment.getConsultantID() << 32 | assignment.getProjectID(), assignment);
+        }
+        if (byKey.isEmpty()) {
+            return UpsertResult.NONE;
+        }
 
-        String sql = """
-                UPDATE Project_Assignment
-                SET HoursWorked = ?
-                WHERE ConsultantID = ?
-                AND ProjectID = ?
-                """;
+        try (UnitOfWork work = connectionHandler.beginUnitOfWork();
+                Connection conn = connectionHandler.getConnection()) {
+            UpsertResult result = BatchMerge.merge(conn, UPSERT_ASSIGNMENTS, 3, new ArrayList<>(byKey.values()),
+                    (ps, i, assignment) -> {
+                        ps.setInt(i, assignment.getConsultantID());
+                        ps.setInt(i + 1, assignment.getProjectID());
+                        ps.setInt(i + 2, assignment.getHoursWorked());
+                    },
+                    (inserted, rs) -> {
+                        int consultantID = rs.getInt("ConsultantID");
+                        int projectID = rs.getInt("ProjectID");
+                        int hours = rs.getInt("HoursWorked");
+                        int oldHours = rs.getInt("OldHoursWorked");
+                        if (inserted) {
+                            aggregates.assignmentAdded(consultantID, projectID, hours);
+                        } else {
+                            aggregates.hoursChanged(consultantID, projectID, hours - oldHours);
+                        }
+                    });
+            work.commit();
+            if (result.changed() > 0) {
+                dataVersion.increment();
+            }
+            return result;
+        } catch (SQLException e) {
+            throw new DaoException("Unable to save the project assignments. Please check the data and try again.", e);
+        }
+    }
 
-        return execUpdate(sql, ps -> {
-            ps.setInt(1, pa.getHoursWorked());
-            ps.setInt(2, pa.getConsultantID());
-            ps.setInt(3, pa.getProjectID());
-        });
+    /**
+     * Adds hours to (or, with a negative delta, removes hours from) a consultant's
+     * total on a specific project. The addition is done by the database in a
+     * single statement, so concurrent updates are never lost.
+     * 
+     * @param consultantID The ID of the consultant.
+     * @param projectID    The ID of the project.
+     * @param delta        The number of hours to add.
+     * @return The new total hours worked.
+     * @throws DaoException if the assignment is not found, if the total would
+     *                      become negative or if a database error occurs.
+     */
+    public int addHours(int consultantID, int projectID, int delta) throws DaoException {
+        try (Connection c = connectionHandler.getConnection();
+                PreparedStatement ps = c.prepareStatement(ADD_HOURS)) {
+            ps.setInt(1, delta);
+            ps.setInt(2, consultantID);
+            ps.setInt(3, projectID);
+            try (ResultSet rs = ps.executeQuery()) {
+                if (rs.next()) {
+                    dataVersion.increment();
+                    aggregates.hoursChanged(consultantID, projectID, delta);
+                    return rs.getInt("HoursWorked");
+                }
+            }
+        } catch (SQLException e) {
+            if (e.getMessage().contains("CHECK")) {
+                throw new DaoException("Hours worked cannot be negative.");
+            }
+            throw new DaoException("Unable to save changes. Please try again.");
+        }
+        throw new DaoException("Assignment not found. The consultant may not be assigned to this project.");
     }
 
     /**
@@ -159,15 +478,10 @@ public class DaoProjectAssignment {
      * @throws DaoException if a database access error occurs.
      */
     public int deleteProjectAssignment(int consultantID, int projectID) throws DaoException {
-        String sql = """
-                DELETE FROM Project_Assignment
-                WHERE ConsultantID = ?
-                AND ProjectID = ?
-                """;
-        return execUpdate(sql, ps -> {
+        return removed(execReturningOld(DELETE_ASSIGNMENT, ps -> {
             ps.setInt(1, consultantID);
             ps.setInt(2, projectID);
-        });
+        }));
     }
 
     /**
@@ -179,13 +493,9 @@ public class DaoProjectAssignment {
      * @throws DaoException if a database access error occurs.
      */
     public int deleteProjectAssignmentByConsultantID(int consultantID) throws DaoException {
-        String sql = """
-                DELETE FROM Project_Assignment
-                WHERE ConsultantID = ?
-                """;
-        return execUpdate(sql, ps -> {
+        return removed(execReturningOld(DELETE_ASSIGNMENTS_BY_CONSULTANT_ID, ps -> {
             ps.setInt(1, consultantID);
-        });
+        }));
     }
 
     /**
@@ -196,13 +506,9 @@ public class DaoProjectAssignment {
      * @throws DaoException if a database access error occurs.
      */
     public int deleteProjectAssignmentByProjectID(int projectID) throws DaoException {
-        String sql = """
-                DELETE FROM Project_Assignment
-                WHERE ProjectID = ?
-                """;
-        return execUpdate(sql, ps -> {
+        return removed(execReturningOld(DELETE_ASSIGNMENTS_BY_PROJECT_ID, ps -> {
             ps.setInt(1, projectID);
-        });
+        }));
     }
 
     /**
@@ -213,23 +519,22 @@ public class DaoProjectAssignment {
      * @throws DaoException if a database access error occurs.
      */
     public List<ProjectAssignment> getByProjectID(int projectID) throws DaoException {
-        List<ProjectAssignment> list = new ArrayList<>();
-        String sql = """
-                SELECT ConsultantID, ProjectID, HoursWorked
-                FROM Project_Assignment
-                WHERE ProjectID = ?
-                """;
-        try (Connection c = connectionHandler.getConnection();
-                PreparedStatement ps = c.prepareStatement(sql)) {
-            ps.setInt(1, projectID);
-            try (ResultSet rs = ps.executeQuery()) {
-                while (rs.next())
-                    list.add(instantiateProjectAssignment(rs));
-            }
-        } catch (SQLException e) {
-            throw new DaoException("Unable to load project assignments. Please try again.");
-        }
-        return list;
+        return QueryStreams.toList(streamByProjectID(projectID));
+    }
+
+    /**
+     * Streams all project assignments for a specific project.
+     * The stream holds a database connection until it is closed.
+     * 
+     * @param projectID The ID of the project.
+     * @return A stream of project assignments; close it with try-with-resources.
+     * @throws DaoException if a database access error occurs.
+     */
+    public Stream<ProjectAssignment> streamByProjectID(int projectID) throws DaoException {
+        return QueryStreams.stream(connectionHandler, SELECT_ASSIGNMENTS_BY_PROJECT_ID,
+                ps -> ps.setInt(1, projectID),
+                this::instantiateProjectAssignment,
+                "Unable to load project assignments. Please try again.");
     }
 
     /**
@@ -240,23 +545,50 @@ public class DaoProjectAssignment {
      * @throws DaoException if a database access error occurs.
      */
     public List<ProjectAssignment> getByConsultantID(int consultantID) throws DaoException {
-        List<ProjectAssignment> list = new ArrayList<>();
-        String sql = """
-                SELECT ConsultantID, ProjectID, HoursWorked
-                FROM Project_Assignment
-                WHERE ConsultantID = ?
-                """;
-        try (Connection c = connectionHandler.getConnection();
-                PreparedStatement ps = c.prepareStatement(sql)) {
-            ps.setInt(1, consultantID);
-            try (ResultSet rs = ps.executeQuery()) {
-                while (rs.next())
-                    list.add(instantiateProjectAssignment(rs));
-            }
-        } catch (SQLException e) {
-            throw new DaoException("Unable to load consultant assignments. Please try again.");
-        }
-        return list;
+        return QueryStreams.toList(streamByConsultantID(consultantID));
+    }
+
+    /**
+     * Streams all project assignments for a specific consultant.
+     * The stream holds a database connection until it is closed.
+     * 
+     * @param consultantID The ID of the consultant.
+     * @return A stream of project assignments; close it with try-with-resources.
+     * @throws DaoException if a database access error occurs.
+     */
+    public Stream<ProjectAssignment> streamByConsultantID(int consultantID) throws DaoException {
+        return QueryStreams.stream(connectionHandler, SELECT_ASSIGNMENTS_BY_CONSULTANT_ID,
+                ps -> ps.setInt(1, consultantID),
+                this::instantiateProjectAssignment,
+                "Unable to load consultant assignments. Please try again.");
+    }
+
+    /**
+     * Streams every project assignment in the database, for exports and reports
+     * that must not hold all rows in memory at once.
+     * The stream holds a database connection until it is closed.
+     * 
+     * @return A stream of all project assignments; close it with try-with-resources.
+     * @throws DaoException if a database access error occurs.
+     */
+    public Stream<ProjectAssignment> streamAllAssignments() throws DaoException {
+        return streamAllAssignments(new CancellationToken());
+    }
+
+    /**
+     * Streams every project assignment in the database, for exports and reports
+     * that must not hold all rows in memory at once.
+     * The stream holds a database connection until it is closed.
+     * 
+     * @param cancellation Stops the query while the stream is being read.
+     * @return A stream of all project assignments; close it with try-with-resources.
+     * @throws QueryCancelledException if the query was cancelled.
+     * @throws DaoException            if a database access error occurs.
+     */
+    public Stream<ProjectAssignment> streamAllAssignments(CancellationToken cancellation) throws DaoException {
+        return QueryStreams.stream(connectionHandler, SELECT_ALL_ASSIGNMENTS, StatementBinder.NONE,
+                this::instantiateProjectAssignment,
+                "Unable to load project assignments. Please try again.", cancellation);
     }
 
     /**
@@ -269,24 +601,41 @@ public class DaoProjectAssignment {
      * @throws DaoException if a database access error occurs.
      */
     public int totalHoursForConsultant(int consultantID) throws DaoException {
-        int hours = 0;
+        return totalHoursForConsultant(consultantID, new CancellationToken());
+    }
 
-        String sql = """
-                SELECT COALESCE(SUM(HoursWorked), 0) AS TotalHours
-                FROM Project_Assignment
-                WHERE ConsultantID = ?
-                """;
+    /**
+     * Calculates and returns the total number of hours worked by a specific
+     * consultant across all projects.
+     * 
+     * @param consultantID The ID of the consultant.
+     * @param cancellation Cancels the query if the result is no longer wanted.
+     * @return The total hours worked. Returns 0 if the consultant has no
+     *         assignments.
+     * @throws QueryCancelledException if the query was cancelled.
+     * @throws DaoException            if a database access error occurs.
+     */
+    public int totalHoursForConsultant(int consultantID, CancellationToken cancellation) throws DaoException {
+        int hours = 0;
 
         try (Connection conn = connectionHandler.getConnection();
-                PreparedStatement ps = conn.prepareStatement(sql)) {
+                PreparedStatement ps = conn.prepareStatement(
+                        indexedViews.choose(SUM_HOURS_FOR_CONSULTANT_VIEW, SUM_HOURS_FOR_CONSULTANT))) {
             ps.setInt(1, consultantID);
 
+            cancellation.register(ps);
             try (ResultSet rs = ps.executeQuery()) {
                 if (rs.next()) {
                     return rs.getInt("TotalHours");
                 }
+            } finally {
+                cancellation.unregister(ps);
             }
         } catch (SQLException e) {
+            indexedViews.checkFailure(e);
+            if (cancellation.isCancelled()) {
+                throw new QueryCancelledException();
+            }
             throw new DaoException("Unable to calculate total hours worked. Please try again.");
         }
         return hours;
@@ -300,20 +649,16 @@ public class DaoProjectAssignment {
      * @throws DaoException if a database access error occurs.
      */
     public int totalHoursForAllConsultants() throws DaoException {
-        String sql = """
-                SELECT COALESCE(SUM(HoursWorked), 0) AS TotalHours
-                FROM Project_Assignment
-                """;
-
         try (Connection conn = connectionHandler.getConnection();
-                PreparedStatement ps = conn.prepareStatement(sql)) {
-
+                PreparedStatement ps = conn.prepareStatement(
+                        indexedViews.choose(SUM_HOURS_FOR_ALL_CONSULTANTS_VIEW, SUM_HOURS_FOR_ALL_CONSULTANTS))) {
             try (ResultSet rs = ps.executeQuery()) {
                 if (rs.next()) {
                     return rs.getInt("TotalHours");
                 }
             }
         } catch (SQLException e) {
+            indexedViews.checkFailure(e);
             throw new DaoException("Unable to calculate total hours for all consultants. Please try again.");
         }
         return 0;
@@ -327,31 +672,18 @@ public class DaoProjectAssignment {
      * @throws DaoException if no project assignments exist.
      */
     public List<Integer> hardestWorkingConsultants() throws DaoException {
-        String sql = """
-                SELECT ConsultantID
-                FROM Project_Assignment
-                GROUP BY ConsultantID
-                HAVING SUM(HoursWorked) = (
-                    SELECT MAX(TotalHours)
-                    FROM (
-                        SELECT SUM(HoursWorked) AS TotalHours
-                        FROM Project_Assignment
-                        GROUP BY ConsultantID
-                    ) AS T
-                )
-                """;
-
         List<Integer> consultantIds = new ArrayList<>();
 
         try (Connection conn = connectionHandler.getConnection();
-                PreparedStatement ps = conn.prepareStatement(sql);
+                PreparedStatement ps = conn.prepareStatement(indexedViews.choose(
+                        SELECT_HARDEST_WORKING_CONSULTANTS_VIEW, SELECT_HARDEST_WORKING_CONSULTANTS));
                 ResultSet rs = ps.executeQuery()) {
-
             while (rs.next()) {
                 consultantIds.add(rs.getInt("ConsultantID"));
             }
 
         } catch (SQLException e) {
+            indexedViews.checkFailure(e);
             throw new DaoException("Unable to find the hardest working consultants: " + e.getMessage());
         }
         if (consultantIds.isEmpty()) {
@@ -362,29 +694,16 @@ public class DaoProjectAssignment {
 
     /**
      * Retrieves a list of project IDs for projects that involve every single
-     * consultant in the database.
+     * consultant in the database, read from the membership index of the
+     * aggregate store.
      * 
      * @return A list of project IDs.
-     * @throws DaoException if a database access error occurs.
+     * @throws DaoException if the aggregate store has to be primed and cannot be.
      */
     public List<Integer> projectsThatInvolveEveryConsultant() throws DaoException {
-        String sql = """
-                SELECT ProjectID
-                FROM Project_Assignment
-                GROUP BY ProjectID
-                HAVING COUNT(DISTINCT ConsultantID) =
-                       (SELECT COUNT(*) FROM Consultant)
-                """;
+        aggregates.refreshIfStale();
         List<Integer> ids = new ArrayList<>();
-        try (Connection conn = connectionHandler.getConnection();
-                PreparedStatement ps = conn.prepareStatement(sql);
-                ResultSet rs = ps.executeQuery()) {
-            while (rs.next()) {
-                ids.add(rs.getInt("ProjectID"));
-            }
-        } catch (SQLException e) {
-            throw new DaoException("Unable to find projects involving all consultants. Please try again.");
-        }
+        aggregates.getMembershipIndex().projectsWithEveryConsultant().forEach(ids::add);
         return ids;
     }
 
@@ -399,18 +718,27 @@ public class DaoProjectAssignment {
      * @throws DaoException if a database access error occurs.
      */
     public List<ProjectAssignment> getAssignmentsWithConsultants(int projectID) throws DaoException {
+        return getAssignmentsWithConsultants(projectID, new CancellationToken());
+    }
+
+    /**
+     * Retrieves all assignments for a project together with the assigned
+     * consultants' details.
+     * 
+     * @param projectID    The ID of the project.
+     * @param cancellation Cancels the query if the result is no longer wanted.
+     * @return The project's assignments with consultant details.
+     * @throws QueryCancelledException if the query was cancelled.
+     * @throws DaoException            if a database access error occurs.
+     */
+    public List<ProjectAssignment> getAssignmentsWithConsultants(int projectID, CancellationToken cancellation)
+            throws DaoException {
         List<ProjectAssignment> list = new ArrayList<>();
-        String sql = """
-                SELECT pa.ConsultantID, pa.ProjectID, pa.HoursWorked,
-                       c.ConsultantNo, c.ConsultantName, c.Title
-                FROM Project_Assignment pa
-                JOIN Consultant c ON pa.ConsultantID = c.ConsultantID
-                WHERE pa.ProjectID = ?
-                """;
 
         try (Connection c = connectionHandler.getConnection();
-                PreparedStatement ps = c.prepareStatement(sql)) {
+                PreparedStatement ps = c.prepareStatement(SELECT_ASSIGNMENTS_WITH_CONSULTANTS)) {
             ps.setInt(1, projectID);
+            cancellation.register(ps);
             try (ResultSet rs = ps.executeQuery()) {
                 while (rs.next()) {
                     list.add(new ProjectAssignment(
@@ -421,69 +749,63 @@ public class DaoProjectAssignment {
                             rs.getString("ConsultantName"),
                             rs.getString("Title")));
                 }
+            } finally {
+                cancellation.unregister(ps);
             }
         } catch (SQLException e) {
+            if (cancellation.isCancelled()) {
+                throw new QueryCancelledException();
+            }
             throw new DaoException("Unable to load project assignments with consultant details. Please try again.");
         }
         return list;
     }
 
-    // Runs a scalar query to find if adding a consultant to a project, will make
-    // that project have more than 60 % of all active consultants assigned. An
-    // active consultant is defined as a consultant assigned to >0 projects, to
-    // allow consultants not to be counted if they're only in the system as a means
-    // of keeping track of finished projects
+    /**
+     * Checks whether assigning one more consultant to a project would put more
+     * than 60 % of all active consultants on it. An active consultant is one
+     * assigned to at least one active project, so consultants only kept in the
+     * system for finished projects are not counted. Read from the counters of
+     * the aggregate store, or counted in the database when the counters are
+     * within one consultant of the limit.
+     * 
+     * @param projectID The ID of the project.
+     * @return True if the project would be over-staffed; false for closed projects.
+     * @throws DaoException if the aggregate store has to be primed and cannot be.
+     */
     public boolean tooManyResources(int projectID) throws DaoException {
-        String sql = """
-                SELECT
-                    /* Distinct consultants currently working on ANY active project */
-                    (SELECT COUNT(DISTINCT pa2.ConsultantID)
-                     FROM Project_Assignment pa2
-                     JOIN Project p2 ON p2.ProjectID = pa2.ProjectID
-                     WHERE p2.EndDate IS NULL) AS ActiveConsultants,
-
-                    /* Consultants already on THIS project (regardless of its status) */
-                    (SELECT COUNT(DISTINCT pa3.ConsultantID)
-                     FROM Project_Assignment pa3
-                     WHERE pa3.ProjectID = ?) AS ConsultantsOnProject,
-
-                    /* Is THIS project active? */
-                    (SELECT CASE WHEN p.EndDate IS NULL THEN 1 ELSE 0 END
-                     FROM Project p
-                     WHERE p.ProjectID = ?) AS IsProjectActive
-                """;
-
-        try (Connection conn = connectionHandler.getConnection();
-                PreparedStatement ps = conn.prepareStatement(sql)) {
+        return tooManyResources(projectID, 1);
+    }
 
+    /**
+     * Same check as above, simulating adding several consultants at once.
+     * 
+     * @param projectID             The ID of the project.
+     * @param additionalConsultants The number of consultants about to be added.
+     * @return True if the project would be over-staffed; false for closed projects.
+     * @throws DaoException if the aggregate store has to be primed and cannot be.
+     */
+    public boolean tooManyResources(int projectID, int additionalConsultants) throws DaoException {
+        aggregates.refreshIfStale();
+        if (!aggregates.isNearCapacity(projectID, additionalConsultants)) {
+            return aggregates.exceedsCapacity(projectID, additionalConsultants);
+        }
+        // Other clients' changes since the store was primed could tip the answer
+        try (Connection c = connectionHandler.getConnection();
+                PreparedStatement ps = c.prepareStatement(SELECT_RESOURCE_USAGE)) {
             ps.setInt(1, projectID);
             ps.setInt(2, projectID);
-
             try (ResultSet rs = ps.executeQuery()) {
-                if (rs.next()) {
-                    boolean isActiveProject = rs.getInt("IsProjectActive") == 1;
-                    if (!isActiveProject) {
-                        // Closed project: treat as not exceeding (or block upstream)
-                        return false;
-                    }
-
-                    int activeConsultants = rs.getInt("ActiveConsultants"); // distinct across active projects
-                    int onProject = rs.getInt("ConsultantsOnProject");
-
-                    if (activeConsultants == 0) {
-                        // No active projects -> nothing to compare against
-                        return false;
-                    }
-
-                    double ratio = (onProject + 1) / (double) activeConsultants; // simulate adding one
-                    return ratio > 0.60;
+                if (!rs.next() || rs.getInt("IsProjectActive") == 0) {
+                    return false;
                 }
+                return new AggregateStore.ProjectStaffing(projectID,
+                        rs.getInt("ConsultantsOnProject") + additionalConsultants,
+                        rs.getInt("ActiveConsultants")).isOverStaffed();
             }
         } catch (SQLException e) {
-            throw new DaoException("Unable to check project resources: " + e.getMessage(), e);
+            throw new DaoException("Unable to check the project's resource usage. Please try again.", e);
         }
-
-        return false;
     }
 
 }
\ No newline at end of file
@@ -0,0 +1,224 @@
+package com.dropalltables.data;
+
+import java.io.IOException;
+import java.io.InputStream;
+import java.util.Properties;
+import java.util.concurrent.Executor;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+
+/**
+ * Application-wide data access context.
+ * Created once at startup, it owns the configuration, the pooled connection
+ * handler, the statement registry and one shared instance of every DAO.
+ * Controllers receive the context instead of constructing DAOs themselves.
+ * The DAOs keep no per-call state and are safe to use from several threads;
+ * the context's AsyncDao runs them on virtual threads.
+ */
+public class DataContext implements AutoCloseable {
+    private static final String PROPERTIES_FILE_PATH = "/config.properties";
+
+    private final Properties configuration;
+    private final ConnectionHandler connectionHandler;
+    private final IndexedViews indexedViews;
+    private final StatementRegistry statementRegistry = new StatementRegistry();
+    private final DataVersion dataVersion = new DataVersion();
+    private final ExecutorService executor = Executors.newThreadPerTaskExecutor(
+            Thread.ofVirtual().name("dao-", 0).factory());
+    private final AsyncDao asyncDao = new AsyncDao(this, executor);
+    private volatile Executor entityUpdates = Runnable::run;
+
+    private final DaoProject daoProject;
+    private final DaoConsultant daoConsultant;
+    private final DaoMilestone daoMilestone;
+    private final DaoProjectAssignment daoProjectAssignment;
+    private final DaoMetadata daoMetadata;
+    private final AggregateStore aggregateStore;
+    private final ReportEngine reportEngine;
+
+    /**
+     * Constructor for DataContext.
+     * Reads the configuration from config.properties on the classpath.
+     *
+     * @throws DaoException if the configuration cannot be read or the database
+     *                      schema does not match the DAO statements.
+     */
+    public DataContext() throws DaoException {
+        this(loadConfiguration());
+    }
+
+    /**
+     * Constructor for DataContext.
+     * Builds the connection handler from the given configuration and applies
+     * the missing schema migrations (see SchemaMigrator), unless
+     * database.migrations.migrateOnStartup is set to false. Then builds the
+     * DAOs, prepares every DAO statement on the pooled connections, loads the
+     * project and consultant key maps and primes the aggregate store, unless
+     * database.statements.prepareOnStartup is set to false.
+     *
+     * @param configuration The database settings (see config.properties).
+     * @throws DaoException if a migration fails, or if a DAO statement cannot be
+     *                      prepared against the current database schema.
+     */
+    public DataContext(Properties configuration) throws DaoException {
+        this.configuration = configuration;
+        this.connectionHandler = new ConnectionHandler(configuration);
+        if (!"false".equalsIgnoreCase(configuration.getProperty("database.migrations.migrateOnStartup"))) {
+            try {
+                new SchemaMigrator(connectionHandler,
+                        ConnectionHandler.intProperty(configuration, "database.migrations.lockTimeoutSeconds", 60))
+                        .migrate();
+            } catch (DaoException e) {
+                close();
+                throw e;
+            }
+        }
+        this.indexedViews = new IndexedViews(connectionHandler, configuration);
+        this.aggregateStore = new AggregateStore(this);
+
+        this.daoProject = new DaoProject(this);
+        this.daoConsultant = new DaoConsultant(this);
+        this.daoMilestone = new DaoMilestone(this);
+        this.daoProjectAssignment = new DaoProjectAssignment(this);
+        this.daoMetadata = new DaoMetadata(this);
+        this.reportEngine = new ReportEngine(this, executor);
+
+        if (!"false".equalsIgnoreCase(configuration.getProperty("database.statements.prepareOnStartup"))) {
+            try {
+                statementRegistry.prepareAll(connectionHandler,
+                        ConnectionHandler.intProperty(configuration, "database.pool.minSize", 1));
+                daoProject.loadKeys();
+                daoConsultant.loadKeys();
+                aggregateStore.refreshIfStale();
+            } catch (DaoException e) {
+                close();
+                throw e;
+            }
+        }
+    }
+
+    public Properties getConfiguration() {
+        return configuration;
+    }
+
+    public ConnectionHandler getConnectionHandler() {
+        return connectionHandler;
+    }
+
+    public StatementRegistry getStatementRegistry() {
+        return statementRegistry;
+    }
+
+    IndexedViews getIndexedViews() {
+        return indexedViews;
+    }
+
+    /**
+     * Returns the counter of changes written through the DAOs.
+     *
+     * @return The data version of this context.
+     */
+    public DataVersion getDataVersion() {
+        return dataVersion;
+    }
+
+    /**
+     * Opens a unit of work so several DAO calls on this thread run in one
+     * transaction (see {@link UnitOfWork}).
+     *
+     * @return The unit of work; commit it, then close it.
+     * @throws DaoException if no connection can be borrowed.
+     */
+    public UnitOfWork beginUnitOfWork() throws DaoException {
+        return connectionHandler.beginUnitOfWork();
+    }
+
+    /**
+     * Returns the facade that runs DAO calls on virtual threads.
+     *
+     * @return The asynchronous DAO facade of this context.
+     */
+    public AsyncDao getAsyncDao() {
+        return asyncDao;
+    }
+
+    /**
+     * Sets where the entity caches copy freshly read values into the canonical
+     * project and consultant instances. The UI sets the FX thread, since its
+     * tables show those instances; by default the reading thread copies them.
+     *
+     * @param entityUpdates Runs each copy, in the order they are handed over.
+     */
+    public void setEntityUpdateExecutor(Executor entityUpdates) {
+        this.entityUpdates = entityUpdates;
+    }
+
+    /** Hands a copy into a canonical instance to the executor set at the time. */
+    Executor getEntityUpdates() {
+        return command -> entityUpdates.execute(command);
+    }
+
+    public DaoProject getDaoProject() {
+        return daoProject;
+    }
+
+    public DaoConsultant getDaoConsultant() {
+        return daoConsultant;
+    }
+
+    public DaoMilestone getDaoMilestone() {
+        return daoMilestone;
+    }
+
+    public DaoProjectAssignment getDaoProjectAssignment() {
+        return daoProjectAssignment;
+    }
+
+    public DaoMetadata getDaoMetadata() {
+        return daoMetadata;
+    }
+
+    /**
+     * Returns the in-memory hour and assignment totals kept up to date by the
+     * DAOs.
+     *
+     * @return The aggregate store of this context.
+     */
+    public AggregateStore getAggregateStore() {
+        return aggregateStore;
+    }
+
+    public ReportEngine getReportEngine() {
+        return reportEngine;
+    }
+
+    /**
+     * Releases all database resources held by the context.
+     * DAO calls still running on the executor are interrupted.
+     */
+    @Override
+    public void close() {
+        executor.shutdownNow();
+        connectionHandler.close();
+    }
+
+    /**
+     * Reads database connection details from the properties file.
+     *
+     * @return The loaded configuration.
+     * @throws DaoException if the properties file cannot be found or read.
+     */
+    private static Properties loadConfiguration() throws DaoException {
+        Properties properties = new Properties();
+
+        try (InputStream inputStream = DataContext.class.getResourceAsStream(PROPERTIES_FILE_PATH)) {
+            if (inputStream == null) {
+                throw new IOException("Properties file not found: " + PROPERTIES_FILE_PATH);
+            }
+            properties.load(inputStream);
+        } catch (IOException e) {
+            throw new DaoException("Unable to connect to the database. Please check your connection and try again.", e);
+        }
+        return properties;
+    }
+}
@@ -0,0 +1,29 @@
+package com.dropalltables.data;
+
+import java.util.concurrent.atomic.AtomicLong;
+
+/**
+ * Counts the changes this application has written to the database.
+ * Every DAO method that inserts, updates or deletes rows increments it after
+ * the statement has run, so derived results such as the report can be cached
+ * and reused for as long as the version they were computed at is current.
+ *
+ * Changes made by other clients are not counted; caches that depend on the
+ * version should also expire after a while.
+ */
+public class DataVersion {
+    private final AtomicLong version = new AtomicLong();
+
+    /**
+     * Returns the current version.
+     *
+     * @return A number that grows with every change written by this application.
+     */
+    public long current() {
+        return version.get();
+    }
+
+    void increment() {
+        version.incrementAndGet();
+    }
+}
@@ -0,0 +1,248 @@
+package com.dropalltables.data;
+
+import java.lang.ref.Reference;
+import java.lang.ref.ReferenceQueue;
+import java.lang.ref.WeakReference;
+import java.util.HashMap;
+import java.util.Iterator;
+import java.util.LinkedHashMap;
+import java.util.Map;
+import java.util.concurrent.Executor;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.function.BiConsumer;
+import java.util.function.ToIntFunction;
+
+/**
+ * Read-through identity map for entities, bounded by total weight with LRU
+ * eviction.
+ *
+ * The cache hands out one canonical instance per key. When a row is read again,
+ * its values are copied into the instance already handed out instead of
+ * creating a second object, so tables in the UI never hold two copies of the
+ * same project or consultant. The copy runs on the update executor, the FX
+ * thread in the application, so a table never shows a half-copied row; a
+ * reader on another thread may see the previous values until it has run.
+ * Instances that are evicted or invalidated are
+ * remembered weakly: as long as something still references them they remain
+ * the canonical instance and are refreshed on the next load. Their entries
+ * are dropped once the garbage collector has cleared them.
+ *
+ * @param <K> The key type, normally the entity's database ID.
+ * @param <V> The entity type.
+ */
+public class EntityCache<K, V> {
+
+    /** Loads an entity from the database on a cache miss. */
+    @FunctionalInterface
+    public interface Loader<K, V> {
+        V load(K key) throws DaoException;
+    }
+
+    private final long maxWeight;
+    private final ToIntFunction<V> weigher;
+    private final BiConsumer<V, V> updater;
+    private final Executor updates;
+
+    private final LinkedHashMap<K, Entry<V>> entries = new LinkedHashMap<>(16, 0.75f, true);
+    private final Map<K, Released<K, V>> released = new HashMap<>();
+    private final ReferenceQueue<V> cleared = new ReferenceQueue<>();
+    private long totalWeight = 0;
+
+    private final AtomicLong hitCount = new AtomicLong();
+    private final AtomicLong missCount = new AtomicLong();
+    private final AtomicLong evictionCount = new AtomicLong();
+
+    /**
+     * Constructor for EntityCache.
+     *
+     * @param maxWeight Upper bound for the summed weight of cached entities.
+     * @param weigher   Estimates the weight (roughly bytes) of one entity.
+     * @param updater   Copies the values of a freshly read entity (second
+     *                  argument) into the canonical instance (first argument).
+     * @param updates   Runs the updater, in the order the copies are handed over.
+     */
+    public EntityCache(long maxWeight, ToIntFunction<V> weigher, BiConsumer<V, V> updater, Executor updates) {
+        this.maxWeight = maxWeight;
+        this.weigher = weigher;
+        this.updater = updater;
+        this.updates = updates;
+    }
+
+    /**
+     * Returns the cached entity for a key, loading it on a miss.
+     * The loader runs outside the cache lock, so a slow query does not block
+     * other readers.
+     *
+     * @param key    The key to look up.
+     * @param loader Loads the entity if it is not cached; may return null.
+     * @return The canonical entity, or null if the loader found nothing.
+     * @throws DaoException if the loader fails.
+     */
+    public V get(K key, Loader<K, V> loader) throws DaoException {
+        V cached = getIfPresent(key);
+        if (cached != null) {
+            return cached;
+        }
+        V loaded = loader.load(key);
+        return loaded != null ? canonicalize(key, loaded) : null;
+    }
+
+    /**
+     * Returns the cached entity for a key without loading it.
+     * Counts as a hit or a miss in the statistics.
+     *
+     * @param key The key to look up.
+     * @return The cached entity, or null if it is not cached.
+     */
+    public synchronized V getIfPresent(K key) {
+        Entry<V> entry = entries.get(key);
+        if (entry == null) {
+            missCount.incrementAndGet();
+            return null;
+        }
+        hitCount.incrementAndGet();
+        return entry.value;
+    }
+
+    /**
+     * Stores a freshly read entity and returns the canonical instance for its key.
+     * If an instance for the key is already known, the fresh values are handed
+     * to the update executor to be copied into it, and that instance is
+     * returned instead.
+     *
+     * @param key   The entity's key.
+     * @param fresh The entity as just read from the database.
+     * @return The canonical instance, which holds the fresh values once the
+     *         update executor has copied them.
+     */
+    public synchronized V canonicalize(K key, V fresh) {
+        V canonical = null;
+        Entry<V> entry = entries.remove(key);
+        if (entry != null) {
+            canonical = entry.value;
+            totalWeight -= entry.weight;
+        } else {
+            Released<K, V> reference = released.remove(key);
+            if (reference != null) {
+                canonical = reference.get();
+            }
+        }
+
+        if (canonical == null) {
+            canonical = fresh;
+        } else if (canonical != fresh) {
+            V target = canonical;
+            updates.execute(() -> updater.accept(target, fresh));
+        }
+
+        int weight = weigher.applyAsInt(fresh);
+        entries.put(key, new Entry<>(canonical, weight));
+        totalWeight += weight;
+        evictToMaxWeight();
+        return canonical;
+    }
+
+    /**
+     * Drops an entity after it was changed or deleted, so the next read goes to
+     * the database. An instance that is still referenced stays canonical.
+     *
+     * @param key The key to invalidate.
+     */
+    public synchronized void invalidate(K key) {
+        Entry<V> entry = entries.remove(key);
+        if (entry != null) {
+            totalWeight -= entry.weight;
+            release(key, entry.value);
+        }
+        expungeCleared();
+    }
+
+    /**
+     * Drops every cached entity, keeping canonical instances weakly.
+     */
+    public synchronized void invalidateAll() {
+        for (Map.Entry<K, Entry<V>> entry : entries.entrySet()) {
+            release(entry.getKey(), entry.getValue().value);
+        }
+        entries.clear();
+        totalWeight = 0;
+        expungeCleared();
+    }
+
+    public synchronized int size() {
+        return entries.size();
+    }
+
+    public synchronized long getWeight() {
+        return totalWeight;
+    }
+
+    public long getHitCount() {
+        return hitCount.get();
+    }
+
+    public long getMissCount() {
+        return missCount.get();
+    }
+
+    public long getEvictionCount() {
+        return evictionCount.get();
+    }
+
+    private void evictToMaxWeight() {
+        Iterator<Map.Entry<K, Entry<V>>> iterator = entries.entrySet().iterator();
+        // Never evict the entry that was just added (the most recently used one)
+        while (totalWeight > maxWeight && entries.size() > 1 && iterator.hasNext()) {
+            Map.Entry<K, Entry<V>> eldest = iterator.next();
+            iterator.remove();
+            totalWeight -= eldest.getValue().weight;
+            release(eldest.getKey(), eldest.getValue().value);
+            evictionCount.incrementAndGet();
+        }
+        expungeCleared();
+    }
+
+    private void release(K key, V value) {
+        released.put(key, new Released<>(key, value, cleared));
+    }
+
+    // Only the references the garbage collector has cleared since the last
+    // call, so the cost does not grow with the number of released instances
+    private void expungeCleared() {
+        Reference<? extends V> reference;
+        while ((reference = cleared.poll()) != null) {
+            Released<?, ?> expired = (Released<?, ?>) reference;
+            released.remove(expired.key, expired);
+        }
+    }
+
+    @Override
+    public String toString() {
+        return "EntityCache{" +
+                "size=" + size() +
+                ", weight=" + getWeight() + "/" + maxWeight +
+                ", hits=" + getHitCount() +
+                ", misses=" + getMissCount() +
+                ", evictions=" + getEvictionCount() +
+                '}';
+    }
+
+    private static class Released<K, V> extends WeakReference<V> {
+        private final K key;
+
+        Released(K key, V value, ReferenceQueue<V> queue) {
+            super(value, queue);
+            this.key = key;
+        }
+    }
+
+    private static class Entry<V> {
+        private final V value;
+        private final int weight;
+
+        Entry(V value, int weight) {
+            this.value = value;
+            this.weight = weight;
+        }
+    }
+}
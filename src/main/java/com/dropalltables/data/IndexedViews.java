@@ -0,0 +1,89 @@
+package com.dropalltables.data;
+
+import java.sql.Connection;
+import java.sql.PreparedStatement;
+import java.sql.ResultSet;
+import java.sql.SQLException;
+import java.util.Properties;
+
+/**
+ * Decides whether the DAOs read aggregates from the indexed views
+ * ConsultantTotals and ProjectTotals (see sql/migrations/V2__aggregate_views.sql)
+ * or compute them from Project_Assignment.
+ *
+ * The views turn hour totals, project counts and team sizes into index
+ * seeks. Databases created before the views existed, or servers that cannot
+ * index views, keep working with the aggregating queries. The check runs once,
+ * on first use; database.indexedViews=false skips the views altogether.
+ */
+final class IndexedViews {
+    private static final String COUNT_VIEW_INDEXES = """
+            SELECT COUNT(*)
+            FROM sys.indexes
+            WHERE object_id IN (OBJECT_ID('dbo.ConsultantTotals'), OBJECT_ID('dbo.ProjectTotals'))
+              AND index_id = 1
+            """;
+
+    // SQL Server error number for "Invalid object name"
+    private static final int INVALID_OBJECT_NAME = 208;
+
+    private final ConnectionHandler connectionHandler;
+    private final boolean enabled;
+    private volatile Boolean available;
+
+    IndexedViews(ConnectionHandler connectionHandler, Properties configuration) {
+        this.connectionHandler = connectionHandler;
+        this.enabled = !"false".equalsIgnoreCase(configuration.getProperty("database.indexedViews"));
+    }
+
+    /**
+     * Returns the query to run: the one reading the views if they exist,
+     * otherwise the one aggregating Project_Assignment.
+     */
+    String choose(String viewSql, String tableSql) {
+        return isAvailable() ? viewSql : tableSql;
+    }
+
+    /**
+     * True if both views exist with their clustered indexes.
+     */
+    boolean isAvailable() {
+        Boolean result = available;
+        if (result == null) {
+            if (!enabled) {
+                result = false;
+            } else {
+                try (Connection connection = connectionHandler.getConnection()) {
+                    result = probe(connection);
+                } catch (SQLException e) {
+                    // no connection right now; check again on the next call
+                    return false;
+                }
+            }
+            available = result;
+        }
+        return result;
+    }
+
+    /**
+     * Switches to the aggregating queries if a view query failed because the
+     * views have been dropped since the check.
+     *
+     * @param e The exception thrown by a query.
+     */
+    void checkFailure(SQLException e) {
+        if (e.getErrorCode() == INVALID_OBJECT_NAME) {
+            available = false;
+        }
+    }
+
+    private static boolean probe(Connection connection) {
+        try (PreparedStatement statement = connection.prepareStatement(COUNT_VIEW_INDEXES);
+                ResultSet resultSet = statement.executeQuery()) {
+            return resultSet.next() && resultSet.getInt(1) == 2;
+        } catch (SQLException e) {
+            // not SQL Server, or no permission to read the catalog
+            return false;
+        }
+    }
+}
@@ -0,0 +1,83 @@
+package com.dropalltables.data;
+
+import java.util.HashMap;
+import java.util.Map;
+
+/**
+ * Bidirectional map between an entity's natural key (its number, e.g.
+ * ProjectNo) and its surrogate key (the IDENTITY column, e.g. ProjectID).
+ * The DAOs load every pair at startup and keep the map up to date from their
+ * own inserts, renumbers and deletes, so translating one key into the other is
+ * a local lookup instead of a database round trip. Pairs written by another
+ * client after startup are added the first time they are looked up.
+ */
+public class KeyMap {
+    private final Map<Integer, Integer> idsByNo = new HashMap<>();
+    private final Map<Integer, Integer> nosByID = new HashMap<>();
+
+    /**
+     * Returns the ID mapped to a number.
+     *
+     * @param no The natural key.
+     * @return The surrogate key, or null if the number is not known.
+     */
+    public synchronized Integer getID(int no) {
+        return idsByNo.get(no);
+    }
+
+    /**
+     * Returns the number mapped to an ID.
+     *
+     * @param id The surrogate key.
+     * @return The natural key, or null if the ID is not known.
+     */
+    public synchronized Integer getNo(int id) {
+        return nosByID.get(id);
+    }
+
+    /**
+     * Maps a number to an ID, replacing any earlier pair that used either key.
+     *
+     * @param no The natural key.
+     * @param id The surrogate key.
+     */
+    public synchronized void put(int no, int id) {
+        Integer oldID = idsByNo.put(no, id);
+        if (oldID != null && oldID != id) {
+            nosByID.remove(oldID);
+        }
+        Integer oldNo = nosByID.put(id, no);
+        if (oldNo != null && oldNo != no) {
+            idsByNo.remove(oldNo);
+        }
+    }
+
+    /**
+     * Replaces the whole map, used for the bulk load at startup.
+     *
+     * @param pairs Every ID keyed by its number.
+     */
+    public synchronized void putAll(Map<Integer, Integer> pairs) {
+        idsByNo.clear();
+        nosByID.clear();
+        pairs.forEach(this::put);
+    }
+
+    /**
+     * Removes the pair for a number.
+     *
+     * @param no The natural key.
+     * @return The ID that was mapped to the number, or null if none was.
+     */
+    public synchronized Integer removeNo(int no) {
+        Integer id = idsByNo.remove(no);
+        if (id != null) {
+            nosByID.remove(id);
+        }
+        return id;
+    }
+
+    public synchronized int size() {
+        return idsByNo.size();
+    }
+}
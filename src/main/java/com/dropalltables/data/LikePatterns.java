@@ -0,0 +1,30 @@
+package com.dropalltables.data;
+
+/**
+ * Builds LIKE patterns from user input. The statements using them declare
+ * ESCAPE '\', so wildcards typed by the user match literally.
+ */
+final class LikePatterns {
+
+    private LikePatterns() {
+    }
+
+    static String startsWith(String text) {
+        return escape(text) + "%";
+    }
+
+    static String contains(String text) {
+        return "%" + escape(text) + "%";
+    }
+
+    private static String escape(String text) {
+        StringBuilder sb = new StringBuilder(text.length() + 8);
+        for (char ch : text.toCharArray()) {
+            if (ch == '\\' || ch == '%' || ch == '_' || ch == '[') {
+                sb.append('\\');
+            }
+            sb.append(ch);
+        }
+        return sb.toString();
+    }
+}
@@ -0,0 +1,190 @@
+package com.dropalltables.data;
+
+import java.util.Collection;
+import java.util.HashMap;
+import java.util.Map;
+import java.util.concurrent.locks.StampedLock;
+
+/**
+ * Who is assigned to what: a bitmap of consultant IDs per project and of
+ * project IDs per consultant, plus the IDs of all consultants.
+ *
+ * The index belongs to the AggregateStore, is built by the same scan and kept
+ * in sync by the same DaoProjectAssignment writes. Membership questions that
+ * used to be GROUP BY or NOT IN queries become set operations on IntBitmap.
+ * Because IDs below 65536 share one container per bitmap, a project's team
+ * costs about two bytes per member, so 10,000 consultants on 50,000 projects
+ * with a few hundred thousand assignments stay well below 10 MB.
+ *
+ * All methods return copies, so callers may keep and modify the results.
+ */
+public class MembershipIndex {
+    private final StampedLock lock = new StampedLock();
+    private final Map<Integer, IntBitmap> consultantsByProject = new HashMap<>();
+    private final Map<Integer, IntBitmap> projectsByConsultant = new HashMap<>();
+    private final IntBitmap allConsultants = new IntBitmap();
+
+    MembershipIndex() {
+    }
+
+    /**
+     * True if the consultant is assigned to the project.
+     */
+    public boolean isAssigned(int consultantID, int projectID) {
+        long stamp = lock.readLock();
+        try {
+            IntBitmap team = consultantsByProject.get(projectID);
+            return team != null && team.contains(consultantID);
+        } finally {
+            lock.unlockRead(stamp);
+        }
+    }
+
+    /**
+     * Returns the IDs of the consultants assigned to a project.
+     */
+    public IntBitmap consultantsOn(int projectID) {
+        long stamp = lock.readLock();
+        try {
+            return copyOf(consultantsByProject.get(projectID));
+        } finally {
+            lock.unlockRead(stamp);
+        }
+    }
+
+    /**
+     * Returns the IDs of the projects a consultant is assigned to.
+     */
+    public IntBitmap projectsOf(int consultantID) {
+        long stamp = lock.readLock();
+        try {
+            return copyOf(projectsByConsultant.get(consultantID));
+        } finally {
+            lock.unlockRead(stamp);
+        }
+    }
+
+    /**
+     * Returns the IDs of the consultants not assigned to a project.
+     */
+    public IntBitmap consultantsNotOn(int projectID) {
+        long stamp = lock.readLock();
+        try {
+            IntBitmap team = consultantsByProject.get(projectID);
+            return team != null ? allConsultants.andNot(team) : allConsultants.copy();
+        } finally {
+            lock.unlockRead(stamp);
+        }
+    }
+
+    /**
+     * Returns the IDs of the projects both consultants are assigned to.
+     */
+    public IntBitmap sharedProjects(int consultantID, int otherConsultantID) {
+        long stamp = lock.readLock();
+        try {
+            IntBitmap projects = projectsByConsultant.get(consultantID);
+            IntBitmap otherProjects = projectsByConsultant.get(otherConsultantID);
+            return projects != null && otherProjects != null ? projects.and(otherProjects) : new IntBitmap();
+        } finally {
+            lock.unlockRead(stamp);
+        }
+    }
+
+    /**
+     * Returns the IDs of the consultants assigned to every one of the projects.
+     *
+     * @param projectIDs The projects; none gives an empty result.
+     */
+    public IntBitmap consultantsOnAll(Collection<Integer> projectIDs) {
+        long stamp = lock.readLock();
+        try {
+            IntBitmap result = null;
+            for (int projectID : projectIDs) {
+                IntBitmap team = consultantsByProject.get(projectID);
+                if (team == null) {
+                    return new IntBitmap();
+                }
+                result = result == null ? team.copy() : result.and(team);
+                if (result.isEmpty()) {
+                    break;
+                }
+            }
+            return result != null ? result : new IntBitmap();
+        } finally {
+            lock.unlockRead(stamp);
+        }
+    }
+
+    /**
+     * Returns the IDs of the projects every consultant is assigned to.
+     */
+    public IntBitmap projectsWithEveryConsultant() {
+        long stamp = lock.readLock();
+        try {
+            IntBitmap projects = new IntBitmap();
+            int consultants = allConsultants.cardinality();
+            if (consultants == 0) {
+                return projects;
+            }
+            for (Map.Entry<Integer, IntBitmap> entry : consultantsByProject.entrySet()) {
+                // a team can only hold existing consultants, so equal size means equal sets
+                if (entry.getValue().cardinality() == consultants) {
+                    projects.add(entry.getKey());
+                }
+            }
+            return projects;
+        } finally {
+            lock.unlockRead(stamp);
+        }
+    }
+
+    void consultantAdded(int consultantID) {
+        long stamp = lock.writeLock();
+        try {
+            allConsultants.add(consultantID);
+        } finally {
+            lock.unlockWrite(stamp);
+        }
+    }
+
+    void consultantRemoved(int consultantID) {
+        long stamp = lock.writeLock();
+        try {
+            allConsultants.remove(consultantID);
+        } finally {
+            lock.unlockWrite(stamp);
+        }
+    }
+
+    void assignmentAdded(int consultantID, int projectID) {
+        long stamp = lock.writeLock();
+        try {
+            consultantsByProject.computeIfAbsent(projectID, id -> new IntBitmap()).add(consultantID);
+            projectsByConsultant.computeIfAbsent(consultantID, id -> new IntBitmap()).add(projectID);
+        } finally {
+            lock.unlockWrite(stamp);
+        }
+    }
+
+    void assignmentRemoved(int consultantID, int projectID) {
+        long stamp = lock.writeLock();
+        try {
+            removeFrom(consultantsByProject, projectID, consultantID);
+            removeFrom(projectsByConsultant, consultantID, projectID);
+        } finally {
+            lock.unlockWrite(stamp);
+        }
+    }
+
+    private static void removeFrom(Map<Integer, IntBitmap> bitmaps, int key, int value) {
+        IntBitmap bitmap = bitmaps.get(key);
+        if (bitmap != null && bitmap.remove(value) && bitmap.isEmpty()) {
+            bitmaps.remove(key);
+        }
+    }
+
+    private static IntBitmap copyOf(IntBitmap bitmap) {
+        return bitmap != null ? bitmap.copy() : new IntBitmap();
+    }
+}
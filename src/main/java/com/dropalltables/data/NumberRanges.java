@@ -0,0 +1,60 @@
+package com.dropalltables.data;
+
+/**
+ * Turns a typed number prefix into ranges of whole numbers, so a "number
+ * starts with" filter can seek on an int column instead of casting every
+ * number to text. The statements using them test the column against COUNT
+ * ranges, see predicate().
+ */
+final class NumberRanges {
+
+    // A prefix matches at most this many ranges: "1" gives 1, 10-19, 100-199
+    // and so on up to 10 digits
+    static final int COUNT = 10;
+
+    private NumberRanges() {
+    }
+
+    /**
+     * The condition that a column lies in one of the COUNT ranges, with two
+     * parameters per range.
+     */
+    static String predicate(String column) {
+        StringBuilder sql = new StringBuilder("(");
+        for (int i = 0; i < COUNT; i++) {
+            sql.append(i == 0 ? "" : " OR ").append(column).append(" BETWEEN ? AND ?");
+        }
+        return sql.append(')').toString();
+    }
+
+    /**
+     * Returns the bounds of the ranges of numbers that start with a prefix,
+     * e.g. "12" gives 12-12, 120-129, 1200-1299 and so on. Unused pairs are
+     * empty ranges.
+     * 
+     * @param prefix The prefix typed by the user.
+     * @return COUNT pairs of bounds, or null if no positive int can start with
+     *         the prefix.
+     */
+    static int[] of(String prefix) {
+        if (prefix.isEmpty() || prefix.length() > 10 || prefix.charAt(0) == '0'
+                || !prefix.chars().allMatch(ch -> ch >= '0' && ch <= '9')) {
+            return null;
+        }
+        int[] bounds = new int[2 * COUNT];
+        int i = 0;
+        long low = Long.parseLong(prefix);
+        long high = low;
+        while (low <= Integer.MAX_VALUE) {
+            bounds[i++] = (int) low;
+            bounds[i++] = (int) Math.min(high, Integer.MAX_VALUE);
+            low = low * 10;
+            high = high * 10 + 9;
+        }
+        while (i < bounds.length) {
+            bounds[i++] = 1;
+            bounds[i++] = 0;
+        }
+        return bounds;
+    }
+}
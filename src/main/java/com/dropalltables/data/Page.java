@@ -0,0 +1,77 @@
+package com.dropalltables.data;
+
+import java.nio.charset.StandardCharsets;
+import java.util.Base64;
+import java.util.List;
+
+/**
+ * One page of a keyset-paginated listing.
+ *
+ * Pages are read with a seek on the listing's sort key (e.g. ProjectNo &gt; last
+ * number on the previous page) instead of OFFSET, so reading page 500 costs
+ * the same as reading page 1 and rows inserted meanwhile do not shift later
+ * pages. The continuation token is opaque to callers; pass it back unchanged
+ * to read the next page.
+ *
+ * @param <T> The type of the listed entities.
+ */
+public class Page<T> {
+    private final List<T> items;
+    private final String nextPageToken;
+
+    Page(List<T> items, String nextPageToken) {
+        this.items = List.copyOf(items);
+        this.nextPageToken = nextPageToken;
+    }
+
+    public List<T> getItems() {
+        return items;
+    }
+
+    /**
+     * Returns the token for the following page.
+     *
+     * @return The continuation token, or null if this is the last page.
+     */
+    public String getNextPageToken() {
+        return nextPageToken;
+    }
+
+    public boolean hasNext() {
+        return nextPageToken != null;
+    }
+
+    /**
+     * Creates a continuation token for a listing.
+     *
+     * @param listing Identifies the listing, so tokens cannot be mixed up.
+     * @param lastKey The sort key of the last row on the current page.
+     */
+    static String encodeToken(String listing, int lastKey) {
+        String raw = listing + ":" + lastKey;
+        return Base64.getUrlEncoder().withoutPadding().encodeToString(raw.getBytes(StandardCharsets.UTF_8));
+    }
+
+    /**
+     * Reads the sort key back from a continuation token.
+     *
+     * @param listing The listing the token must belong to.
+     * @param token   The token, or null for the first page.
+     * @return The last key of the previous page, or Integer.MIN_VALUE for the first page.
+     * @throws IllegalArgumentException if the token was not created for this listing.
+     */
+    static int decodeToken(String listing, String token) {
+        if (token == null) {
+            return Integer.MIN_VALUE;
+        }
+        try {
+            String raw = new String(Base64.getUrlDecoder().decode(token), StandardCharsets.UTF_8);
+            if (!raw.startsWith(listing + ":")) {
+                throw new IllegalArgumentException("Page token does not belong to " + listing);
+            }
+            return Integer.parseInt(raw.substring(listing.length() + 1));
+        } catch (IllegalArgumentException e) {
+            throw new IllegalArgumentException("Invalid page token: " + token, e);
+        }
+    }
+}
@@ -0,0 +1,107 @@
+package com.dropalltables.data;
+
+/**
+ * Immutable snapshot of the connection pool's state and counters.
+ */
+public class PoolStatistics {
+    private final int activeConnections;
+    private final int idleConnections;
+    private final int maxConnections;
+    private final int threadsAwaitingConnection;
+    private final long borrowCount;
+    private final double averageWaitMillis;
+    private final double maxWaitMillis;
+    private final long connectionsCreated;
+    private final long connectionsEvicted;
+    private final long leaksDetected;
+    private final long statementCacheHits;
+    private final long statementCacheMisses;
+
+    public PoolStatistics(int activeConnections, int idleConnections, int maxConnections,
+            int threadsAwaitingConnection, long borrowCount, double averageWaitMillis, double maxWaitMillis,
+            long connectionsCreated, long connectionsEvicted, long leaksDetected,
+            long statementCacheHits, long statementCacheMisses) {
+        this.activeConnections = activeConnections;
+        this.idleConnections = idleConnections;
+        this.maxConnections = maxConnections;
+        this.threadsAwaitingConnection = threadsAwaitingConnection;
+        this.borrowCount = borrowCount;
+        this.averageWaitMillis = averageWaitMillis;
+        this.maxWaitMillis = maxWaitMillis;
+        this.connectionsCreated = connectionsCreated;
+        this.connectionsEvicted = connectionsEvicted;
+        this.leaksDetected = leaksDetected;
+        this.statementCacheHits = statementCacheHits;
+        this.statementCacheMisses = statementCacheMisses;
+    }
+
+    public int getActiveConnections() {
+        return activeConnections;
+    }
+
+    public int getIdleConnections() {
+        return idleConnections;
+    }
+
+    public int getTotalConnections() {
+        return activeConnections + idleConnections;
+    }
+
+    public int getMaxConnections() {
+        return maxConnections;
+    }
+
+    public int getThreadsAwaitingConnection() {
+        return threadsAwaitingConnection;
+    }
+
+    public long getBorrowCount() {
+        return borrowCount;
+    }
+
+    public double getAverageWaitMillis() {
+        return averageWaitMillis;
+    }
+
+    public double getMaxWaitMillis() {
+        return maxWaitMillis;
+    }
+
+    public long getConnectionsCreated() {
+        return connectionsCreated;
+    }
+
+    public long getConnectionsEvicted() {
+        return connectionsEvicted;
+    }
+
+    public long getLeaksDetected() {
+        return leaksDetected;
+    }
+
+    public long getStatementCacheHits() {
+        return statementCacheHits;
+    }
+
+    public long getStatementCacheMisses() {
+        return statementCacheMisses;
+    }
+
+    @Override
+    public String toString() {
+        return "PoolStatistics{" +
+                "active=" + activeConnections +
+                ", idle=" + idleConnections +
+                ", max=" + maxConnections +
+                ", awaiting=" + threadsAwaitingConnection +
+                ", borrows=" + borrowCount +
+                ", avgWaitMs=" + String.format("%.2f", averageWaitMillis) +
+                ", maxWaitMs=" + String.format("%.2f", maxWaitMillis) +
+                ", created=" + connectionsCreated +
+                ", evicted=" + connectionsEvicted +
+                ", leaks=" + leaksDetected +
+                ", statementCacheHits=" + statementCacheHits +
+                ", statementCacheMisses=" + statementCacheMisses +
+                '}';
+    }
+}
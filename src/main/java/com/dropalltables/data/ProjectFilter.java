@@ -0,0 +1,64 @@
+package com.dropalltables.data;
+
+import java.time.LocalDate;
+
+/**
+ * Criteria for listing projects, evaluated by the database
+ * (see DaoProject.getProjectsPage). Empty criteria match everything.
+ */
+public class ProjectFilter {
+    public static final ProjectFilter NONE = new ProjectFilter("", "", null, null, false);
+
+    private final String numberPrefix;
+    private final String nameContains;
+    private final LocalDate dateFrom;
+    private final LocalDate dateUntil;
+    private final boolean activeOnly;
+
+    /**
+     * Constructor for ProjectFilter.
+     *
+     * @param numberPrefix The project number must start with this text.
+     * @param nameContains The name must contain this text (case-insensitive).
+     * @param dateFrom     With dateUntil: the start or end date must fall in
+     *                     [dateFrom, dateUntil). Null for no date criterion.
+     * @param dateUntil    Exclusive upper bound of the date range.
+     * @param activeOnly   Only projects without an end date.
+     */
+    public ProjectFilter(String numberPrefix, String nameContains, LocalDate dateFrom, LocalDate dateUntil,
+            boolean activeOnly) {
+        this.numberPrefix = numberPrefix == null ? "" : numberPrefix.trim();
+        this.nameContains = nameContains == null ? "" : nameContains.trim();
+        this.dateFrom = dateFrom;
+        this.dateUntil = dateUntil;
+        this.activeOnly = activeOnly;
+    }
+
+    public String getNumberPrefix() {
+        return numberPrefix;
+    }
+
+    public String getNameContains() {
+        return nameContains;
+    }
+
+    public LocalDate getDateFrom() {
+        return dateFrom;
+    }
+
+    public LocalDate getDateUntil() {
+        return dateUntil;
+    }
+
+    public boolean isActiveOnly() {
+        return activeOnly;
+    }
+
+    public boolean hasDateRange() {
+        return dateFrom != null && dateUntil != null;
+    }
+
+    public boolean isEmpty() {
+        return numberPrefix.isEmpty() && nameContains.isEmpty() && !hasDateRange() && !activeOnly;
+    }
+}
@@ -0,0 +1,15 @@
+package com.dropalltables.data;
+
+import com.dropalltables.models.Project;
+
+/**
+ * A project together with its team size and hours, read by the same query
+ * as the project itself, so bulk reads such as exports agree with the
+ * assignments in the database rather than with the aggregate store.
+ *
+ * @param project     The project, a plain copy outside the project cache.
+ * @param teamSize    The number of consultants assigned to the project.
+ * @param hoursWorked The hours worked on the project by all its consultants.
+ */
+public record ProjectTotals(Project project, int teamSize, int hoursWorked) {
+}
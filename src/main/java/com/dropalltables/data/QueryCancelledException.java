@@ -0,0 +1,12 @@
+package com.dropalltables.data;
+
+/**
+ * Thrown by a DAO method whose query was cancelled through a CancellationToken.
+ * Callers normally ignore it, since the cancellation was their own decision.
+ */
+public class QueryCancelledException extends DaoException {
+
+    public QueryCancelledException() {
+        super("The query was cancelled.");
+    }
+}
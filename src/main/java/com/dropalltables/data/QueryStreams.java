@@ -0,0 +1,157 @@
+package com.dropalltables.data;
+
+import java.sql.Connection;
+import java.sql.PreparedStatement;
+import java.sql.ResultSet;
+import java.sql.SQLException;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Spliterator;
+import java.util.Spliterators;
+import java.util.function.Consumer;
+import java.util.stream.Collectors;
+import java.util.stream.Stream;
+import java.util.stream.StreamSupport;
+
+/**
+ * Runs queries whose rows are handed out one at a time as a Stream instead of
+ * being collected into a list first.
+ *
+ * The stream reads from a forward-only, read-only cursor and keeps its
+ * connection borrowed until the stream is closed, so callers must use
+ * try-with-resources. With the SQL Server driver's default adaptive response
+ * buffering, only the rows that have not been consumed yet are left on the
+ * network, so memory use does not grow with the size of the result.
+ */
+final class QueryStreams {
+
+    private QueryStreams() {
+    }
+
+    /**
+     * Executes a query and returns its rows as a lazily read stream.
+     *
+     * @param connectionHandler The handler to borrow the connection from.
+     * @param sql               The query to execute.
+     * @param binder            Binds the query's parameters.
+     * @param mapper            Creates an object from each row.
+     * @param errorMessage      The user-friendly message of any DaoException.
+     * @return A stream of mapped rows; close it to release the connection.
+     *         Errors while reading rows are thrown as UncheckedDaoException.
+     * @throws DaoException if the query cannot be executed.
+     */
+    static <T> Stream<T> stream(ConnectionHandler connectionHandler, String sql, StatementBinder binder,
+            RowMapper<T> mapper, String errorMessage) throws DaoException {
+        return stream(connectionHandler, sql, binder, mapper, errorMessage, new CancellationToken());
+    }
+
+    /**
+     * Executes a query and returns its rows as a lazily read stream that can be
+     * stopped through a CancellationToken. Cancelling stops the query on the
+     * server, so closing the stream does not have to read the remaining rows.
+     *
+     * @param cancellation Cancels the query while the stream is being read.
+     * @return A stream of mapped rows; close it to release the connection.
+     *         Errors while reading rows are thrown as UncheckedDaoException,
+     *         whose cause is a QueryCancelledException after cancelling.
+     * @throws QueryCancelledException if the token was already cancelled.
+     * @throws DaoException            if the query cannot be executed.
+     */
+    static <T> Stream<T> stream(ConnectionHandler connectionHandler, String sql, StatementBinder binder,
+            RowMapper<T> mapper, String errorMessage, CancellationToken cancellation) throws DaoException {
+        Connection connection = null;
+        PreparedStatement statement = null;
+        ResultSet resultSet = null;
+        try {
+            connection = connectionHandler.getConnection();
+            // prepareStatement(sql) gives a TYPE_FORWARD_ONLY, CONCUR_READ_ONLY cursor
+            statement = connection.prepareStatement(sql);
+            statement.setFetchSize(connectionHandler.getFetchSize());
+            binder.bind(statement);
+            cancellation.register(statement);
+            resultSet = statement.executeQuery();
+        } catch (SQLException e) {
+            if (statement != null) {
+                cancellation.unregister(statement);
+            }
+            closeQuietly(resultSet, statement, connection);
+            if (cancellation.isCancelled()) {
+                throw new QueryCancelledException();
+            }
+            throw new DaoException(errorMessage, e);
+        } catch (QueryCancelledException e) {
+            closeQuietly(statement, connection);
+            throw e;
+        }
+
+        Cursor<T> cursor = new Cursor<>(resultSet, mapper, errorMessage, cancellation);
+        PreparedStatement registered = statement;
+        AutoCloseable[] resources = { resultSet, statement, connection };
+        return StreamSupport.stream(cursor, false)
+                .onClose(() -> {
+                    cancellation.unregister(registered);
+                    closeQuietly(resources);
+                });
+    }
+
+    /**
+     * Collects a stream returned by {@link #stream} into a modifiable list and
+     * closes it. Used by the DAOs' list-returning methods.
+     *
+     * @throws DaoException if reading a row fails.
+     */
+    static <T> List<T> toList(Stream<T> stream) throws DaoException {
+        try (stream) {
+            return stream.collect(Collectors.toCollection(ArrayList::new));
+        } catch (UncheckedDaoException e) {
+            throw e.getCause();
+        }
+    }
+
+    private static void closeQuietly(AutoCloseable... resources) {
+        for (AutoCloseable resource : resources) {
+            if (resource == null) {
+                continue;
+            }
+            try {
+                resource.close();
+            } catch (Exception ignored) {
+                // the pool discards connections that cannot be reset
+            }
+        }
+    }
+
+    /** Reads one row per tryAdvance call. */
+    private static class Cursor<T> extends Spliterators.AbstractSpliterator<T> {
+        private final ResultSet resultSet;
+        private final RowMapper<T> mapper;
+        private final String errorMessage;
+        private final CancellationToken cancellation;
+
+        Cursor(ResultSet resultSet, RowMapper<T> mapper, String errorMessage, CancellationToken cancellation) {
+            super(Long.MAX_VALUE, Spliterator.ORDERED | Spliterator.NONNULL);
+            this.resultSet = resultSet;
+            this.mapper = mapper;
+            this.errorMessage = errorMessage;
+            this.cancellation = cancellation;
+        }
+
+        @Override
+        public boolean tryAdvance(Consumer<? super T> action) {
+            try {
+                if (!resultSet.next()) {
+                    return false;
+                }
+                action.accept(mapper.map(resultSet));
+                return true;
+            } catch (SQLException e) {
+                if (cancellation.isCancelled()) {
+                    throw new UncheckedDaoException(new QueryCancelledException());
+                }
+                throw new UncheckedDaoException(new DaoException(errorMessage, e));
+            } catch (DaoException e) {
+                throw new UncheckedDaoException(e);
+            }
+        }
+    }
+}
@@ -0,0 +1,52 @@
+package com.dropalltables.data;
+
+import java.time.Instant;
+import java.util.Map;
+
+/**
+ * The evaluated sections of the consultant report.
+ * Values are read with the section constants of ReportEngine, e.g.
+ * {@code report.get(ReportEngine.TOTAL_PROJECTS)}.
+ */
+public class Report {
+
+    /** A consultant with the most hours worked, read together with the hours. */
+    public record TopConsultant(int consultantNo, String name, String title, long hours) {
+    }
+
+    private final Map<ReportSection<?>, Object> values;
+    private final long dataVersion;
+    private final Instant createdAt;
+
+    Report(Map<ReportSection<?>, Object> values, long dataVersion, Instant createdAt) {
+        this.values = Map.copyOf(values);
+        this.dataVersion = dataVersion;
+        this.createdAt = createdAt;
+    }
+
+    /**
+     * Returns the value of one section.
+     *
+     * @param section The section, one of the constants of ReportEngine.
+     * @return The section's value.
+     * @throws IllegalArgumentException if the section is not part of the report.
+     */
+    @SuppressWarnings("unchecked")
+    public <T> T get(ReportSection<T> section) {
+        if (!values.containsKey(section)) {
+            throw new IllegalArgumentException("Not a section of this report: " + section);
+        }
+        return (T) values.get(section);
+    }
+
+    /**
+     * The DataVersion the report was computed at.
+     */
+    public long getDataVersion() {
+        return dataVersion;
+    }
+
+    public Instant getCreatedAt() {
+        return createdAt;
+    }
+}
@@ -0,0 +1,186 @@
+package com.dropalltables.data;
+
+import java.time.Duration;
+import java.time.Instant;
+import java.util.ArrayList;
+import java.util.Comparator;
+import java.util.HashMap;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CompletionException;
+import java.util.concurrent.ExecutorService;
+
+import com.dropalltables.models.Consultant;
+
+/**
+ * Builds the consultant report.
+ *
+ * Each section is either a single query that lets the database do the
+ * counting and summing, so the report never loads whole tables, or is read
+ * from the AggregateStore without a query. The sections run at the same time,
+ * each query on its own pooled connection. The finished report is kept
+ * until this application writes a change (see DataVersion) or until it is
+ * older than report.cache.maxAgeSeconds, which covers changes made by other
+ * clients.
+ */
+public class ReportEngine {
+
+    /**
+     * The consultant(s) with the most hours worked, ties included, with their
+     * hours. Read from the AggregateStore; the consultants' details come from
+     * the consultant cache. A consultant that no longer exists means the store
+     * missed a change, so it is reloaded once; anyone still missing is left out.
+     */
+    public static final ReportSection<List<Report.TopConsultant>> HARDEST_WORKING = ReportSection.computed(
+            "Hardest-working consultant(s)", dataContext -> {
+                AggregateStore aggregates = dataContext.getAggregateStore();
+                aggregates.refreshIfStale();
+                List<Report.TopConsultant> top = hardestWorking(dataContext, aggregates, false);
+                if (top == null) {
+                    aggregates.invalidate();
+                    aggregates.refreshIfStale();
+                    top = hardestWorking(dataContext, aggregates, true);
+                }
+                top.sort(Comparator.comparingInt(Report.TopConsultant::consultantNo));
+                return top;
+            });
+
+    public static final ReportSection<Long> TOTAL_CONSULTANTS = ReportSection.scalar(
+            "Total consultants", """
+                    SELECT COUNT(*)
+                    FROM Consultant
+                    """);
+
+    public static final ReportSection<Long> TOTAL_HOURS_WORKED = ReportSection.computed(
+            "Total hours worked", dataContext -> {
+                dataContext.getAggregateStore().refreshIfStale();
+                return dataContext.getAggregateStore().totalHours();
+            });
+
+    public static final ReportSection<Long> TOTAL_PROJECTS = ReportSection.scalar(
+            "Projects in total", """
+                    SELECT COUNT(*)
+                    FROM Project
+                    """);
+
+    public static final ReportSection<Long> COMPLETED_PROJECTS = ReportSection.scalar(
+            "Completed projects", """
+                    SELECT COUNT(*)
+                    FROM Project
+                    WHERE EndDate IS NOT NULL
+                    """);
+
+    private static final List<ReportSection<?>> SECTIONS = List.of(
+            HARDEST_WORKING,
+            TOTAL_CONSULTANTS,
+            TOTAL_HOURS_WORKED,
+            TOTAL_PROJECTS,
+            COMPLETED_PROJECTS);
+
+    private final DataContext dataContext;
+    private final ExecutorService executor;
+    private final DataVersion dataVersion;
+    private final Duration maxAge;
+
+    private volatile Report cached;
+
+    /**
+     * Constructor for ReportEngine.
+     * Registers the section queries with the data context's statement registry.
+     *
+     * @param dataContext The data context that owns this engine.
+     * @param executor    Runs the sections concurrently.
+     */
+    ReportEngine(DataContext dataContext, ExecutorService executor) {
+        this.dataContext = dataContext;
+        this.executor = executor;
+        this.dataVersion = dataContext.getDataVersion();
+        this.maxAge = Duration.ofSeconds(
+                ConnectionHandler.intProperty(dataContext.getConfiguration(), "report.cache.maxAgeSeconds", 30));
+        for (ReportSection<?> section : SECTIONS) {
+            if (section.getSql() != null) {
+                dataContext.getStatementRegistry().register(section.getSql());
+            }
+        }
+    }
+
+    /**
+     * Returns the report, computing it only if the cached one is out of date.
+     *
+     * @return The report with every section evaluated.
+     * @throws DaoException if a section cannot be evaluated.
+     */
+    public Report getReport() throws DaoException {
+        Report report = cached;
+        if (report != null && report.getDataVersion() == dataVersion.current()
+                && report.getCreatedAt().plus(maxAge).isAfter(Instant.now())) {
+            return report;
+        }
+        report = evaluate();
+        cached = report;
+        return report;
+    }
+
+    /**
+     * Drops the cached report, so the next call to getReport() queries the
+     * database again.
+     */
+    public void invalidate() {
+        cached = null;
+    }
+
+    /**
+     * Looks up the store's hardest-working consultants. A consultant that no
+     * longer exists is skipped, or makes this return null unless skipMissing.
+     */
+    private static List<Report.TopConsultant> hardestWorking(DataContext dataContext, AggregateStore aggregates,
+            boolean skipMissing) throws DaoException {
+        List<Report.TopConsultant> top = new ArrayList<>();
+        for (int consultantID : aggregates.hardestWorkingConsultants()) {
+            Consultant c = dataContext.getDaoConsultant().getConsultantByID(consultantID);
+            if (c == null) {
+                if (!skipMissing) {
+                    return null;
+                }
+                continue;
+            }
+            top.add(new Report.TopConsultant(c.getConsultantNo(), c.getName(), c.getTitle(),
+                    aggregates.consultantHours(consultantID)));
+        }
+        return top;
+    }
+
+    private Report evaluate() throws DaoException {
+        // Read the version first: a change written while the sections run makes
+        // the report stale straight away instead of hiding the change.
+        long version = dataVersion.current();
+        Instant createdAt = Instant.now();
+
+        Map<ReportSection<?>, CompletableFuture<?>> futures = new LinkedHashMap<>();
+        for (ReportSection<?> section : SECTIONS) {
+            futures.put(section, CompletableFuture.supplyAsync(() -> {
+                try {
+                    return section.evaluate(dataContext);
+                } catch (DaoException e) {
+                    throw new CompletionException(e);
+                }
+            }, executor));
+        }
+
+        Map<ReportSection<?>, Object> values = new HashMap<>();
+        try {
+            for (Map.Entry<ReportSection<?>, CompletableFuture<?>> entry : futures.entrySet()) {
+                values.put(entry.getKey(), entry.getValue().join());
+            }
+        } catch (CompletionException e) {
+            futures.values().forEach(future -> future.cancel(true));
+            if (e.getCause() instanceof DaoException daoException) {
+                throw daoException;
+            }
+            throw new DaoException("Unable to create the report. Please try again.", e.getCause());
+        }
+        return new Report(values, version, createdAt);
+    }
+}
@@ -0,0 +1,91 @@
+package com.dropalltables.data;
+
+import java.sql.Connection;
+import java.sql.PreparedStatement;
+import java.sql.ResultSet;
+import java.sql.SQLException;
+
+/**
+ * One section of the report: either a single query whose aggregation happens
+ * in the database, plus how its result is read, or a value computed from
+ * totals the application already holds in memory.
+ *
+ * @param <T> The type of the section's value.
+ */
+public final class ReportSection<T> {
+
+    /** Reads a section's value from its result set. */
+    @FunctionalInterface
+    interface ResultReader<T> {
+        T read(ResultSet rs) throws SQLException, DaoException;
+    }
+
+    /** Computes a section's value without a query of its own. */
+    @FunctionalInterface
+    interface Computation<T> {
+        T compute(DataContext dataContext) throws DaoException;
+    }
+
+    private final String title;
+    private final String sql;
+    private final ResultReader<T> reader;
+    private final Computation<T> computation;
+
+    private ReportSection(String title, String sql, ResultReader<T> reader, Computation<T> computation) {
+        this.title = title;
+        this.sql = sql;
+        this.reader = reader;
+        this.computation = computation;
+    }
+
+    private ReportSection(String title, String sql, ResultReader<T> reader) {
+        this(title, sql, reader, null);
+    }
+
+    /**
+     * A section whose query returns one row with one number, e.g. a COUNT or SUM.
+     * An empty result or NULL counts as 0.
+     */
+    static ReportSection<Long> scalar(String title, String sql) {
+        return new ReportSection<>(title, sql, rs -> rs.next() ? rs.getLong(1) : 0L);
+    }
+
+    /**
+     * A section computed in memory, e.g. from the AggregateStore.
+     */
+    static <T> ReportSection<T> computed(String title, Computation<T> computation) {
+        return new ReportSection<>(title, null, null, computation);
+    }
+
+    public String getTitle() {
+        return title;
+    }
+
+    /**
+     * The section's query, or null for a computed section.
+     */
+    String getSql() {
+        return sql;
+    }
+
+    /**
+     * Computes the section, or runs its query on a connection of its own.
+     */
+    T evaluate(DataContext dataContext) throws DaoException {
+        if (computation != null) {
+            return computation.compute(dataContext);
+        }
+        try (Connection connection = dataContext.getConnectionHandler().getConnection();
+                PreparedStatement statement = connection.prepareStatement(sql);
+                ResultSet resultSet = statement.executeQuery()) {
+            return reader.read(resultSet);
+        } catch (SQLException e) {
+            throw new DaoException("Unable to calculate \"" + title + "\" for the report. Please try again.", e);
+        }
+    }
+
+    @Override
+    public String toString() {
+        return title;
+    }
+}
@@ -0,0 +1,15 @@
+package com.dropalltables.data;
+
+import java.sql.ResultSet;
+import java.sql.SQLException;
+
+/**
+ * Turns the current row of a ResultSet into an object, typically one of the
+ * DAOs' instantiate methods.
+ *
+ * @param <T> The type of object created for each row.
+ */
+@FunctionalInterface
+interface RowMapper<T> {
+    T map(ResultSet rs) throws SQLException, DaoException;
+}
@@ -0,0 +1,194 @@
+package com.dropalltables.data;
+
+import java.io.IOException;
+import java.io.InputStream;
+import java.nio.charset.StandardCharsets;
+import java.sql.CallableStatement;
+import java.sql.Connection;
+import java.sql.PreparedStatement;
+import java.sql.ResultSet;
+import java.sql.SQLException;
+import java.sql.Statement;
+import java.sql.Types;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.regex.Matcher;
+import java.util.regex.Pattern;
+import java.util.zip.CRC32;
+
+/**
+ * Brings the database schema up to the version this application expects.
+ *
+ * The schema changes are the scripts in sql/migrations, named
+ * V&lt;version&gt;__&lt;description&gt;.sql. Every applied script is recorded in
+ * Schema_Version with a checksum, and only the missing ones run, in version
+ * order, each in its own transaction. The scripts only add to the schema,
+ * so existing data is kept. An application lock makes clients that start at
+ * the same time wait for each other instead of applying a script twice.
+ */
+final class SchemaMigrator {
+    private static final String MIGRATIONS_PATH = "/sql/migrations/";
+
+    // in version order; add new scripts at the end
+    private static final List<String> SCRIPTS = List.of(
+            "V1__baseline.sql",
+            "V2__aggregate_views.sql",
+            "V3__access_path_indexes.sql");
+
+    private static final Pattern SCRIPT_NAME = Pattern.compile("V(\\d+)__(\\w+)\\.sql");
+    private static final Pattern BATCH_SEPARATOR = Pattern.compile("^\\s*GO\\s*$",
+            Pattern.CASE_INSENSITIVE | Pattern.MULTILINE);
+
+    private static final String CREATE_SCHEMA_VERSION = """
+            IF OBJECT_ID(N'dbo.Schema_Version', N'U') IS NULL
+            CREATE TABLE Schema_Version (
+                Version INT NOT NULL,
+                Description VARCHAR(255) NOT NULL,
+                Script VARCHAR(255) NOT NULL,
+                Checksum INT NOT NULL,
+                InstalledOn DATETIME NOT NULL DEFAULT GETDATE(),
+                CONSTRAINT PK_Schema_Version PRIMARY KEY (Version)
+            )
+            """;
+
+    // released when the transaction ends
+    private static final String GET_APPLOCK = "{? = call sp_getapplock(?, 'Exclusive', 'Transaction', ?)}";
+
+    private static final String SELECT_CHECKSUM = """
+            SELECT Checksum
+            FROM Schema_Version
+            WHERE Version = ?
+            """;
+
+    private static final String INSERT_VERSION = """
+            INSERT INTO Schema_Version (Version, Description, Script, Checksum)
+            VALUES (?, ?, ?, ?)
+            """;
+
+    private final ConnectionHandler connectionHandler;
+    private final int lockTimeoutMillis;
+
+    SchemaMigrator(ConnectionHandler connectionHandler, int lockTimeoutSeconds) {
+        this.connectionHandler = connectionHandler;
+        this.lockTimeoutMillis = lockTimeoutSeconds * 1000;
+    }
+
+    /**
+     * Applies every script that is not recorded in Schema_Version yet.
+     *
+     * @return The number of scripts applied.
+     * @throws DaoException if a script fails, or if an applied script has been
+     *                      changed since.
+     */
+    int migrate() throws DaoException {
+        int applied = 0;
+        for (Migration migration : loadMigrations()) {
+            if (apply(migration)) {
+                applied++;
+            }
+        }
+        return applied;
+    }
+
+    private boolean apply(Migration migration) throws DaoException {
+        try (UnitOfWork work = connectionHandler.beginUnitOfWork();
+                Connection connection = connectionHandler.getConnection()) {
+            lock(connection);
+            try (Statement statement = connection.createStatement()) {
+                statement.execute(CREATE_SCHEMA_VERSION);
+            }
+
+            // read under the lock: another client may have applied it meanwhile
+            Integer checksum = appliedChecksum(connection, migration.version());
+            if (checksum != null) {
+                if (checksum != migration.checksum()) {
+                    throw new DaoException("The database schema does not match this version of the application. "
+                            + "Please contact your administrator.",
+                            new IllegalStateException(migration.script() + " has changed since it was applied"));
+                }
+                work.commit();
+                return false;
+            }
+
+            try (Statement statement = connection.createStatement()) {
+                for (String batch : migration.batches()) {
+                    statement.execute(batch);
+                }
+            }
+            try (PreparedStatement statement = connection.prepareStatement(INSERT_VERSION)) {
+                statement.setInt(1, migration.version());
+                statement.setString(2, migration.description());
+                statement.setString(3, migration.script());
+                statement.setInt(4, migration.checksum());
+                statement.executeUpdate();
+            }
+            work.commit();
+            return true;
+        } catch (SQLException e) {
+            throw new DaoException("Unable to update the database to the current version. Please try again.",
+                    new SQLException(migration.script() + ": " + e.getMessage(), e.getSQLState(),
+                            e.getErrorCode(), e));
+        }
+    }
+
+    private void lock(Connection connection) throws SQLException {
+        try (CallableStatement statement = connection.prepareCall(GET_APPLOCK)) {
+            statement.registerOutParameter(1, Types.INTEGER);
+            statement.setString(2, "Schema_Version");
+            statement.setInt(3, lockTimeoutMillis);
+            statement.execute();
+            if (statement.getInt(1) < 0) {
+                throw new SQLException("Timed out waiting for another client to update the schema");
+            }
+        }
+    }
+
+    private static Integer appliedChecksum(Connection connection, int version) throws SQLException {
+        try (PreparedStatement statement = connection.prepareStatement(SELECT_CHECKSUM)) {
+            statement.setInt(1, version);
+            try (ResultSet resultSet = statement.executeQuery()) {
+                return resultSet.next() ? resultSet.getInt(1) : null;
+            }
+        }
+    }
+
+    private static List<Migration> loadMigrations() throws DaoException {
+        List<Migration> migrations = new ArrayList<>();
+        for (String script : SCRIPTS) {
+            Matcher matcher = SCRIPT_NAME.matcher(script);
+            if (!matcher.matches()) {
+                throw new IllegalStateException("Not a migration script name: " + script);
+            }
+            try (InputStream inputStream = SchemaMigrator.class.getResourceAsStream(MIGRATIONS_PATH + script)) {
+                if (inputStream == null) {
+                    throw new IOException("Migration script not found: " + MIGRATIONS_PATH + script);
+                }
+                String sql = new String(inputStream.readAllBytes(), StandardCharsets.UTF_8).replace("\r\n", "\n");
+                migrations.add(new Migration(Integer.parseInt(matcher.group(1)),
+                        matcher.group(2).replace('_', ' '), script, sql));
+            } catch (IOException e) {
+                throw new DaoException("Unable to update the database to the current version. Please try again.", e);
+            }
+        }
+        return migrations;
+    }
+
+    private record Migration(int version, String description, String script, String sql) {
+
+        int checksum() {
+            CRC32 crc = new CRC32();
+            crc.update(sql.getBytes(StandardCharsets.UTF_8));
+            return (int) crc.getValue();
+        }
+
+        List<String> batches() {
+            List<String> batches = new ArrayList<>();
+            for (String batch : BATCH_SEPARATOR.split(sql)) {
+                if (!batch.isBlank()) {
+                    batches.add(batch);
+                }
+            }
+            return batches;
+        }
+    }
+}
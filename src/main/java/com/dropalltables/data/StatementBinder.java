@@ -0,0 +1,15 @@
+package com.dropalltables.data;
+
+import java.sql.PreparedStatement;
+import java.sql.SQLException;
+
+/**
+ * Binds parameters to a prepared statement, typically as a lambda.
+ */
+@FunctionalInterface
+interface StatementBinder {
+    StatementBinder NONE = ps -> {
+    };
+
+    void bind(PreparedStatement ps) throws SQLException;
+}
@@ -0,0 +1,131 @@
+package com.dropalltables.data;
+
+import java.sql.Connection;
+import java.sql.PreparedStatement;
+import java.sql.SQLException;
+import java.sql.Statement;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
+
+/**
+ * Catalog of the SQL statements used by the DAOs.
+ * Every DAO registers its statements when the data context creates it. At
+ * startup the registry prepares all of them on pooled connections, which fills
+ * the per-connection statement caches and makes the server describe each
+ * statement, so a schema that no longer matches the code fails immediately
+ * instead of on the first click that uses the broken query.
+ */
+public class StatementRegistry {
+    private final Set<String> statements = ConcurrentHashMap.newKeySet();
+    private final Set<String> optionalStatements = ConcurrentHashMap.newKeySet();
+    private final Set<String> keyReturningStatements = ConcurrentHashMap.newKeySet();
+
+    /**
+     * Adds statements to the catalog.
+     *
+     * @param sql The SQL text of each statement, exactly as the DAO prepares it.
+     */
+    void register(String... sql) {
+        for (String statement : sql) {
+            statements.add(statement);
+        }
+    }
+
+    /**
+     * Adds statements that the DAO prepares with
+     * Statement.RETURN_GENERATED_KEYS. They are cached apart from statements
+     * prepared without the flag, so they are prepared with it here as well.
+     *
+     * @param sql The SQL text of each statement, exactly as the DAO prepares it.
+     */
+    void registerReturningKeys(String... sql) {
+        for (String statement : sql) {
+            keyReturningStatements.add(statement);
+        }
+    }
+
+    /**
+     * Adds statements that only work on some schemas, such as queries on the
+     * indexed views. They are prepared at startup when possible, but a
+     * failure does not stop the application.
+     *
+     * @param sql The SQL text of each statement, exactly as the DAO prepares it.
+     */
+    void registerOptional(String... sql) {
+        for (String statement : sql) {
+            optionalStatements.add(statement);
+        }
+    }
+
+    /**
+     * Returns all registered statements.
+     *
+     * @return An unmodifiable snapshot of the catalog.
+     */
+    public List<String> getStatements() {
+        List<String> all = new ArrayList<>(statements);
+        all.addAll(keyReturningStatements);
+        return List.copyOf(all);
+    }
+
+    /**
+     * Prepares every registered statement on the given number of pooled
+     * connections. The statements are described by the server on the first
+     * connection, which fails if a table or column they refer to is missing.
+     *
+     * @param connectionHandler The connection handler whose pool is warmed up.
+     * @param connectionCount   How many pooled connections to prepare the statements on.
+     * @throws DaoException if a statement cannot be prepared against the current schema.
+     */
+    void prepareAll(ConnectionHandler connectionHandler, int connectionCount) throws DaoException {
+        List<Connection> connections = new ArrayList<>();
+        try {
+            for (int i = 0; i < Math.max(1, connectionCount); i++) {
+                connections.add(connectionHandler.getConnection());
+            }
+
+            boolean describe = true;
+            for (Connection connection : connections) {
+                for (String sql : statements) {
+                    prepare(connection, sql, Statement.NO_GENERATED_KEYS, describe);
+                }
+                for (String sql : keyReturningStatements) {
+                    prepare(connection, sql, Statement.RETURN_GENERATED_KEYS, describe);
+                }
+                for (String sql : optionalStatements) {
+                    try {
+                        prepare(connection, sql, Statement.NO_GENERATED_KEYS, describe);
+                    } catch (DaoException ignored) {
+                        // the DAOs use the statement's fallback on this schema
+                    }
+                }
+                describe = false;
+            }
+        } catch (SQLException e) {
+            throw new DaoException("Unable to connect to the database. Please check your connection and try again.", e);
+        } finally {
+            for (Connection connection : connections) {
+                try {
+                    connection.close();
+                } catch (SQLException ignored) {
+                    // returning to the pool does not fail
+                }
+            }
+        }
+    }
+
+    private void prepare(Connection connection, String sql, int autoGeneratedKeys, boolean describe)
+            throws DaoException {
+        try (PreparedStatement statement = connection.prepareStatement(sql, autoGeneratedKeys)) {
+            if (describe) {
+                statement.getMetaData();
+                statement.getParameterMetaData();
+            }
+        } catch (SQLException e) {
+            throw new DaoException("The database schema does not match the application. Failed to prepare:\n"
+                    + sql.strip() + "\n" + e.getMessage(), e);
+        }
+    }
+}
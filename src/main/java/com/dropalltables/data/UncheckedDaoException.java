@@ -0,0 +1,17 @@
+package com.dropalltables.data;
+
+/**
+ * Wraps a DaoException thrown while a stream returned by a DAO is consumed,
+ * since stream operations cannot throw checked exceptions.
+ */
+public class UncheckedDaoException extends RuntimeException {
+
+    public UncheckedDaoException(DaoException cause) {
+        super(cause.getMessage(), cause);
+    }
+
+    @Override
+    public synchronized DaoException getCause() {
+        return (DaoException) super.getCause();
+    }
+}
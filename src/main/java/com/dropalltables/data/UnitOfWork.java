@@ -0,0 +1,189 @@
+package com.dropalltables.data;
+
+import java.lang.reflect.InvocationHandler;
+import java.lang.reflect.InvocationTargetException;
+import java.lang.reflect.Method;
+import java.lang.reflect.Proxy;
+import java.sql.Connection;
+import java.sql.SQLException;
+import java.util.ArrayList;
+import java.util.List;
+
+/**
+ * A database transaction shared by every DAO call made on the same thread.
+ *
+ * While a unit of work is open, ConnectionHandler.getConnection() hands out the
+ * unit's connection instead of borrowing a new one from the pool, so DAO
+ * methods can be combined without changing their signatures:
+ *
+ * <pre>
+ * try (UnitOfWork work = dataContext.beginUnitOfWork()) {
+ *     daoProject.insertProject(project);
+ *     daoMilestone.insertMilestone(milestone);
+ *     work.commit();
+ * }
+ * </pre>
+ *
+ * Closing a unit that was not committed rolls everything back. Units opened
+ * while another unit is active on the thread join the outer transaction: their
+ * commit() only marks their own part as done, and closing them without commit
+ * makes the outer unit roll back. Inside a unit, commit(), rollback() and
+ * setAutoCommit() on the shared connection are controlled by the unit, not by
+ * the DAO methods. Actions registered with afterCommit() run once the outermost
+ * unit has committed and are dropped if it rolls back.
+ */
+public class UnitOfWork implements AutoCloseable {
+    private final ConnectionHandler connectionHandler;
+    private final UnitOfWork root;
+    private final Connection connection;
+    private final Connection sharedConnection;
+
+    private boolean committed = false;
+    private boolean closed = false;
+    private boolean rollbackOnly = false;
+    private final List<Runnable> afterCommit = new ArrayList<>();
+
+    /**
+     * Starts a new outermost unit on a pooled connection.
+     */
+    UnitOfWork(ConnectionHandler connectionHandler, Connection connection) throws SQLException {
+        this.connectionHandler = connectionHandler;
+        this.root = this;
+        this.connection = connection;
+        this.connection.setAutoCommit(false);
+        this.sharedConnection = (Connection) Proxy.newProxyInstance(
+                Connection.class.getClassLoader(),
+                new Class<?>[] { Connection.class },
+                new SharedConnectionHandle());
+    }
+
+    /**
+     * Starts a unit that joins an outer unit's transaction.
+     */
+    private UnitOfWork(UnitOfWork root) {
+        this.connectionHandler = root.connectionHandler;
+        this.root = root;
+        this.connection = root.connection;
+        this.sharedConnection = root.sharedConnection;
+    }
+
+    UnitOfWork join() {
+        return new UnitOfWork(root);
+    }
+
+    /**
+     * Runs an action after the outermost unit has committed, e.g. to update
+     * in-memory state that must only reflect committed rows.
+     */
+    void afterCommit(Runnable action) {
+        root.afterCommit.add(action);
+    }
+
+    /**
+     * Returns the connection DAO methods use while this unit is open.
+     * Closing it does not end the unit.
+     */
+    Connection getConnection() {
+        return sharedConnection;
+    }
+
+    /**
+     * Commits the work done since the unit was opened. For a unit that joined an
+     * outer unit this only marks its part as successful; the outer unit commits.
+     *
+     * @throws DaoException if an earlier part of the unit failed, or if the
+     *                      commit itself fails. Everything is rolled back.
+     */
+    public void commit() throws DaoException {
+        if (closed || committed) {
+            throw new IllegalStateException("Unit of work has already been completed.");
+        }
+        if (root != this) {
+            committed = true;
+            return;
+        }
+        if (rollbackOnly) {
+            throw new DaoException("The changes could not be saved because part of the operation failed.");
+        }
+        try {
+            connection.commit();
+            committed = true;
+        } catch (SQLException e) {
+            throw new DaoException("Unable to save changes. Please try again.", e);
+        }
+        afterCommit.forEach(Runnable::run);
+        afterCommit.clear();
+    }
+
+    /**
+     * Ends the unit. An outermost unit that was not committed is rolled back and
+     * its connection is returned to the pool.
+     */
+    @Override
+    public void close() {
+        if (closed) {
+            return;
+        }
+        closed = true;
+
+        if (root != this) {
+            if (!committed) {
+                root.rollbackOnly = true;
+            }
+            return;
+        }
+
+        connectionHandler.endUnitOfWork(this);
+        try {
+            if (!committed) {
+                connection.rollback();
+            }
+        } catch (SQLException ignored) {
+            // the pool rolls back again and discards broken connections
+        } finally {
+            try {
+                connection.close();
+            } catch (SQLException ignored) {
+                // returning to the pool does not fail
+            }
+        }
+    }
+
+    /** Forwards calls to the unit's connection, keeping transaction control in the unit. */
+    private class SharedConnectionHandle implements InvocationHandler {
+        @Override
+        public Object invoke(Object proxy, Method method, Object[] args) throws Throwable {
+            switch (method.getName()) {
+                case "close":
+                case "commit":
+                case "setAutoCommit":
+                    return null;
+                case "rollback":
+                    if (args == null) {
+                        // a DAO method gave up, so the unit as a whole cannot commit
+                        rollbackOnly = true;
+                        return null;
+                    }
+                    break;
+                case "isClosed":
+                    return closed || connection.isClosed();
+                case "getAutoCommit":
+                    return false;
+                case "equals":
+                    return proxy == args[0];
+                case "hashCode":
+                    return System.identityHashCode(proxy);
+                default:
+                    break;
+            }
+            if (closed) {
+                throw new SQLException("Unit of work has already been closed.");
+            }
+            try {
+                return method.invoke(connection, args);
+            } catch (InvocationTargetException e) {
+                throw e.getCause();
+            }
+        }
+    }
+}
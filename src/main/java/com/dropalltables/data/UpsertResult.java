@@ -0,0 +1,33 @@
+package com.dropalltables.data;
+
+/**
+ * What an upsert did with its rows: how many it inserted, how many existing
+ * rows it changed, and how many already held the same values and were left
+ * alone. Repeating an upsert with the same rows reports them all as unchanged.
+ *
+ * @param inserted  Rows that did not exist yet.
+ * @param updated   Existing rows whose values differed.
+ * @param unchanged Existing rows that were already up to date.
+ */
+public record UpsertResult(int inserted, int updated, int unchanged) {
+
+    public static final UpsertResult NONE = new UpsertResult(0, 0, 0);
+
+    /**
+     * Adds the counts of another upsert to these.
+     */
+    public UpsertResult plus(UpsertResult other) {
+        return new UpsertResult(inserted + other.inserted, updated + other.updated, unchanged + other.unchanged);
+    }
+
+    /**
+     * The number of rows that were written, inserted or updated.
+     */
+    public int changed() {
+        return inserted + updated;
+    }
+
+    public int total() {
+        return inserted + updated + unchanged;
+    }
+}
@@ -0,0 +1,303 @@
+package com.dropalltables.io;
+
+import java.io.IOException;
+import java.io.InterruptedIOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.time.Duration;
+import java.time.Instant;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Locale;
+import java.util.concurrent.ArrayBlockingQueue;
+import java.util.concurrent.BlockingQueue;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.stream.Stream;
+
+import com.dropalltables.data.CancellationToken;
+import com.dropalltables.data.DaoException;
+import com.dropalltables.data.DataContext;
+import com.dropalltables.data.QueryCancelledException;
+
+/**
+ * Imports a folder of Excel workbooks, such as the files the company kept
+ * before this application, into the database.
+ *
+ * Sheets are recognised by name (Projects, Consultants, Milestones,
+ * Assignments, singular or plural) and their columns by the header row, so the
+ * column order does not matter and this application's own Excel export can be
+ * imported as well. Rows are matched on their project, consultant and
+ * milestone numbers and saved with the DAOs' upsert methods: new rows are
+ * inserted, changed rows updated, and rows that are already up to date are
+ * left alone, so importing the same files again changes nothing. A number
+ * that appears more than once in the run is saved from the first file, in
+ * sorted path order, and the first row in it.
+ *
+ * Parser threads read the workbooks at the same time with XlsxReader and hand
+ * batches of rows to the calling thread, which saves each batch in one
+ * transaction, taking the files in order. Each file's queue holds only a few
+ * batches and only one file per parser thread is read ahead, so parsers wait
+ * for the database instead of filling the heap. Projects and consultants
+ * are imported in a first pass over all files, milestones and assignments in a
+ * second, so rows can refer to projects and consultants from any file.
+ *
+ * Rows that cannot be read or saved are reported per file and do not stop the
+ * import; see ImportSaver for how batches are saved.
+ */
+public class ExcelImport {
+
+    /** Receives the import's progress; called on the importing thread. */
+    @FunctionalInterface
+    public interface ProgressListener {
+        /**
+         * @param fraction The part of the work done, from 0 to 1.
+         * @param rowsRead The rows read so far.
+         */
+        void progress(double fraction, long rowsRead);
+    }
+
+    private static final int BATCH_SIZE = 1024;
+    // batches queued per file being parsed; bounds the rows in memory
+    private static final int QUEUE_CAPACITY = 2;
+
+    private final CancellationToken cancellation;
+    private final ProgressListener listener;
+    private final ImportSaver saver;
+    private final AtomicLong rowsRead = new AtomicLong();
+
+    /**
+     * Constructor for ExcelImport.
+     *
+     * @param dataContext  The data context to save the rows through.
+     * @param cancellation Stops the import between batches.
+     * @param listener     Receives progress reports.
+     */
+    public ExcelImport(DataContext dataContext, CancellationToken cancellation, ProgressListener listener) {
+        this.cancellation = cancellation;
+        this.listener = listener;
+        this.saver = new ImportSaver(dataContext);
+    }
+
+    /**
+     * Imports every .xlsx workbook in a folder and its subfolders. Batches
+     * saved before a cancellation stay saved.
+     *
+     * @param directory The folder to scan.
+     * @return A report per file, with row counts and errors.
+     * @throws QueryCancelledException if the import was cancelled.
+     * @throws DaoException            if the folder cannot be read.
+     */
+    public ImportReport importDirectory(Path directory) throws DaoException {
+        Instant start = Instant.now();
+        List<ImportFile> files = new ArrayList<>();
+        for (Path file : findWorkbooks(directory)) {
+            files.add(new ImportFile(file));
+        }
+        listener.progress(0, 0);
+
+        int threads = Math.max(1, Math.min(files.size(), Runtime.getRuntime().availableProcessors()));
+        ExecutorService parsers = Executors.newFixedThreadPool(threads,
+                Thread.ofPlatform().name("excel-import-", 0).daemon().factory());
+        try {
+            for (int pass = 1; pass <= ImportTable.PASSES; pass++) {
+                runPass(parsers, files, pass, threads);
+            }
+        } finally {
+            // interrupts parsers waiting for queue space after a cancellation
+            parsers.shutdownNow();
+        }
+
+        List<ImportReport.FileReport> reports = new ArrayList<>();
+        for (ImportFile file : files) {
+            reports.add(file.toReport());
+        }
+        return new ImportReport(reports, Duration.between(start, Instant.now()));
+    }
+
+    private List<Path> findWorkbooks(Path directory) throws DaoException {
+        try (Stream<Path> paths = Files.walk(directory)) {
+            return paths.filter(Files::isRegularFile)
+                    .filter(path -> {
+                        String name = path.getFileName().toString().toLowerCase(Locale.ROOT);
+                        // ~$ files are Excel's lock files of open workbooks
+                        return (name.endsWith(".xlsx") || name.endsWith(".xls")) && !name.startsWith("~$");
+                    })
+                    .sorted()
+                    .toList();
+        } catch (IOException | RuntimeException e) {
+            throw new DaoException("Unable to read the folder " + directory + ". Please check it and try again.", e);
+        }
+    }
+
+    private void runPass(ExecutorService parsers, List<ImportFile> files, int pass, int threads)
+            throws DaoException {
+        // Files are saved one after another in sorted order, so the first row of
+        // a number is the same on every run. The next few files are parsed ahead,
+        // one per parser thread, and wait when their queue is full.
+        List<BlockingQueue<Batch>> queues = new ArrayList<>(files.size());
+        for (int i = 0; i < files.size(); i++) {
+            queues.add(null);
+        }
+        int started = 0;
+        for (; started < Math.min(threads, files.size()); started++) {
+            startParsing(parsers, files, queues, started, pass);
+        }
+
+        for (int current = 0; current < files.size(); current++) {
+            BlockingQueue<Batch> queue = queues.get(current);
+            while (true) {
+                if (cancellation.isCancelled()) {
+                    throw new QueryCancelledException();
+                }
+                Batch batch;
+                try {
+                    batch = queue.poll(200, TimeUnit.MILLISECONDS);
+                } catch (InterruptedException e) {
+                    Thread.currentThread().interrupt();
+                    throw new QueryCancelledException();
+                }
+                if (batch == null) {
+                    continue;
+                }
+                if (batch.isEnd()) {
+                    break;
+                }
+                saver.save(batch.file(), batch.table(), batch.rows());
+                listener.progress(progress(pass, current, files.size()), rowsRead.get());
+            }
+            queues.set(current, null);
+            if (started < files.size()) {
+                startParsing(parsers, files, queues, started++, pass);
+            }
+            listener.progress(progress(pass, current + 1, files.size()), rowsRead.get());
+        }
+    }
+
+    private void startParsing(ExecutorService parsers, List<ImportFile> files, List<BlockingQueue<Batch>> queues,
+            int index, int pass) {
+        BlockingQueue<Batch> queue = new ArrayBlockingQueue<>(QUEUE_CAPACITY);
+        queues.set(index, queue);
+        ImportFile file = files.get(index);
+        parsers.execute(() -> parse(file, pass, queue));
+    }
+
+    private static double progress(int pass, int filesDone, int files) {
+        return (pass - 1 + (double) filesDone / files) / ImportTable.PASSES;
+    }
+
+    // ------------------------------------------------------------------
+    // Parsing, on the parser threads
+    // ------------------------------------------------------------------
+
+    private void parse(ImportFile file, int pass, BlockingQueue<Batch> queue) {
+        try {
+            if (file.unreadable) {
+                return;
+            }
+            if (file.path.getFileName().toString().toLowerCase(Locale.ROOT).endsWith(".xls")) {
+                file.unreadable = true;
+                file.error("Excel 97-2003 workbooks (.xls) cannot be read. Save the file as .xlsx and import it again.");
+                return;
+            }
+            try (XlsxReader reader = new XlsxReader(file.path)) {
+                for (String sheet : reader.getSheetNames()) {
+                    ImportTable table = ImportTable.of(sheet);
+                    if (table != null && table.pass == pass) {
+                        SheetParser parser = new SheetParser(file, sheet, table, queue);
+                        reader.readSheet(sheet, parser);
+                        parser.flush();
+                    }
+                }
+            }
+        } catch (InterruptedIOException e) {
+            // cancelled
+            return;
+        } catch (IOException | RuntimeException e) {
+            file.unreadable = true;
+            file.error("The workbook could not be read: " + e.getMessage());
+        } finally {
+            try {
+                queue.put(Batch.end(file));
+            } catch (InterruptedException e) {
+                Thread.currentThread().interrupt();
+            }
+        }
+    }
+
+    /** Maps the rows of one sheet and queues them in batches. */
+    private class SheetParser implements XlsxReader.RowHandler {
+        private final ImportFile file;
+        private final String sheet;
+        private final ImportTable table;
+        private final BlockingQueue<Batch> queue;
+
+        private int[] columns;
+        private boolean skipped = false;
+        private List<ImportRow> rows = new ArrayList<>(BATCH_SIZE);
+
+        SheetParser(ImportFile file, String sheet, ImportTable table, BlockingQueue<Batch> queue) {
+            this.file = file;
+            this.sheet = sheet;
+            this.table = table;
+            this.queue = queue;
+        }
+
+        @Override
+        public void row(int rowNumber, List<Object> cells) throws IOException {
+            if (skipped || ImportTable.isBlank(cells)) {
+                return;
+            }
+            if (columns == null) {
+                readHeader(cells);
+                return;
+            }
+            file.rowRead();
+            rowsRead.incrementAndGet();
+            try {
+                rows.add(new ImportRow(sheet, rowNumber, table.map(columns, cells)));
+            } catch (ImportTable.InvalidRowException e) {
+                file.error(sheet + " row " + rowNumber + ": " + e.getMessage());
+            }
+            if (rows.size() == BATCH_SIZE) {
+                flush();
+            }
+        }
+
+        void flush() throws IOException {
+            if (rows.isEmpty()) {
+                return;
+            }
+            try {
+                // blocks while the queue is full, so parsing waits for the database
+                queue.put(new Batch(file, table, rows));
+            } catch (InterruptedException e) {
+                Thread.currentThread().interrupt();
+                throw new InterruptedIOException();
+            }
+            rows = new ArrayList<>(BATCH_SIZE);
+        }
+
+        private void readHeader(List<Object> cells) {
+            List<String> missing = new ArrayList<>();
+            columns = table.columns(cells, missing);
+            if (!missing.isEmpty()) {
+                skipped = true;
+                file.error(sheet + ": missing column(s) " + String.join(", ", missing) + "; the sheet was skipped.");
+            }
+        }
+    }
+
+    /** A batch of rows from one sheet, or the end of a file's pass if table is null. */
+    private record Batch(ImportFile file, ImportTable table, List<ImportRow> rows) {
+        static Batch end(ImportFile file) {
+            return new Batch(file, null, List.of());
+        }
+
+        boolean isEnd() {
+            return table == null;
+        }
+    }
+}
@@ -0,0 +1,57 @@
+package com.dropalltables.io;
+
+import java.util.List;
+
+/**
+ * The tables an export writes, in order, with their columns. Each column has
+ * a title for spreadsheets and a key for CSV headers and NDJSON fields; the
+ * keys match the column names ImportTable recognises, so exported files can
+ * be imported again.
+ */
+enum ExportTable {
+    PROJECTS("Projects", "projects",
+            new Column("Project No", "projectNo"),
+            new Column("Name", "name"),
+            new Column("Start date", "startDate"),
+            new Column("End date", "endDate"),
+            new Column("Team size", "teamSize"),
+            new Column("Hours worked", "hoursWorked")),
+    CONSULTANTS("Consultants", "consultants",
+            new Column("Consultant No", "consultantNo"),
+            new Column("Name", "name"),
+            new Column("Title", "title"),
+            new Column("Projects", "projectCount"),
+            new Column("Hours worked", "hoursWorked")),
+    MILESTONES("Milestones", "milestones",
+            new Column("Milestone No", "milestoneNo"),
+            new Column("Name", "name"),
+            new Column("Date", "date"),
+            new Column("Project No", "projectNo")),
+    ASSIGNMENTS("Assignments", "assignments",
+            new Column("Consultant No", "consultantNo"),
+            new Column("Project No", "projectNo"),
+            new Column("Hours worked", "hoursWorked"));
+
+    record Column(String title, String key) {
+    }
+
+    /** The sheet name. */
+    final String title;
+    /** The file name without extension. */
+    final String fileName;
+    final List<Column> columns;
+
+    ExportTable(String title, String fileName, Column... columns) {
+        this.title = title;
+        this.fileName = fileName;
+        this.columns = List.of(columns);
+    }
+
+    String[] titles() {
+        return columns.stream().map(Column::title).toArray(String[]::new);
+    }
+
+    List<String> keys() {
+        return columns.stream().map(Column::key).toList();
+    }
+}
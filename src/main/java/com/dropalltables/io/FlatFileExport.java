@@ -0,0 +1,135 @@
+package com.dropalltables.io;
+
+import java.io.IOException;
+import java.nio.channels.FileChannel;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardCopyOption;
+import java.nio.file.StandardOpenOption;
+import java.util.ArrayList;
+import java.util.List;
+
+import com.dropalltables.data.CancellationToken;
+import com.dropalltables.data.DaoException;
+import com.dropalltables.data.DataContext;
+import com.dropalltables.data.QueryCancelledException;
+
+/**
+ * Exports the live contents of the database to one CSV or NDJSON file per
+ * table, named projects, consultants, milestones and assignments, for tools
+ * such as payroll and BI. The columns are those of the Excel export, with
+ * keys such as projectNo and hoursWorked as CSV headers and NDJSON field
+ * names; FlatFileImport reads the files back.
+ *
+ * The tables are streamed by TableExport into a FlatFileWriter per file, so
+ * heap use stays flat however many rows there are. All files are written to
+ * temporary files in the target folder and only moved into place once the
+ * last one is complete, so a failed or cancelled export leaves existing files
+ * untouched.
+ */
+public class FlatFileExport {
+
+    /** Receives the export's progress; called on the exporting thread. */
+    @FunctionalInterface
+    public interface ProgressListener {
+        /**
+         * @param rowsWritten   Rows written so far.
+         * @param estimatedRows The estimated total, 0 if unknown; may be
+         *                      exceeded while others insert rows.
+         */
+        void progress(long rowsWritten, long estimatedRows);
+    }
+
+    private static final String WRITE_ERROR = "Unable to write the export files. "
+            + "Please check that the folder can be written to and try again.";
+
+    private final DataContext dataContext;
+    private final CancellationToken cancellation;
+    private final ProgressListener listener;
+
+    /**
+     * Constructor for FlatFileExport.
+     *
+     * @param dataContext  The data context to read from.
+     * @param cancellation Stops the export, including the running query.
+     * @param listener     Receives progress reports.
+     */
+    public FlatFileExport(DataContext dataContext, CancellationToken cancellation, ProgressListener listener) {
+        this.dataContext = dataContext;
+        this.cancellation = cancellation;
+        this.listener = listener;
+    }
+
+    /**
+     * Writes one file per table to a folder, replacing files of the same name.
+     *
+     * @param directory The folder to write to.
+     * @param format    CSV or NDJSON.
+     * @return The files written, in table order.
+     * @throws QueryCancelledException if the export was cancelled.
+     * @throws DaoException            if the database cannot be read or the
+     *                                 files cannot be written.
+     */
+    public List<Path> exportTo(Path directory, FlatFileFormat format) throws DaoException {
+        List<Path> targets = new ArrayList<>();
+        List<Path> temporaries = new ArrayList<>();
+        try {
+            try (FileSink sink = new FileSink(directory.toAbsolutePath(), format, targets, temporaries)) {
+                new TableExport(dataContext, cancellation, listener::progress).writeTo(sink);
+            }
+            for (int i = 0; i < targets.size(); i++) {
+                Files.move(temporaries.get(i), targets.get(i), StandardCopyOption.REPLACE_EXISTING);
+            }
+            return targets;
+        } catch (IOException e) {
+            throw new DaoException(WRITE_ERROR, e);
+        } finally {
+            for (Path temporary : temporaries) {
+                try {
+                    Files.deleteIfExists(temporary);
+                } catch (IOException ignored) {
+                    // only a leftover temporary file
+                }
+            }
+        }
+    }
+
+    /** Opens a temporary file per table and writes its rows. */
+    private static class FileSink implements TableExport.TableSink, AutoCloseable {
+        private final Path directory;
+        private final FlatFileFormat format;
+        private final List<Path> targets;
+        private final List<Path> temporaries;
+        private FlatFileWriter writer;
+
+        FileSink(Path directory, FlatFileFormat format, List<Path> targets, List<Path> temporaries) {
+            this.directory = directory;
+            this.format = format;
+            this.targets = targets;
+            this.temporaries = temporaries;
+        }
+
+        @Override
+        public void startTable(ExportTable table) throws IOException {
+            close();
+            Path temporary = Files.createTempFile(directory, ".export-", format.extension() + ".tmp");
+            temporaries.add(temporary);
+            targets.add(directory.resolve(table.fileName + format.extension()));
+            writer = new FlatFileWriter(FileChannel.open(temporary, StandardOpenOption.WRITE,
+                    StandardOpenOption.TRUNCATE_EXISTING), format, table.keys());
+        }
+
+        @Override
+        public void writeRow(Object... values) throws IOException {
+            writer.writeRow(values);
+        }
+
+        @Override
+        public void close() throws IOException {
+            if (writer != null) {
+                writer.close();
+                writer = null;
+            }
+        }
+    }
+}
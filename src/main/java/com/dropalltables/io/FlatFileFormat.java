@@ -0,0 +1,43 @@
+package com.dropalltables.io;
+
+import java.nio.file.Path;
+import java.util.Locale;
+
+/**
+ * The flat file formats for exchanging tables with other tools, such as
+ * payroll and BI. Both are UTF-8 text with one row per line.
+ */
+public enum FlatFileFormat {
+    /** Comma-separated values as in RFC 4180, with a header row. */
+    CSV(".csv"),
+    /** Newline-delimited JSON: one flat JSON object per line. */
+    NDJSON(".ndjson");
+
+    private final String extension;
+
+    FlatFileFormat(String extension) {
+        this.extension = extension;
+    }
+
+    /** The file extension written by exports, with the dot. */
+    public String extension() {
+        return extension;
+    }
+
+    /**
+     * Recognises the format of a file by its extension; .jsonl is read as
+     * NDJSON.
+     *
+     * @return The format, or null if the extension is not one of them.
+     */
+    public static FlatFileFormat of(Path file) {
+        String name = file.getFileName().toString().toLowerCase(Locale.ROOT);
+        if (name.endsWith(".csv")) {
+            return CSV;
+        }
+        if (name.endsWith(".ndjson") || name.endsWith(".jsonl")) {
+            return NDJSON;
+        }
+        return null;
+    }
+}
@@ -0,0 +1,221 @@
+package com.dropalltables.io;
+
+import java.io.IOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.time.Duration;
+import java.time.Instant;
+import java.util.ArrayList;
+import java.util.List;
+
+import com.dropalltables.data.CancellationToken;
+import com.dropalltables.data.DaoException;
+import com.dropalltables.data.DataContext;
+import com.dropalltables.data.QueryCancelledException;
+import com.dropalltables.data.UncheckedDaoException;
+
+/**
+ * Imports CSV and NDJSON files, such as those from payroll and BI tools or
+ * FlatFileExport, into the database.
+ *
+ * Each file holds one table, recognised by its name: projects.csv,
+ * consultants.ndjson, Assignments-2024.csv and so on. Columns are recognised
+ * by the CSV header or the NDJSON field names, in any order, as in
+ * ExcelImport. Rows are matched on their project, consultant and milestone
+ * numbers and saved in batches with the DAOs' upsert methods (see
+ * ImportSaver), so importing the same files again changes nothing. Files of
+ * projects and consultants are imported before those of milestones and
+ * assignments, whatever order they are given in.
+ *
+ * Files are read one at a time with FlatFileReader on the calling thread:
+ * parsing a batch takes a fraction of the time its upsert does, so a parser
+ * thread would gain little.
+ */
+public class FlatFileImport {
+
+    /** Receives the import's progress; called on the importing thread. */
+    @FunctionalInterface
+    public interface ProgressListener {
+        /**
+         * @param fraction The part of the bytes read, from 0 to 1.
+         * @param rowsRead The rows read so far.
+         */
+        void progress(double fraction, long rowsRead);
+    }
+
+    private static final int BATCH_SIZE = 1024;
+
+    private final CancellationToken cancellation;
+    private final ProgressListener listener;
+    private final ImportSaver saver;
+
+    private long totalBytes = 0;
+    private long bytesDone = 0;
+    private long rowsRead = 0;
+
+    /**
+     * Constructor for FlatFileImport.
+     *
+     * @param dataContext  The data context to save the rows through.
+     * @param cancellation Stops the import between batches.
+     * @param listener     Receives progress reports.
+     */
+    public FlatFileImport(DataContext dataContext, CancellationToken cancellation, ProgressListener listener) {
+        this.cancellation = cancellation;
+        this.listener = listener;
+        this.saver = new ImportSaver(dataContext);
+    }
+
+    /**
+     * Imports the given files. Batches saved before a cancellation stay saved.
+     *
+     * @param paths The .csv, .ndjson or .jsonl files.
+     * @return A report per file, with row counts and errors.
+     * @throws QueryCancelledException if the import was cancelled.
+     * @throws DaoException            if the database cannot be read.
+     */
+    public ImportReport importFiles(List<Path> paths) throws DaoException {
+        Instant start = Instant.now();
+        List<ImportFile> files = new ArrayList<>();
+        List<ImportTable> tables = new ArrayList<>();
+        for (Path path : paths) {
+            ImportFile file = new ImportFile(path);
+            files.add(file);
+            tables.add(recognise(file));
+            try {
+                totalBytes += Files.size(path);
+            } catch (IOException e) {
+                // reported when the file is read
+            }
+        }
+        listener.progress(0, 0);
+
+        for (int pass = 1; pass <= ImportTable.PASSES; pass++) {
+            for (int i = 0; i < files.size(); i++) {
+                ImportTable table = tables.get(i);
+                if (table != null && table.pass == pass) {
+                    importFile(files.get(i), table);
+                }
+            }
+        }
+
+        List<ImportReport.FileReport> reports = new ArrayList<>();
+        for (ImportFile file : files) {
+            reports.add(file.toReport());
+        }
+        return new ImportReport(reports, Duration.between(start, Instant.now()));
+    }
+
+    private static ImportTable recognise(ImportFile file) {
+        if (FlatFileFormat.of(file.path) == null) {
+            file.error("Only .csv, .ndjson and .jsonl files can be imported.");
+            return null;
+        }
+        String name = file.path.getFileName().toString();
+        ImportTable table = ImportTable.of(name.substring(0, name.lastIndexOf('.')));
+        if (table == null) {
+            file.error("The file name must say which table it holds: "
+                    + "projects, consultants, milestones or assignments.");
+        }
+        return table;
+    }
+
+    private void importFile(ImportFile file, ImportTable table) throws DaoException {
+        long fileBytes = 0;
+        try (FlatFileReader reader = new FlatFileReader(file.path, FlatFileFormat.of(file.path))) {
+            fileBytes = reader.size();
+            FileParser parser = new FileParser(file, table, reader);
+            reader.read(parser);
+            parser.flush();
+        } catch (UncheckedDaoException e) {
+            throw e.getCause();
+        } catch (MissingColumnsException e) {
+            file.error(e.getMessage());
+        } catch (IOException e) {
+            file.error("The file could not be read: " + e.getMessage());
+        }
+        bytesDone += fileBytes;
+        listener.progress(totalBytes > 0 ? (double) bytesDone / totalBytes : 1, rowsRead);
+    }
+
+    /** A CSV header without a required column; the file is skipped. */
+    private static class MissingColumnsException extends IOException {
+        MissingColumnsException(String message) {
+            super(message);
+        }
+    }
+
+    /** Maps the rows of one file and saves them in batches. */
+    private class FileParser implements FlatFileReader.RowHandler {
+        private final ImportFile file;
+        private final ImportTable table;
+        private final FlatFileReader reader;
+        private final String source;
+
+        // the columns of the last names seen; CSV has one header, NDJSON names per line
+        private List<String> names;
+        private int[] columns;
+        private List<String> missing;
+        private List<ImportRow> rows = new ArrayList<>(BATCH_SIZE);
+
+        FileParser(ImportFile file, ImportTable table, FlatFileReader reader) {
+            this.file = file;
+            this.table = table;
+            this.reader = reader;
+            this.source = file.path.getFileName().toString();
+        }
+
+        @Override
+        public void row(long rowNumber, List<String> names, List<Object> values) throws IOException {
+            if (ImportTable.isBlank(values)) {
+                return;
+            }
+            if (!names.equals(this.names)) {
+                this.names = List.copyOf(names);
+                missing = new ArrayList<>();
+                columns = table.columns(names, missing);
+                if (!missing.isEmpty() && FlatFileFormat.of(file.path) == FlatFileFormat.CSV) {
+                    throw new MissingColumnsException("Missing column(s) " + String.join(", ", missing)
+                            + "; the file was skipped.");
+                }
+            }
+            file.rowRead();
+            rowsRead++;
+            if (!missing.isEmpty()) {
+                file.error(source + " row " + rowNumber + ": missing field(s) " + String.join(", ", missing) + ".");
+            } else {
+                try {
+                    rows.add(new ImportRow(source, rowNumber, table.map(columns, values)));
+                } catch (ImportTable.InvalidRowException e) {
+                    file.error(source + " row " + rowNumber + ": " + e.getMessage());
+                }
+            }
+            if (rows.size() == BATCH_SIZE) {
+                flush();
+            }
+        }
+
+        @Override
+        public void invalid(long rowNumber, String message) {
+            file.rowRead();
+            rowsRead++;
+            file.error(source + " row " + rowNumber + ": " + message);
+        }
+
+        void flush() throws IOException {
+            if (cancellation.isCancelled()) {
+                throw new UncheckedDaoException(new QueryCancelledException());
+            }
+            if (!rows.isEmpty()) {
+                try {
+                    saver.save(file, table, rows);
+                } catch (DaoException e) {
+                    throw new UncheckedDaoException(e);
+                }
+                rows = new ArrayList<>(BATCH_SIZE);
+            }
+            double done = totalBytes > 0 ? (double) (bytesDone + reader.position()) / totalBytes : 0;
+            listener.progress(Math.min(done, 1), rowsRead);
+        }
+    }
+}
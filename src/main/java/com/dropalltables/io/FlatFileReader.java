@@ -0,0 +1,439 @@
+package com.dropalltables.io;
+
+import java.io.Closeable;
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Path;
+import java.nio.file.StandardOpenOption;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+
+/**
+ * Reads the rows of a CSV or NDJSON file, one at a time.
+ *
+ * The file is read through a FileChannel into a direct buffer and parsed as
+ * UTF-8 bytes: the characters that structure a row (quotes, commas, braces,
+ * line feeds) are all ASCII and never part of a multi-byte character, so only
+ * the contents of each field are decoded, once, when the field ends.
+ *
+ * CSV files must start with a header row and may quote fields as in RFC 4180;
+ * empty unquoted fields are read as null. NDJSON lines must each hold one
+ * flat JSON object; strings are read as String, numbers as Double, and true,
+ * false and null as Boolean and null. A line that is not such an object is
+ * reported to the handler and skipped. Blank lines are skipped in both.
+ */
+final class FlatFileReader implements Closeable {
+
+    /** Receives the rows of a file in order. */
+    interface RowHandler {
+        /**
+         * @param rowNumber The line, or for CSV the record, the header being 1.
+         * @param names     The column names: the CSV header, or the fields of
+         *                  the NDJSON object in the order they appear.
+         * @param values    The values, one per name; only valid during the call.
+         */
+        void row(long rowNumber, List<String> names, List<Object> values) throws IOException;
+
+        /** Called for an NDJSON line that could not be parsed. */
+        void invalid(long rowNumber, String message) throws IOException;
+    }
+
+    private static final int BUFFER_SIZE = 256 * 1024;
+    // a longer field is taken as a broken file, e.g. a quote that is never closed
+    private static final int MAX_FIELD_BYTES = 1024 * 1024;
+
+    private final FileChannel channel;
+    private final FlatFileFormat format;
+    private final ByteBuffer buffer = ByteBuffer.allocateDirect(BUFFER_SIZE);
+
+    // the field being read, as UTF-8
+    private byte[] field = new byte[256];
+    private int fieldLength = 0;
+
+    // NDJSON: the current byte, not yet consumed; -1 at the end of the file
+    private int ch;
+
+    /**
+     * Opens a file for reading.
+     *
+     * @param file   The file.
+     * @param format CSV or NDJSON.
+     * @throws IOException if the file cannot be opened.
+     */
+    FlatFileReader(Path file, FlatFileFormat format) throws IOException {
+        this.channel = FileChannel.open(file, StandardOpenOption.READ);
+        this.format = format;
+        buffer.limit(0);
+    }
+
+    /** The size of the file in bytes. */
+    long size() throws IOException {
+        return channel.size();
+    }
+
+    /** The number of bytes parsed so far. */
+    long position() throws IOException {
+        return channel.position() - buffer.remaining();
+    }
+
+    /**
+     * Reads the file and passes each row to the handler.
+     *
+     * @throws IOException if the file cannot be read, a CSV file is malformed,
+     *                     or the handler throws.
+     */
+    void read(RowHandler handler) throws IOException {
+        skipByteOrderMark();
+        if (format == FlatFileFormat.CSV) {
+            readCsv(handler);
+        } else {
+            readNdjson(handler);
+        }
+    }
+
+    @Override
+    public void close() throws IOException {
+        channel.close();
+    }
+
+    // ------------------------------------------------------------------
+    // CSV
+    // ------------------------------------------------------------------
+
+    private void readCsv(RowHandler handler) throws IOException {
+        List<String> names = null;
+        List<Object> values = new ArrayList<>();
+        long record = 0;
+        while (readCsvRecord(values, record + 1)) {
+            record++;
+            if (values.size() == 1 && values.get(0) == null) {
+                continue;
+            }
+            if (names == null) {
+                names = header(values);
+            } else {
+                handler.row(record, names, values);
+            }
+        }
+    }
+
+    private static List<String> header(List<Object> values) {
+        List<String> names = new ArrayList<>(values.size());
+        for (Object value : values) {
+            names.add(value != null ? value.toString() : "");
+        }
+        return List.copyOf(names);
+    }
+
+    /**
+     * Reads the fields of one record into values.
+     *
+     * @return false at the end of the file.
+     */
+    private boolean readCsvRecord(List<Object> values, long record) throws IOException {
+        values.clear();
+        int c = next();
+        if (c < 0) {
+            return false;
+        }
+        while (true) {
+            fieldLength = 0;
+            boolean quoted = c == '"';
+            if (quoted) {
+                while (true) {
+                    c = next();
+                    if (c < 0) {
+                        throw new IOException("A quoted field in row " + record + " is never closed.");
+                    }
+                    if (c == '"') {
+                        c = next();
+                        if (c != '"') {
+                            break;
+                        }
+                    }
+                    append(c);
+                }
+            }
+            // unquoted text, or anything after a closing quote
+            while (c != ',' && c != '\n' && c >= 0) {
+                if (c != '\r') {
+                    append(c);
+                }
+                c = next();
+            }
+            values.add(quoted || fieldLength > 0 ? fieldString() : null);
+            if (c != ',') {
+                return true;
+            }
+            c = next();
+        }
+    }
+
+    // ------------------------------------------------------------------
+    // NDJSON
+    // ------------------------------------------------------------------
+
+    /** A line that is not a flat JSON object. */
+    private static class InvalidLineException extends Exception {
+        InvalidLineException(String message) {
+            super(message);
+        }
+    }
+
+    private void readNdjson(RowHandler handler) throws IOException {
+        List<String> names = new ArrayList<>();
+        List<Object> values = new ArrayList<>();
+        long line = 0;
+        advance();
+        while (ch >= 0) {
+            line++;
+            skipSpace();
+            if (ch == '\n') {
+                advance();
+                continue;
+            }
+            if (ch < 0) {
+                break;
+            }
+            names.clear();
+            values.clear();
+            try {
+                readObject(names, values);
+                skipSpace();
+                if (ch != '\n' && ch >= 0) {
+                    throw new InvalidLineException("Unexpected text after the JSON object.");
+                }
+            } catch (InvalidLineException e) {
+                handler.invalid(line, e.getMessage());
+                while (ch != '\n' && ch >= 0) {
+                    advance();
+                }
+                advance();
+                continue;
+            }
+            handler.row(line, names, values);
+            advance();
+        }
+    }
+
+    private void readObject(List<String> names, List<Object> values) throws IOException, InvalidLineException {
+        if (ch != '{') {
+            throw new InvalidLineException("Each line must hold one JSON object.");
+        }
+        advance();
+        skipSpace();
+        if (ch == '}') {
+            advance();
+            return;
+        }
+        while (true) {
+            if (ch != '"') {
+                throw new InvalidLineException("Expected a field name in quotes.");
+            }
+            names.add(readString());
+            skipSpace();
+            if (ch != ':') {
+                throw new InvalidLineException("Expected ':' after the field name.");
+            }
+            advance();
+            skipSpace();
+            values.add(readValue());
+            skipSpace();
+            if (ch == ',') {
+                advance();
+                skipSpace();
+            } else if (ch == '}') {
+                advance();
+                return;
+            } else {
+                throw new InvalidLineException("Expected ',' or '}' after a value.");
+            }
+        }
+    }
+
+    private Object readValue() throws IOException, InvalidLineException {
+        return switch (ch) {
+            case '"' -> readString();
+            case 't' -> readLiteral("true", Boolean.TRUE);
+            case 'f' -> readLiteral("false", Boolean.FALSE);
+            case 'n' -> readLiteral("null", null);
+            case '{', '[' -> throw new InvalidLineException("Nested objects and arrays are not supported.");
+            default -> {
+                if (ch == '-' || (ch >= '0' && ch <= '9')) {
+                    yield readNumber();
+                }
+                throw new InvalidLineException("Expected a value.");
+            }
+        };
+    }
+
+    private Object readLiteral(String literal, Object value) throws IOException, InvalidLineException {
+        for (int i = 0; i < literal.length(); i++) {
+            if (ch != literal.charAt(i)) {
+                throw new InvalidLineException("Expected a value.");
+            }
+            advance();
+        }
+        return value;
+    }
+
+    private Double readNumber() throws IOException, InvalidLineException {
+        fieldLength = 0;
+        while ((ch >= '0' && ch <= '9') || ch == '-' || ch == '+' || ch == '.' || ch == 'e' || ch == 'E') {
+            append(ch);
+            advance();
+        }
+        String number = fieldString();
+        try {
+            return Double.valueOf(number);
+        } catch (NumberFormatException e) {
+            throw new InvalidLineException("Invalid number: " + number);
+        }
+    }
+
+    private String readString() throws IOException, InvalidLineException {
+        fieldLength = 0;
+        // a \\u escape of the first half of a surrogate pair, waiting for the second
+        int high = -1;
+        advance();
+        while (true) {
+            if (ch < 0 || ch == '\n') {
+                throw new InvalidLineException("A string is never closed.");
+            }
+            if (ch == '"') {
+                advance();
+                break;
+            }
+            if (ch != '\\') {
+                high = flushSurrogate(high);
+                append(ch);
+                advance();
+                continue;
+            }
+            advance();
+            int escaped = switch (ch) {
+                case '"', '\\', '/' -> ch;
+                case 'b' -> '\b';
+                case 'f' -> '\f';
+                case 'n' -> '\n';
+                case 'r' -> '\r';
+                case 't' -> '\t';
+                case 'u' -> readHex();
+                default -> throw new InvalidLineException("Invalid escape in a string.");
+            };
+            advance();
+            if (Character.isHighSurrogate((char) escaped)) {
+                flushSurrogate(high);
+                high = escaped;
+            } else if (Character.isLowSurrogate((char) escaped) && high >= 0) {
+                appendCodePoint(Character.toCodePoint((char) high, (char) escaped));
+                high = -1;
+            } else {
+                high = flushSurrogate(high);
+                appendCodePoint(escaped);
+            }
+        }
+        flushSurrogate(high);
+        return fieldString();
+    }
+
+    /** Reads the four digits of a \\u escape, leaving the last one current. */
+    private int readHex() throws IOException, InvalidLineException {
+        int value = 0;
+        for (int i = 0; i < 4; i++) {
+            advance();
+            int digit = Character.digit(ch, 16);
+            if (digit < 0) {
+                throw new InvalidLineException("Invalid \\u escape in a string.");
+            }
+            value = value << 4 | digit;
+        }
+        return value;
+    }
+
+    /** A surrogate without its other half cannot be encoded; it becomes '?'. */
+    private int flushSurrogate(int high) throws IOException {
+        if (high >= 0) {
+            append('?');
+        }
+        return -1;
+    }
+
+    private void skipSpace() throws IOException {
+        while (ch == ' ' || ch == '\t' || ch == '\r') {
+            advance();
+        }
+    }
+
+    private void advance() throws IOException {
+        ch = next();
+    }
+
+    // ------------------------------------------------------------------
+    // Bytes
+    // ------------------------------------------------------------------
+
+    /** Skips the UTF-8 byte order mark that Excel writes in front of CSV files. */
+    private void skipByteOrderMark() throws IOException {
+        if (next() < 0) {
+            return;
+        }
+        int start = buffer.position() - 1;
+        boolean mark = buffer.limit() - start >= 3
+                && (buffer.get(start) & 0xFF) == 0xEF
+                && (buffer.get(start + 1) & 0xFF) == 0xBB
+                && (buffer.get(start + 2) & 0xFF) == 0xBF;
+        buffer.position(mark ? start + 3 : start);
+    }
+
+    /** The next byte as 0 to 255, or -1 at the end of the file. */
+    private int next() throws IOException {
+        if (!buffer.hasRemaining()) {
+            buffer.clear();
+            int read;
+            do {
+                read = channel.read(buffer);
+            } while (read == 0);
+            buffer.flip();
+            if (read < 0) {
+                return -1;
+            }
+        }
+        return buffer.get() & 0xFF;
+    }
+
+    private void append(int b) throws IOException {
+        if (fieldLength == field.length) {
+            if (fieldLength >= MAX_FIELD_BYTES) {
+                throw new IOException("A field is longer than " + MAX_FIELD_BYTES + " bytes; the file seems to be broken.");
+            }
+            field = Arrays.copyOf(field, fieldLength * 2);
+        }
+        field[fieldLength++] = (byte) b;
+    }
+
+    private void appendCodePoint(int codePoint) throws IOException {
+        if (codePoint < 0x80) {
+            append(codePoint);
+        } else if (codePoint < 0x800) {
+            append(0xC0 | codePoint >> 6);
+            append(0x80 | codePoint & 0x3F);
+        } else if (codePoint < 0x10000) {
+            append(0xE0 | codePoint >> 12);
+            append(0x80 | codePoint >> 6 & 0x3F);
+            append(0x80 | codePoint & 0x3F);
+        } else {
+            append(0xF0 | codePoint >> 18);
+            append(0x80 | codePoint >> 12 & 0x3F);
+            append(0x80 | codePoint >> 6 & 0x3F);
+            append(0x80 | codePoint & 0x3F);
+        }
+    }
+
+    private String fieldString() {
+        return new String(field, 0, fieldLength, StandardCharsets.UTF_8);
+    }
+}
@@ -0,0 +1,281 @@
+package com.dropalltables.io;
+
+import java.io.Closeable;
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.channels.WritableByteChannel;
+import java.nio.charset.StandardCharsets;
+import java.time.LocalDate;
+import java.util.List;
+
+/**
+ * Writes rows as CSV or NDJSON to a channel, such as a FileChannel.
+ *
+ * Values are encoded as UTF-8 straight into a direct buffer, which is handed
+ * to the channel when full; there is no Writer, String or byte array in
+ * between, and the channel does not have to copy a heap buffer into native
+ * memory first. Integers and dates are written digit by digit.
+ *
+ * CSV files get a header row of the column keys and CRLF line ends, and
+ * fields are quoted only when needed. NDJSON rows are objects with the column
+ * keys as field names; null values are written as null.
+ */
+final class FlatFileWriter implements Closeable {
+
+    private static final int BUFFER_SIZE = 256 * 1024;
+    // the longest a single character can encode to; checked before each one
+    private static final int MAX_CHAR_BYTES = 4;
+    private static final byte[] HEX = "0123456789abcdef".getBytes(StandardCharsets.US_ASCII);
+
+    private final WritableByteChannel channel;
+    private final FlatFileFormat format;
+    private final ByteBuffer buffer = ByteBuffer.allocateDirect(BUFFER_SIZE);
+    private final String[] fieldNames;
+
+    /**
+     * @param channel The channel to write to; closed by close().
+     * @param format  CSV or NDJSON.
+     * @param columns The column keys.
+     * @throws IOException if the CSV header cannot be written.
+     */
+    FlatFileWriter(WritableByteChannel channel, FlatFileFormat format, List<String> columns) throws IOException {
+        this.channel = channel;
+        this.format = format;
+        this.fieldNames = columns.toArray(String[]::new);
+        if (format == FlatFileFormat.CSV) {
+            for (int i = 0; i < fieldNames.length; i++) {
+                if (i > 0) {
+                    put((byte) ',');
+                }
+                putCsv(fieldNames[i]);
+            }
+            put((byte) '\r');
+            put((byte) '\n');
+        }
+    }
+
+    /**
+     * Writes a row.
+     *
+     * @param values Integer, Long, String, LocalDate or null, one per column.
+     */
+    void writeRow(Object... values) throws IOException {
+        if (values.length != fieldNames.length) {
+            throw new IllegalArgumentException("Expected " + fieldNames.length + " values, got " + values.length);
+        }
+        if (format == FlatFileFormat.CSV) {
+            for (int i = 0; i < values.length; i++) {
+                if (i > 0) {
+                    put((byte) ',');
+                }
+                Object value = values[i];
+                if (value instanceof String text) {
+                    putCsv(text);
+                } else if (value != null) {
+                    putValue(value);
+                }
+            }
+            put((byte) '\r');
+        } else {
+            put((byte) '{');
+            for (int i = 0; i < values.length; i++) {
+                if (i > 0) {
+                    put((byte) ',');
+                }
+                putJsonString(fieldNames[i]);
+                put((byte) ':');
+                Object value = values[i];
+                if (value == null) {
+                    putAscii("null");
+                } else if (value instanceof String || value instanceof LocalDate) {
+                    putJsonString(value.toString());
+                } else {
+                    putValue(value);
+                }
+            }
+            put((byte) '}');
+        }
+        put((byte) '\n');
+    }
+
+    /** Writes what is buffered and closes the channel. */
+    @Override
+    public void close() throws IOException {
+        try (channel) {
+            drain();
+        }
+    }
+
+    private void putValue(Object value) throws IOException {
+        switch (value) {
+            case Integer number -> putLong(number);
+            case Long number -> putLong(number);
+            case LocalDate date -> putDate(date);
+            default -> putText(value.toString());
+        }
+    }
+
+    // ------------------------------------------------------------------
+    // Encoding
+    // ------------------------------------------------------------------
+
+    private void putCsv(String text) throws IOException {
+        // an empty unquoted field reads back as null, so "" is quoted
+        boolean quote = text.isEmpty()
+                || Character.isWhitespace(text.charAt(0)) || Character.isWhitespace(text.charAt(text.length() - 1));
+        for (int i = 0; i < text.length() && !quote; i++) {
+            char c = text.charAt(i);
+            quote = c == ',' || c == '"' || c == '\n' || c == '\r';
+        }
+        if (!quote) {
+            putText(text);
+            return;
+        }
+        put((byte) '"');
+        for (int i = 0; i < text.length();) {
+            if (text.charAt(i) == '"') {
+                put((byte) '"');
+            }
+            i = putChar(text, i);
+        }
+        put((byte) '"');
+    }
+
+    private void putJsonString(String text) throws IOException {
+        put((byte) '"');
+        for (int i = 0; i < text.length();) {
+            char c = text.charAt(i);
+            if (c >= 0x20 && c != '"' && c != '\\') {
+                i = putChar(text, i);
+                continue;
+            }
+            switch (c) {
+                case '"' -> putAscii("\\\"");
+                case '\\' -> putAscii("\\\\");
+                case '\n' -> putAscii("\\n");
+                case '\r' -> putAscii("\\r");
+                case '\t' -> putAscii("\\t");
+                default -> {
+                    putAscii("\\u00");
+                    put(HEX[c >> 4]);
+                    put(HEX[c & 0xF]);
+                }
+            }
+            i++;
+        }
+        put((byte) '"');
+    }
+
+    private void putText(String text) throws IOException {
+        for (int i = 0; i < text.length();) {
+            i = putChar(text, i);
+        }
+    }
+
+    /**
+     * Encodes the character at i, or the surrogate pair starting there.
+     *
+     * @return The index of the next character.
+     */
+    private int putChar(String text, int i) throws IOException {
+        char c = text.charAt(i);
+        if (c < 0x80) {
+            put((byte) c);
+            return i + 1;
+        }
+        ensure(MAX_CHAR_BYTES);
+        if (c < 0x800) {
+            buffer.put((byte) (0xC0 | c >> 6));
+            buffer.put((byte) (0x80 | c & 0x3F));
+        } else if (Character.isSurrogate(c)) {
+            int codePoint = text.codePointAt(i);
+            if (codePoint == c) {
+                // a lone surrogate cannot be encoded
+                buffer.put((byte) '?');
+                return i + 1;
+            }
+            buffer.put((byte) (0xF0 | codePoint >> 18));
+            buffer.put((byte) (0x80 | codePoint >> 12 & 0x3F));
+            buffer.put((byte) (0x80 | codePoint >> 6 & 0x3F));
+            buffer.put((byte) (0x80 | codePoint & 0x3F));
+            return i + 2;
+        } else {
+            buffer.put((byte) (0xE0 | c >> 12));
+            buffer.put((byte) (0x80 | c >> 6 & 0x3F));
+            buffer.put((byte) (0x80 | c & 0x3F));
+        }
+        return i + 1;
+    }
+
+    private void putAscii(String text) throws IOException {
+        for (int i = 0; i < text.length(); i++) {
+            put((byte) text.charAt(i));
+        }
+    }
+
+    private void putLong(long value) throws IOException {
+        // 20 bytes fit any long with its sign
+        ensure(20);
+        if (value < 0) {
+            buffer.put((byte) '-');
+            if (value == Long.MIN_VALUE) {
+                putAscii("9223372036854775808");
+                return;
+            }
+            value = -value;
+        }
+        long divisor = 1;
+        while (divisor <= value / 10) {
+            divisor *= 10;
+        }
+        for (; divisor > 0; divisor /= 10) {
+            buffer.put((byte) ('0' + value / divisor % 10));
+        }
+    }
+
+    /** ISO 8601, yyyy-MM-dd, as LocalDate.toString() gives for years 0 to 9999. */
+    private void putDate(LocalDate date) throws IOException {
+        int year = date.getYear();
+        if (year < 0 || year > 9999) {
+            putAscii(date.toString());
+            return;
+        }
+        ensure(10);
+        putDigits(year, 4);
+        buffer.put((byte) '-');
+        putDigits(date.getMonthValue(), 2);
+        buffer.put((byte) '-');
+        putDigits(date.getDayOfMonth(), 2);
+    }
+
+    private void putDigits(int value, int digits) throws IOException {
+        for (int divisor = digits == 4 ? 1000 : 10; divisor > 0; divisor /= 10) {
+            buffer.put((byte) ('0' + value / divisor % 10));
+        }
+    }
+
+    private void put(byte b) throws IOException {
+        if (!buffer.hasRemaining()) {
+            drain();
+        }
+        buffer.put(b);
+    }
+
+    private void ensure(int bytes) throws IOException {
+        if (buffer.remaining() < bytes) {
+            drain();
+        }
+    }
+
+    // ------------------------------------------------------------------
+    // Writing to the channel
+    // ------------------------------------------------------------------
+
+    private void drain() throws IOException {
+        buffer.flip();
+        while (buffer.hasRemaining()) {
+            channel.write(buffer);
+        }
+        buffer.clear();
+    }
+}
@@ -0,0 +1,58 @@
+package com.dropalltables.io;
+
+import java.nio.file.Path;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.List;
+
+import com.dropalltables.data.UpsertResult;
+
+/**
+ * Collects the outcome of importing one file. It may be written by a parser
+ * thread and the importing thread at the same time.
+ */
+class ImportFile {
+    private static final int MAX_ERRORS = 100;
+
+    final Path path;
+    volatile boolean unreadable = false;
+
+    private long rows = 0;
+    private UpsertResult saved = UpsertResult.NONE;
+    private int duplicates = 0;
+    private int conflicts = 0;
+    private final List<String> errors = new ArrayList<>();
+
+    ImportFile(Path path) {
+        this.path = path;
+    }
+
+    synchronized void rowRead() {
+        rows++;
+    }
+
+    synchronized void saved(UpsertResult result) {
+        saved = saved.plus(result);
+    }
+
+    synchronized void duplicate() {
+        duplicates++;
+    }
+
+    synchronized void conflict() {
+        conflicts++;
+    }
+
+    synchronized void error(String message) {
+        if (errors.size() < MAX_ERRORS) {
+            errors.add(message);
+        } else if (errors.size() == MAX_ERRORS) {
+            errors.add("More errors were found; only the first " + MAX_ERRORS + " are listed.");
+        }
+    }
+
+    synchronized ImportReport.FileReport toReport() {
+        return new ImportReport.FileReport(path, rows, saved, duplicates, conflicts,
+                Collections.unmodifiableList(new ArrayList<>(errors)));
+    }
+}
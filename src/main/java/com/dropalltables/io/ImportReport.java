@@ -0,0 +1,59 @@
+package com.dropalltables.io;
+
+import java.nio.file.Path;
+import java.time.Duration;
+import java.util.List;
+
+import com.dropalltables.data.UpsertResult;
+
+/**
+ * The outcome of an import of Excel or flat files.
+ *
+ * @param files   One report per file found.
+ * @param elapsed The time the import took.
+ */
+public record ImportReport(List<FileReport> files, Duration elapsed) {
+
+    /**
+     * The outcome of importing one file.
+     *
+     * @param file       The file.
+     * @param rowsRead   The data rows read, headers not included.
+     * @param saved      What the upserts did with the rows.
+     * @param duplicates Rows skipped because their number had been imported
+     *                   before in this run with the same values.
+     * @param conflicts  Rows skipped because their number had been imported
+     *                   before in this run with other values; each is also
+     *                   listed in the errors.
+     * @param errors     Messages for rows or tables that could not be imported.
+     */
+    public record FileReport(Path file, long rowsRead, UpsertResult saved, int duplicates, int conflicts,
+            List<String> errors) {
+    }
+
+    public long rowsRead() {
+        return files.stream().mapToLong(FileReport::rowsRead).sum();
+    }
+
+    public UpsertResult saved() {
+        return files.stream().map(FileReport::saved).reduce(UpsertResult.NONE, UpsertResult::plus);
+    }
+
+    public int duplicates() {
+        return files.stream().mapToInt(FileReport::duplicates).sum();
+    }
+
+    public int conflicts() {
+        return files.stream().mapToInt(FileReport::conflicts).sum();
+    }
+
+    public int errorCount() {
+        return files.stream().mapToInt(file -> file.errors().size()).sum();
+    }
+
+    /** The rows read per second, over the whole import. */
+    public double rowsPerSecond() {
+        double seconds = Math.max(elapsed.toNanos(), 1) / 1e9;
+        return rowsRead() / seconds;
+    }
+}
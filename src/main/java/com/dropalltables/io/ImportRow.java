@@ -0,0 +1,15 @@
+package com.dropalltables.io;
+
+/**
+ * A row read for import, with where it came from for error messages.
+ *
+ * @param source    The sheet or file name.
+ * @param rowNumber The row or line number in the source, counting any header.
+ * @param value     The model object the row was mapped to.
+ */
+record ImportRow(String source, long rowNumber, Object value) {
+
+    String where() {
+        return source + " row " + rowNumber;
+    }
+}
@@ -0,0 +1,169 @@
+package com.dropalltables.io;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+
+import com.dropalltables.data.DaoException;
+import com.dropalltables.data.DataContext;
+import com.dropalltables.data.QueryCancelledException;
+import com.dropalltables.data.UpsertResult;
+import com.dropalltables.models.Consultant;
+import com.dropalltables.models.Milestone;
+import com.dropalltables.models.Project;
+import com.dropalltables.models.ProjectAssignment;
+
+/**
+ * Saves batches of imported rows with the DAOs' upsert methods, one
+ * transaction per batch, for ExcelImport and FlatFileImport.
+ *
+ * A number that appears more than once in the run is saved the first time
+ * only, so callers hand over the batches in file order to make the winner
+ * the same on every run. A later row with the same values counts as a
+ * duplicate; one with other values is a conflict and is reported as an
+ * error, since it was not saved. Milestones and assignments whose project or
+ * consultant does not exist are reported instead of saved. When a batch
+ * fails, its rows are saved one at a time to find the bad ones.
+ *
+ * Not thread safe; all batches of a run are saved by the importing thread.
+ */
+class ImportSaver {
+
+    private final DataContext dataContext;
+
+    // natural keys saved in this run, with the values saved for them
+    private final Map<Integer, List<Object>> projects = new HashMap<>();
+    private final Map<Integer, List<Object>> consultants = new HashMap<>();
+    private final Map<Integer, List<Object>> milestones = new HashMap<>();
+    private final Map<Long, List<Object>> assignments = new HashMap<>();
+
+    ImportSaver(DataContext dataContext) {
+        this.dataContext = dataContext;
+    }
+
+    /**
+     * Saves a batch of rows of one table, recording the outcome in the file.
+     *
+     * @throws QueryCancelledException if the import was cancelled.
+     * @throws DaoException            if the project or consultant numbers
+     *                                 cannot be looked up.
+     */
+    void save(ImportFile file, ImportTable table, List<ImportRow> rows) throws DaoException {
+        List<ImportRow> fresh = new ArrayList<>(rows.size());
+        switch (table) {
+            case PROJECTS -> {
+                for (ImportRow row : rows) {
+                    Project project = (Project) row.value();
+                    if (isFirst(file, row, projects, project.getProjectNo(), "Project " + project.getProjectNo(),
+                            project.getName(), project.getStartDate(), project.getEndDate())) {
+                        fresh.add(row);
+                    }
+                }
+                save(file, fresh, dataContext.getDaoProject()::upsertProjects);
+            }
+            case CONSULTANTS -> {
+                for (ImportRow row : rows) {
+                    Consultant consultant = (Consultant) row.value();
+                    if (isFirst(file, row, consultants, consultant.getConsultantNo(),
+                            "Consultant " + consultant.getConsultantNo(), consultant.getName(),
+                            consultant.getTitle())) {
+                        fresh.add(row);
+                    }
+                }
+                save(file, fresh, dataContext.getDaoConsultant()::upsertConsultants);
+            }
+            case MILESTONES -> {
+                for (ImportRow row : rows) {
+                    Milestone milestone = (Milestone) row.value();
+                    if (dataContext.getDaoProject().getProjectID(milestone.getProjectNo()) == null) {
+                        file.error(row.where() + ": project " + milestone.getProjectNo() + " does not exist.");
+                        continue;
+                    }
+                    if (isFirst(file, row, milestones, milestone.getMilestoneNo(),
+                            "Milestone " + milestone.getMilestoneNo(), milestone.getName(), milestone.getDate(),
+                            milestone.getProjectNo())) {
+                        fresh.add(row);
+                    }
+                }
+                save(file, fresh, dataContext.getDaoMilestone()::upsertMilestones);
+            }
+            case ASSIGNMENTS -> {
+                for (ImportRow row : rows) {
+                    ImportTable.AssignmentRow assignment = (ImportTable.AssignmentRow) row.value();
+                    Integer consultantID = dataContext.getDaoConsultant().getConsultantID(assignment.consultantNo());
+                    Integer projectID = dataContext.getDaoProject().getProjectID(assignment.projectNo());
+                    if (consultantID == null || projectID == null) {
+                        file.error(row.where() + ": " + (consultantID == null
+                                ? "consultant " + assignment.consultantNo()
+                                : "project " + assignment.projectNo()) + " does not exist.");
+                        continue;
+                    }
+                    long key = (long) assignment.consultantNo() << 32 | assignment.projectNo();
+                    if (isFirst(file, row, assignments, key, "The assignment of consultant "
+                            + assignment.consultantNo() + " to project " + assignment.projectNo(),
+                            assignment.hoursWorked())) {
+                        fresh.add(new ImportRow(row.source(), row.rowNumber(),
+                                new ProjectAssignment(consultantID, projectID, assignment.hoursWorked())));
+                    }
+                }
+                save(file, fresh, dataContext.getDaoProjectAssignment()::upsertAssignments);
+            }
+        }
+    }
+
+    /**
+     * Records the values of a key the first time it is seen and returns true.
+     * Later rows with the key count as duplicates, or as conflicts if their
+     * values differ from the first row's.
+     */
+    private static <K> boolean isFirst(ImportFile file, ImportRow row, Map<K, List<Object>> seen, K key,
+            String what, Object... values) {
+        List<Object> first = seen.putIfAbsent(key, Arrays.asList(values));
+        if (first == null) {
+            return true;
+        }
+        if (first.equals(Arrays.asList(values))) {
+            file.duplicate();
+        } else {
+            file.conflict();
+            file.error(row.where() + ": " + what + " was imported earlier in this run with other values;"
+                    + " this row was skipped.");
+        }
+        return false;
+    }
+
+    @FunctionalInterface
+    private interface Upsert<T> {
+        UpsertResult upsert(List<T> values) throws DaoException;
+    }
+
+    @SuppressWarnings("unchecked")
+    private <T> void save(ImportFile file, List<ImportRow> rows, Upsert<T> upsert) throws DaoException {
+        if (rows.isEmpty()) {
+            return;
+        }
+        List<T> values = new ArrayList<>(rows.size());
+        for (ImportRow row : rows) {
+            values.add((T) row.value());
+        }
+        try {
+            file.saved(upsert.upsert(values));
+        } catch (QueryCancelledException e) {
+            throw e;
+        } catch (DaoException e) {
+            // nothing of the batch was saved; save the rows one by one to find the bad ones
+            for (ImportRow row : rows) {
+                try {
+                    file.saved(upsert.upsert(List.of((T) row.value())));
+                } catch (QueryCancelledException cancelled) {
+                    throw cancelled;
+                } catch (DaoException rowError) {
+                    String reason = rowError.getCause() != null ? rowError.getCause().getMessage() : null;
+                    file.error(row.where() + ": " + (reason != null ? reason : rowError.getMessage()));
+                }
+            }
+        }
+    }
+}
@@ -0,0 +1,232 @@
+package com.dropalltables.io;
+
+import java.time.LocalDate;
+import java.time.format.DateTimeParseException;
+import java.util.List;
+import java.util.Locale;
+import java.util.Set;
+
+import com.dropalltables.models.Consultant;
+import com.dropalltables.models.Milestone;
+import com.dropalltables.models.Project;
+
+/**
+ * The tables an import can fill, recognised by the name of a sheet or file,
+ * with the columns each needs and how a row of cells becomes a model object.
+ *
+ * Column headers are compared without case, spaces or punctuation, so
+ * "Project No", "projectNo" and "project_no" are the same column. Cells may
+ * be strings or the typed values XlsxReader gives.
+ */
+enum ImportTable {
+    PROJECTS(1, Set.of("project", "projects"),
+            new Field("Project No", true, "projectno", "projectnumber", "project"),
+            new Field("Name", true, "name", "projectname"),
+            new Field("Start date", true, "startdate", "start"),
+            new Field("End date", false, "enddate", "end")),
+    CONSULTANTS(1, Set.of("consultant", "consultants"),
+            new Field("Consultant No", true, "consultantno", "consultantnumber", "consultant"),
+            new Field("Name", true, "name", "consultantname"),
+            new Field("Title", true, "title")),
+    MILESTONES(2, Set.of("milestone", "milestones"),
+            new Field("Milestone No", true, "milestoneno", "milestonenumber", "milestone"),
+            new Field("Name", true, "name", "milestonename"),
+            new Field("Date", true, "date", "milestonedate"),
+            new Field("Project No", true, "projectno", "projectnumber", "project")),
+    ASSIGNMENTS(2, Set.of("assignment", "assignments", "projectassignment", "projectassignments"),
+            new Field("Consultant No", true, "consultantno", "consultantnumber", "consultant"),
+            new Field("Project No", true, "projectno", "projectnumber", "project"),
+            new Field("Hours worked", true, "hoursworked", "hours"));
+
+    /** Tables of pass 2 refer to rows of pass 1, which must be saved first. */
+    static final int PASSES = 2;
+
+    private static final int MAX_TEXT_LENGTH = 255;
+
+    final int pass;
+    final Set<String> names;
+    final List<Field> fields;
+
+    ImportTable(int pass, Set<String> names, Field... fields) {
+        this.pass = pass;
+        this.names = names;
+        this.fields = List.of(fields);
+    }
+
+    /**
+     * Recognises a table by a sheet or file name, ignoring digits, so that
+     * "Assignments (2)" and "consultants_2024" are recognised as well.
+     *
+     * @return The table, or null if the name is not one of them.
+     */
+    static ImportTable of(String name) {
+        String normalized = normalize(name).replaceAll("[0-9]", "");
+        for (ImportTable table : values()) {
+            if (table.names.contains(normalized)) {
+                return table;
+            }
+        }
+        return null;
+    }
+
+    /**
+     * Finds the fields of this table in a header row.
+     *
+     * @param headers The header cells.
+     * @param missing Receives the labels of required fields that were not found.
+     * @return The column of each field, -1 if not found.
+     */
+    int[] columns(List<?> headers, List<String> missing) {
+        int[] columns = new int[fields.size()];
+        for (int f = 0; f < columns.length; f++) {
+            Field field = fields.get(f);
+            columns[f] = -1;
+            for (int c = 0; c < headers.size(); c++) {
+                if (headers.get(c) != null && field.aliases.contains(normalize(headers.get(c).toString()))) {
+                    columns[f] = c;
+                    break;
+                }
+            }
+            if (columns[f] < 0 && field.required) {
+                missing.add(field.label);
+            }
+        }
+        return columns;
+    }
+
+    /**
+     * Maps a row to a Project, Consultant, Milestone (with a Project holding
+     * only its number) or AssignmentRow.
+     *
+     * @param columns The columns found by columns().
+     * @param cells   The cells of the row.
+     * @throws InvalidRowException if a cell is missing or has the wrong type.
+     */
+    Object map(int[] columns, List<?> cells) throws InvalidRowException {
+        Cells row = new Cells(this, columns, cells);
+        return switch (this) {
+            case PROJECTS -> new Project(row.key(0), row.text(1), row.date(2), row.optionalDate(3));
+            case CONSULTANTS -> new Consultant(row.key(0), row.text(1), row.text(2));
+            case MILESTONES -> new Milestone(row.key(0), row.text(1), row.date(2),
+                    new Project(row.key(3), null, null));
+            case ASSIGNMENTS -> new AssignmentRow(row.key(0), row.key(1), row.hours(2));
+        };
+    }
+
+    static String normalize(String header) {
+        return header.toLowerCase(Locale.ROOT).replaceAll("[^a-z0-9]", "");
+    }
+
+    static boolean isBlank(List<?> cells) {
+        for (Object cell : cells) {
+            if (cell != null && !cell.toString().isBlank()) {
+                return false;
+            }
+        }
+        return true;
+    }
+
+    record Field(String label, boolean required, Set<String> aliases) {
+        Field(String label, boolean required, String... aliases) {
+            this(label, required, Set.of(aliases));
+        }
+    }
+
+    /** An assignment as imported, by numbers; the DAO needs the IDs. */
+    record AssignmentRow(int consultantNo, int projectNo, int hoursWorked) {
+    }
+
+    static class InvalidRowException extends Exception {
+        InvalidRowException(String message) {
+            super(message);
+        }
+    }
+
+    /** Converts the cells of one row, naming the column in error messages. */
+    private record Cells(ImportTable table, int[] columns, List<?> cells) {
+
+        Object get(int field) {
+            int column = columns[field];
+            return column >= 0 && column < cells.size() ? cells.get(column) : null;
+        }
+
+        String label(int field) {
+            return table.fields.get(field).label();
+        }
+
+        int key(int field) throws InvalidRowException {
+            int value = wholeNumber(field);
+            if (value <= 0) {
+                throw new InvalidRowException(label(field) + " must be a positive number.");
+            }
+            return value;
+        }
+
+        int hours(int field) throws InvalidRowException {
+            int value = wholeNumber(field);
+            if (value < 0) {
+                throw new InvalidRowException(label(field) + " cannot be negative.");
+            }
+            return value;
+        }
+
+        int wholeNumber(int field) throws InvalidRowException {
+            Object cell = get(field);
+            if (cell instanceof Double number && number == Math.rint(number)
+                    && Math.abs(number) <= Integer.MAX_VALUE) {
+                return number.intValue();
+            }
+            if (cell instanceof String text) {
+                try {
+                    return Integer.parseInt(text.strip());
+                } catch (NumberFormatException e) {
+                    // reported below
+                }
+            }
+            throw new InvalidRowException(cell == null || cell.toString().isBlank()
+                    ? label(field) + " is missing."
+                    : label(field) + " is not a whole number: " + cell);
+        }
+
+        String text(int field) throws InvalidRowException {
+            Object cell = get(field);
+            String text = cell instanceof Double number && number == Math.rint(number)
+                    ? Long.toString(number.longValue())
+                    : cell != null ? cell.toString().strip() : "";
+            if (text.isEmpty()) {
+                throw new InvalidRowException(label(field) + " is missing.");
+            }
+            if (text.length() > MAX_TEXT_LENGTH) {
+                throw new InvalidRowException(label(field) + " is longer than " + MAX_TEXT_LENGTH + " characters.");
+            }
+            return text;
+        }
+
+        LocalDate date(int field) throws InvalidRowException {
+            LocalDate date = optionalDate(field);
+            if (date == null) {
+                throw new InvalidRowException(label(field) + " is missing.");
+            }
+            return date;
+        }
+
+        LocalDate optionalDate(int field) throws InvalidRowException {
+            Object cell = get(field);
+            if (cell == null || cell.toString().isBlank()) {
+                return null;
+            }
+            if (cell instanceof LocalDate date) {
+                return date;
+            }
+            if (cell instanceof Double serial) {
+                // a date serial number in a cell without a date format
+                return LocalDate.of(1899, 12, 30).plusDays(serial.longValue());
+            }
+            try {
+                return LocalDate.parse(cell.toString().strip());
+            } catch (DateTimeParseException e) {
+                throw new InvalidRowException(label(field) + " is not a date (YYYY-MM-DD): " + cell);
+            }
+        }
+    }
+}
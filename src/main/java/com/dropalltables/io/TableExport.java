@@ -0,0 +1,156 @@
+package com.dropalltables.io;
+
+import java.io.IOException;
+import java.util.Iterator;
+import java.util.stream.Stream;
+
+import com.dropalltables.data.CancellationToken;
+import com.dropalltables.data.ConsultantTotals;
+import com.dropalltables.data.DaoException;
+import com.dropalltables.data.DataContext;
+import com.dropalltables.data.ProjectTotals;
+import com.dropalltables.data.QueryCancelledException;
+import com.dropalltables.data.UncheckedDaoException;
+import com.dropalltables.models.Consultant;
+import com.dropalltables.models.Milestone;
+import com.dropalltables.models.Project;
+import com.dropalltables.models.ProjectAssignment;
+
+/**
+ * Streams the live contents of the database, table by table, into a
+ * TableSink; the common part of XlsxExport and FlatFileExport.
+ *
+ * Every table is read through a streaming DAO query and handed on row by
+ * row, so heap use stays flat however many assignments there are. Hours
+ * worked, team sizes and project counts are aggregated by the project and
+ * consultant queries themselves, so they agree with the assignments the same
+ * export writes rather than with the AggregateStore. Rows are identified by their project, consultant and milestone numbers, as in
+ * the application, not by database IDs.
+ */
+class TableExport {
+
+    /** Receives the rows of the tables, in ExportTable order. */
+    interface TableSink {
+        void startTable(ExportTable table) throws IOException;
+
+        /** Values are Integer, String, LocalDate or null, in column order. */
+        void writeRow(Object... values) throws IOException;
+    }
+
+    /** Receives progress reports; called on the exporting thread. */
+    @FunctionalInterface
+    interface Listener {
+        void progress(long rowsWritten, long estimatedRows);
+    }
+
+    // rows between progress reports and cancellation checks
+    private static final int REPORT_INTERVAL = 4096;
+
+    private final DataContext dataContext;
+    private final CancellationToken cancellation;
+    private final Listener listener;
+
+    private long rowsWritten = 0;
+    private long estimatedRows = 0;
+
+    TableExport(DataContext dataContext, CancellationToken cancellation, Listener listener) {
+        this.dataContext = dataContext;
+        this.cancellation = cancellation;
+        this.listener = listener;
+    }
+
+    /**
+     * Writes all tables to the sink.
+     *
+     * @return The number of rows written.
+     * @throws QueryCancelledException if the export was cancelled.
+     * @throws DaoException            if the database cannot be read.
+     * @throws IOException             if the sink cannot be written.
+     */
+    long writeTo(TableSink sink) throws DaoException, IOException {
+        estimatedRows = dataContext.getDaoMetadata().estimateApplicationRows();
+        rowsWritten = 0;
+        listener.progress(0, estimatedRows);
+
+        try {
+            sink.startTable(ExportTable.PROJECTS);
+            try (Stream<ProjectTotals> projects = dataContext.getDaoProject()
+                    .streamAllProjectsWithTotals(cancellation)) {
+                for (Iterator<ProjectTotals> it = projects.iterator(); it.hasNext();) {
+                    ProjectTotals totals = it.next();
+                    Project p = totals.project();
+                    sink.writeRow(p.getProjectNo(), p.getName(), p.getStartDate(), p.getEndDate(),
+                            totals.teamSize(), totals.hoursWorked());
+                    rowWritten();
+                }
+            }
+
+            sink.startTable(ExportTable.CONSULTANTS);
+            try (Stream<ConsultantTotals> consultants = dataContext.getDaoConsultant()
+                    .streamAllConsultantsWithTotals(cancellation)) {
+                for (Iterator<ConsultantTotals> it = consultants.iterator(); it.hasNext();) {
+                    ConsultantTotals totals = it.next();
+                    Consultant c = totals.consultant();
+                    sink.writeRow(c.getConsultantNo(), c.getName(), c.getTitle(),
+                            totals.projectCount(), totals.hoursWorked());
+                    rowWritten();
+                }
+            }
+
+            sink.startTable(ExportTable.MILESTONES);
+            try (Stream<Milestone> milestones = dataContext.getDaoMilestone().streamAllMilestones(cancellation)) {
+                for (Iterator<Milestone> it = milestones.iterator(); it.hasNext();) {
+                    Milestone m = it.next();
+                    sink.writeRow(m.getMilestoneNo(), m.getName(), m.getDate(), m.getProjectNo());
+                    rowWritten();
+                }
+            }
+
+            sink.startTable(ExportTable.ASSIGNMENTS);
+            try (Stream<ProjectAssignment> assignments = dataContext.getDaoProjectAssignment()
+                    .streamAllAssignments(cancellation)) {
+                for (Iterator<ProjectAssignment> it = assignments.iterator(); it.hasNext();) {
+                    ProjectAssignment a = it.next();
+                    sink.writeRow(consultantNo(a.getConsultantID()), projectNo(a.getProjectID()),
+                            a.getHoursWorked());
+                    rowWritten();
+                }
+            }
+        } catch (UncheckedDaoException e) {
+            throw e.getCause();
+        }
+        listener.progress(rowsWritten, estimatedRows);
+        return rowsWritten;
+    }
+
+    private void rowWritten() throws QueryCancelledException {
+        rowsWritten++;
+        if (rowsWritten % REPORT_INTERVAL == 0) {
+            if (cancellation.isCancelled()) {
+                throw new QueryCancelledException();
+            }
+            listener.progress(rowsWritten, estimatedRows);
+        }
+    }
+
+    // The streamed projects and consultants fill the key maps, so these are map
+    // lookups; a row deleted meanwhile gives an empty cell.
+
+    private Integer projectNo(int projectID) throws DaoException {
+        Integer projectNo = dataContext.getDaoProject().getProjectNo(projectID);
+        if (projectNo == null) {
+            Project project = dataContext.getDaoProject().getProjectByID(projectID);
+            projectNo = project != null ? project.getProjectNo() : null;
+        }
+        return projectNo;
+    }
+
+    private Integer consultantNo(int consultantID) throws DaoException {
+        Integer consultantNo = dataContext.getDaoConsultant().getConsultantNo(consultantID);
+        if (consultantNo == null) {
+            Consultant consultant = dataContext.getDaoConsultant().getConsultantByID(consultantID);
+            consultantNo = consultant != null ? consultant.getConsultantNo() : null;
+        }
+        return consultantNo;
+    }
+}
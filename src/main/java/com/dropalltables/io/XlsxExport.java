@@ -0,0 +1,120 @@
+package com.dropalltables.io;
+
+import java.io.BufferedOutputStream;
+import java.io.IOException;
+import java.io.OutputStream;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardCopyOption;
+
+import com.dropalltables.data.CancellationToken;
+import com.dropalltables.data.DaoException;
+import com.dropalltables.data.DataContext;
+import com.dropalltables.data.QueryCancelledException;
+
+/**
+ * Exports the live contents of the database to an .xlsx workbook with one
+ * sheet each for projects, consultants, milestones and assignments.
+ *
+ * The tables are streamed by TableExport straight into an XlsxWriter, so
+ * heap use stays flat however many assignments there are.
+ *
+ * The workbook is written to a temporary file next to the target and only
+ * moved into place once it is complete, so a failed or cancelled export
+ * leaves an existing file untouched.
+ */
+public class XlsxExport {
+
+    /** Receives the export's progress; called on the exporting thread. */
+    @FunctionalInterface
+    public interface ProgressListener {
+        /**
+         * @param rowsWritten   Data rows written so far.
+         * @param estimatedRows The estimated total, 0 if unknown; may be
+         *                      exceeded while others insert rows.
+         */
+        void progress(long rowsWritten, long estimatedRows);
+    }
+
+    private static final String WRITE_ERROR = "Unable to write the Excel file. "
+            + "Please check that it is not open in another program and try again.";
+
+    private final DataContext dataContext;
+    private final CancellationToken cancellation;
+    private final ProgressListener listener;
+
+    private long rowsWritten = 0;
+
+    /**
+     * Constructor for XlsxExport.
+     *
+     * @param dataContext  The data context to read from.
+     * @param cancellation Stops the export, including the running query.
+     * @param listener     Receives progress reports.
+     */
+    public XlsxExport(DataContext dataContext, CancellationToken cancellation, ProgressListener listener) {
+        this.dataContext = dataContext;
+        this.cancellation = cancellation;
+        this.listener = listener;
+    }
+
+    /**
+     * Writes the workbook to a file, replacing it if it exists.
+     *
+     * @param file The .xlsx file to create.
+     * @return The number of data rows written, headers not included.
+     * @throws QueryCancelledException if the export was cancelled.
+     * @throws DaoException            if the database cannot be read or the
+     *                                 file cannot be written.
+     */
+    public long exportTo(Path file) throws DaoException {
+        Path target = file.toAbsolutePath();
+        Path temporary;
+        try {
+            temporary = Files.createTempFile(target.getParent(), ".export-", ".xlsx.tmp");
+        } catch (IOException e) {
+            throw new DaoException(WRITE_ERROR, e);
+        }
+
+        try {
+            try (OutputStream out = new BufferedOutputStream(Files.newOutputStream(temporary))) {
+                write(out);
+            }
+            Files.move(temporary, target, StandardCopyOption.REPLACE_EXISTING);
+            return rowsWritten;
+        } catch (IOException e) {
+            throw new DaoException(WRITE_ERROR, e);
+        } finally {
+            try {
+                Files.deleteIfExists(temporary);
+            } catch (IOException ignored) {
+                // only a leftover temporary file
+            }
+        }
+    }
+
+    /**
+     * Writes the workbook to a stream, closing it when done.
+     *
+     * @param out The stream to write to.
+     * @throws QueryCancelledException if the export was cancelled.
+     * @throws DaoException            if the database cannot be read.
+     * @throws IOException             if the stream cannot be written.
+     */
+    public void write(OutputStream out) throws DaoException, IOException {
+        try (XlsxWriter xlsx = new XlsxWriter(out)) {
+            rowsWritten = new TableExport(dataContext, cancellation, listener::progress)
+                    .writeTo(new TableExport.TableSink() {
+                        @Override
+                        public void startTable(ExportTable table) throws IOException {
+                            xlsx.startSheet(table.title, table.titles());
+                        }
+
+                        @Override
+                        public void writeRow(Object... values) throws IOException {
+                            xlsx.writeRow(values);
+                        }
+                    });
+        }
+    }
+}
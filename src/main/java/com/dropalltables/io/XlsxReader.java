@@ -0,0 +1,352 @@
+package com.dropalltables.io;
+
+import java.io.Closeable;
+import java.io.IOException;
+import java.io.InputStream;
+import java.nio.file.Path;
+import java.time.LocalDate;
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.zip.ZipEntry;
+import java.util.zip.ZipFile;
+
+import javax.xml.XMLConstants;
+import javax.xml.parsers.ParserConfigurationException;
+import javax.xml.parsers.SAXParser;
+import javax.xml.parsers.SAXParserFactory;
+
+import org.xml.sax.Attributes;
+import org.xml.sax.SAXException;
+import org.xml.sax.helpers.DefaultHandler;
+
+/**
+ * Reads the rows of an .xlsx workbook with a SAX parser, one row at a time.
+ *
+ * A sheet is parsed as a stream of XML events and every row is handed to a
+ * RowHandler as soon as it ends, so memory use does not grow with the number
+ * of rows. Only the shared string table, which the cells refer to by index,
+ * and the cell formats are loaded up front.
+ *
+ * Cells are passed as String, Double, Boolean or LocalDate (numbers in a
+ * date format), and null for empty cells; formula cells give their cached
+ * result. Excel leaves out empty cells, so each cell is put in the position
+ * its reference (e.g. "C7") names. DTDs and external entities are rejected.
+ */
+public class XlsxReader implements Closeable {
+
+    /** Receives the rows of a sheet in order. */
+    @FunctionalInterface
+    public interface RowHandler {
+        /**
+         * @param rowNumber The row number as shown in Excel, starting at 1.
+         * @param cells     The cells of the row; only valid during the call.
+         */
+        void row(int rowNumber, List<Object> cells) throws IOException;
+    }
+
+    private static final String SPREADSHEET_NS = "http://schemas.openxmlformats.org/spreadsheetml/2006/main";
+    private static final String RELATIONSHIPS_NS = "http://schemas.openxmlformats.org/officeDocument/2006/relationships";
+    private static final long EXCEL_EPOCH_DAY = LocalDate.of(1899, 12, 30).toEpochDay();
+
+    private final ZipFile zip;
+    private final SAXParserFactory parserFactory;
+    private final Map<String, String> sheetParts = new LinkedHashMap<>();
+    private final List<String> sharedStrings = new ArrayList<>();
+    private final List<Boolean> dateStyles = new ArrayList<>();
+
+    /**
+     * Opens a workbook and reads its sheet list, shared strings and styles.
+     *
+     * @param file The .xlsx file.
+     * @throws IOException if the file cannot be read or is not a workbook.
+     */
+    public XlsxReader(Path file) throws IOException {
+        this.parserFactory = SAXParserFactory.newInstance();
+        try {
+            parserFactory.setNamespaceAware(true);
+            parserFactory.setFeature("http://apache.org/xml/features/disallow-doctype-decl", true);
+            parserFactory.setFeature(XMLConstants.FEATURE_SECURE_PROCESSING, true);
+        } catch (SAXException | ParserConfigurationException e) {
+            throw new IOException("No secure XML parser available", e);
+        }
+        this.zip = new ZipFile(file.toFile());
+        try {
+            readSheetParts();
+            readSharedStrings();
+            readStyles();
+        } catch (IOException | RuntimeException e) {
+            zip.close();
+            throw e instanceof IOException io ? io : new IOException("Not a valid .xlsx workbook", e);
+        }
+    }
+
+    /**
+     * Returns the names of the sheets in workbook order.
+     */
+    public List<String> getSheetNames() {
+        return List.copyOf(sheetParts.keySet());
+    }
+
+    /**
+     * Reads a sheet and passes each row that has a cell to the handler.
+     *
+     * @param sheetName The sheet to read, as returned by getSheetNames().
+     * @param handler   Receives the rows.
+     * @throws IOException if the sheet cannot be read, or the handler throws.
+     */
+    public void readSheet(String sheetName, RowHandler handler) throws IOException {
+        String part = sheetParts.get(sheetName);
+        if (part == null) {
+            throw new IllegalArgumentException("No sheet named " + sheetName);
+        }
+        parse(part, new SheetHandler(handler), true);
+    }
+
+    @Override
+    public void close() throws IOException {
+        zip.close();
+    }
+
+    private void readSheetParts() throws IOException {
+        Map<String, String> targets = new HashMap<>();
+        parse("xl/_rels/workbook.xml.rels", new DefaultHandler() {
+            @Override
+            public void startElement(String uri, String localName, String qName, Attributes attributes) {
+                if ("Relationship".equals(localName)) {
+                    targets.put(attributes.getValue("Id"), attributes.getValue("Target"));
+                }
+            }
+        }, true);
+        parse("xl/workbook.xml", new DefaultHandler() {
+            @Override
+            public void startElement(String uri, String localName, String qName, Attributes attributes) {
+                if ("sheet".equals(localName) && SPREADSHEET_NS.equals(uri)) {
+                    String target = targets.get(attributes.getValue(RELATIONSHIPS_NS, "id"));
+                    if (target != null) {
+                        // targets are relative to xl/, or absolute within the package
+                        sheetParts.put(attributes.getValue("name"),
+                                target.startsWith("/") ? target.substring(1) : "xl/" + target);
+                    }
+                }
+            }
+        }, true);
+    }
+
+    private void readSharedStrings() throws IOException {
+        parse("xl/sharedStrings.xml", new DefaultHandler() {
+            private final StringBuilder text = new StringBuilder();
+            private boolean inText = false;
+            private boolean inPhonetic = false;
+
+            @Override
+            public void startElement(String uri, String localName, String qName, Attributes attributes) {
+                switch (localName) {
+                    case "si" -> text.setLength(0);
+                    case "t" -> inText = !inPhonetic;
+                    case "rPh" -> inPhonetic = true;
+                    default -> {
+                    }
+                }
+            }
+
+            @Override
+            public void endElement(String uri, String localName, String qName) {
+                switch (localName) {
+                    case "si" -> sharedStrings.add(text.toString());
+                    case "t" -> inText = false;
+                    case "rPh" -> inPhonetic = false;
+                    default -> {
+                    }
+                }
+            }
+
+            @Override
+            public void characters(char[] ch, int start, int length) {
+                if (inText) {
+                    text.append(ch, start, length);
+                }
+            }
+        }, false);
+    }
+
+    private void readStyles() throws IOException {
+        Map<Integer, String> customFormats = new HashMap<>();
+        List<Integer> formatIDs = new ArrayList<>();
+        parse("xl/styles.xml", new DefaultHandler() {
+            private boolean inCellXfs = false;
+
+            @Override
+            public void startElement(String uri, String localName, String qName, Attributes attributes) {
+                switch (localName) {
+                    case "numFmt" -> customFormats.put(Integer.parseInt(attributes.getValue("numFmtId")),
+                            attributes.getValue("formatCode"));
+                    case "cellXfs" -> inCellXfs = true;
+                    case "xf" -> {
+                        if (inCellXfs) {
+                            String id = attributes.getValue("numFmtId");
+                            formatIDs.add(id != null ? Integer.parseInt(id) : 0);
+                        }
+                    }
+                    default -> {
+                    }
+                }
+            }
+
+            @Override
+            public void endElement(String uri, String localName, String qName) {
+                if ("cellXfs".equals(localName)) {
+                    inCellXfs = false;
+                }
+            }
+        }, false);
+        for (int formatID : formatIDs) {
+            dateStyles.add(isDateFormat(formatID, customFormats.get(formatID)));
+        }
+    }
+
+    private static boolean isDateFormat(int formatID, String formatCode) {
+        if ((formatID >= 14 && formatID <= 22) || (formatID >= 45 && formatID <= 47)) {
+            return true;
+        }
+        if (formatCode == null) {
+            return false;
+        }
+        // ignore quoted text, escaped characters and [colour]/[$-locale] sections
+        String code = formatCode.replaceAll("\"[^\"]*\"|\\\\.|\\[[^\\]]*\\]", "").toLowerCase();
+        return code.contains("y") || code.contains("d");
+    }
+
+    private void parse(String part, DefaultHandler handler, boolean required) throws IOException {
+        ZipEntry entry = zip.getEntry(part);
+        if (entry == null) {
+            if (required) {
+                throw new IOException("Missing workbook part " + part);
+            }
+            return;
+        }
+        try (InputStream in = zip.getInputStream(entry)) {
+            SAXParser parser = parserFactory.newSAXParser();
+            parser.parse(in, handler);
+        } catch (SAXException e) {
+            if (e.getException() instanceof IOException io) {
+                throw io;
+            }
+            throw new IOException("Invalid XML in " + part + ": " + e.getMessage(), e);
+        } catch (ParserConfigurationException e) {
+            throw new IOException(e);
+        }
+    }
+
+    /** Collects the cells of each row and hands the row over when it ends. */
+    private class SheetHandler extends DefaultHandler {
+        private final RowHandler rowHandler;
+        private final List<Object> cells = new ArrayList<>();
+        private final StringBuilder text = new StringBuilder();
+
+        private int rowNumber = 0;
+        private int column = 0;
+        private String type;
+        private int style;
+        private boolean inValue = false;
+
+        SheetHandler(RowHandler rowHandler) {
+            this.rowHandler = rowHandler;
+        }
+
+        @Override
+        public void startElement(String uri, String localName, String qName, Attributes attributes) {
+            switch (localName) {
+                case "row" -> {
+                    String r = attributes.getValue("r");
+                    rowNumber = r != null ? Integer.parseInt(r) : rowNumber + 1;
+                    cells.clear();
+                    column = 0;
+                }
+                case "c" -> {
+                    String reference = attributes.getValue("r");
+                    if (reference != null) {
+                        column = columnIndex(reference);
+                    }
+                    type = attributes.getValue("t");
+                    String s = attributes.getValue("s");
+                    style = s != null ? Integer.parseInt(s) : 0;
+                    text.setLength(0);
+                }
+                // <v> holds the value, <t> the text of an inline string
+                case "v", "t" -> inValue = true;
+                default -> {
+                }
+            }
+        }
+
+        @Override
+        public void endElement(String uri, String localName, String qName) throws SAXException {
+            switch (localName) {
+                case "v", "t" -> inValue = false;
+                case "c" -> {
+                    Object value = text.isEmpty() && !"inlineStr".equals(type) ? null : value();
+                    while (cells.size() < column) {
+                        cells.add(null);
+                    }
+                    cells.add(value);
+                    column++;
+                }
+                case "row" -> {
+                    if (!cells.isEmpty()) {
+                        try {
+                            rowHandler.row(rowNumber, cells);
+                        } catch (IOException e) {
+                            throw new SAXException(e);
+                        }
+                    }
+                }
+                default -> {
+                }
+            }
+        }
+
+        @Override
+        public void characters(char[] ch, int start, int length) {
+            if (inValue) {
+                text.append(ch, start, length);
+            }
+        }
+
+        private Object value() throws SAXException {
+            String raw = text.toString();
+            try {
+                if (type == null || "n".equals(type)) {
+                    double number = Double.parseDouble(raw);
+                    if (style < dateStyles.size() && dateStyles.get(style)) {
+                        return LocalDate.ofEpochDay(EXCEL_EPOCH_DAY + (long) Math.floor(number));
+                    }
+                    return number;
+                }
+                return switch (type) {
+                    case "s" -> sharedStrings.get(Integer.parseInt(raw));
+                    case "b" -> "1".equals(raw);
+                    // str: formula result; inlineStr; e: error such as #N/A
+                    default -> raw;
+                };
+            } catch (NumberFormatException | IndexOutOfBoundsException e) {
+                throw new SAXException("Invalid cell value in row " + rowNumber + ": " + raw);
+            }
+        }
+    }
+
+    /** "C7" gives 2. */
+    private static int columnIndex(String reference) {
+        int index = 0;
+        for (int i = 0; i < reference.length(); i++) {
+            char c = reference.charAt(i);
+            if (c < 'A' || c > 'Z') {
+                break;
+            }
+            index = index * 26 + (c - 'A' + 1);
+        }
+        return index - 1;
+    }
+}
@@ -0,0 +1,301 @@
+package com.dropalltables.io;
+
+import java.io.BufferedWriter;
+import java.io.Closeable;
+import java.io.IOException;
+import java.io.OutputStream;
+import java.io.OutputStreamWriter;
+import java.io.Writer;
+import java.nio.charset.StandardCharsets;
+import java.time.LocalDate;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.zip.ZipEntry;
+import java.util.zip.ZipOutputStream;
+
+/**
+ * Writes an .xlsx workbook row by row, without keeping rows in memory.
+ *
+ * Each sheet is one ZIP entry that rows are appended to as they are written;
+ * only the current row passes through a small write buffer, so a sheet with a
+ * million rows takes no more heap than one with ten. Strings are written
+ * inline instead of into a shared string table for the same reason. The
+ * workbook part that lists the sheets is written last, when close() knows all
+ * of them. A sheet that reaches Excel's row limit continues on a new sheet
+ * named "&lt;name&gt; (2)", "&lt;name&gt; (3)", ... with the same header row.
+ *
+ * Cell values may be Number, LocalDate, Boolean, String or null (an empty
+ * cell). The first row of each sheet is the header, in bold and frozen.
+ */
+public class XlsxWriter implements Closeable {
+    /** The most rows Excel shows on one sheet, header included. */
+    public static final int MAX_ROWS_PER_SHEET = 1_048_576;
+
+    private static final int MAX_SHEET_NAME_LENGTH = 31;
+    private static final long EXCEL_EPOCH_DAY = LocalDate.of(1899, 12, 30).toEpochDay();
+
+    // cellXfs indexes in styles.xml
+    private static final int STYLE_DATE = 1;
+    private static final int STYLE_HEADER = 2;
+
+    private static final String SPREADSHEET_NS = "http://schemas.openxmlformats.org/spreadsheetml/2006/main";
+    private static final String RELATIONSHIPS_NS = "http://schemas.openxmlformats.org/officeDocument/2006/relationships";
+    private static final String PACKAGE_RELATIONSHIPS_NS = "http://schemas.openxmlformats.org/package/2006/relationships";
+
+    private final ZipOutputStream zip;
+    private final Writer writer;
+    private final List<String> sheetNames = new ArrayList<>();
+
+    private String sheetName;
+    private String[] headers;
+    private String[] columnNames;
+    private int sheetPart = 0;
+    private int rowsInSheet = 0;
+    private boolean sheetOpen = false;
+
+    /**
+     * Creates a writer for a new workbook.
+     *
+     * @param out The stream to write the workbook to; closed by close().
+     */
+    public XlsxWriter(OutputStream out) {
+        this.zip = new ZipOutputStream(out, StandardCharsets.UTF_8);
+        // only flushed, never closed: entries are finished through zip
+        this.writer = new BufferedWriter(new OutputStreamWriter(zip, StandardCharsets.UTF_8), 64 * 1024);
+    }
+
+    /**
+     * Finishes the current sheet, if any, and starts a new one with a header row.
+     *
+     * @param name    The sheet name shown on the tab, at most 31 characters.
+     * @param headers The column headers.
+     */
+    public void startSheet(String name, String... headers) throws IOException {
+        if (name.isEmpty() || name.length() > MAX_SHEET_NAME_LENGTH || name.matches(".*[\\[\\]:*?/\\\\].*")) {
+            throw new IllegalArgumentException("Not a valid sheet name: " + name);
+        }
+        this.sheetName = name;
+        this.headers = headers.clone();
+        this.columnNames = new String[headers.length];
+        for (int i = 0; i < headers.length; i++) {
+            columnNames[i] = columnName(i);
+        }
+        this.sheetPart = 1;
+        openSheet(name);
+    }
+
+    /**
+     * Appends a row to the current sheet.
+     *
+     * @param values One value per column; fewer leave the last cells empty.
+     */
+    public void writeRow(Object... values) throws IOException {
+        if (!sheetOpen) {
+            throw new IllegalStateException("startSheet() has not been called");
+        }
+        if (values.length > columnNames.length) {
+            throw new IllegalArgumentException("Row has " + values.length + " values for "
+                    + columnNames.length + " columns");
+        }
+        if (rowsInSheet == MAX_ROWS_PER_SHEET) {
+            sheetPart++;
+            String suffix = " (" + sheetPart + ")";
+            openSheet(sheetName.substring(0, Math.min(sheetName.length(), MAX_SHEET_NAME_LENGTH - suffix.length()))
+                    + suffix);
+        }
+        writeCells(values, 0);
+    }
+
+    /**
+     * Finishes the last sheet, writes the workbook parts and closes the stream.
+     */
+    @Override
+    public void close() throws IOException {
+        try {
+            closeSheet();
+            writeEntry("xl/workbook.xml", workbook());
+            writeEntry("xl/_rels/workbook.xml.rels", workbookRelationships());
+            writeEntry("xl/styles.xml", STYLES);
+            writeEntry("_rels/.rels", PACKAGE_RELATIONSHIPS);
+            writeEntry("[Content_Types].xml", contentTypes());
+        } finally {
+            zip.close();
+        }
+    }
+
+    private void openSheet(String name) throws IOException {
+        closeSheet();
+        sheetNames.add(name);
+        zip.putNextEntry(new ZipEntry("xl/worksheets/sheet" + sheetNames.size() + ".xml"));
+        writer.write("<?xml version=\"1.0\" encoding=\"UTF-8\" standalone=\"yes\"?>\n");
+        writer.write("<worksheet xmlns=\"" + SPREADSHEET_NS + "\">");
+        writer.write("<sheetViews><sheetView workbookViewId=\"0\">"
+                + "<pane ySplit=\"1\" topLeftCell=\"A2\" activePane=\"bottomLeft\" state=\"frozen\"/>"
+                + "</sheetView></sheetViews>");
+        writer.write("<sheetData>");
+        sheetOpen = true;
+        rowsInSheet = 0;
+        writeCells(headers, STYLE_HEADER);
+    }
+
+    private void closeSheet() throws IOException {
+        if (!sheetOpen) {
+            return;
+        }
+        writer.write("</sheetData></worksheet>");
+        writer.flush();
+        zip.closeEntry();
+        sheetOpen = false;
+    }
+
+    private void writeCells(Object[] values, int style) throws IOException {
+        rowsInSheet++;
+        String row = Integer.toString(rowsInSheet);
+        writer.write("<row r=\"");
+        writer.write(row);
+        writer.write("\">");
+        for (int i = 0; i < values.length; i++) {
+            Object value = values[i];
+            if (value == null) {
+                continue;
+            }
+            writer.write("<c r=\"");
+            writer.write(columnNames[i]);
+            writer.write(row);
+            writer.write('"');
+            if (value instanceof LocalDate date) {
+                writer.write(" s=\"" + STYLE_DATE + "\"><v>");
+                writer.write(Long.toString(date.toEpochDay() - EXCEL_EPOCH_DAY));
+                writer.write("</v>");
+            } else if (value instanceof Number number) {
+                writeStyle(style);
+                writer.write("><v>");
+                writer.write(number.toString());
+                writer.write("</v>");
+            } else if (value instanceof Boolean bool) {
+                writeStyle(style);
+                writer.write(" t=\"b\"><v>");
+                writer.write(bool ? '1' : '0');
+                writer.write("</v>");
+            } else {
+                String text = value.toString();
+                writeStyle(style);
+                writer.write(" t=\"inlineStr\"><is><t");
+                if (!text.isEmpty() && (Character.isWhitespace(text.charAt(0))
+                        || Character.isWhitespace(text.charAt(text.length() - 1)))) {
+                    writer.write(" xml:space=\"preserve\"");
+                }
+                writer.write('>');
+                writeEscaped(text);
+                writer.write("</t></is>");
+            }
+            writer.write("</c>");
+        }
+        writer.write("</row>");
+    }
+
+    private void writeStyle(int style) throws IOException {
+        if (style != 0) {
+            writer.write(" s=\"" + style + "\"");
+        }
+    }
+
+    private void writeEscaped(String text) throws IOException {
+        for (int i = 0; i < text.length(); i++) {
+            char c = text.charAt(i);
+            switch (c) {
+                case '&' -> writer.write("&amp;");
+                case '<' -> writer.write("&lt;");
+                case '>' -> writer.write("&gt;");
+                case '"' -> writer.write("&quot;");
+                default -> {
+                    // XML 1.0 does not allow other control characters, even escaped
+                    if (c >= 0x20 || c == '\t' || c == '\n' || c == '\r') {
+                        writer.write(c);
+                    }
+                }
+            }
+        }
+    }
+
+    private void writeEntry(String name, String content) throws IOException {
+        zip.putNextEntry(new ZipEntry(name));
+        writer.write(content);
+        writer.flush();
+        zip.closeEntry();
+    }
+
+    private String workbook() {
+        StringBuilder sb = new StringBuilder();
+        sb.append("<?xml version=\"1.0\" encoding=\"UTF-8\" standalone=\"yes\"?>\n")
+                .append("<workbook xmlns=\"").append(SPREADSHEET_NS)
+                .append("\" xmlns:r=\"").append(RELATIONSHIPS_NS).append("\"><sheets>");
+        for (int i = 1; i <= sheetNames.size(); i++) {
+            sb.append("<sheet name=\"").append(escapeAttribute(sheetNames.get(i - 1)))
+                    .append("\" sheetId=\"").append(i).append("\" r:id=\"rId").append(i).append("\"/>");
+        }
+        return sb.append("</sheets></workbook>").toString();
+    }
+
+    private String workbookRelationships() {
+        StringBuilder sb = new StringBuilder();
+        sb.append("<?xml version=\"1.0\" encoding=\"UTF-8\" standalone=\"yes\"?>\n")
+                .append("<Relationships xmlns=\"").append(PACKAGE_RELATIONSHIPS_NS).append("\">");
+        for (int i = 1; i <= sheetNames.size(); i++) {
+            sb.append("<Relationship Id=\"rId").append(i)
+                    .append("\" Type=\"").append(RELATIONSHIPS_NS).append("/worksheet\" Target=\"worksheets/sheet")
+                    .append(i).append(".xml\"/>");
+        }
+        sb.append("<Relationship Id=\"rId").append(sheetNames.size() + 1)
+                .append("\" Type=\"").append(RELATIONSHIPS_NS).append("/styles\" Target=\"styles.xml\"/>");
+        return sb.append("</Relationships>").toString();
+    }
+
+    private String contentTypes() {
+        StringBuilder sb = new StringBuilder();
+        sb.append("<?xml version=\"1.0\" encoding=\"UTF-8\" standalone=\"yes\"?>\n")
+                .append("<Types xmlns=\"http://schemas.openxmlformats.org/package/2006/content-types\">")
+                .append("<Default Extension=\"rels\" ContentType=\"application/vnd.openxmlformats-package.relationships+xml\"/>")
+                .append("<Default Extension=\"xml\" ContentType=\"application/xml\"/>")
+                .append("<Override PartName=\"/xl/workbook.xml\" ContentType=\"application/vnd.openxmlformats-officedocument.spreadsheetml.sheet.main+xml\"/>")
+                .append("<Override PartName=\"/xl/styles.xml\" ContentType=\"application/vnd.openxmlformats-officedocument.spreadsheetml.styles+xml\"/>");
+        for (int i = 1; i <= sheetNames.size(); i++) {
+            sb.append("<Override PartName=\"/xl/worksheets/sheet").append(i)
+                    .append(".xml\" ContentType=\"application/vnd.openxmlformats-officedocument.spreadsheetml.worksheet+xml\"/>");
+        }
+        return sb.append("</Types>").toString();
+    }
+
+    private static String escapeAttribute(String text) {
+        return text.replace("&", "&amp;").replace("<", "&lt;").replace("\"", "&quot;");
+    }
+
+    /** A, B, ..., Z, AA, AB, ... */
+    private static String columnName(int index) {
+        StringBuilder sb = new StringBuilder();
+        for (int i = index + 1; i > 0; i = (i - 1) / 26) {
+            sb.insert(0, (char) ('A' + (i - 1) % 26));
+        }
+        return sb.toString();
+    }
+
+    private static final String PACKAGE_RELATIONSHIPS = "<?xml version=\"1.0\" encoding=\"UTF-8\" standalone=\"yes\"?>\n"
+            + "<Relationships xmlns=\"" + PACKAGE_RELATIONSHIPS_NS + "\">"
+            + "<Relationship Id=\"rId1\" Type=\"" + RELATIONSHIPS_NS + "/officeDocument\" Target=\"xl/workbook.xml\"/>"
+            + "</Relationships>";
+
+    // 0: default, 1: date, 2: bold header
+    private static final String STYLES = "<?xml version=\"1.0\" encoding=\"UTF-8\" standalone=\"yes\"?>\n"
+            + "<styleSheet xmlns=\"" + SPREADSHEET_NS + "\">"
+            + "<fonts count=\"2\"><font><sz val=\"11\"/><name val=\"Calibri\"/></font>"
+            + "<font><b/><sz val=\"11\"/><name val=\"Calibri\"/></font></fonts>"
+            + "<fills count=\"2\"><fill><patternFill patternType=\"none\"/></fill>"
+            + "<fill><patternFill patternType=\"gray125\"/></fill></fills>"
+            + "<borders count=\"1\"><border><left/><right/><top/><bottom/><diagonal/></border></borders>"
+            + "<cellStyleXfs count=\"1\"><xf numFmtId=\"0\" fontId=\"0\" fillId=\"0\" borderId=\"0\"/></cellStyleXfs>"
+            + "<cellXfs count=\"3\"><xf numFmtId=\"0\" fontId=\"0\" fillId=\"0\" borderId=\"0\" xfId=\"0\"/>"
+            + "<xf numFmtId=\"14\" fontId=\"0\" fillId=\"0\" borderId=\"0\" xfId=\"0\" applyNumberFormat=\"1\"/>"
+            + "<xf numFmtId=\"0\" fontId=\"1\" fillId=\"0\" borderId=\"0\" xfId=\"0\" applyFont=\"1\"/></cellXfs>"
+            + "<cellStyles count=\"1\"><cellStyle name=\"Normal\" xfId=\"0\" builtinId=\"0\"/></cellStyles>"
+            + "</styleSheet>";
+}
@@ -0,0 +1,161 @@
+package com.dropalltables.util;
+
+import java.util.concurrent.CancellationException;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CompletionException;
+import java.util.concurrent.ExecutionException;
+import java.util.function.Consumer;
+
+import com.dropalltables.data.AsyncDao;
+import com.dropalltables.data.AsyncDao.DaoAction;
+import com.dropalltables.data.AsyncDao.DaoCall;
+import com.dropalltables.data.DaoException;
+import com.dropalltables.data.QueryCancelledException;
+import com.dropalltables.data.UncheckedDaoException;
+
+import javafx.application.Platform;
+import javafx.beans.property.ReadOnlyBooleanProperty;
+import javafx.beans.property.ReadOnlyBooleanWrapper;
+
+/**
+ * Runs DAO calls for one view without blocking the JavaFX Application Thread.
+ *
+ * The call runs on a virtual thread (see AsyncDao); its result is handed to
+ * the success callback on the FX thread. Failures go to the failure callback,
+ * or by default to an error alert with the DaoException's message. Cancelled
+ * queries are not reported. While any call started through this helper is
+ * running, busyProperty() is true, so views can bind a progress indicator to
+ * it.
+ *
+ * All methods must be called on the FX thread.
+ */
+public class FxAsync {
+    private final AsyncDao asyncDao;
+    private final ReadOnlyBooleanWrapper busy = new ReadOnlyBooleanWrapper(false);
+    private int running = 0;
+
+    public FxAsync(AsyncDao asyncDao) {
+        this.asyncDao = asyncDao;
+    }
+
+    /**
+     * Runs a DAO call and passes its result to onSuccess on the FX thread.
+     * Errors are shown in an error alert.
+     *
+     * @return The future of the DAO call.
+     */
+    public <T> CompletableFuture<T> supply(DaoCall<T> call, Consumer<? super T> onSuccess) {
+        return supply(call, onSuccess, FxAsync::showError);
+    }
+
+    /**
+     * Runs a DAO call and passes its result to onSuccess, or the error to
+     * onFailure, on the FX thread.
+     *
+     * @return The future of the DAO call.
+     */
+    public <T> CompletableFuture<T> supply(DaoCall<T> call, Consumer<? super T> onSuccess,
+            Consumer<Throwable> onFailure) {
+        return handle(asyncDao.supply(call), onSuccess, onFailure);
+    }
+
+    /**
+     * Runs a DAO call without a result and then onSuccess on the FX thread.
+     * Errors are shown in an error alert.
+     *
+     * @return The future of the DAO call.
+     */
+    public CompletableFuture<Void> run(DaoAction action, Runnable onSuccess) {
+        return run(action, onSuccess, FxAsync::showError);
+    }
+
+    /**
+     * Runs a DAO call without a result and then onSuccess, or onFailure with
+     * the error, on the FX thread.
+     *
+     * @return The future of the DAO call.
+     */
+    public CompletableFuture<Void> run(DaoAction action, Runnable onSuccess, Consumer<Throwable> onFailure) {
+        return handle(asyncDao.run(action), result -> onSuccess.run(), onFailure);
+    }
+
+    /**
+     * Hands the outcome of any future to the FX thread and counts it as busy
+     * until it completes.
+     *
+     * @return The given future.
+     */
+    public <T> CompletableFuture<T> handle(CompletableFuture<T> future, Consumer<? super T> onSuccess,
+            Consumer<Throwable> onFailure) {
+        running++;
+        busy.set(true);
+        future.whenComplete((result, error) -> Platform.runLater(() -> {
+            running--;
+            busy.set(running > 0);
+            if (error == null) {
+                onSuccess.accept(result);
+            } else {
+                onFailure.accept(unwrap(error));
+            }
+        }));
+        return future;
+    }
+
+    /**
+     * True while a call started through this helper is running.
+     */
+    public ReadOnlyBooleanProperty busyProperty() {
+        return busy.getReadOnlyProperty();
+    }
+
+    public boolean isBusy() {
+        return busy.get();
+    }
+
+    /**
+     * Shows an error alert for a failed DAO call. DaoException messages are
+     * written for users and shown as they are; cancelled queries are ignored.
+     *
+     * @param error The failure, as passed to a failure callback.
+     */
+    public static void showError(Throwable error) {
+        if (isCancellation(error)) {
+            return;
+        }
+        AlertUtil.showError("Error", messageOf(error));
+    }
+
+    /**
+     * Returns the message to show for a failure.
+     */
+    public static String messageOf(Throwable error) {
+        Throwable cause = unwrap(error);
+        if (cause instanceof DaoException) {
+            return cause.getMessage();
+        }
+        return "An unexpected error occurred. Please try again.";
+    }
+
+    /**
+     * True if the failure only means the call was cancelled.
+     */
+    public static boolean isCancellation(Throwable error) {
+        Throwable cause = unwrap(error);
+        return cause instanceof QueryCancelledException
+                || cause instanceof CancellationException;
+    }
+
+    /**
+     * Strips the wrappers CompletableFuture puts around the exception a DAO
+     * call threw, including UncheckedDaoException from streaming reads.
+     */
+    public static Throwable unwrap(Throwable error) {
+        Throwable cause = error;
+        while ((cause instanceof CompletionException || cause instanceof ExecutionException
+                || cause instanceof UncheckedDaoException)
+                && cause.getCause() != null) {
+            cause = cause.getCause();
+        }
+        return cause;
+    }
+}
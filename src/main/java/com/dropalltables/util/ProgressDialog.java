@@ -0,0 +1,60 @@
+package com.dropalltables.util;
+
+import javafx.application.Platform;
+import javafx.scene.control.Alert;
+import javafx.scene.control.Alert.AlertType;
+import javafx.scene.control.ButtonType;
+import javafx.scene.control.Label;
+import javafx.scene.control.ProgressBar;
+import javafx.scene.layout.VBox;
+
+/**
+ * A non-modal dialog with a progress bar, a status line and a Cancel button,
+ * for long operations such as imports and exports that run through FxAsync.
+ *
+ * Cancel and closing the window both run the cancel action, which normally
+ * cancels the operation's CancellationToken. Closing the dialog when the
+ * operation has finished runs it as well, which is harmless for a token.
+ */
+public class ProgressDialog {
+    private final Alert alert = new Alert(AlertType.NONE);
+    private final ProgressBar progressBar = new ProgressBar(ProgressBar.INDETERMINATE_PROGRESS);
+    private final Label status = new Label();
+
+    /**
+     * Must be called on the FX thread.
+     *
+     * @param title    The window title.
+     * @param header   What is being done, e.g. the file name.
+     * @param onCancel Runs when the user cancels or closes the dialog.
+     */
+    public ProgressDialog(String title, String header, Runnable onCancel) {
+        progressBar.setPrefWidth(320);
+        alert.setTitle(title);
+        alert.setHeaderText(header);
+        alert.getDialogPane().setContent(new VBox(8, progressBar, status));
+        alert.getButtonTypes().setAll(ButtonType.CANCEL);
+        alert.setOnHidden(e -> onCancel.run());
+    }
+
+    public void show() {
+        alert.show();
+    }
+
+    public void close() {
+        alert.close();
+    }
+
+    /**
+     * Updates the dialog from any thread.
+     *
+     * @param progress The part done, from 0 to 1, or a negative value if unknown.
+     * @param text     The status line.
+     */
+    public void update(double progress, String text) {
+        Platform.runLater(() -> {
+            progressBar.setProgress(progress >= 0 ? Math.min(1.0, progress) : ProgressBar.INDETERMINATE_PROGRESS);
+            status.setText(text);
+        });
+    }
+}
@@ -0,0 +1,41 @@
+package com.dropalltables.util;
+
+import javafx.geometry.Orientation;
+import javafx.scene.Node;
+import javafx.scene.control.ScrollBar;
+import javafx.scene.control.TableView;
+
+public class ScrollUtil {
+
+    /**
+     * Runs an action whenever a table is scrolled to its last row, e.g. to load
+     * the next page of a paginated listing. The table's scroll bar only exists
+     * once the table has a skin, so the listener is attached when it gets one.
+     *
+     * @param table  The table to watch.
+     * @param action The action to run on the JavaFX Application Thread.
+     */
+    public static void onScrolledToEnd(TableView<?> table, Runnable action) {
+        if (table.getSkin() != null) {
+            attach(table, action);
+        } else {
+            table.skinProperty().addListener((obs, oldSkin, newSkin) -> {
+                if (oldSkin == null && newSkin != null) {
+                    attach(table, action);
+                }
+            });
+        }
+    }
+
+    private static void attach(TableView<?> table, Runnable action) {
+        for (Node node : table.lookupAll(".scroll-bar")) {
+            if (node instanceof ScrollBar bar && bar.getOrientation() == Orientation.VERTICAL) {
+                bar.valueProperty().addListener((obs, o, n) -> {
+                    if (n.doubleValue() >= bar.getMax()) {
+                        action.run();
+                    }
+                });
+            }
+        }
+    }
+}
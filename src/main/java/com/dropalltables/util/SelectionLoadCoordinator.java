@@ -0,0 +1,103 @@
+package com.dropalltables.util;
+
+import java.util.function.BiConsumer;
+
+import com.dropalltables.data.CancellationToken;
+
+import javafx.animation.Animation;
+import javafx.animation.PauseTransition;
+import javafx.beans.value.ObservableValue;
+import javafx.util.Duration;
+
+/**
+ * Loads details for the selected row of a table, latest selection wins.
+ *
+ * The first selection change loads at once. Further changes within the quiet
+ * period (e.g. while an arrow key is held down) only remember the row; when
+ * the selection has rested for the quiet period, the row selected last is
+ * loaded. Starting a load cancels the previous one through its
+ * CancellationToken, which stops its statements on the server, and
+ * isCurrent(token) tells the loader whether its results are still wanted.
+ *
+ * All methods must be called on the FX thread.
+ *
+ * @param <T> The type of the table rows.
+ */
+public class SelectionLoadCoordinator<T> {
+    private final BiConsumer<T, CancellationToken> loader;
+    private final Runnable onCleared;
+    private final PauseTransition quietPeriod;
+
+    private T pending;
+    private CancellationToken current;
+
+    /**
+     * Constructor for SelectionLoadCoordinator.
+     *
+     * @param quietPeriod How long the selection must rest before another load.
+     * @param loader      Starts loading the details of a row; receives the
+     *                    token that cancels the load.
+     * @param onCleared   Called when the selection is cleared.
+     */
+    public SelectionLoadCoordinator(Duration quietPeriod, BiConsumer<T, CancellationToken> loader,
+            Runnable onCleared) {
+        this.loader = loader;
+        this.onCleared = onCleared;
+        this.quietPeriod = new PauseTransition(quietPeriod);
+        this.quietPeriod.setOnFinished(e -> {
+            if (pending != null) {
+                T item = pending;
+                pending = null;
+                startLoad(item);
+            }
+        });
+    }
+
+    /**
+     * Follows a selected-item property, e.g. of a table's selection model.
+     */
+    public void attach(ObservableValue<? extends T> selectedItem) {
+        selectedItem.addListener((obs, oldItem, newItem) -> select(newItem));
+    }
+
+    /**
+     * Reports a new selection, null when the selection was cleared.
+     */
+    public void select(T item) {
+        cancel();
+        if (item == null) {
+            quietPeriod.stop();
+            onCleared.run();
+            return;
+        }
+        if (quietPeriod.getStatus() == Animation.Status.RUNNING) {
+            pending = item;
+        } else {
+            startLoad(item);
+        }
+        quietPeriod.playFromStart();
+    }
+
+    /**
+     * True if results loaded with this token are for the current selection.
+     */
+    public boolean isCurrent(CancellationToken token) {
+        return token == current && !token.isCancelled();
+    }
+
+    /**
+     * Cancels the running load and forgets a selection that was not loaded yet.
+     */
+    public void cancel() {
+        pending = null;
+        if (current != null) {
+            current.cancel();
+            current = null;
+        }
+    }
+
+    private void startLoad(T item) {
+        current = new CancellationToken();
+        loader.accept(item, current);
+    }
+}
@@ -5,6 +5,7 @@ module db.dropalltables {
     requires transitive javafx.graphics;
     requires java.sql;
     requires java.desktop;
+    requires java.xml;
 
     exports com.dropalltables;
     exports com.dropalltables.controllers;
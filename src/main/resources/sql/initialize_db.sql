@@ -1,3 +1,20 @@
+-- =========================================================
+-- Resets a development database to the test data below.
+--
+-- This script deletes all data. Schema changes go into versioned scripts
+-- in sql/migrations instead; the application applies the missing ones at
+-- startup and records them in Schema_Version, keeping existing data.
+-- Dropping Schema_Version here makes the next start apply every
+-- migration again on top of these tables (views, indexes, ...).
+-- =========================================================
+
+-- =========================================================
+-- DROP VIEWS (schema-bound views block dropping their tables)
+-- =========================================================
+DROP VIEW IF EXISTS ProjectTotals;
+
+DROP VIEW IF EXISTS ConsultantTotals;
+
 -- =========================================================
 -- DROP TABLES (order matters: drop children first)
 -- =========================================================
@@ -9,6 +26,8 @@ DROP TABLE IF EXISTS Consultant;
 
 DROP TABLE IF EXISTS Project;
 
+DROP TABLE IF EXISTS Schema_Version;
+
 -- =========================================================
 -- CREATE TABLES
 -- =========================================================
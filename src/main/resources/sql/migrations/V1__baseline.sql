@@ -0,0 +1,50 @@
+-- =========================================================
+-- V1: baseline schema
+--
+-- The tables as created by initialize_db.sql before the schema was
+-- versioned. Every table is only created if it is missing, so databases
+-- set up with initialize_db.sql adopt this version with their data.
+-- =========================================================
+IF OBJECT_ID(N'dbo.Consultant', N'U') IS NULL
+CREATE TABLE Consultant (
+    ConsultantID INT IDENTITY(1, 1),
+    ConsultantNo INT NOT NULL,
+    ConsultantName VARCHAR(255) NOT NULL,
+    Title VARCHAR(255) NOT NULL,
+    CONSTRAINT PK_Consultant_ConsultantID PRIMARY KEY (ConsultantID),
+    CONSTRAINT UQ_Consultant_ConsultantNo UNIQUE (ConsultantNo)
+);
+
+IF OBJECT_ID(N'dbo.Project', N'U') IS NULL
+CREATE TABLE Project (
+    ProjectID INT IDENTITY(1, 1),
+    ProjectNo INT NOT NULL,
+    ProjectName VARCHAR(255) NOT NULL,
+    StartDate DATETIME NOT NULL,
+    EndDate DATETIME NULL,
+    CONSTRAINT PK_Project_ProjectID PRIMARY KEY (ProjectID),
+    CONSTRAINT UQ_Project_ProjectNo UNIQUE (ProjectNo)
+);
+
+IF OBJECT_ID(N'dbo.Milestone', N'U') IS NULL
+CREATE TABLE Milestone (
+    MilestoneID INT IDENTITY(1, 1),
+    MilestoneNo INT NOT NULL,
+    MilestoneName VARCHAR(255) NOT NULL,
+    MilestoneDate DATETIME NOT NULL,
+    ProjectID INT NOT NULL,
+    CONSTRAINT PK_Milestone_MilestoneID PRIMARY KEY (MilestoneID),
+    CONSTRAINT UQ_Milestone_MilestoneNo UNIQUE (MilestoneNo),
+    CONSTRAINT CK_Milestone_Date CHECK (MilestoneDate >= '2022-01-01'),
+    CONSTRAINT FK_Milestone_ProjectID FOREIGN KEY (ProjectID) REFERENCES Project(ProjectID) ON DELETE CASCADE
+);
+
+IF OBJECT_ID(N'dbo.Project_Assignment', N'U') IS NULL
+CREATE TABLE Project_Assignment (
+    ProjectID INT NOT NULL,
+    ConsultantID INT NOT NULL,
+    HoursWorked INT NOT NULL CHECK (HoursWorked >= 0),
+    CONSTRAINT PK_Project_Assignment PRIMARY KEY (ProjectID, ConsultantID),
+    CONSTRAINT FK_PA_Project FOREIGN KEY (ProjectID) REFERENCES Project(ProjectID) ON DELETE CASCADE,
+    CONSTRAINT FK_PA_Consultant FOREIGN KEY (ConsultantID) REFERENCES Consultant(ConsultantID) ON DELETE CASCADE
+);
@@ -0,0 +1,62 @@
+-- =========================================================
+-- V2: indexed views for per-consultant and per-project aggregates
+--
+-- SQL Server maintains the views on every change to Project_Assignment,
+-- so total hours, project counts and team sizes are read with a seek on
+-- the view's clustered index instead of a scan of the assignments.
+-- The application checks for the views at startup and falls back to
+-- aggregating Project_Assignment when they are missing.
+--
+-- The clustered indexes materialize the aggregated rows, so creating
+-- them scans Project_Assignment once and takes a lock on it until the
+-- rows are built. The views are dropped first because neither view nor
+-- index can be created when it already exists, and ALTER VIEW would drop
+-- the indexes anyway; the rows are derived from Project_Assignment, so
+-- rebuilding them loses nothing.
+-- =========================================================
+SET ANSI_NULLS ON;
+SET QUOTED_IDENTIFIER ON;
+GO
+
+DROP VIEW IF EXISTS dbo.ProjectTotals;
+
+DROP VIEW IF EXISTS dbo.ConsultantTotals;
+GO
+
+-- Hours and number of projects per consultant
+CREATE VIEW dbo.ConsultantTotals
+WITH SCHEMABINDING
+AS
+SELECT
+    ConsultantID,
+    SUM(HoursWorked) AS TotalHours,
+    COUNT_BIG(*) AS ProjectCount
+FROM
+    dbo.Project_Assignment
+GROUP BY
+    ConsultantID;
+GO
+
+CREATE UNIQUE CLUSTERED INDEX IX_ConsultantTotals ON dbo.ConsultantTotals (ConsultantID);
+
+CREATE INDEX IX_ConsultantTotals_TotalHours ON dbo.ConsultantTotals (TotalHours);
+GO
+
+-- Hours and team size per project
+CREATE VIEW dbo.ProjectTotals
+WITH SCHEMABINDING
+AS
+SELECT
+    ProjectID,
+    SUM(HoursWorked) AS TotalHours,
+    COUNT_BIG(*) AS TeamSize
+FROM
+    dbo.Project_Assignment
+GROUP BY
+    ProjectID;
+GO
+
+CREATE UNIQUE CLUSTERED INDEX IX_ProjectTotals ON dbo.ProjectTotals (ProjectID);
+
+CREATE INDEX IX_ProjectTotals_TeamSize ON dbo.ProjectTotals (TeamSize);
+GO
@@ -0,0 +1,39 @@
+-- =========================================================
+-- V3: indexes for the DAO access paths
+--
+-- The primary keys only serve lookups by ProjectID (assignments) and by
+-- MilestoneID (milestones). These indexes cover the other frequent reads.
+-- Each index is only created if it is missing.
+-- =========================================================
+SET ANSI_NULLS ON;
+SET QUOTED_IDENTIFIER ON;
+GO
+
+-- Assignments and hour totals of one consultant. ProjectID comes along as
+-- the clustered key, so the index covers the whole row.
+IF NOT EXISTS (SELECT 1 FROM sys.indexes
+               WHERE name = N'IX_Project_Assignment_ConsultantID'
+                 AND object_id = OBJECT_ID(N'dbo.Project_Assignment'))
+CREATE INDEX IX_Project_Assignment_ConsultantID
+    ON dbo.Project_Assignment (ConsultantID)
+    INCLUDE (HoursWorked);
+
+-- Milestones of one project, already in the order they are listed in
+IF NOT EXISTS (SELECT 1 FROM sys.indexes
+               WHERE name = N'IX_Milestone_ProjectID_MilestoneDate'
+                 AND object_id = OBJECT_ID(N'dbo.Milestone'))
+CREATE INDEX IX_Milestone_ProjectID_MilestoneDate
+    ON dbo.Milestone (ProjectID, MilestoneDate)
+    INCLUDE (MilestoneNo, MilestoneName);
+
+-- Active projects only, e.g. for the capacity counters and the
+-- "active only" project filter. The page selects every column of Project,
+-- so the filter column is included as well to cover it.
+IF NOT EXISTS (SELECT 1 FROM sys.indexes
+               WHERE name = N'IX_Project_Active'
+                 AND object_id = OBJECT_ID(N'dbo.Project'))
+CREATE INDEX IX_Project_Active
+    ON dbo.Project (ProjectNo)
+    INCLUDE (ProjectName, StartDate, EndDate)
+    WHERE EndDate IS NULL;
+GO